@@ -0,0 +1,203 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.core.collection;
+
+import java.util.Arrays;
+
+/**
+ * An unordered map with primitive long keys, backed by open addressing with linear probing.
+ * No boxing takes place on put, get or remove, and no objects are allocated unless the map grows.
+ * Null values are not allowed (null is used to mark an empty slot).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class LongMap<V> {
+
+    private long[] keys;
+    private V[] values;
+
+    private int size;
+    private int mask;
+    private int threshold;
+
+    /**
+     * Creates a map with initial capacity of 32.
+     */
+    public LongMap() {
+        this(32);
+    }
+
+    /**
+     * @param initialCapacity number of entries the map can hold before growing
+     */
+    public LongMap(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Capacity must be >= 0: " + initialCapacity);
+
+        // keep load factor at most 0.5 to keep probe sequences short
+        int capacity = Integer.highestOneBit(Math.max(4, initialCapacity * 2 - 1)) << 1;
+
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @return value mapped to given key or null if no such mapping exists
+     */
+    public V get(long key) {
+        int i = place(key);
+
+        while (true) {
+            V value = values[i];
+
+            if (value == null)
+                return null;
+
+            if (keys[i] == key)
+                return value;
+
+            i = (i + 1) & mask;
+        }
+    }
+
+    public boolean containsKey(long key) {
+        return get(key) != null;
+    }
+
+    /**
+     * Maps given key to given non-null value.
+     *
+     * @return previous value mapped to key or null if there was none
+     */
+    public V put(long key, V value) {
+        if (value == null)
+            throw new IllegalArgumentException("Null values are not allowed");
+
+        int i = place(key);
+
+        while (true) {
+            V old = values[i];
+
+            if (old == null) {
+                keys[i] = key;
+                values[i] = value;
+
+                if (++size > threshold)
+                    resize(values.length << 1);
+
+                return null;
+            }
+
+            if (keys[i] == key) {
+                values[i] = value;
+                return old;
+            }
+
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * @return removed value or null if key was not present
+     */
+    public V remove(long key) {
+        int i = place(key);
+
+        while (true) {
+            V value = values[i];
+
+            if (value == null)
+                return null;
+
+            if (keys[i] == key) {
+                values[i] = null;
+                size--;
+                shiftBack(i);
+                return value;
+            }
+
+            i = (i + 1) & mask;
+        }
+    }
+
+    /**
+     * Removes all mappings.
+     * The backing storage is kept, so refilling the map does not allocate.
+     */
+    public void clear() {
+        if (size == 0)
+            return;
+
+        Arrays.fill(values, null);
+        size = 0;
+    }
+
+    /**
+     * Backward shift deletion: moves entries following the freed slot
+     * so that no probe sequence is broken by the gap.
+     */
+    private void shiftBack(int free) {
+        int i = (free + 1) & mask;
+
+        while (values[i] != null) {
+            int ideal = place(keys[i]);
+
+            // can the entry at i be moved into the free slot?
+            // true if the free slot lies cyclically in [ideal, i)
+            if (((i - ideal) & mask) >= ((i - free) & mask)) {
+                keys[free] = keys[i];
+                values[free] = values[i];
+                values[i] = null;
+                free = i;
+            }
+
+            i = (i + 1) & mask;
+        }
+    }
+
+    private int place(long key) {
+        // fibonacci hashing spreads packed coordinates and sequential ids well
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = (V[]) new Object[capacity];
+        mask = capacity - 1;
+        threshold = capacity >>> 1;
+    }
+
+    private void resize(int newCapacity) {
+        long[] oldKeys = keys;
+        V[] oldValues = values;
+
+        allocate(newCapacity);
+        size = 0;
+
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    /**
+     * Packs two ints (e.g. grid cell coordinates) into a single long key.
+     */
+    public static long key(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.core.collection
+
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.CoreMatchers.nullValue
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.*
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class LongMapTest {
+
+    private lateinit var map: LongMap<String>
+
+    @BeforeEach
+    fun setUp() {
+        map = LongMap(4)
+    }
+
+    @Test
+    fun `Map operations`() {
+        map.put(5L, "five")
+        map.put(-5L, "minus five")
+        map.put(0L, "zero")
+
+        assertThat(map.size(), `is`(3))
+        assertThat(map.get(5L), `is`("five"))
+        assertThat(map.get(-5L), `is`("minus five"))
+        assertThat(map.get(0L), `is`("zero"))
+        assertThat(map.get(1L), nullValue())
+
+        assertThat(map.put(5L, "5"), `is`("five"))
+        assertThat(map.get(5L), `is`("5"))
+        assertThat(map.size(), `is`(3))
+
+        assertThat(map.remove(5L), `is`("5"))
+        assertThat(map.remove(5L), nullValue())
+        assertThat(map.containsKey(5L), `is`(false))
+        assertThat(map.size(), `is`(2))
+
+        map.clear()
+
+        assertThat(map.isEmpty, `is`(true))
+        assertThat(map.get(0L), nullValue())
+    }
+
+    @Test
+    fun `Packed keys are unique`() {
+        assertThat(LongMap.key(1, 2) == LongMap.key(2, 1), `is`(false))
+        assertThat(LongMap.key(-1, 0) == LongMap.key(0, -1), `is`(false))
+        assertThat(LongMap.key(0, -1) == LongMap.key(0, Int.MAX_VALUE), `is`(false))
+    }
+
+    @Test
+    fun `Behaves like HashMap under random operations`() {
+        val random = Random(15L)
+        val expected = hashMapOf<Long, String>()
+
+        repeat(50000) {
+            val key = LongMap.key(random.nextInt(40) - 20, random.nextInt(40) - 20)
+
+            when (random.nextInt(3)) {
+                0 -> assertThat(map.put(key, "$it"), `is`(expected.put(key, "$it")))
+                1 -> assertThat(map.remove(key), `is`(expected.remove(key)))
+                else -> assertThat(map.get(key), `is`(expected[key]))
+            }
+
+            assertThat(map.size(), `is`(expected.size))
+        }
+    }
+
+    @Test
+    fun `Throw if value is null`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            map.put(1L, null)
+        }
+    }
+}
@@ -49,8 +49,12 @@ import static com.almasb.fxgl.core.reflect.ReflectionUtils.*;
  */
 public class Entity implements Animatable, Copyable<Entity> {
 
+    /**
+     * Components are stored in an array indexed by {@link ComponentTypes#idOf(Class)},
+     * so that a lookup by type is an array read rather than a hash lookup.
+     */
     private static class ComponentMap {
-        private Map<Class<? extends Component>, Component> components = new HashMap<>();
+        private Component[] components = new Component[Math.max(16, ComponentTypes.count())];
         private List<Component> componentList = new ArrayList<>();
 
         void update(double tpf) {
@@ -63,25 +67,55 @@ public class Entity implements Animatable, Copyable<Entity> {
         }
 
         <T extends Component> boolean has(Class<T> type) {
-            return components.containsKey(type);
+            return has(ComponentTypes.idOf(type));
+        }
+
+        boolean has(int typeID) {
+            return get(typeID) != null;
         }
 
         void add(Component c) {
-            components.put(c.getClass(), c);
+            int typeID = ComponentTypes.idOf(c.getClass());
+
+            if (typeID >= components.length) {
+                components = Arrays.copyOf(components, Math.max(typeID + 1, components.length * 2));
+            }
+
+            components[typeID] = c;
             componentList.add(c);
         }
 
         void remove(Class<? extends Component> type) {
-            var c = components.remove(type);
-            componentList.remove(c);
+            int typeID = ComponentTypes.idOf(type);
+
+            var c = get(typeID);
+            if (c != null) {
+                components[typeID] = null;
+
+                // by identity, since components may override equals()
+                for (int i = 0; i < componentList.size(); i++) {
+                    if (componentList.get(i) == c) {
+                        componentList.remove(i);
+                        break;
+                    }
+                }
+            }
         }
 
         <T extends Component> Component get(Class<T> type) {
-            return components.get(type);
+            return get(ComponentTypes.idOf(type));
         }
 
-        Set<Class<? extends Component>> types() {
-            return components.keySet();
+        Component get(int typeID) {
+            return typeID >= 0 && typeID < components.length ? components[typeID] : null;
+        }
+
+        List<Class<? extends Component>> types() {
+            List<Class<? extends Component>> types = new ArrayList<>(componentList.size());
+            for (int i = 0; i < componentList.size(); i++) {
+                types.add(componentList.get(i).getClass());
+            }
+            return types;
         }
 
         List<Component> getAll() {
@@ -89,7 +123,7 @@ public class Entity implements Animatable, Copyable<Entity> {
         }
 
         void clear() {
-            components.clear();
+            Arrays.fill(components, null);
             componentList.clear();
         }
     }
@@ -344,6 +378,16 @@ public class Entity implements Animatable, Copyable<Entity> {
         return components.has(type);
     }
 
+    /**
+     * A faster version of {@link #hasComponent(Class)} for use in hot code.
+     *
+     * @param typeID component type id, as given by {@link ComponentTypes#idOf(Class)}
+     * @return true iff entity has a component of given type
+     */
+    public final boolean hasComponent(int typeID) {
+        return components.has(typeID);
+    }
+
     /**
      * Returns component of given type, or {@link Optional#empty()}
      * if entity has no such component.
@@ -369,6 +413,33 @@ public class Entity implements Animatable, Copyable<Entity> {
         return type.cast(component);
     }
 
+    /**
+     * A faster version of {@link #getComponent(Class)} for use in hot code.
+     * The caller is responsible for ensuring that T matches the component type of given id.
+     *
+     * @param typeID component type id, as given by {@link ComponentTypes#idOf(Class)}
+     * @return component of given type or throws exception if entity has no such component
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Component> T getComponent(int typeID) {
+        Component component = components.get(typeID);
+
+        if (component == null) {
+            throw new IllegalArgumentException("Component with type id " + typeID + " not found!");
+        }
+
+        return (T) component;
+    }
+
+    /**
+     * @param typeID component type id, as given by {@link ComponentTypes#idOf(Class)}
+     * @return component of given type or null if entity has no such component
+     */
+    @SuppressWarnings("unchecked")
+    public final <T extends Component> T getComponentOrNull(int typeID) {
+        return (T) components.get(typeID);
+    }
+
     /**
      * @return a new list containing all components of this entity
      */
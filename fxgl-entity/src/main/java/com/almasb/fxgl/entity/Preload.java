@@ -12,6 +12,14 @@ import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 
 /**
+ * Marks a {@link Spawns} method whose entities are created in advance and put into the entity pool,
+ * so that spawning them during gameplay does not call the factory.
+ * A preloaded entity is created with spawn data at 0, 0, so only the position of
+ * spawn data given to spawn() is applied to it. Spawn data with any other values
+ * is always passed to the factory, so preloading suits factories that only depend on position.
+ * If the factory throws when called without such values, the entity is not preloaded.
+ * Preloaded entities are typically also reusable, so that they return to the pool when removed.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 @Retention(RetentionPolicy.RUNTIME)
@@ -22,4 +30,9 @@ public @interface Preload {
      * @return the number of preloaded entities of given type
      */
     int value();
+
+    /**
+     * @return max number of pooled entities of given type, or -1 to use the pool default
+     */
+    int capacity() default -1;
 }
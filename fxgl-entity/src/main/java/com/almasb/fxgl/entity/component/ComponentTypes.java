@@ -0,0 +1,52 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Global registry that assigns each component class a small int id (0, 1, 2, ...) on first use.
+ * Entities store components in arrays indexed by these ids, so
+ * {@code entity.getComponent(id)} and {@code entity.hasComponent(id)} are plain array reads.
+ * Ids are stable for the lifetime of the application and are safe to cache in static fields:
+ *
+ * <pre>
+ *     private static final int HEALTH_ID = ComponentTypes.idOf(HealthComponent.class);
+ *     ...
+ *     HealthComponent hp = entity.getComponent(HEALTH_ID);
+ * </pre>
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class ComponentTypes {
+
+    private static final AtomicInteger nextID = new AtomicInteger(0);
+
+    private static final ClassValue<Integer> ids = new ClassValue<>() {
+        @Override
+        protected Integer computeValue(Class<?> type) {
+            return nextID.getAndIncrement();
+        }
+    };
+
+    private ComponentTypes() { }
+
+    /**
+     * @param type component class
+     * @return id of given component class
+     */
+    public static int idOf(Class<? extends Component> type) {
+        return ids.get(type);
+    }
+
+    /**
+     * @return number of component classes that have an id so far
+     */
+    public static int count() {
+        return nextID.get();
+    }
+}
@@ -0,0 +1,480 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+package com.almasb.fxgl.particle;
+
+import javafx.animation.Interpolator;
+import javafx.geometry.Point2D;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.image.Image;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.util.Duration;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Particles stored in primitive arrays (one array per attribute), so that thousands of particles
+ * can be updated without per particle objects and drawn in a single pass onto a canvas.
+ * Behaves the same as {@link Particle}, except that {@link ParticleEmitter#getControl()}
+ * and {@link ParticleEmitter#getOnRemoveFunction()} are not used, since there are no particle objects.
+ * Colors are kept as packed ARGB ints.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public final class ParticleBuffer {
+
+    private static final int COLOR_CACHE_SIZE = 1024;
+
+    private int size = 0;
+
+    private double[] startX;
+    private double[] startY;
+    private double[] velocityX;
+    private double[] velocityY;
+    private double[] accelerationX;
+    private double[] accelerationY;
+    private double[] radiusX;
+    private double[] radiusY;
+    private double[] scaleX;
+    private double[] scaleY;
+    private double[] scaleOriginX;
+    private double[] scaleOriginY;
+    private double[] entityScaleX;
+    private double[] entityScaleY;
+    private double[] initialLife;
+    private double[] life;
+
+    private int[] startColor;
+    private int[] endColor;
+
+    private Interpolator[] interpolator;
+    private Function<Double, Point2D>[] equation;
+    private Image[] image;
+    private boolean[] allowRotation;
+
+    // computed by update() for rendering
+
+    private double[] positionX;
+    private double[] positionY;
+    private double[] layoutX;
+    private double[] layoutY;
+    private double[] rotation;
+    private double[] opacity;
+    private int[] color;
+
+    private double minX;
+    private double minY;
+    private double maxX;
+    private double maxY;
+
+    private final int[] colorCacheKeys = new int[COLOR_CACHE_SIZE];
+    private final Color[] colorCache = new Color[COLOR_CACHE_SIZE];
+
+    public ParticleBuffer() {
+        this(256);
+    }
+
+    public ParticleBuffer(int initialCapacity) {
+        if (initialCapacity <= 0)
+            throw new IllegalArgumentException("Capacity must be > 0: " + initialCapacity);
+
+        allocate(initialCapacity);
+    }
+
+    /**
+     * @return number of alive particles
+     */
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return life.length;
+    }
+
+    /**
+     * @return min x of the area covered by particles after the last update
+     */
+    public double getMinX() {
+        return minX;
+    }
+
+    public double getMinY() {
+        return minY;
+    }
+
+    public double getMaxX() {
+        return maxX;
+    }
+
+    public double getMaxY() {
+        return maxY;
+    }
+
+    /**
+     * @return x of particle with given index (0 until size) after the last update
+     */
+    public double getX(int index) {
+        return positionX[index];
+    }
+
+    public double getY(int index) {
+        return positionY[index];
+    }
+
+    public double getOpacity(int index) {
+        return opacity[index];
+    }
+
+    /**
+     * @return packed ARGB color of particle with given index (0 until size) after the last update
+     */
+    public int getColor(int index) {
+        return color[index];
+    }
+
+    /**
+     * Removes all particles.
+     */
+    public void clear() {
+        Arrays.fill(interpolator, 0, size, null);
+        Arrays.fill(equation, 0, size, null);
+        Arrays.fill(image, 0, size, null);
+
+        size = 0;
+    }
+
+    /**
+     * Adds a particle, the parameters are the same as those of {@link Particle#init}.
+     */
+    void add(Image image,
+             Point2D position,
+             Point2D velocity,
+             Point2D acceleration,
+             double radius,
+             Point2D scaleOrigin,
+             Point2D scaleFunction,
+             Point2D entityScale,
+             Duration expireTime,
+             Paint startColor,
+             Paint endColor,
+             Interpolator interpolator,
+             boolean allowRotation,
+             Function<Double, Point2D> equation) {
+
+        if (size == life.length) {
+            allocate(size * 2);
+        }
+
+        int i = size++;
+
+        this.image[i] = image;
+        startX[i] = position.getX();
+        startY[i] = position.getY();
+        positionX[i] = position.getX();
+        positionY[i] = position.getY();
+        velocityX[i] = velocity.getX();
+        velocityY[i] = velocity.getY();
+        accelerationX[i] = acceleration.getX();
+        accelerationY[i] = acceleration.getY();
+        radiusX[i] = radius;
+        radiusY[i] = radius;
+        scaleOriginX[i] = scaleOrigin.getX();
+        scaleOriginY[i] = scaleOrigin.getY();
+        scaleX[i] = scaleFunction.getX();
+        scaleY[i] = scaleFunction.getY();
+        entityScaleX[i] = entityScale.getX();
+        entityScaleY[i] = entityScale.getY();
+        initialLife[i] = expireTime.toSeconds();
+        life[i] = initialLife[i];
+        this.startColor[i] = toARGB((Color) startColor);
+        this.endColor[i] = toARGB((Color) endColor);
+        this.interpolator[i] = interpolator;
+        this.allowRotation[i] = allowRotation;
+        this.equation[i] = equation;
+
+        opacity[i] = 0.0;
+        color[i] = 0;
+    }
+
+    /**
+     * Moves all particles and removes dead ones.
+     * Removal moves the last particle into the removed slot, so the order of particles is not kept.
+     */
+    void update(double tpf) {
+        minX = Double.POSITIVE_INFINITY;
+        minY = Double.POSITIVE_INFINITY;
+        maxX = Double.NEGATIVE_INFINITY;
+        maxY = Double.NEGATIVE_INFINITY;
+
+        int i = 0;
+
+        while (i < size) {
+            if (update(i, tpf)) {
+                remove(i);
+            } else {
+                minX = Math.min(minX, layoutX[i]);
+                minY = Math.min(minY, layoutY[i]);
+                maxX = Math.max(maxX, layoutX[i] + radiusX[i] * 2);
+                maxY = Math.max(maxY, layoutY[i] + radiusY[i] * 2);
+
+                i++;
+            }
+        }
+
+        if (size == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+    }
+
+    /**
+     * Same as {@link Particle#update(double)}.
+     *
+     * @return true if particle died
+     */
+    private boolean update(int i, double tpf) {
+        double progress = 1 - life[i] / initialLife[i];
+
+        // interpolate time based on progress
+        double t = interpolator[i].interpolate(0, initialLife[i], progress);
+
+        double x;
+        double y;
+
+        if (equation[i] == null) {
+            // s = s0 + v0*t + 0.5*a*t^2
+            x = startX[i] + velocityX[i] * t + 0.5 * accelerationX[i] * t * t;
+            y = startY[i] + velocityY[i] * t + 0.5 * accelerationY[i] * t * t;
+        } else {
+            Point2D newPos = equation[i].apply(t);
+            x = startX[i] + newPos.getX();
+            y = startY[i] + newPos.getY();
+        }
+
+        double moveX = x - positionX[i];
+        double moveY = y - positionY[i];
+
+        positionX[i] = x;
+        positionY[i] = y;
+
+        radiusX[i] += scaleX[i];
+        radiusY[i] += scaleY[i];
+
+        life[i] -= tpf;
+
+        if (life[i] <= 0 || radiusX[i] <= 0 || radiusY[i] <= 0)
+            return true;
+
+        opacity[i] = life[i] / initialLife[i];
+
+        if (image[i] == null) {
+            color[i] = interpolate(startColor[i], endColor[i], interpolator[i].interpolate(0.0, 1.0, progress), opacity[i]);
+        }
+
+        layoutX[i] = scaleOriginX[i] + x - entityScaleX[i] * (scaleOriginX[i] + x) + entityScaleY[i] * x;
+        layoutY[i] = scaleOriginY[i] + y - entityScaleY[i] * (scaleOriginY[i] + y) + entityScaleY[i] * y;
+
+        if (allowRotation[i]) {
+            rotation[i] = Math.toDegrees(Math.atan2(moveY, moveX));
+        }
+
+        return false;
+    }
+
+    private void remove(int i) {
+        int last = --size;
+
+        if (i != last) {
+            image[i] = image[last];
+            startX[i] = startX[last];
+            startY[i] = startY[last];
+            positionX[i] = positionX[last];
+            positionY[i] = positionY[last];
+            velocityX[i] = velocityX[last];
+            velocityY[i] = velocityY[last];
+            accelerationX[i] = accelerationX[last];
+            accelerationY[i] = accelerationY[last];
+            radiusX[i] = radiusX[last];
+            radiusY[i] = radiusY[last];
+            scaleOriginX[i] = scaleOriginX[last];
+            scaleOriginY[i] = scaleOriginY[last];
+            scaleX[i] = scaleX[last];
+            scaleY[i] = scaleY[last];
+            entityScaleX[i] = entityScaleX[last];
+            entityScaleY[i] = entityScaleY[last];
+            initialLife[i] = initialLife[last];
+            life[i] = life[last];
+            startColor[i] = startColor[last];
+            endColor[i] = endColor[last];
+            interpolator[i] = interpolator[last];
+            allowRotation[i] = allowRotation[last];
+            equation[i] = equation[last];
+            layoutX[i] = layoutX[last];
+            layoutY[i] = layoutY[last];
+            rotation[i] = rotation[last];
+            opacity[i] = opacity[last];
+            color[i] = color[last];
+        }
+
+        image[last] = null;
+        interpolator[last] = null;
+        equation[last] = null;
+    }
+
+    /**
+     * Draws all particles as they were after the last update.
+     * The graphics context is expected to be cleared by the caller.
+     *
+     * @param offsetX value added to x of each particle
+     * @param offsetY value added to y of each particle
+     */
+    void render(GraphicsContext g, BlendMode blendMode, double offsetX, double offsetY) {
+        g.save();
+        g.setGlobalBlendMode(blendMode);
+
+        int lastColor = 0;
+        double lastAlpha = 1.0;
+
+        for (int i = 0; i < size; i++) {
+            double x = layoutX[i] + offsetX;
+            double y = layoutY[i] + offsetY;
+            double w = radiusX[i] * 2;
+            double h = radiusY[i] * 2;
+
+            // colors already include opacity, images are drawn with opacity as global alpha
+            double alpha = image[i] == null ? 1.0 : opacity[i];
+
+            if (alpha != lastAlpha) {
+                g.setGlobalAlpha(alpha);
+                lastAlpha = alpha;
+            }
+
+            if (image[i] == null) {
+                int argb = color[i];
+
+                // fully transparent
+                if ((argb >>> 24) == 0)
+                    continue;
+
+                if (argb != lastColor) {
+                    g.setFill(toColor(argb));
+                    lastColor = argb;
+                }
+            }
+
+            if (allowRotation[i]) {
+                g.save();
+                g.translate(x + w / 2, y + h / 2);
+                g.rotate(rotation[i]);
+
+                x = -w / 2;
+                y = -h / 2;
+            }
+
+            if (image[i] == null) {
+                g.fillOval(x, y, w, h);
+            } else {
+                g.drawImage(image[i], x, y, w, h);
+            }
+
+            if (allowRotation[i]) {
+                g.restore();
+            }
+        }
+
+        g.restore();
+    }
+
+    /**
+     * @return cached color, so that particles with the same color do not allocate a new one each frame
+     */
+    private Color toColor(int argb) {
+        int index = (argb ^ (argb >>> 16)) * 0x45d9f3b >>> 22;
+
+        Color c = colorCache[index];
+
+        if (c == null || colorCacheKeys[index] != argb) {
+            c = Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, ((argb >>> 24) & 0xFF) / 255.0);
+
+            colorCache[index] = c;
+            colorCacheKeys[index] = argb;
+        }
+
+        return c;
+    }
+
+    static int toARGB(Color c) {
+        return (int) Math.round(c.getOpacity() * 255) << 24
+                | (int) Math.round(c.getRed() * 255) << 16
+                | (int) Math.round(c.getGreen() * 255) << 8
+                | (int) Math.round(c.getBlue() * 255);
+    }
+
+    /**
+     * Interpolates each channel of two packed ARGB colors and multiplies alpha by opacity.
+     */
+    static int interpolate(int from, int to, double t, double opacity) {
+        int a = lerp(from >>> 24, to >>> 24, t);
+        int r = lerp((from >> 16) & 0xFF, (to >> 16) & 0xFF, t);
+        int g = lerp((from >> 8) & 0xFF, (to >> 8) & 0xFF, t);
+        int b = lerp(from & 0xFF, to & 0xFF, t);
+
+        a = (int) Math.round(a * opacity);
+
+        return a << 24 | r << 16 | g << 8 | b;
+    }
+
+    // interpolators can produce values outside [0..1], so the result is clamped
+    private static int lerp(int from, int to, double t) {
+        int value = (int) Math.round(from + (to - from) * t);
+
+        return Math.max(0, Math.min(255, value));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void allocate(int capacity) {
+        startX = copy(startX, capacity);
+        startY = copy(startY, capacity);
+        velocityX = copy(velocityX, capacity);
+        velocityY = copy(velocityY, capacity);
+        accelerationX = copy(accelerationX, capacity);
+        accelerationY = copy(accelerationY, capacity);
+        radiusX = copy(radiusX, capacity);
+        radiusY = copy(radiusY, capacity);
+        scaleX = copy(scaleX, capacity);
+        scaleY = copy(scaleY, capacity);
+        scaleOriginX = copy(scaleOriginX, capacity);
+        scaleOriginY = copy(scaleOriginY, capacity);
+        entityScaleX = copy(entityScaleX, capacity);
+        entityScaleY = copy(entityScaleY, capacity);
+        initialLife = copy(initialLife, capacity);
+        life = copy(life, capacity);
+        positionX = copy(positionX, capacity);
+        positionY = copy(positionY, capacity);
+        layoutX = copy(layoutX, capacity);
+        layoutY = copy(layoutY, capacity);
+        rotation = copy(rotation, capacity);
+        opacity = copy(opacity, capacity);
+
+        startColor = startColor == null ? new int[capacity] : Arrays.copyOf(startColor, capacity);
+        endColor = endColor == null ? new int[capacity] : Arrays.copyOf(endColor, capacity);
+        color = color == null ? new int[capacity] : Arrays.copyOf(color, capacity);
+
+        allowRotation = allowRotation == null ? new boolean[capacity] : Arrays.copyOf(allowRotation, capacity);
+        interpolator = interpolator == null ? new Interpolator[capacity] : Arrays.copyOf(interpolator, capacity);
+        equation = equation == null ? new Function[capacity] : Arrays.copyOf(equation, capacity);
+        image = image == null ? new Image[capacity] : Arrays.copyOf(image, capacity);
+    }
+
+    private static double[] copy(double[] array, int capacity) {
+        return array == null ? new double[capacity] : Arrays.copyOf(array, capacity);
+    }
+}
@@ -409,15 +409,10 @@ public final class ParticleEmitter {
      * @implNote cached array is used, do not obtain ownership
      */
     Array<Particle> emit(double x, double y) {
-        double rate = getEmissionRate();
-
-        rateAC += rate;
-        if (rateAC < 1 || rate == 0 || isPaused || isFinished()) {
+        if (!startEmission()) {
             return Array.empty();
         }
 
-        rateAC = 0;
-        emissions++;
         emissionParticles.clear();
 
         int num = getNumParticles();
@@ -429,6 +424,55 @@ public final class ParticleEmitter {
         return emissionParticles;
     }
 
+    /**
+     * Same as {@link #emit(double, double)} but particles are added to given buffer
+     * instead of being created as objects.
+     *
+     * @param x x coordinate
+     * @param y y coordinate
+     * @param buffer buffer to add particles to
+     */
+    void emit(double x, double y, ParticleBuffer buffer) {
+        if (!startEmission()) {
+            return;
+        }
+
+        int num = getNumParticles();
+
+        for (int i = 0; i < num; i++) {
+            buffer.add(sourceImage,
+                    spawnPointFunction.apply(i).add(x, y),
+                    velocityFunction.apply(i),
+                    accelerationFunction.get(),
+                    getRandomSize(),
+                    scaleOriginFunction.apply(i),
+                    scaleFunction.apply(i),
+                    entityScaleFunction.get(),
+                    expireFunction.apply(i),
+                    getStartColor(),
+                    getEndColor(),
+                    getInterpolator(),
+                    isAllowParticleRotation(),
+                    getParametricEquation());
+        }
+    }
+
+    /**
+     * @return true if particles should be emitted this frame, based on emission rate
+     */
+    private boolean startEmission() {
+        double rate = getEmissionRate();
+
+        rateAC += rate;
+        if (rateAC < 1 || rate == 0 || isPaused || isFinished()) {
+            return false;
+        }
+
+        rateAC = 0;
+        emissions++;
+        return true;
+    }
+
     /**
      * Emits a single particle with index i.
      * X and Y are coordinates of the particle entity this emitter is attached to.
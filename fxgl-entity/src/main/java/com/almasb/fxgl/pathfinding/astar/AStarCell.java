@@ -31,6 +31,11 @@ public class AStarCell extends Cell {
     private int gCost;
     private int hCost;
 
+    /**
+     * Incremented every time state or movement cost changes.
+     */
+    private int version = 0;
+
     public AStarCell(int x, int y, CellState state) {
         this(x, y, state, DEFAULT_MOVEMENT_COST);
     }
@@ -42,7 +47,10 @@ public class AStarCell extends Cell {
     }
 
     public final void setMovementCost(int movementCost) {
-        this.movementCost = movementCost;
+        if (this.movementCost != movementCost) {
+            this.movementCost = movementCost;
+            version++;
+        }
     }
 
     public final int getMovementCost() {
@@ -74,7 +82,10 @@ public class AStarCell extends Cell {
     }
 
     public final void setState(CellState state) {
-        this.state = state;
+        if (this.state != state) {
+            this.state = state;
+            version++;
+        }
     }
 
     public final CellState getState() {
@@ -85,6 +96,13 @@ public class AStarCell extends Cell {
         return state.isWalkable();
     }
 
+    /**
+     * Used by {@link PathCache} to detect that a cached path goes through a changed cell.
+     */
+    final int getVersion() {
+        return version;
+    }
+
     /**
      * @return F cost (G + H)
      */
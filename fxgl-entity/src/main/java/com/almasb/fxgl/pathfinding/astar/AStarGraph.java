@@ -0,0 +1,36 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+/**
+ * Grid data that A* reads during a search, with cells identified by index (y * width + x).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+interface AStarGraph {
+
+    /**
+     * Neighbor offsets in the order of {@link TraversableGrid#getNeighbors(int, int, com.almasb.fxgl.core.collection.grid.NeighborDirection)},
+     * the last 4 are diagonal.
+     */
+    int[] DX = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    int[] DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+
+    int getWidth();
+
+    int getHeight();
+
+    boolean isWalkable(int index);
+
+    int getMovementCost(int index);
+
+    /**
+     * @param direction index into {@link #DX} and {@link #DY}, the neighbor is within the grid
+     * @return true if we can move from cell (x, y) to its neighbor in given direction in a single action
+     */
+    boolean canMove(int x, int y, int direction);
+}
@@ -0,0 +1,120 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+/**
+ * An immutable copy of the walkability of a traversable grid,
+ * which can be searched on any thread while the grid itself is being modified.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class AStarGridSnapshot implements AStarGraph {
+
+    private final int width;
+    private final int height;
+
+    /**
+     * Bit i is set if the move in direction i is possible.
+     */
+    private final byte[] moves;
+
+    private final int[] movementCosts;
+
+    private final boolean[] walkable;
+
+    private AStarGridSnapshot(int width, int height, byte[] moves, int[] movementCosts, boolean[] walkable) {
+        this.width = width;
+        this.height = height;
+        this.moves = moves;
+        this.movementCosts = movementCosts;
+        this.walkable = walkable;
+    }
+
+    /**
+     * Must be called on the thread that modifies the grid.
+     */
+    static <T extends AStarCell> AStarGridSnapshot of(TraversableGrid<T> grid) {
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+
+        var snapshot = new AStarGridSnapshot(width, height, new byte[width * height], new int[width * height], new boolean[width * height]);
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                snapshot.copyCell(grid, x, y);
+            }
+        }
+
+        return snapshot;
+    }
+
+    /**
+     * Must be called on the thread that modifies the grid.
+     *
+     * @return a copy of this snapshot with cell (x, y) and moves into it from its neighbors updated from [grid]
+     */
+    <T extends AStarCell> AStarGridSnapshot withCell(TraversableGrid<T> grid, int cellX, int cellY) {
+        var snapshot = new AStarGridSnapshot(width, height, moves.clone(), movementCosts.clone(), walkable.clone());
+
+        for (int y = cellY - 1; y <= cellY + 1; y++) {
+            for (int x = cellX - 1; x <= cellX + 1; x++) {
+                if (grid.isWithin(x, y)) {
+                    snapshot.copyCell(grid, x, y);
+                }
+            }
+        }
+
+        return snapshot;
+    }
+
+    private <T extends AStarCell> void copyCell(TraversableGrid<T> grid, int x, int y) {
+        int index = y * width + x;
+
+        T cell = grid.get(x, y);
+
+        walkable[index] = cell.isWalkable();
+        movementCosts[index] = cell.getMovementCost();
+
+        int mask = 0;
+
+        for (int i = 0; i < DX.length; i++) {
+            int nx = x + DX[i];
+            int ny = y + DY[i];
+
+            if (grid.isWithin(nx, ny) && grid.isTraversableInSingleMove(cell, grid.get(nx, ny))) {
+                mask |= 1 << i;
+            }
+        }
+
+        moves[index] = (byte) mask;
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean isWalkable(int index) {
+        return walkable[index];
+    }
+
+    @Override
+    public int getMovementCost(int index) {
+        return movementCosts[index];
+    }
+
+    @Override
+    public boolean canMove(int x, int y, int direction) {
+        return (moves[y * width + x] & (1 << direction)) != 0;
+    }
+}
@@ -31,6 +31,13 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
 
     private LazyValue<AStarPathfinder<T>> pathfinder;
 
+    /**
+     * If not null, paths are requested from this pathfinder instead.
+     */
+    private AsyncAStarPathfinder<T> asyncPathfinder = null;
+
+    private PathRequest<T> pathRequest = null;
+
     private List<T> path = new ArrayList<>();
 
     private Runnable delayedPathCalc = EmptyRunnable.INSTANCE;
@@ -62,6 +69,15 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
         pathfinder = new LazyValue<>(() -> pathfinderValue);
     }
 
+    /**
+     * This ctor is for cases when paths are computed asynchronously,
+     * so the entity starts moving after the path is delivered by the async pathfinder.
+     */
+    public AStarMoveComponent(AsyncAStarPathfinder<T> asyncPathfinder) {
+        this.asyncPathfinder = asyncPathfinder;
+        pathfinder = new LazyValue<>(asyncPathfinder::getPathfinder);
+    }
+
     @Override
     public void onAdded() {
         moveComponent = entity.getComponent(CellMoveComponent.class);
@@ -71,6 +87,8 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
 
     @Override
     public void onRemoved() {
+        cancelPathRequest();
+
         moveComponent.atDestinationProperty().removeListener(isAtDestinationListener);
     }
 
@@ -82,6 +100,13 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
         return path.isEmpty();
     }
 
+    /**
+     * @return true if a path was requested from the async pathfinder and is not yet delivered
+     */
+    public boolean isPathRequestPending() {
+        return pathRequest != null && pathRequest.isPending();
+    }
+
     public ReadOnlyBooleanProperty atDestinationProperty() {
         return isAtDestinationProp.getReadOnlyProperty();
     }
@@ -112,6 +137,9 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
     }
 
     public void stopMovementAt(int cellX, int cellY) {
+        cancelPathRequest();
+        delayedPathCalc = EmptyRunnable.INSTANCE;
+
         path.clear();
         moveComponent.setPositionToCell(cellX, cellY);
 
@@ -172,6 +200,19 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
     public void moveToCell(int startX, int startY, int targetX, int targetY) {
         isAtDestinationProp.set(false);
 
+        if (asyncPathfinder != null) {
+            // the previous path is no longer wanted
+            cancelPathRequest();
+
+            if (moveComponent.isAtDestination()) {
+                requestPath(startX, startY, targetX, targetY);
+            } else {
+                delayedPathCalc = () -> requestPath(moveComponent.getCellX(), moveComponent.getCellY(), targetX, targetY);
+            }
+
+            return;
+        }
+
         if (moveComponent.isAtDestination()) {
             path = pathfinder.get().findPath(startX, startY, targetX, targetY);
         } else {
@@ -179,9 +220,21 @@ public final class AStarMoveComponent<T extends AStarCell> extends Component {
         }
     }
 
+    private void requestPath(int startX, int startY, int targetX, int targetY) {
+        path.clear();
+        pathRequest = asyncPathfinder.requestPath(startX, startY, targetX, targetY, newPath -> path = newPath);
+    }
+
+    private void cancelPathRequest() {
+        if (pathRequest != null) {
+            pathRequest.cancel();
+            pathRequest = null;
+        }
+    }
+
     @Override
     public void onUpdate(double tpf) {
-        if (!isAtDestination() && !isMoving() && isPathEmpty()) {
+        if (!isAtDestination() && !isMoving() && isPathEmpty() && !isPathRequestPending()) {
             isAtDestinationProp.set(true);
         }
 
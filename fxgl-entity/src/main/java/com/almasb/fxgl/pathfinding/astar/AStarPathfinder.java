@@ -6,7 +6,6 @@
 
 package com.almasb.fxgl.pathfinding.astar;
 
-import com.almasb.fxgl.core.collection.grid.Cell;
 import com.almasb.fxgl.core.collection.grid.NeighborDirection;
 import static com.almasb.fxgl.core.collection.grid.NeighborDirection.*;
 import com.almasb.fxgl.pathfinding.CellState;
@@ -18,18 +17,59 @@ import com.almasb.fxgl.pathfinding.heuristic.OctileDistance;
 
 import java.util.*;
 
+import static com.almasb.fxgl.pathfinding.astar.AStarGraph.DX;
+import static com.almasb.fxgl.pathfinding.astar.AStarGraph.DY;
+
 /**
+ * A* over a traversable grid.
+ * Search data is kept in arrays indexed by cell, rather than in the cells,
+ * with one copy per thread that calls findPath.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 public final class AStarPathfinder<T extends AStarCell> implements Pathfinder<T> {
 
+    private static final int DEFAULT_MAX_CACHED_CELLS = 1 << 16;
+
     private final TraversableGrid<T> grid;
 
     private final Heuristic<T> defaultHeuristic;
     private final DiagonalHeuristic<T> diagonalHeuristic;
 
     private boolean isCachingPaths = false;
-    private Map<CacheKey, List<T>> cache = new HashMap<>();
+    private final PathCache<T> cache = new PathCache<>(DEFAULT_MAX_CACHED_CELLS);
+
+    private final ThreadLocal<AStarSearchState> searchState;
+
+    /**
+     * Reads walkability directly from the grid cells.
+     */
+    private final AStarGraph liveGraph = new AStarGraph() {
+        @Override
+        public int getWidth() {
+            return grid.getWidth();
+        }
+
+        @Override
+        public int getHeight() {
+            return grid.getHeight();
+        }
+
+        @Override
+        public boolean isWalkable(int index) {
+            return grid.get(index % grid.getWidth(), index / grid.getWidth()).isWalkable();
+        }
+
+        @Override
+        public int getMovementCost(int index) {
+            return grid.get(index % grid.getWidth(), index / grid.getWidth()).getMovementCost();
+        }
+
+        @Override
+        public boolean canMove(int x, int y, int direction) {
+            return grid.isTraversableInSingleMove(grid.get(x, y), grid.get(x + DX[direction], y + DY[direction]));
+        }
+    };
 
     public AStarPathfinder(TraversableGrid<T> grid) {
         this(grid, new ManhattanDistance<>(), new OctileDistance<>());
@@ -39,6 +79,8 @@ public final class AStarPathfinder<T extends AStarCell> implements Pathfinder<T>
         this.grid = grid;
         this.defaultHeuristic = defaultHeuristic;
         this.diagonalHeuristic = diagonalHeuristic;
+
+        searchState = ThreadLocal.withInitial(() -> new AStarSearchState(grid.getWidth() * grid.getHeight()));
     }
 
     public TraversableGrid<T> getGrid() {
@@ -47,6 +89,9 @@ public final class AStarPathfinder<T extends AStarCell> implements Pathfinder<T>
 
     /**
      * If set to true, computed paths for same start and end cells are cached.
+     * A cached path is not used if the state or movement cost of any of its cells has changed since,
+     * for other changes to the grid see {@link #invalidateCachedPaths(int, int, int, int)}.
+     * Queries with busy cells are not cached.
      * Default is false.
      */
     public void setCachingPaths(boolean isCachingPaths) {
@@ -57,170 +102,249 @@ public final class AStarPathfinder<T extends AStarCell> implements Pathfinder<T>
         return isCachingPaths;
     }
 
+    /**
+     * Limits memory used by the cache to given total number of cells in cached paths.
+     * Least recently used paths are removed first.
+     * Default is 65536.
+     */
+    public void setMaxCachedCells(int maxCachedCells) {
+        cache.setMaxCells(maxCachedCells);
+    }
+
+    public int getMaxCachedCells() {
+        return cache.getMaxCells();
+    }
+
+    /**
+     * @return total number of cells in cached paths
+     */
+    public int getNumCachedCells() {
+        return cache.getNumCells();
+    }
+
+    public int getNumCachedPaths() {
+        return cache.getNumPaths();
+    }
+
+    /**
+     * @return number of queries answered by the cache, including those answered by part of a cached path
+     */
+    public long getNumCacheHits() {
+        return cache.getNumHits();
+    }
+
+    /**
+     * @return number of queries not answered by the cache while caching was enabled
+     */
+    public long getNumCacheMisses() {
+        return cache.getNumMisses();
+    }
+
+    /**
+     * Removes cached paths that go through or next to given cell.
+     * Call this after a change to the cell that may lead to a shorter path,
+     * e.g. it became walkable or its movement cost decreased.
+     */
+    public void invalidateCachedPaths(int cellX, int cellY) {
+        invalidateCachedPaths(cellX, cellY, cellX, cellY);
+    }
+
+    /**
+     * Removes cached paths that go through or next to any cell in given region (inclusive).
+     */
+    public void invalidateCachedPaths(int minX, int minY, int maxX, int maxY) {
+        cache.invalidate(minX, minY, maxX, maxY);
+    }
+
+    public void clearCachedPaths() {
+        cache.clear();
+    }
+
+    /**
+     * @return number of cells expanded by the last search on the calling thread (cached paths are not searched)
+     */
+    public int getNumExpandedCells() {
+        return searchState.get().getNumExpanded();
+    }
+
     @Override
     public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY));
+        return findPath(grid.get(sourceX, sourceY), grid.get(targetX, targetY), FOUR_DIRECTIONS);
     }
 
     @Override
     public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), neighborDirection);
+        return findPath(grid.get(sourceX, sourceY), grid.get(targetX, targetY), neighborDirection);
     }
 
     @Override
     public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, List<T> busyCells) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), FOUR_DIRECTIONS, busyCells.toArray(new AStarCell[0]));
+        return findPath(grid.get(sourceX, sourceY), grid.get(targetX, targetY), FOUR_DIRECTIONS, busyCells.toArray(new AStarCell[0]));
     }
 
     @Override
     public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection, List<T> busyCells) {
-        return findPath(grid.getData(), grid.get(sourceX, sourceY), grid.get(targetX, targetY), neighborDirection, busyCells.toArray(new AStarCell[0]));
+        return findPath(grid.get(sourceX, sourceY), grid.get(targetX, targetY), neighborDirection, busyCells.toArray(new AStarCell[0]));
     }
 
     /**
-     * Since the equality check is based on references,
-     * start and target must be elements of the array.
+     * @deprecated [grid] is ignored, paths are always found in the grid of this pathfinder,
+     * use {@link #findPath(int, int, int, int, List)} instead
      *
-     * @param grid      the grid of nodes
+     * @param grid      ignored
      * @param start     starting node
      * @param target    target node
      * @param busyNodes busy "unwalkable" nodes
      * @return          path as list of nodes from start (excl) to target (incl) or empty list if no path found
      */
+    @Deprecated
     public List<T> findPath(T[][] grid, T start, T target, T... busyNodes) {
-        return findPath(grid, start, target, FOUR_DIRECTIONS, busyNodes);
+        return findPath(start, target, FOUR_DIRECTIONS, busyNodes);
     }
 
     /**
-     * Since the equality check is based on references,
-     * start and target must be elements of the array.
+     * @deprecated [grid] is ignored, paths are always found in the grid of this pathfinder,
+     * use {@link #findPath(int, int, int, int, NeighborDirection, List)} instead
      *
-     * @param grid      the grid of nodes
+     * @param grid      ignored
      * @param start     starting node
      * @param target    target node
      * @param busyNodes busy "unwalkable" nodes
      * @return          path as list of nodes from start (excl) to target (incl) or empty list if no path found
      */
+    @Deprecated
     public List<T> findPath(T[][] grid, T start, T target, NeighborDirection neighborDirection, AStarCell... busyNodes) {
+        return findPath(start, target, neighborDirection, busyNodes);
+    }
+
+    private List<T> findPath(T start, T target, NeighborDirection neighborDirection, AStarCell... busyNodes) {
         if (start == target || target.getState() == CellState.NOT_WALKABLE)
             return Collections.emptyList();
 
-        var cacheKey = new CacheKey(start.getX(), start.getY(), target.getX(), target.getY());
+        // paths around busy cells are only valid for this query
+        boolean isUsingCache = isCachingPaths && busyNodes.length == 0;
 
-        if (isCachingPaths) {
-            var path = cache.get(cacheKey);
+        if (isUsingCache) {
+            var path = cache.get(start.getX(), start.getY(), target.getX(), target.getY(), neighborDirection);
 
             if (path != null) {
-                return new ArrayList<>(path);
+                return path;
             }
         }
 
-        Heuristic<T> heuristic = (neighborDirection == FOUR_DIRECTIONS) ? defaultHeuristic : diagonalHeuristic;
+        var path = search(liveGraph, start.getX(), start.getY(), target.getX(), target.getY(), neighborDirection, busyNodes);
 
-        // reset grid cells data
-        for (int y = 0; y < grid[0].length; y++) {
-            for (int x = 0; x < grid.length; x++) {
-                grid[x][y].setHCost(heuristic.getCost(x, y, target.getX(), target.getY()));
-                grid[x][y].setParent(null);
-                grid[x][y].setGCost(0);
-            }
+        if (isUsingCache) {
+            cache.put(start.getX(), start.getY(), target.getX(), target.getY(), neighborDirection, path);
         }
 
-        Set<T> open = new HashSet<>();
-        Set<T> closed = new HashSet<>();
+        return new ArrayList<>(path);
+    }
 
-        T current = start;
+    /**
+     * Finds path using walkability data of [graph] instead of the grid cells.
+     * Safe to call from any thread if [graph] is immutable.
+     *
+     * @return path as list of grid cells from start (excl) to target (incl) or empty list if no path found
+     */
+    List<T> findPath(AStarGraph graph, int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        if ((sourceX == targetX && sourceY == targetY) || !graph.isWalkable(targetY * graph.getWidth() + targetX))
+            return Collections.emptyList();
 
-        boolean found = false;
+        return search(graph, sourceX, sourceY, targetX, targetY, neighborDirection);
+    }
 
-        while (!found && !closed.contains(target)) {
-            for (T neighbor : getValidNeighbors(current, neighborDirection, busyNodes)) {
-                if (neighbor == target) {
-                    target.setParent(current);
-                    found = true;
-                    closed.add(target);
-                    break;
-                }
+    /**
+     * Note: the search stops as soon as target is reached from an expanded cell,
+     * rather than when target itself is expanded.
+     */
+    private List<T> search(AStarGraph graph,
+                           int startX, int startY,
+                           int targetX, int targetY,
+                           NeighborDirection neighborDirection,
+                           AStarCell... busyNodes) {
 
-                if (!closed.contains(neighbor)) {
-                    int gCost = isDiagonal(current, neighbor)
-                            ? diagonalHeuristic.getDiagonalWeight()
-                            : defaultHeuristic.getWeight();
-
-                    gCost *= neighbor.getMovementCost();
-
-                    int newGCost = current.getGCost() + gCost;
-
-                    if (open.contains(neighbor)) {
-                        if (newGCost < neighbor.getGCost()) {
-                            neighbor.setParent(current);
-                            neighbor.setGCost(newGCost);
-                        }
-                    } else {
-                        neighbor.setParent(current);
-                        neighbor.setGCost(newGCost);
-                        open.add(neighbor);
-                    }
-                }
+        Heuristic<T> heuristic = (neighborDirection == FOUR_DIRECTIONS) ? defaultHeuristic : diagonalHeuristic;
+
+        int numDirections = (neighborDirection == FOUR_DIRECTIONS) ? 4 : 8;
+
+        int width = graph.getWidth();
+        int height = graph.getHeight();
+        int targetIndex = targetY * width + targetX;
+
+        var state = searchState.get();
+        state.startSearch();
+
+        for (var busyNode : busyNodes) {
+            if (grid.isWithin(busyNode.getX(), busyNode.getY())) {
+                state.markBusy(busyNode.getY() * width + busyNode.getX());
             }
+        }
+
+        int startIndex = startY * width + startX;
+        state.visit(startIndex, 0, heuristic.getCost(startX, startY, targetX, targetY), -1);
+
+        int currentIndex = startIndex;
+
+        while (true) {
+            int currentX = currentIndex % width;
+            int currentY = currentIndex / width;
 
-            if (!found) {
-                closed.add(current);
-                open.remove(current);
+            for (int i = 0; i < numDirections; i++) {
+                int x = currentX + DX[i];
+                int y = currentY + DY[i];
 
-                if (open.isEmpty())
-                    return Collections.emptyList();
+                if (x < 0 || y < 0 || x >= width || y >= height)
+                    continue;
 
-                T acc = null;
+                int index = y * width + x;
 
-                for (T a : open) {
-                    if (acc == null) {
-                        acc = a;
-                        continue;
-                    }
+                if (state.isBusy(index) || state.isClosed(index))
+                    continue;
 
-                    acc = a.getFCost() < acc.getFCost() ? a : acc;
+                if (!graph.canMove(currentX, currentY, i))
+                    continue;
+
+                if (index == targetIndex) {
+                    state.visit(index, 0, 0, currentIndex);
+                    return buildPath(state, startIndex, targetIndex, width);
                 }
 
-                current = acc;
+                int gCost = (i >= 4)
+                        ? diagonalHeuristic.getDiagonalWeight()
+                        : defaultHeuristic.getWeight();
+
+                int newGCost = state.getGCost(currentIndex) + gCost * graph.getMovementCost(index);
+
+                if (!state.isVisited(index)) {
+                    state.visit(index, newGCost, heuristic.getCost(x, y, targetX, targetY), currentIndex);
+                    state.push(index);
+
+                } else if (newGCost < state.getGCost(index)) {
+                    state.setParent(index, currentIndex);
+                    state.decreaseGCost(index, newGCost);
+                }
             }
-        }
 
-        var path = buildPath(start, target);
+            state.close(currentIndex);
 
-        if (isCachingPaths) {
-            cache.put(cacheKey, path);
-        }
+            if (state.isOpenEmpty())
+                return Collections.emptyList();
 
-        return new ArrayList<>(path);
+            currentIndex = state.pop();
+        }
     }
 
-    private List<T> buildPath(T start, T target) {
+    private List<T> buildPath(AStarSearchState state, int startIndex, int targetIndex, int width) {
         List<T> path = new ArrayList<>();
 
-        T tmp = target;
-        do {
-            path.add(tmp);
-            tmp = (T) tmp.getParent();
-        } while (tmp != start);
+        int index = targetIndex;
+        while (index != startIndex) {
+            path.add(grid.get(index % width, index / width));
+            index = state.getParent(index);
+        }
 
         Collections.reverse(path);
         return path;
     }
-
-    /**
-     * @param node the A* node
-     * @param busyNodes nodes which are busy, i.e. walkable but have a temporary obstacle
-     * @return neighbors of the node
-     */
-    private List<T> getValidNeighbors(T node, NeighborDirection neighborDirection, AStarCell... busyNodes) {
-        var result = grid.getNeighbors(node.getX(), node.getY(), neighborDirection);
-        result.removeAll(Arrays.asList(busyNodes));
-        result.removeIf(cell -> !grid.isTraversableInSingleMove(node, cell));
-        return result;
-    }
-
-    private boolean isDiagonal(Cell current, Cell neighbor) {
-        return neighbor.getX() - current.getX() != 0 && neighbor.getY() - current.getY() != 0;
-    }
 }
@@ -0,0 +1,238 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import java.util.Arrays;
+
+/**
+ * Scratch state of a single A* search over a grid of a fixed size.
+ * Cells are identified by index (y * width + x).
+ * Per cell data is only valid if the cell was visited in the current generation,
+ * so starting a new search is O(1) instead of a reset of the whole grid.
+ * The open list is an indexed binary heap ordered by F cost, ties broken by higher G cost.
+ *
+ * Not thread-safe, each thread needs its own instance.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class AStarSearchState {
+
+    private static final int NOT_IN_HEAP = -1;
+
+    private final int[] gCost;
+    private final int[] hCost;
+    private final int[] parent;
+    private final int[] heapIndex;
+
+    /**
+     * Generation in which the cell was visited (G, H, parent are set).
+     */
+    private final int[] visited;
+
+    /**
+     * Generation in which the cell was closed.
+     */
+    private final int[] closed;
+
+    /**
+     * Generation in which the cell was marked busy.
+     */
+    private final int[] busy;
+
+    private final int[] heap;
+    private int heapSize = 0;
+
+    private int generation = 0;
+
+    private int numExpanded = 0;
+
+    AStarSearchState(int numCells) {
+        gCost = new int[numCells];
+        hCost = new int[numCells];
+        parent = new int[numCells];
+        heapIndex = new int[numCells];
+        visited = new int[numCells];
+        closed = new int[numCells];
+        busy = new int[numCells];
+        heap = new int[numCells];
+    }
+
+    int size() {
+        return gCost.length;
+    }
+
+    /**
+     * Invalidates all data of the previous search.
+     */
+    void startSearch() {
+        heapSize = 0;
+        numExpanded = 0;
+        generation++;
+
+        // only after ~2 billion searches
+        if (generation == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            Arrays.fill(closed, 0);
+            Arrays.fill(busy, 0);
+            generation = 1;
+        }
+    }
+
+    void markBusy(int index) {
+        busy[index] = generation;
+    }
+
+    boolean isBusy(int index) {
+        return busy[index] == generation;
+    }
+
+    boolean isVisited(int index) {
+        return visited[index] == generation;
+    }
+
+    void visit(int index, int g, int h, int parentIndex) {
+        visited[index] = generation;
+        gCost[index] = g;
+        hCost[index] = h;
+        parent[index] = parentIndex;
+        heapIndex[index] = NOT_IN_HEAP;
+    }
+
+    int getGCost(int index) {
+        return gCost[index];
+    }
+
+    int getHCost(int index) {
+        return hCost[index];
+    }
+
+    int getParent(int index) {
+        return parent[index];
+    }
+
+    void setParent(int index, int parentIndex) {
+        parent[index] = parentIndex;
+    }
+
+    void close(int index) {
+        closed[index] = generation;
+        numExpanded++;
+    }
+
+    boolean isClosed(int index) {
+        return closed[index] == generation;
+    }
+
+    /**
+     * @return number of cells closed in the current search
+     */
+    int getNumExpanded() {
+        return numExpanded;
+    }
+
+    boolean isOpen(int index) {
+        return isVisited(index) && heapIndex[index] != NOT_IN_HEAP;
+    }
+
+    boolean isOpenEmpty() {
+        return heapSize == 0;
+    }
+
+    /**
+     * Adds a visited cell to the open list.
+     */
+    void push(int index) {
+        heap[heapSize] = index;
+        heapIndex[index] = heapSize;
+        heapSize++;
+
+        siftUp(heapSize - 1);
+    }
+
+    /**
+     * Updates G cost of an open cell to a lower value.
+     */
+    void decreaseGCost(int index, int g) {
+        gCost[index] = g;
+
+        siftUp(heapIndex[index]);
+    }
+
+    /**
+     * @return cell with the lowest F cost, which is removed from the open list
+     */
+    int pop() {
+        int result = heap[0];
+        heapIndex[result] = NOT_IN_HEAP;
+
+        heapSize--;
+
+        if (heapSize > 0) {
+            int last = heap[heapSize];
+            heap[0] = last;
+            heapIndex[last] = 0;
+
+            siftDown(0);
+        }
+
+        return result;
+    }
+
+    private void siftUp(int i) {
+        int index = heap[i];
+
+        while (i > 0) {
+            int parentI = (i - 1) >>> 1;
+            int parentIndex = heap[parentI];
+
+            if (!isLess(index, parentIndex))
+                break;
+
+            heap[i] = parentIndex;
+            heapIndex[parentIndex] = i;
+            i = parentI;
+        }
+
+        heap[i] = index;
+        heapIndex[index] = i;
+    }
+
+    private void siftDown(int i) {
+        int index = heap[i];
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= heapSize)
+                break;
+
+            if (child + 1 < heapSize && isLess(heap[child + 1], heap[child]))
+                child++;
+
+            if (!isLess(heap[child], index))
+                break;
+
+            heap[i] = heap[child];
+            heapIndex[heap[i]] = i;
+            i = child;
+        }
+
+        heap[i] = index;
+        heapIndex[index] = i;
+    }
+
+    private boolean isLess(int a, int b) {
+        int fA = gCost[a] + hCost[a];
+        int fB = gCost[b] + hCost[b];
+
+        if (fA != fB)
+            return fA < fB;
+
+        // closer to target, fewer cells with equal F are expanded
+        return gCost[a] > gCost[b];
+    }
+}
@@ -0,0 +1,317 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.Updatable;
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import javafx.util.Duration;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Consumer;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Computes paths of an {@link AStarPathfinder} without blocking the game loop.
+ * Requests are queued and delivered in {@link #onUpdate(double)}, which must be called once per frame
+ * on the thread that modifies the grid (or by {@link com.almasb.fxgl.pathfinding.PathfindingService}).
+ *
+ * With an executor, searches run on the executor against an immutable snapshot of grid walkability.
+ * The snapshot is taken when first needed, so after modifying the grid call {@link #refresh()},
+ * or {@link #refresh(int, int)} if a single cell changed.
+ * Without an executor, searches run in {@link #onUpdate(double)} on the live grid.
+ *
+ * Either way, the time spent per frame on the calling thread is limited by the frame budget,
+ * so that many units re-pathing on the same frame are spread over several frames.
+ * Requests with the same start, target and directions that are pending at the same time share a single search,
+ * unless the search was submitted before the last refresh.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class AsyncAStarPathfinder<T extends AStarCell> implements Updatable {
+
+    private final AStarPathfinder<T> pathfinder;
+    private final Executor executor;
+
+    private final int maxSearchesInFlight;
+    private int numSearchesInFlight = 0;
+
+    private long frameBudgetNanos = 2_000_000;
+
+    /**
+     * Null until first needed or after a full refresh.
+     */
+    private AStarGridSnapshot snapshot = null;
+
+    /**
+     * Queued and running searches that requests can still join.
+     */
+    private final Map<SearchKey, Search<T>> searches = new HashMap<>();
+
+    private final ArrayDeque<Search<T>> queue = new ArrayDeque<>();
+
+    private final Queue<Search<T>> completed = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Searches run on the thread that calls {@link #onUpdate(double)}.
+     */
+    public AsyncAStarPathfinder(AStarPathfinder<T> pathfinder) {
+        this(pathfinder, null, 0);
+    }
+
+    /**
+     * @param executor runs searches
+     * @param maxSearchesInFlight max number of searches submitted to executor at the same time,
+     *                            the rest stay queued, so they can be cancelled cheaply
+     */
+    public AsyncAStarPathfinder(AStarPathfinder<T> pathfinder, Executor executor, int maxSearchesInFlight) {
+        if (executor != null && maxSearchesInFlight < 1)
+            throw new IllegalArgumentException("Max searches in flight must be at least 1: " + maxSearchesInFlight);
+
+        this.pathfinder = pathfinder;
+        this.executor = executor;
+        this.maxSearchesInFlight = maxSearchesInFlight;
+    }
+
+    public AStarPathfinder<T> getPathfinder() {
+        return pathfinder;
+    }
+
+    public TraversableGrid<T> getGrid() {
+        return pathfinder.getGrid();
+    }
+
+    /**
+     * Max time per frame spent on the calling thread, at least one search (or delivery) is always processed.
+     * Default is 2 ms.
+     */
+    public void setFrameBudget(Duration budget) {
+        frameBudgetNanos = (long) (budget.toMillis() * 1_000_000);
+    }
+
+    public Duration getFrameBudget() {
+        return Duration.millis(frameBudgetNanos / 1_000_000.0);
+    }
+
+    /**
+     * @return number of searches that are queued or running
+     */
+    public int getNumSearches() {
+        return searches.size();
+    }
+
+    public PathRequest<T> requestPath(int sourceX, int sourceY, int targetX, int targetY, Consumer<List<T>> onCompleted) {
+        return requestPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, onCompleted);
+    }
+
+    /**
+     * Requests a path from source to target, which is passed to [onCompleted] on a later call to {@link #onUpdate(double)}.
+     * The path is a list of cells from source (excl.) to target (incl.), which is empty if no path exists.
+     */
+    public PathRequest<T> requestPath(int sourceX, int sourceY, int targetX, int targetY,
+                                      NeighborDirection neighborDirection,
+                                      Consumer<List<T>> onCompleted) {
+
+        var request = new PathRequest<>(this, onCompleted);
+
+        var key = new SearchKey(sourceX, sourceY, targetX, targetY, neighborDirection);
+
+        var search = searches.get(key);
+
+        if (search == null) {
+            search = new Search<>(key);
+            searches.put(key, search);
+            queue.addLast(search);
+        }
+
+        search.requests.add(request);
+        request.search = search;
+
+        return request;
+    }
+
+    /**
+     * Takes a new snapshot of the whole grid when next needed.
+     * Searches that are already running complete with the old snapshot,
+     * new requests do not join them.
+     */
+    public void refresh() {
+        snapshot = null;
+        detachSubmittedSearches();
+    }
+
+    /**
+     * Updates the snapshot after the state of a single cell changed.
+     * Searches that are already running complete with the old snapshot,
+     * new requests do not join them.
+     */
+    public void refresh(int cellX, int cellY) {
+        if (snapshot != null) {
+            snapshot = snapshot.withCell(getGrid(), cellX, cellY);
+        }
+
+        detachSubmittedSearches();
+    }
+
+    /**
+     * Submitted searches use an outdated snapshot, so they only keep requests they already have.
+     * Queued searches take the new snapshot when submitted.
+     */
+    private void detachSubmittedSearches() {
+        searches.values().removeIf(search -> search.graph != null);
+    }
+
+    /**
+     * Cancels all pending requests.
+     */
+    public void cancelAll() {
+        for (var search : new ArrayList<>(searches.values())) {
+            for (var request : new ArrayList<>(search.requests)) {
+                request.cancel();
+            }
+        }
+    }
+
+    void cancel(PathRequest<T> request) {
+        var search = request.search;
+
+        search.requests.remove(request);
+
+        if (search.requests.isEmpty()) {
+            // queued searches are skipped, running ones are discarded
+            search.isCancelled = true;
+            searches.remove(search.key, search);
+        }
+    }
+
+    @Override
+    public void onUpdate(double tpf) {
+        long start = System.nanoTime();
+
+        deliverCompleted(start);
+
+        if (executor == null) {
+            runQueued(start);
+        } else {
+            submitQueued();
+        }
+    }
+
+    private void deliverCompleted(long start) {
+        Search<T> search;
+
+        while ((search = completed.poll()) != null) {
+            numSearchesInFlight--;
+
+            deliver(search);
+
+            if (System.nanoTime() - start >= frameBudgetNanos)
+                break;
+        }
+    }
+
+    private void runQueued(long start) {
+        while (!queue.isEmpty()) {
+            var search = queue.pollFirst();
+
+            if (search.isCancelled)
+                continue;
+
+            var key = search.key;
+
+            search.result = pathfinder.findPath(key.sourceX, key.sourceY, key.targetX, key.targetY, key.neighborDirection);
+
+            deliver(search);
+
+            if (System.nanoTime() - start >= frameBudgetNanos)
+                break;
+        }
+    }
+
+    private void submitQueued() {
+        while (numSearchesInFlight < maxSearchesInFlight && !queue.isEmpty()) {
+            var search = queue.pollFirst();
+
+            if (search.isCancelled)
+                continue;
+
+            if (snapshot == null) {
+                snapshot = AStarGridSnapshot.of(getGrid());
+            }
+
+            search.graph = snapshot;
+            search.pathfinder = pathfinder;
+            search.completed = completed;
+
+            try {
+                executor.execute(search);
+            } catch (RejectedExecutionException e) {
+                // keep the search, so that it is submitted again when the executor accepts tasks
+                search.graph = null;
+                queue.addFirst(search);
+                break;
+            }
+
+            numSearchesInFlight++;
+        }
+    }
+
+    private void deliver(Search<T> search) {
+        searches.remove(search.key, search);
+
+        if (search.isCancelled)
+            return;
+
+        // callbacks may cancel other requests of this search, so iterate over a copy
+        for (var request : new ArrayList<>(search.requests)) {
+            if (!request.isPending())
+                continue;
+
+            // each request gets its own copy, since users typically consume the path
+            request.complete(new ArrayList<>(search.result));
+        }
+    }
+
+    private record SearchKey(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) { }
+
+    /**
+     * A single search shared by all requests with the same key.
+     * Fields other than [isCancelled] and [result] are only accessed on the thread that updates the pathfinder.
+     * [result] is published to that thread via the completed queue.
+     */
+    static final class Search<T extends AStarCell> implements Runnable {
+        private final SearchKey key;
+
+        private final List<PathRequest<T>> requests = new ArrayList<>(1);
+
+        private volatile boolean isCancelled = false;
+
+        private AStarGraph graph;
+        private AStarPathfinder<T> pathfinder;
+        private Queue<Search<T>> completed;
+
+        private List<T> result = Collections.emptyList();
+
+        private Search(SearchKey key) {
+            this.key = key;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (!isCancelled) {
+                    result = pathfinder.findPath(graph, key.sourceX, key.sourceY, key.targetX, key.targetY, key.neighborDirection);
+                }
+            } finally {
+                completed.add(this);
+            }
+        }
+    }
+}
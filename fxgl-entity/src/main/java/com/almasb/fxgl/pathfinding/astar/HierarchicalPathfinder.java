@@ -0,0 +1,839 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.Pathfinder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+import static com.almasb.fxgl.pathfinding.astar.JumpPointSearchPathfinder.distance;
+
+/**
+ * Hierarchical pathfinding (HPA*, Botea et al.) over a grid where every move has the same cost.
+ * The grid is divided into square clusters. Cells where a path can cross from one cluster
+ * to another (entrances) become nodes of an abstract graph, whose edges are the transitions between clusters
+ * and the shortest paths between nodes of the same cluster.
+ * A query searches the small abstract graph and then refines each abstract edge into cells
+ * with a search bounded by a single cluster, so the cost of a query grows with the number of clusters
+ * on the path rather than the number of cells.
+ * Paths are near-optimal: a path is found if and only if one exists, but it may be slightly longer than the shortest.
+ *
+ * Entrances are computed in the constructor, edges within a cluster are computed when the cluster
+ * is first used by a query and then cached.
+ * After changing the state of a cell, call {@link #refresh(int, int)}, which repairs only the clusters around that cell.
+ *
+ * Only walkability of cells is considered: movement costs and {@link TraversableGrid#isTraversableInSingleMove}
+ * are ignored. Busy cells are avoided when refining the path, so a path may not be found if they block
+ * the route chosen on the abstract graph.
+ * As with {@link AStarPathfinder}, a diagonal move only requires the target cell to be walkable.
+ *
+ * Not thread-safe.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class HierarchicalPathfinder<T extends AStarCell> implements Pathfinder<T> {
+
+    private static final int DEFAULT_CLUSTER_SIZE = 16;
+
+    /**
+     * Entrances at least this wide have two transitions (at the ends) instead of one (in the middle).
+     */
+    private static final int MAX_ENTRANCE_WIDTH = 6;
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Borders owned by a cluster: east, south, south-east and south-west.
+     * The borders to the west, north, north-west and north-east are owned by the clusters there.
+     */
+    private static final int[] BORDER_DX = { 1, 0, 1, -1 };
+    private static final int[] BORDER_DY = { 0, 1, 1, 1 };
+
+    private final TraversableGrid<T> grid;
+
+    private final int clusterSize;
+    private final int numClustersX;
+    private final int numClustersY;
+
+    private final Cluster[] clusters;
+
+    /**
+     * Transitions as (cell in owner cluster, cell in neighbor cluster) index pairs,
+     * 4 borders per cluster, see [BORDER_DX].
+     */
+    private final int[][] borders;
+
+    private final boolean[] isDirty;
+    private final List<Integer> dirtyClusters = new ArrayList<>();
+
+    private final AStarSearchState abstractState;
+    private final AStarSearchState localState;
+
+    private List<T> busyCells = Collections.emptyList();
+
+    private int numExpandedCells = 0;
+
+    public HierarchicalPathfinder(TraversableGrid<T> grid) {
+        this(grid, DEFAULT_CLUSTER_SIZE);
+    }
+
+    public HierarchicalPathfinder(TraversableGrid<T> grid, int clusterSize) {
+        if (clusterSize < 2)
+            throw new IllegalArgumentException("Cluster size must be at least 2: " + clusterSize);
+
+        this.grid = grid;
+        this.clusterSize = clusterSize;
+
+        numClustersX = (grid.getWidth() + clusterSize - 1) / clusterSize;
+        numClustersY = (grid.getHeight() + clusterSize - 1) / clusterSize;
+
+        clusters = new Cluster[numClustersX * numClustersY];
+        borders = new int[clusters.length * 4][];
+        isDirty = new boolean[clusters.length];
+
+        for (int cy = 0; cy < numClustersY; cy++) {
+            for (int cx = 0; cx < numClustersX; cx++) {
+                int x = cx * clusterSize;
+                int y = cy * clusterSize;
+
+                clusters[cy * numClustersX + cx] = new Cluster(
+                        cy * numClustersX + cx, cx, cy, x, y,
+                        Math.min(clusterSize, grid.getWidth() - x),
+                        Math.min(clusterSize, grid.getHeight() - y)
+                );
+            }
+        }
+
+        abstractState = new AStarSearchState(grid.getWidth() * grid.getHeight());
+        localState = new AStarSearchState(clusterSize * clusterSize);
+
+        refresh();
+    }
+
+    public TraversableGrid<T> getGrid() {
+        return grid;
+    }
+
+    public int getClusterSize() {
+        return clusterSize;
+    }
+
+    /**
+     * @return number of cells and abstract nodes expanded by the last search
+     */
+    public int getNumExpandedCells() {
+        return numExpandedCells;
+    }
+
+    /**
+     * @return number of nodes in the abstract graph
+     */
+    public int getNumAbstractNodes() {
+        repairDirtyClusters();
+
+        int count = 0;
+        for (var cluster : clusters) {
+            count += cluster.nodes.length;
+        }
+
+        return count;
+    }
+
+    /**
+     * Rebuilds the abstract graph for the whole grid.
+     */
+    public void refresh() {
+        for (int i = 0; i < borders.length; i++) {
+            borders[i] = EMPTY;
+        }
+
+        for (var cluster : clusters) {
+            for (int k = 0; k < 4; k++) {
+                computeBorder(cluster, k);
+            }
+        }
+
+        for (var cluster : clusters) {
+            computeNodes(cluster);
+            cluster.distances[0] = null;
+            cluster.distances[1] = null;
+            isDirty[cluster.index] = false;
+        }
+
+        dirtyClusters.clear();
+    }
+
+    /**
+     * Marks the cluster of given cell as changed, so that it (and its neighbors, if entrances changed)
+     * is repaired before the next query.
+     */
+    public void refresh(int cellX, int cellY) {
+        int index = cellY / clusterSize * numClustersX + cellX / clusterSize;
+
+        if (!isDirty[index]) {
+            isDirty[index] = true;
+            dirtyClusters.add(index);
+        }
+    }
+
+    private void repairDirtyClusters() {
+        if (dirtyClusters.isEmpty())
+            return;
+
+        // a changed cell can affect any border owned by the clusters around it,
+        // since corner transitions depend on cells of the two other clusters at the corner
+        for (int index : dirtyClusters) {
+            var cluster = clusters[index];
+
+            for (int dy = -1; dy <= 1; dy++) {
+                for (int dx = -1; dx <= 1; dx++) {
+                    var owner = getCluster(cluster.cx + dx, cluster.cy + dy);
+
+                    if (owner != null) {
+                        for (int k = 0; k < 4; k++) {
+                            computeBorder(owner, k);
+                        }
+                    }
+                }
+            }
+        }
+
+        for (int index : dirtyClusters) {
+            var cluster = clusters[index];
+
+            for (int dy = -2; dy <= 2; dy++) {
+                for (int dx = -2; dx <= 2; dx++) {
+                    var c = getCluster(cluster.cx + dx, cluster.cy + dy);
+
+                    if (c != null) {
+                        int[] oldNodes = c.nodes;
+
+                        computeNodes(c);
+
+                        // distances of other clusters are still valid if their nodes are the same
+                        if (!isDirty[c.index] && Arrays.equals(oldNodes, c.nodes))
+                            continue;
+
+                        c.distances[0] = null;
+                        c.distances[1] = null;
+                    }
+                }
+            }
+        }
+
+        for (int index : dirtyClusters) {
+            isDirty[index] = false;
+        }
+
+        dirtyClusters.clear();
+    }
+
+    private Cluster getCluster(int cx, int cy) {
+        if (cx < 0 || cy < 0 || cx >= numClustersX || cy >= numClustersY)
+            return null;
+
+        return clusters[cy * numClustersX + cx];
+    }
+
+    private Cluster getClusterOfCell(int x, int y) {
+        return clusters[y / clusterSize * numClustersX + x / clusterSize];
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, Collections.emptyList());
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        return findPath(sourceX, sourceY, targetX, targetY, neighborDirection, Collections.emptyList());
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, List<T> busyCells) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, busyCells);
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection, List<T> busyCells) {
+        numExpandedCells = 0;
+
+        if ((sourceX == targetX && sourceY == targetY) || !grid.get(targetX, targetY).isWalkable())
+            return Collections.emptyList();
+
+        repairDirtyClusters();
+
+        this.busyCells = busyCells;
+
+        try {
+            return findPath(sourceY * grid.getWidth() + sourceX, targetY * grid.getWidth() + targetX, neighborDirection != FOUR_DIRECTIONS);
+        } finally {
+            this.busyCells = Collections.emptyList();
+        }
+    }
+
+    private List<T> findPath(int source, int target, boolean isDiagonal) {
+        int width = grid.getWidth();
+
+        var sourceCluster = getClusterOfCell(source % width, source / width);
+        var targetCluster = getClusterOfCell(target % width, target / width);
+
+        if (sourceCluster == targetCluster) {
+            List<T> path = new ArrayList<>();
+
+            // a path that leaves the cluster can only be found via the abstract graph
+            if (refine(sourceCluster, source, target, isDiagonal, path))
+                return path;
+        }
+
+        int[] targetCosts = localCostsToNodes(targetCluster, target, isDiagonal, true);
+
+        var abstractPath = searchAbstract(source, target, targetCluster, targetCosts, isDiagonal);
+
+        if (abstractPath.isEmpty())
+            return Collections.emptyList();
+
+        List<T> path = new ArrayList<>();
+
+        for (int i = 0; i < abstractPath.size() - 1; i++) {
+            int from = abstractPath.get(i);
+            int to = abstractPath.get(i + 1);
+
+            var cluster = getClusterOfCell(from % width, from / width);
+
+            if (cluster != getClusterOfCell(to % width, to / width)) {
+                // transition between adjacent cells of neighbor clusters
+                if (isBusy(to))
+                    return Collections.emptyList();
+
+                path.add(grid.get(to % width, to / width));
+
+            } else if (!refine(cluster, from, to, isDiagonal, path)) {
+                return Collections.emptyList();
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * A* over the abstract graph, where nodes are identified by cell index.
+     * Source is temporarily inserted into the graph by connecting it to the nodes of its cluster.
+     *
+     * @return abstract nodes from source to target (both incl.) or empty list if no path exists
+     */
+    private List<Integer> searchAbstract(int source, int target, Cluster targetCluster, int[] targetCosts, boolean isDiagonal) {
+        var state = abstractState;
+        int width = grid.getWidth();
+
+        int targetX = target % width;
+        int targetY = target / width;
+
+        state.startSearch();
+        state.visit(source, 0, distance(source % width, source / width, targetX, targetY, isDiagonal), -1);
+        state.push(source);
+
+        try {
+            while (!state.isOpenEmpty()) {
+                int current = state.pop();
+                state.close(current);
+
+                if (current == target)
+                    return buildAbstractPath(state, source, target);
+
+                int x = current % width;
+                int y = current / width;
+
+                var cluster = getClusterOfCell(x, y);
+
+                int node = cluster.indexOf(current);
+
+                // source, or a neighbor of an unwalkable source
+                if (current == source || node < 0) {
+                    relaxLocal(state, cluster, current, targetCluster, target, isDiagonal);
+                }
+
+                // transitions of an unwalkable source are not in the graph
+                if (current == source && !isWalkable(x, y)) {
+                    for (int i = 0; i < (isDiagonal ? 8 : 4); i++) {
+                        int nx = x + AStarGraph.DX[i];
+                        int ny = y + AStarGraph.DY[i];
+
+                        if (!cluster.contains(nx, ny) && isWalkable(nx, ny) && !isBusy(index(nx, ny))) {
+                            int cost = i >= 4 ? JumpPointSearchPathfinder.DIAGONAL_COST : JumpPointSearchPathfinder.ORTHOGONAL_COST;
+
+                            relax(state, current, index(nx, ny), cost, targetX, targetY, isDiagonal);
+                        }
+                    }
+                }
+
+                if (node >= 0) {
+                    int[] distances = getDistances(cluster, isDiagonal);
+                    int numNodes = cluster.nodes.length;
+
+                    for (int j = 0; j < numNodes; j++) {
+                        if (j != node) {
+                            relax(state, current, cluster.nodes[j], distances[node * numNodes + j], targetX, targetY, isDiagonal);
+                        }
+                    }
+
+                    relaxTransitions(state, cluster, current, targetX, targetY, isDiagonal);
+
+                    if (cluster == targetCluster) {
+                        relax(state, current, target, targetCosts[node], targetX, targetY, isDiagonal);
+                    }
+                }
+            }
+
+            return Collections.emptyList();
+
+        } finally {
+            numExpandedCells += state.getNumExpanded();
+        }
+    }
+
+    /**
+     * Connects a cell that is not a node to the nodes of its cluster, and to target if it is in the same cluster.
+     */
+    private void relaxLocal(AStarSearchState state, Cluster cluster, int cell, Cluster targetCluster, int target, boolean isDiagonal) {
+        int width = grid.getWidth();
+        int targetX = target % width;
+        int targetY = target / width;
+
+        searchLocal(cluster, cell, -1, isDiagonal, true);
+
+        for (int j = 0; j < cluster.nodes.length; j++) {
+            int local = toLocal(cluster, cluster.nodes[j]);
+
+            if (localState.isClosed(local)) {
+                relax(state, cell, cluster.nodes[j], localState.getGCost(local), targetX, targetY, isDiagonal);
+            }
+        }
+
+        if (cluster == targetCluster && localState.isClosed(toLocal(cluster, target))) {
+            relax(state, cell, target, localState.getGCost(toLocal(cluster, target)), targetX, targetY, isDiagonal);
+        }
+    }
+
+    private void relaxTransitions(AStarSearchState state, Cluster cluster, int cell, int targetX, int targetY, boolean isDiagonal) {
+        int width = grid.getWidth();
+
+        for (int k = 0; k < 4; k++) {
+            for (int side = 0; side < 2; side++) {
+                int[] border = getBorder(cluster, k, side);
+
+                for (int i = 0; i < border.length; i += 2) {
+                    if (border[i + side] != cell)
+                        continue;
+
+                    int other = border[i + 1 - side];
+
+                    boolean isDiagonalMove = (cell % width != other % width) && (cell / width != other / width);
+
+                    if (isDiagonalMove && !isDiagonal)
+                        continue;
+
+                    int cost = isDiagonalMove ? JumpPointSearchPathfinder.DIAGONAL_COST : JumpPointSearchPathfinder.ORTHOGONAL_COST;
+
+                    relax(state, cell, other, cost, targetX, targetY, isDiagonal);
+                }
+            }
+        }
+    }
+
+    private void relax(AStarSearchState state, int from, int to, int cost, int targetX, int targetY, boolean isDiagonal) {
+        if (cost < 0 || state.isClosed(to))
+            return;
+
+        int gCost = state.getGCost(from) + cost;
+
+        if (!state.isVisited(to)) {
+            int width = grid.getWidth();
+
+            state.visit(to, gCost, distance(to % width, to / width, targetX, targetY, isDiagonal), from);
+            state.push(to);
+
+        } else if (gCost < state.getGCost(to)) {
+            state.setParent(to, from);
+            state.decreaseGCost(to, gCost);
+        }
+    }
+
+    private List<Integer> buildAbstractPath(AStarSearchState state, int source, int target) {
+        List<Integer> path = new ArrayList<>();
+
+        for (int node = target; node != source; node = state.getParent(node)) {
+            path.add(node);
+        }
+
+        path.add(source);
+
+        Collections.reverse(path);
+        return path;
+    }
+
+    /**
+     * @return border [k] owned by this cluster if [side] is 0, or owned by the neighbor
+     * in the opposite direction if [side] is 1, cells of this cluster are at index [side] of each pair
+     */
+    private int[] getBorder(Cluster cluster, int k, int side) {
+        if (side == 0)
+            return borders[cluster.index * 4 + k];
+
+        var owner = getCluster(cluster.cx - BORDER_DX[k], cluster.cy - BORDER_DY[k]);
+
+        return owner != null ? borders[owner.index * 4 + k] : EMPTY;
+    }
+
+    /**
+     * Computes transitions from [cluster] to its neighbor in direction [k].
+     * Along a shared edge, each maximal run of cells that are walkable on both sides is an entrance.
+     * Diagonal transitions are only added where no orthogonal one exists at the same place.
+     */
+    private void computeBorder(Cluster cluster, int k) {
+        int slot = cluster.index * 4 + k;
+
+        if (getCluster(cluster.cx + BORDER_DX[k], cluster.cy + BORDER_DY[k]) == null) {
+            borders[slot] = EMPTY;
+            return;
+        }
+
+        int dx = BORDER_DX[k];
+        int dy = BORDER_DY[k];
+
+        if (k >= 2) {
+            // corner
+            int x = dx > 0 ? cluster.x + cluster.width - 1 : cluster.x;
+            int y = cluster.y + cluster.height - 1;
+
+            boolean isTransition = isWalkable(x, y) && isWalkable(x + dx, y + dy)
+                    && !isWalkable(x + dx, y) && !isWalkable(x, y + dy);
+
+            borders[slot] = isTransition ? new int[] { index(x, y), index(x + dx, y + dy) } : EMPTY;
+            return;
+        }
+
+        // edge: cells of this cluster are at (x0 + t * ux, y0 + t * uy)
+        int ux = dy;
+        int uy = dx;
+        int x0 = (k == 0) ? cluster.x + cluster.width - 1 : cluster.x;
+        int y0 = (k == 0) ? cluster.y : cluster.y + cluster.height - 1;
+        int length = (k == 0) ? cluster.height : cluster.width;
+
+        int[] result = new int[2 * (3 * length + 2)];
+        int size = 0;
+
+        int runStart = -1;
+
+        for (int t = 0; t <= length; t++) {
+            boolean isOpen = t < length && isOpen(x0 + t * ux, y0 + t * uy, dx, dy);
+
+            if (isOpen && runStart < 0) {
+                runStart = t;
+
+            } else if (!isOpen && runStart >= 0) {
+                int runEnd = t - 1;
+
+                if (runEnd - runStart + 1 < MAX_ENTRANCE_WIDTH) {
+                    int mid = (runStart + runEnd) / 2;
+                    size = addTransition(result, size, x0 + mid * ux, y0 + mid * uy, dx, dy);
+                } else {
+                    size = addTransition(result, size, x0 + runStart * ux, y0 + runStart * uy, dx, dy);
+                    size = addTransition(result, size, x0 + runEnd * ux, y0 + runEnd * uy, dx, dy);
+                }
+
+                runStart = -1;
+            }
+        }
+
+        for (int t = 0; t < length - 1; t++) {
+            int ax = x0 + t * ux;
+            int ay = y0 + t * uy;
+
+            if (isOpen(ax, ay, dx, dy) || isOpen(ax + ux, ay + uy, dx, dy))
+                continue;
+
+            if (isWalkable(ax, ay) && isWalkable(ax + ux + dx, ay + uy + dy)) {
+                result[size++] = index(ax, ay);
+                result[size++] = index(ax + ux + dx, ay + uy + dy);
+            }
+
+            if (isWalkable(ax + ux, ay + uy) && isWalkable(ax + dx, ay + dy)) {
+                result[size++] = index(ax + ux, ay + uy);
+                result[size++] = index(ax + dx, ay + dy);
+            }
+        }
+
+        borders[slot] = size == 0 ? EMPTY : Arrays.copyOf(result, size);
+    }
+
+    private boolean isOpen(int x, int y, int dx, int dy) {
+        return isWalkable(x, y) && isWalkable(x + dx, y + dy);
+    }
+
+    private int addTransition(int[] result, int size, int x, int y, int dx, int dy) {
+        result[size] = index(x, y);
+        result[size + 1] = index(x + dx, y + dy);
+        return size + 2;
+    }
+
+    /**
+     * Collects cells of the cluster that are part of any transition.
+     */
+    private void computeNodes(Cluster cluster) {
+        int[] nodes = new int[16];
+        int size = 0;
+
+        for (int k = 0; k < 4; k++) {
+            for (int side = 0; side < 2; side++) {
+                int[] border = getBorder(cluster, k, side);
+
+                for (int i = side; i < border.length; i += 2) {
+                    int cell = border[i];
+
+                    boolean isNew = true;
+                    for (int j = 0; j < size; j++) {
+                        if (nodes[j] == cell) {
+                            isNew = false;
+                            break;
+                        }
+                    }
+
+                    if (isNew) {
+                        if (size == nodes.length)
+                            nodes = Arrays.copyOf(nodes, size * 2);
+
+                        nodes[size++] = cell;
+                    }
+                }
+            }
+        }
+
+        cluster.nodes = Arrays.copyOf(nodes, size);
+    }
+
+    /**
+     * @return costs of shortest paths within the cluster between each pair of its nodes, -1 if unreachable
+     */
+    private int[] getDistances(Cluster cluster, boolean isDiagonal) {
+        int mode = isDiagonal ? 1 : 0;
+
+        if (cluster.distances[mode] == null) {
+            int numNodes = cluster.nodes.length;
+            int[] distances = new int[numNodes * numNodes];
+
+            for (int i = 0; i < numNodes; i++) {
+                // cached, so must not depend on busy cells of the current query
+                int[] costs = localCostsToNodes(cluster, cluster.nodes[i], isDiagonal, false);
+
+                System.arraycopy(costs, 0, distances, i * numNodes, numNodes);
+            }
+
+            cluster.distances[mode] = distances;
+        }
+
+        return cluster.distances[mode];
+    }
+
+    /**
+     * Dijkstra from [cell] bounded by the cluster.
+     *
+     * @return costs from [cell] to each node of the cluster, -1 if unreachable
+     */
+    private int[] localCostsToNodes(Cluster cluster, int cell, boolean isDiagonal, boolean isAvoidingBusy) {
+        searchLocal(cluster, cell, -1, isDiagonal, isAvoidingBusy);
+
+        int[] costs = new int[cluster.nodes.length];
+
+        for (int j = 0; j < costs.length; j++) {
+            int local = toLocal(cluster, cluster.nodes[j]);
+
+            costs[j] = localState.isClosed(local) ? localState.getGCost(local) : -1;
+        }
+
+        return costs;
+    }
+
+    /**
+     * Adds cells of a shortest path within the cluster from [from] (excl.) to [to] (incl.) to [path].
+     *
+     * @return false if there is no such path
+     */
+    private boolean refine(Cluster cluster, int from, int to, boolean isDiagonal, List<T> path) {
+        if (!searchLocal(cluster, from, to, isDiagonal, true))
+            return false;
+
+        int start = path.size();
+
+        int local = toLocal(cluster, to);
+        int fromLocal = toLocal(cluster, from);
+
+        while (local != fromLocal) {
+            int x = cluster.x + local % clusterSize;
+            int y = cluster.y + local / clusterSize;
+
+            path.add(grid.get(x, y));
+
+            local = localState.getParent(local);
+        }
+
+        Collections.reverse(path.subList(start, path.size()));
+
+        return true;
+    }
+
+    /**
+     * A* (or Dijkstra, if [to] is -1) bounded by the cluster.
+     * Local cell indices are (y - cluster.y) * clusterSize + (x - cluster.x).
+     *
+     * @return true if [to] was reached
+     */
+    private boolean searchLocal(Cluster cluster, int from, int to, boolean isDiagonal, boolean isAvoidingBusy) {
+        var state = localState;
+        int width = grid.getWidth();
+
+        int toX = to < 0 ? 0 : to % width;
+        int toY = to < 0 ? 0 : to / width;
+        int toLocal = to < 0 ? -1 : toLocal(cluster, to);
+
+        state.startSearch();
+
+        if (isAvoidingBusy) {
+            for (var cell : busyCells) {
+                if (cluster.contains(cell.getX(), cell.getY())) {
+                    state.markBusy(toLocal(cluster, index(cell.getX(), cell.getY())));
+                }
+            }
+        }
+
+        int fromX = from % width;
+        int fromY = from / width;
+        int fromLocal = toLocal(cluster, from);
+
+        state.visit(fromLocal, 0, to < 0 ? 0 : distance(fromX, fromY, toX, toY, isDiagonal), -1);
+        state.push(fromLocal);
+
+        int numDirections = isDiagonal ? 8 : 4;
+
+        try {
+            while (!state.isOpenEmpty()) {
+                int current = state.pop();
+                state.close(current);
+
+                if (current == toLocal)
+                    return true;
+
+                int x = cluster.x + current % clusterSize;
+                int y = cluster.y + current / clusterSize;
+
+                for (int i = 0; i < numDirections; i++) {
+                    int nx = x + AStarGraph.DX[i];
+                    int ny = y + AStarGraph.DY[i];
+
+                    if (!cluster.contains(nx, ny))
+                        continue;
+
+                    int next = (ny - cluster.y) * clusterSize + nx - cluster.x;
+
+                    if (state.isClosed(next) || state.isBusy(next) || !isWalkable(nx, ny))
+                        continue;
+
+                    int gCost = state.getGCost(current) + (i >= 4 ? JumpPointSearchPathfinder.DIAGONAL_COST : JumpPointSearchPathfinder.ORTHOGONAL_COST);
+
+                    if (!state.isVisited(next)) {
+                        state.visit(next, gCost, to < 0 ? 0 : distance(nx, ny, toX, toY, isDiagonal), current);
+                        state.push(next);
+
+                    } else if (gCost < state.getGCost(next)) {
+                        state.setParent(next, current);
+                        state.decreaseGCost(next, gCost);
+                    }
+                }
+            }
+
+            return false;
+
+        } finally {
+            numExpandedCells += state.getNumExpanded();
+        }
+    }
+
+    private boolean isBusy(int cell) {
+        int width = grid.getWidth();
+
+        for (var busy : busyCells) {
+            if (busy.getX() == cell % width && busy.getY() == cell / width)
+                return true;
+        }
+
+        return false;
+    }
+
+    private int toLocal(Cluster cluster, int cell) {
+        int width = grid.getWidth();
+
+        return (cell / width - cluster.y) * clusterSize + cell % width - cluster.x;
+    }
+
+    private int index(int x, int y) {
+        return y * grid.getWidth() + x;
+    }
+
+    private boolean isWalkable(int x, int y) {
+        return grid.isWithin(x, y) && grid.get(x, y).isWalkable();
+    }
+
+    private static final class Cluster {
+        private final int index;
+
+        private final int cx;
+        private final int cy;
+
+        private final int x;
+        private final int y;
+        private final int width;
+        private final int height;
+
+        /**
+         * Cell indices of abstract nodes in this cluster.
+         */
+        private int[] nodes = EMPTY;
+
+        /**
+         * Node to node costs for 4 and 8 directions, null until first needed.
+         */
+        private final int[][] distances = new int[2][];
+
+        Cluster(int index, int cx, int cy, int x, int y, int width, int height) {
+            this.index = index;
+            this.cx = cx;
+            this.cy = cy;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        boolean contains(int cellX, int cellY) {
+            return cellX >= x && cellY >= y && cellX < x + width && cellY < y + height;
+        }
+
+        int indexOf(int cell) {
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i] == cell)
+                    return i;
+            }
+
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,365 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.Pathfinder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Jump Point Search (Harabor and Grastien) over a grid where every move has the same cost.
+ * Instead of adding every neighbor to the open list, the search jumps along straight lines
+ * and only stops at cells where a path may turn (jump points),
+ * so large open areas are crossed with very few expanded cells.
+ * Returned paths are optimal and contain every cell, not just the jump points.
+ *
+ * Only walkability of cells is considered: movement costs and {@link TraversableGrid#isTraversableInSingleMove}
+ * are ignored, use {@link AStarPathfinder} for such grids.
+ * As with {@link AStarPathfinder}, a diagonal move only requires the target cell to be walkable.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class JumpPointSearchPathfinder<T extends AStarCell> implements Pathfinder<T> {
+
+    static final int ORTHOGONAL_COST = 10;
+    static final int DIAGONAL_COST = 14;
+
+    private final TraversableGrid<T> grid;
+
+    private final ThreadLocal<AStarSearchState> searchState;
+
+    public JumpPointSearchPathfinder(TraversableGrid<T> grid) {
+        this.grid = grid;
+
+        searchState = ThreadLocal.withInitial(() -> new AStarSearchState(grid.getWidth() * grid.getHeight()));
+    }
+
+    public TraversableGrid<T> getGrid() {
+        return grid;
+    }
+
+    /**
+     * @return number of cells expanded by the last search on the calling thread
+     */
+    public int getNumExpandedCells() {
+        return searchState.get().getNumExpanded();
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, Collections.emptyList());
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        return findPath(sourceX, sourceY, targetX, targetY, neighborDirection, Collections.emptyList());
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, List<T> busyCells) {
+        return findPath(sourceX, sourceY, targetX, targetY, FOUR_DIRECTIONS, busyCells);
+    }
+
+    @Override
+    public List<T> findPath(int sourceX, int sourceY, int targetX, int targetY, NeighborDirection neighborDirection, List<T> busyCells) {
+        if ((sourceX == targetX && sourceY == targetY) || !grid.get(targetX, targetY).isWalkable())
+            return Collections.emptyList();
+
+        var search = new Search(searchState.get(), targetX, targetY, neighborDirection != FOUR_DIRECTIONS);
+
+        for (var cell : busyCells) {
+            if (grid.isWithin(cell.getX(), cell.getY())) {
+                search.state.markBusy(cell.getY() * search.width + cell.getX());
+            }
+        }
+
+        int targetIndex = search.run(sourceX, sourceY);
+
+        if (targetIndex < 0)
+            return Collections.emptyList();
+
+        return buildPath(search.state, sourceY * search.width + sourceX, targetIndex, search.width);
+    }
+
+    /**
+     * Consecutive jump points are always on a straight or diagonal line,
+     * so the cells between them are filled in by stepping from one to the other.
+     */
+    private List<T> buildPath(AStarSearchState state, int startIndex, int targetIndex, int width) {
+        List<Integer> jumpPoints = new ArrayList<>();
+
+        for (int index = targetIndex; index != startIndex; index = state.getParent(index)) {
+            jumpPoints.add(index);
+        }
+
+        jumpPoints.add(startIndex);
+
+        List<T> path = new ArrayList<>();
+
+        for (int i = jumpPoints.size() - 1; i > 0; i--) {
+            int x = jumpPoints.get(i) % width;
+            int y = jumpPoints.get(i) / width;
+
+            int toX = jumpPoints.get(i - 1) % width;
+            int toY = jumpPoints.get(i - 1) / width;
+
+            int dx = Integer.signum(toX - x);
+            int dy = Integer.signum(toY - y);
+
+            while (x != toX || y != toY) {
+                x += dx;
+                y += dy;
+
+                path.add(grid.get(x, y));
+            }
+        }
+
+        return path;
+    }
+
+    /**
+     * Octile (or Manhattan) distance with uniform move costs.
+     */
+    static int distance(int x0, int y0, int x1, int y1, boolean isDiagonal) {
+        int dx = Math.abs(x0 - x1);
+        int dy = Math.abs(y0 - y1);
+
+        if (!isDiagonal)
+            return ORTHOGONAL_COST * (dx + dy);
+
+        return ORTHOGONAL_COST * Math.max(dx, dy) + (DIAGONAL_COST - ORTHOGONAL_COST) * Math.min(dx, dy);
+    }
+
+    /**
+     * State of a single search, which is only used on one thread.
+     */
+    private final class Search {
+        private final AStarSearchState state;
+
+        private final int width;
+        private final int height;
+
+        private final int targetX;
+        private final int targetY;
+
+        private final boolean isDiagonal;
+
+        /**
+         * Pruned directions of the cell being expanded, as (dx, dy) pairs.
+         */
+        private final int[] directions = new int[16];
+
+        Search(AStarSearchState state, int targetX, int targetY, boolean isDiagonal) {
+            this.state = state;
+            this.width = grid.getWidth();
+            this.height = grid.getHeight();
+            this.targetX = targetX;
+            this.targetY = targetY;
+            this.isDiagonal = isDiagonal;
+
+            state.startSearch();
+        }
+
+        /**
+         * @return target index or -1 if no path exists
+         */
+        int run(int startX, int startY) {
+            int startIndex = startY * width + startX;
+            int targetIndex = targetY * width + targetX;
+
+            state.visit(startIndex, 0, distance(startX, startY, targetX, targetY, isDiagonal), -1);
+            state.push(startIndex);
+
+            while (!state.isOpenEmpty()) {
+                int index = state.pop();
+                state.close(index);
+
+                if (index == targetIndex)
+                    return targetIndex;
+
+                int x = index % width;
+                int y = index / width;
+
+                int numDirections = pruneDirections(x, y, state.getParent(index));
+
+                for (int i = 0; i < numDirections; i++) {
+                    int dx = directions[i * 2];
+                    int dy = directions[i * 2 + 1];
+
+                    int jumpPoint = isDiagonal
+                            ? jumpDiagonal(x + dx, y + dy, dx, dy)
+                            : jumpOrthogonal(x + dx, y + dy, dx, dy);
+
+                    if (jumpPoint < 0 || state.isClosed(jumpPoint))
+                        continue;
+
+                    int jumpX = jumpPoint % width;
+                    int jumpY = jumpPoint / width;
+
+                    int gCost = state.getGCost(index) + distance(x, y, jumpX, jumpY, isDiagonal);
+
+                    if (!state.isVisited(jumpPoint)) {
+                        state.visit(jumpPoint, gCost, distance(jumpX, jumpY, targetX, targetY, isDiagonal), index);
+                        state.push(jumpPoint);
+
+                    } else if (gCost < state.getGCost(jumpPoint)) {
+                        state.setParent(jumpPoint, index);
+                        state.decreaseGCost(jumpPoint, gCost);
+                    }
+                }
+            }
+
+            return -1;
+        }
+
+        /**
+         * Fills [directions] with natural and forced neighbor directions of the cell
+         * given the direction it was reached from.
+         *
+         * @return number of directions
+         */
+        private int pruneDirections(int x, int y, int parentIndex) {
+            int n = 0;
+
+            if (parentIndex < 0) {
+                int numDirections = isDiagonal ? 8 : 4;
+
+                for (int i = 0; i < numDirections; i++) {
+                    n = add(n, AStarGraph.DX[i], AStarGraph.DY[i]);
+                }
+
+                return n;
+            }
+
+            int dx = Integer.signum(x - parentIndex % width);
+            int dy = Integer.signum(y - parentIndex / width);
+
+            if (!isDiagonal) {
+                if (dx != 0) {
+                    n = add(n, 0, -1);
+                    n = add(n, 0, 1);
+                    n = add(n, dx, 0);
+                } else {
+                    n = add(n, -1, 0);
+                    n = add(n, 1, 0);
+                    n = add(n, 0, dy);
+                }
+
+                return n;
+            }
+
+            if (dx != 0 && dy != 0) {
+                n = add(n, 0, dy);
+                n = add(n, dx, 0);
+                n = add(n, dx, dy);
+
+                if (!isFree(x - dx, y))
+                    n = add(n, -dx, dy);
+
+                if (!isFree(x, y - dy))
+                    n = add(n, dx, -dy);
+
+            } else if (dx != 0) {
+                n = add(n, dx, 0);
+
+                if (!isFree(x, y + 1))
+                    n = add(n, dx, 1);
+
+                if (!isFree(x, y - 1))
+                    n = add(n, dx, -1);
+
+            } else {
+                n = add(n, 0, dy);
+
+                if (!isFree(x + 1, y))
+                    n = add(n, 1, dy);
+
+                if (!isFree(x - 1, y))
+                    n = add(n, -1, dy);
+            }
+
+            return n;
+        }
+
+        private int add(int n, int dx, int dy) {
+            directions[n * 2] = dx;
+            directions[n * 2 + 1] = dy;
+            return n + 1;
+        }
+
+        /**
+         * @return first jump point from (x, y) in direction (dx, dy) or -1 if there is none
+         */
+        private int jumpOrthogonal(int x, int y, int dx, int dy) {
+            while (true) {
+                if (!isFree(x, y))
+                    return -1;
+
+                if (x == targetX && y == targetY)
+                    return y * width + x;
+
+                if (dx != 0) {
+                    if ((isFree(x, y - 1) && !isFree(x - dx, y - 1)) || (isFree(x, y + 1) && !isFree(x - dx, y + 1)))
+                        return y * width + x;
+                } else {
+                    if ((isFree(x - 1, y) && !isFree(x - 1, y - dy)) || (isFree(x + 1, y) && !isFree(x + 1, y - dy)))
+                        return y * width + x;
+
+                    // a vertical move has to stop where a horizontal move would find a jump point
+                    if (jumpOrthogonal(x + 1, y, 1, 0) >= 0 || jumpOrthogonal(x - 1, y, -1, 0) >= 0)
+                        return y * width + x;
+                }
+
+                x += dx;
+                y += dy;
+            }
+        }
+
+        /**
+         * @return first jump point from (x, y) in direction (dx, dy) or -1 if there is none
+         */
+        private int jumpDiagonal(int x, int y, int dx, int dy) {
+            while (true) {
+                if (!isFree(x, y))
+                    return -1;
+
+                if (x == targetX && y == targetY)
+                    return y * width + x;
+
+                if (dx != 0 && dy != 0) {
+                    if ((isFree(x - dx, y + dy) && !isFree(x - dx, y)) || (isFree(x + dx, y - dy) && !isFree(x, y - dy)))
+                        return y * width + x;
+
+                    // a diagonal move has to stop where a straight move would find a jump point
+                    if (jumpDiagonal(x + dx, y, dx, 0) >= 0 || jumpDiagonal(x, y + dy, 0, dy) >= 0)
+                        return y * width + x;
+
+                } else if (dx != 0) {
+                    if ((isFree(x + dx, y + 1) && !isFree(x, y + 1)) || (isFree(x + dx, y - 1) && !isFree(x, y - 1)))
+                        return y * width + x;
+                } else {
+                    if ((isFree(x + 1, y + dy) && !isFree(x + 1, y)) || (isFree(x - 1, y + dy) && !isFree(x - 1, y)))
+                        return y * width + x;
+                }
+
+                x += dx;
+                y += dy;
+            }
+        }
+
+        private boolean isFree(int x, int y) {
+            return x >= 0 && y >= 0 && x < width && y < height
+                    && !state.isBusy(y * width + x)
+                    && grid.get(x, y).isWalkable();
+        }
+    }
+}
@@ -0,0 +1,268 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used paths of {@link AStarPathfinder}, limited by the total number of cells in cached paths.
+ *
+ * A cached path is dropped when it is next looked up if the state or movement cost of any of its cells
+ * has changed since it was cached.
+ * Changes to cells near the path, which may open a shorter path, are handled by {@link #invalidate(int, int, int, int)}.
+ *
+ * A path from the same start can also be answered by a prefix of a cached path that goes through the target,
+ * since any part of a shortest path is itself a shortest path.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class PathCache<T extends AStarCell> {
+
+    /**
+     * Entries in access order, so the first entry is the least recently used.
+     */
+    private final Map<CacheKey, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Map<StartKey, List<Entry<T>>> entriesByStart = new HashMap<>();
+
+    private int maxCells;
+    private int numCells = 0;
+
+    private long numHits = 0;
+    private long numMisses = 0;
+
+    PathCache(int maxCells) {
+        setMaxCells(maxCells);
+    }
+
+    synchronized void setMaxCells(int maxCells) {
+        if (maxCells < 0)
+            throw new IllegalArgumentException("Max cached cells must not be negative: " + maxCells);
+
+        this.maxCells = maxCells;
+
+        evict();
+    }
+
+    synchronized int getMaxCells() {
+        return maxCells;
+    }
+
+    synchronized int getNumCells() {
+        return numCells;
+    }
+
+    synchronized int getNumPaths() {
+        return entries.size();
+    }
+
+    synchronized long getNumHits() {
+        return numHits;
+    }
+
+    synchronized long getNumMisses() {
+        return numMisses;
+    }
+
+    /**
+     * @return copy of the cached path or null if there is no valid cached path
+     */
+    synchronized List<T> get(int startX, int startY, int targetX, int targetY, NeighborDirection neighborDirection) {
+        var entry = entries.get(new CacheKey(startX, startY, targetX, targetY, neighborDirection));
+
+        if (entry != null) {
+            if (entry.isValid()) {
+                numHits++;
+                return new ArrayList<>(entry.path);
+            }
+
+            remove(entry);
+        }
+
+        var candidates = entriesByStart.get(new StartKey(startX, startY, neighborDirection));
+
+        if (candidates != null) {
+            for (int i = candidates.size() - 1; i >= 0; i--) {
+                var candidate = candidates.get(i);
+
+                int index = candidate.indexOf(targetX, targetY);
+
+                if (index < 0)
+                    continue;
+
+                if (candidate.isValid()) {
+                    // mark as recently used
+                    entries.get(candidate.key);
+
+                    numHits++;
+                    return new ArrayList<>(candidate.path.subList(0, index + 1));
+                }
+
+                remove(candidate);
+            }
+        }
+
+        numMisses++;
+        return null;
+    }
+
+    synchronized void put(int startX, int startY, int targetX, int targetY, NeighborDirection neighborDirection, List<T> path) {
+        if (path.isEmpty() || path.size() > maxCells)
+            return;
+
+        var key = new CacheKey(startX, startY, targetX, targetY, neighborDirection);
+
+        var oldEntry = entries.get(key);
+        if (oldEntry != null) {
+            remove(oldEntry);
+        }
+
+        var entry = new Entry<>(key, new StartKey(startX, startY, neighborDirection), path);
+
+        entries.put(key, entry);
+        entriesByStart.computeIfAbsent(entry.startKey, k -> new ArrayList<>()).add(entry);
+        numCells += entry.path.size();
+
+        evict();
+    }
+
+    /**
+     * Removes cached paths that go through or next to any cell in given region (inclusive).
+     */
+    synchronized void invalidate(int minX, int minY, int maxX, int maxY) {
+        Iterator<Entry<T>> it = entries.values().iterator();
+
+        while (it.hasNext()) {
+            var entry = it.next();
+
+            if (entry.isNear(minX, minY, maxX, maxY)) {
+                it.remove();
+                removeFromStart(entry);
+            }
+        }
+    }
+
+    synchronized void clear() {
+        entries.clear();
+        entriesByStart.clear();
+        numCells = 0;
+    }
+
+    private void evict() {
+        Iterator<Entry<T>> it = entries.values().iterator();
+
+        while (numCells > maxCells && it.hasNext()) {
+            var entry = it.next();
+
+            it.remove();
+            removeFromStart(entry);
+        }
+    }
+
+    private void remove(Entry<T> entry) {
+        entries.remove(entry.key);
+        removeFromStart(entry);
+    }
+
+    private void removeFromStart(Entry<T> entry) {
+        var list = entriesByStart.get(entry.startKey);
+        list.remove(entry);
+
+        if (list.isEmpty()) {
+            entriesByStart.remove(entry.startKey);
+        }
+
+        numCells -= entry.path.size();
+    }
+
+    private record StartKey(int x, int y, NeighborDirection neighborDirection) { }
+
+    private static final class Entry<T extends AStarCell> {
+        private final CacheKey key;
+        private final StartKey startKey;
+        private final List<T> path;
+
+        /**
+         * Sum of cell versions at the time the path was cached.
+         * Versions only increase, so any change to a cell of the path changes the sum.
+         */
+        private final long versionSum;
+
+        /**
+         * Bounds of the path, including start.
+         */
+        private final int minX;
+        private final int minY;
+        private final int maxX;
+        private final int maxY;
+
+        Entry(CacheKey key, StartKey startKey, List<T> path) {
+            this.key = key;
+            this.startKey = startKey;
+            this.path = new ArrayList<>(path);
+
+            versionSum = computeVersionSum();
+
+            int minX = startKey.x;
+            int minY = startKey.y;
+            int maxX = startKey.x;
+            int maxY = startKey.y;
+
+            for (var cell : path) {
+                minX = Math.min(minX, cell.getX());
+                minY = Math.min(minY, cell.getY());
+                maxX = Math.max(maxX, cell.getX());
+                maxY = Math.max(maxY, cell.getY());
+            }
+
+            this.minX = minX;
+            this.minY = minY;
+            this.maxX = maxX;
+            this.maxY = maxY;
+        }
+
+        boolean isValid() {
+            return computeVersionSum() == versionSum;
+        }
+
+        boolean isNear(int minX, int minY, int maxX, int maxY) {
+            return minX <= this.maxX + 1 && maxX >= this.minX - 1
+                    && minY <= this.maxY + 1 && maxY >= this.minY - 1;
+        }
+
+        int indexOf(int x, int y) {
+            if (x < minX || y < minY || x > maxX || y > maxY)
+                return -1;
+
+            for (int i = 0; i < path.size(); i++) {
+                var cell = path.get(i);
+
+                if (cell.getX() == x && cell.getY() == y)
+                    return i;
+            }
+
+            return -1;
+        }
+
+        private long computeVersionSum() {
+            long sum = 0;
+
+            for (var cell : path) {
+                sum += cell.getVersion();
+            }
+
+            return sum;
+        }
+    }
+}
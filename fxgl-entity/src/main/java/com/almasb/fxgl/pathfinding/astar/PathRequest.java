@@ -0,0 +1,69 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.astar;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * A handle to a path requested from {@link AsyncAStarPathfinder}.
+ * All methods must be called on the thread that updates the pathfinder.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class PathRequest<T extends AStarCell> {
+
+    private final AsyncAStarPathfinder<T> pathfinder;
+    private final Consumer<List<T>> onCompleted;
+
+    AsyncAStarPathfinder.Search<T> search;
+
+    private boolean isDone = false;
+    private boolean isCancelled = false;
+
+    PathRequest(AsyncAStarPathfinder<T> pathfinder, Consumer<List<T>> onCompleted) {
+        this.pathfinder = pathfinder;
+        this.onCompleted = onCompleted;
+    }
+
+    /**
+     * @return true if the path was delivered
+     */
+    public boolean isDone() {
+        return isDone;
+    }
+
+    public boolean isCancelled() {
+        return isCancelled;
+    }
+
+    /**
+     * @return true if this request is neither done nor cancelled
+     */
+    public boolean isPending() {
+        return !isDone && !isCancelled;
+    }
+
+    /**
+     * Cancels this request, so that its path is never delivered.
+     * If no other request shares the same search, the search itself is skipped
+     * or, if it is already running, its result is discarded.
+     * Does nothing if the request is already done.
+     */
+    public void cancel() {
+        if (!isPending())
+            return;
+
+        isCancelled = true;
+        pathfinder.cancel(this);
+    }
+
+    void complete(List<T> path) {
+        isDone = true;
+        onCompleted.accept(path);
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.almasb.fxgl.core.collection.grid.NeighborDirection.FOUR_DIRECTIONS;
+
+/**
+ * Shortest paths from every cell of a grid to a single target.
+ * Computed once per target with Dijkstra from the target (integration field), which also records
+ * for each cell the neighbor to move to next (direction field).
+ * Any number of units chasing the same target then only sample the field,
+ * see {@link FlowFieldMoveComponent}.
+ *
+ * Move costs are the same as in {@link com.almasb.fxgl.pathfinding.astar.AStarPathfinder}:
+ * weight of the move direction times movement cost of the cell moved into,
+ * and {@link TraversableGrid#isTraversableInSingleMove} decides whether a move is allowed.
+ *
+ * When the target moves only a few cells, see {@link #moveTarget(int, int)}, only a window around the target
+ * is recomputed. Units outside the window keep following the field towards the previous target,
+ * which is inside the window, and then follow the window to the new target.
+ * After the state of cells changes, call {@link #refresh()}.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+public final class FlowField<T extends AStarCell> {
+
+    private static final int DEFAULT_INCREMENTAL_RADIUS = 8;
+
+    private static final int ORTHOGONAL_WEIGHT = 10;
+    private static final int DIAGONAL_WEIGHT = 14;
+
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final byte NONE = -1;
+
+    // left, up, right, down, up-left, up-right, down-right, down-left
+    private static final int[] DX = { -1, 0, 1, 0, -1, 1, 1, -1 };
+    private static final int[] DY = { 0, -1, 0, 1, -1, -1, 1, 1 };
+    private static final byte[] OPPOSITE = { 2, 3, 0, 1, 6, 7, 4, 5 };
+
+    private final TraversableGrid<T> grid;
+    private final int numDirections;
+    private final int incrementalRadius;
+
+    private final int[] costs;
+    private final byte[] directions;
+
+    /**
+     * Target of the last full computation.
+     */
+    private int rootX = -1;
+    private int rootY = -1;
+
+    private int targetX = -1;
+    private int targetY = -1;
+
+    /**
+     * Window around the target recomputed by an incremental update.
+     */
+    private boolean isWindowActive = false;
+    private int windowMinX;
+    private int windowMinY;
+    private int windowMaxX;
+    private int windowMaxY;
+    private final int[] windowCosts;
+    private final byte[] windowDirections;
+    private final int windowStride;
+
+    private long[] heap = new long[64];
+    private int heapSize = 0;
+
+    private int numUpdatedCells = 0;
+
+    public FlowField(TraversableGrid<T> grid) {
+        this(grid, FOUR_DIRECTIONS);
+    }
+
+    public FlowField(TraversableGrid<T> grid, NeighborDirection neighborDirection) {
+        this(grid, neighborDirection, DEFAULT_INCREMENTAL_RADIUS);
+    }
+
+    /**
+     * @param incrementalRadius size (in cells) of the window recomputed when the target moves a few cells,
+     *                          the field is fully recomputed if the target moves further than half of this
+     *                          from the target of the last full computation
+     */
+    public FlowField(TraversableGrid<T> grid, NeighborDirection neighborDirection, int incrementalRadius) {
+        if (incrementalRadius < 2)
+            throw new IllegalArgumentException("Incremental radius must be at least 2: " + incrementalRadius);
+
+        this.grid = grid;
+        this.numDirections = neighborDirection == FOUR_DIRECTIONS ? 4 : 8;
+        this.incrementalRadius = incrementalRadius;
+
+        int size = grid.getWidth() * grid.getHeight();
+        costs = new int[size];
+        directions = new byte[size];
+
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(directions, NONE);
+
+        windowStride = incrementalRadius * 2 + 1;
+        windowCosts = new int[windowStride * windowStride];
+        windowDirections = new byte[windowStride * windowStride];
+    }
+
+    public TraversableGrid<T> getGrid() {
+        return grid;
+    }
+
+    public int getTargetX() {
+        return targetX;
+    }
+
+    public int getTargetY() {
+        return targetY;
+    }
+
+    /**
+     * @return number of cells whose cost was computed by the last update
+     */
+    public int getNumUpdatedCells() {
+        return numUpdatedCells;
+    }
+
+    /**
+     * Computes the field for the whole grid.
+     */
+    public void setTarget(int x, int y) {
+        rootX = x;
+        rootY = y;
+        targetX = x;
+        targetY = y;
+        isWindowActive = false;
+
+        numUpdatedCells = compute(0, 0, grid.getWidth(), grid.getHeight(), costs, directions, grid.getWidth());
+    }
+
+    /**
+     * Updates the field for a target that moved a few cells.
+     * If the target is close to the target of the last full computation, only a window around the target is recomputed,
+     * otherwise this is the same as {@link #setTarget(int, int)}.
+     */
+    public void moveTarget(int x, int y) {
+        if (rootX < 0 || Math.max(Math.abs(x - rootX), Math.abs(y - rootY)) > incrementalRadius / 2) {
+            setTarget(x, y);
+            return;
+        }
+
+        targetX = x;
+        targetY = y;
+
+        windowMinX = Math.max(0, x - incrementalRadius);
+        windowMinY = Math.max(0, y - incrementalRadius);
+        windowMaxX = Math.min(grid.getWidth(), x + incrementalRadius + 1);
+        windowMaxY = Math.min(grid.getHeight(), y + incrementalRadius + 1);
+
+        numUpdatedCells = compute(windowMinX, windowMinY, windowMaxX, windowMaxY, windowCosts, windowDirections, windowStride);
+
+        // units following the old field arrive at the old target, so it must lead to the new one
+        if (windowCosts[toWindowIndex(rootX, rootY)] == UNREACHABLE) {
+            setTarget(x, y);
+            return;
+        }
+
+        isWindowActive = true;
+    }
+
+    /**
+     * Recomputes the whole field for the current target, e.g. after the state of cells changed.
+     */
+    public void refresh() {
+        if (targetX >= 0) {
+            setTarget(targetX, targetY);
+        }
+    }
+
+    /**
+     * @return true if the target can be reached from given cell
+     */
+    public boolean isReachable(int x, int y) {
+        return (x == targetX && y == targetY) || getDirection(x, y) != NONE;
+    }
+
+    /**
+     * Note: after {@link #moveTarget(int, int)}, costs of cells outside the recomputed window
+     * are costs to the target of the last full computation.
+     *
+     * @return cost of the shortest path from given cell to target, or -1 if target cannot be reached
+     */
+    public int getCost(int x, int y) {
+        int cost = UNREACHABLE;
+
+        if (isInWindow(x, y))
+            cost = windowCosts[toWindowIndex(x, y)];
+
+        if (cost == UNREACHABLE && grid.isWithin(x, y))
+            cost = costs[y * grid.getWidth() + x];
+
+        return cost == UNREACHABLE ? -1 : cost;
+    }
+
+    /**
+     * @return next cell on the path from given cell to target, or empty if at target or target cannot be reached
+     */
+    public Optional<T> getNextCell(int x, int y) {
+        int direction = getDirection(x, y);
+
+        if (direction == NONE)
+            return Optional.empty();
+
+        return Optional.of(grid.get(x + DX[direction], y + DY[direction]));
+    }
+
+    private int getDirection(int x, int y) {
+        if (!grid.isWithin(x, y) || (x == targetX && y == targetY))
+            return NONE;
+
+        if (isInWindow(x, y)) {
+            byte direction = windowDirections[toWindowIndex(x, y)];
+
+            if (direction != NONE)
+                return direction;
+        }
+
+        return directions[y * grid.getWidth() + x];
+    }
+
+    private boolean isInWindow(int x, int y) {
+        return isWindowActive && x >= windowMinX && y >= windowMinY && x < windowMaxX && y < windowMaxY;
+    }
+
+    private int toWindowIndex(int x, int y) {
+        return (y - windowMinY) * windowStride + x - windowMinX;
+    }
+
+    /**
+     * Dijkstra from the target over cells in [minX, maxX) x [minY, maxY),
+     * where cell (x, y) is at index (y - minY) * stride + (x - minX) of the given arrays.
+     *
+     * @return number of cells reached
+     */
+    private int compute(int minX, int minY, int maxX, int maxY, int[] costs, byte[] directions, int stride) {
+        Arrays.fill(costs, UNREACHABLE);
+        Arrays.fill(directions, NONE);
+
+        int targetIndex = (targetY - minY) * stride + targetX - minX;
+
+        costs[targetIndex] = 0;
+
+        heapSize = 0;
+        push(0, targetIndex);
+
+        int numReached = 0;
+
+        while (heapSize > 0) {
+            long entry = pop();
+
+            int cost = (int) (entry >>> 32);
+            int index = (int) entry;
+
+            // stale entry, a cheaper one was already processed
+            if (cost > costs[index])
+                continue;
+
+            numReached++;
+
+            int x = minX + index % stride;
+            int y = minY + index / stride;
+
+            var cell = grid.get(x, y);
+
+            for (int i = 0; i < numDirections; i++) {
+                int nx = x + DX[i];
+                int ny = y + DY[i];
+
+                if (nx < minX || ny < minY || nx >= maxX || ny >= maxY)
+                    continue;
+
+                var neighbor = grid.get(nx, ny);
+
+                // a unit at (nx, ny) moves into this cell, units cannot be in a cell that is not walkable
+                if (!neighbor.isWalkable() || !grid.isTraversableInSingleMove(neighbor, cell))
+                    continue;
+
+                int newCost = cost + (i >= 4 ? DIAGONAL_WEIGHT : ORTHOGONAL_WEIGHT) * cell.getMovementCost();
+
+                int neighborIndex = (ny - minY) * stride + nx - minX;
+
+                if (newCost < costs[neighborIndex]) {
+                    costs[neighborIndex] = newCost;
+                    directions[neighborIndex] = OPPOSITE[i];
+                    push(newCost, neighborIndex);
+                }
+            }
+        }
+
+        return numReached;
+    }
+
+    private void push(int cost, int index) {
+        if (heapSize == heap.length)
+            heap = Arrays.copyOf(heap, heapSize * 2);
+
+        long entry = ((long) cost << 32) | index;
+
+        int i = heapSize++;
+
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+
+            if (heap[parent] <= entry)
+                break;
+
+            heap[i] = heap[parent];
+            i = parent;
+        }
+
+        heap[i] = entry;
+    }
+
+    private long pop() {
+        long result = heap[0];
+        long last = heap[--heapSize];
+
+        int i = 0;
+
+        while (true) {
+            int child = 2 * i + 1;
+
+            if (child >= heapSize)
+                break;
+
+            if (child + 1 < heapSize && heap[child + 1] < heap[child])
+                child++;
+
+            if (heap[child] >= last)
+                break;
+
+            heap[i] = heap[child];
+            i = child;
+        }
+
+        if (heapSize > 0)
+            heap[i] = last;
+
+        return result;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding.flowfield;
+
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.component.Required;
+import com.almasb.fxgl.pathfinding.CellMoveComponent;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+
+/**
+ * Moves the entity cell by cell towards the target of a flow field.
+ * No path is computed per entity, the next cell is sampled from the field
+ * each time the entity arrives at a cell, so any number of entities can share one field.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+@Required(CellMoveComponent.class)
+public final class FlowFieldMoveComponent<T extends AStarCell> extends Component {
+
+    private CellMoveComponent moveComponent;
+
+    private FlowField<T> flowField;
+
+    public FlowFieldMoveComponent(FlowField<T> flowField) {
+        this.flowField = flowField;
+    }
+
+    public FlowField<T> getFlowField() {
+        return flowField;
+    }
+
+    /**
+     * The entity continues to the cell it is currently moving to, then follows the new field.
+     */
+    public void setFlowField(FlowField<T> flowField) {
+        this.flowField = flowField;
+    }
+
+    @Override
+    public void onAdded() {
+        moveComponent = entity.getComponent(CellMoveComponent.class);
+    }
+
+    /**
+     * @return true if the entity is in the target cell of the field and no longer moving
+     */
+    public boolean isAtTarget() {
+        return moveComponent.isAtDestination()
+                && moveComponent.getCellX() == flowField.getTargetX()
+                && moveComponent.getCellY() == flowField.getTargetY();
+    }
+
+    /**
+     * @return true if the target of the field can be reached from the cell where the entity is
+     */
+    public boolean isTargetReachable() {
+        return flowField.isReachable(moveComponent.getCellX(), moveComponent.getCellY());
+    }
+
+    @Override
+    public void onUpdate(double tpf) {
+        if (!moveComponent.isAtDestination())
+            return;
+
+        flowField.getNextCell(moveComponent.getCellX(), moveComponent.getCellY())
+                .ifPresent(moveComponent::moveToCell);
+    }
+
+    @Override
+    public boolean isComponentInjectionRequired() {
+        return false;
+    }
+}
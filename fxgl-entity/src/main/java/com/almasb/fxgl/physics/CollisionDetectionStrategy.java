@@ -7,8 +7,26 @@
 package com.almasb.fxgl.physics;
 
 /**
+ * Broad phase used by FXGL (non-Box2D) collision detection.
+ *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 public enum CollisionDetectionStrategy {
-    BRUTE_FORCE, GRID_INDEXING
+
+    /**
+     * Every pair of collidable entities is checked.
+     */
+    BRUTE_FORCE,
+
+    /**
+     * Entities are placed into a uniform grid every frame and only entities in the same cell are checked.
+     */
+    GRID_INDEXING,
+
+    /**
+     * Entities are kept in a dynamic AABB tree across frames and only pairs with overlapping (enlarged) AABBs are checked.
+     * Entities that do not move, or move only a little, cost almost nothing,
+     * so this strategy suits large worlds with many static or slow entities.
+     */
+    DYNAMIC_TREE
 }
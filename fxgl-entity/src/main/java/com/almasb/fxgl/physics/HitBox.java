@@ -367,6 +367,29 @@ public final class HitBox implements Serializable {
         return fastMaxY;
     }
 
+    // bounds of the rotated corners, i.e. fast bounds that also cover rotation
+
+    float rotatedMinX;
+    float rotatedMinY;
+    float rotatedMaxX;
+    float rotatedMaxY;
+
+    public float getRotatedMinX() {
+        return rotatedMinX;
+    }
+
+    public float getRotatedMinY() {
+        return rotatedMinY;
+    }
+
+    public float getRotatedMaxX() {
+        return rotatedMaxX;
+    }
+
+    public float getRotatedMaxY() {
+        return rotatedMaxY;
+    }
+
     SAT.MinMax axis1MinMax = new SAT.MinMax();
     SAT.MinMax axis2MinMax = new SAT.MinMax();
 
@@ -420,6 +443,16 @@ public final class HitBox implements Serializable {
                 v.set(v.x * cos - v.y * sin, v.x * sin + v.y * cos);
                 v.addLocal(originX, originY);
             }
+
+            rotatedMinX = Math.min(Math.min(corners[0].x, corners[1].x), Math.min(corners[2].x, corners[3].x));
+            rotatedMinY = Math.min(Math.min(corners[0].y, corners[1].y), Math.min(corners[2].y, corners[3].y));
+            rotatedMaxX = Math.max(Math.max(corners[0].x, corners[1].x), Math.max(corners[2].x, corners[3].x));
+            rotatedMaxY = Math.max(Math.max(corners[0].y, corners[1].y), Math.max(corners[2].y, corners[3].y));
+        } else {
+            rotatedMinX = fastMinX;
+            rotatedMinY = fastMinY;
+            rotatedMaxX = fastMaxX;
+            rotatedMaxY = fastMaxY;
         }
 
         SAT.computeMinMax(corners, axes[0], axis1MinMax);
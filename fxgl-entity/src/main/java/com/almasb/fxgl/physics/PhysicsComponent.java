@@ -327,17 +327,40 @@ public final class PhysicsComponent extends Component {
 
     private Vec2 minMeters = Pools.obtain(Vec2.class);
 
+    // body state before the last physics step, used to interpolate entity transform
+    private float prevX;
+    private float prevY;
+    private float prevAngle;
+
+    void savePreviousState() {
+        prevX = body.getPosition().x;
+        prevY = body.getPosition().y;
+        prevAngle = body.getAngle();
+    }
+
     @Override
     public void onUpdate(double tpf) {
         if (body == null)
             return;
 
+        float x = body.getPosition().x;
+        float y = body.getPosition().y;
+        float angle = body.getAngle();
+
+        if (getPhysicsWorld().isInterpolating()) {
+            float alpha = (float) getPhysicsWorld().getInterpolationAlpha();
+
+            x = prevX + (x - prevX) * alpha;
+            y = prevY + (y - prevY) * alpha;
+            angle = prevAngle + (angle - prevAngle) * alpha;
+        }
+
         // these give us min world coordinates of the overall bbox
         // but they are not coordinates of the entity
 
         minMeters.set(
-                getBody().getPosition().x - getPhysicsWorld().toMetersF(entity.getWidth() / 2),
-                getBody().getPosition().y + getPhysicsWorld().toMetersF(entity.getHeight() / 2)
+                x - getPhysicsWorld().toMetersF(entity.getWidth() / 2),
+                y + getPhysicsWorld().toMetersF(entity.getHeight() / 2)
         );
 
         Point2D minWorld = getPhysicsWorld().toPoint(minMeters);
@@ -354,7 +377,7 @@ public final class PhysicsComponent extends Component {
                 Math.round(minWorld.getY() - entity.getBoundingBoxComponent().getMinYLocal())
         );
 
-        entity.setRotation(-Math.toDegrees(getBody().getAngle()));
+        entity.setRotation(-Math.toDegrees(angle));
     }
 
     @Override
@@ -378,6 +401,9 @@ public final class PhysicsComponent extends Component {
         ));
 
         getBody().setTransform(positionMeters, getBody().getAngle());
+
+        // do not interpolate from the old position
+        savePreviousState();
     }
 
     /**
@@ -388,6 +414,8 @@ public final class PhysicsComponent extends Component {
      */
     public void overwriteAngle(double angDegrees) {
         getBody().setTransform(getBody().getPosition(), (float) -FXGLMath.toRadians(angDegrees));
+
+        savePreviousState();
     }
 
     @Override
@@ -13,6 +13,7 @@ import com.almasb.fxgl.core.pool.Pool;
 import com.almasb.fxgl.core.pool.Pools;
 import com.almasb.fxgl.entity.Entity;
 import com.almasb.fxgl.entity.EntityWorldListener;
+import com.almasb.fxgl.entity.component.ComponentTypes;
 import com.almasb.fxgl.entity.components.BoundingBoxComponent;
 import com.almasb.fxgl.entity.components.CollidableComponent;
 import com.almasb.fxgl.logging.Logger;
@@ -44,6 +45,9 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
     private static final Logger log = Logger.get(PhysicsWorld.class);
 
+    private static final int COLLIDABLE_ID = ComponentTypes.idOf(CollidableComponent.class);
+    private static final int PHYSICS_ID = ComponentTypes.idOf(PhysicsComponent.class);
+
     private final double PIXELS_PER_METER;
     private final double METERS_PER_PIXELS;
 
@@ -60,6 +64,26 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
     private int appHeight;
 
+    // physics components whose bodies have been created
+    private Array<PhysicsComponent> physicsComponents = new UnorderedArray<>(128);
+
+    /**
+     * Duration of a physics step in seconds, if 0, the world is stepped with frame time.
+     */
+    private double fixedTimeStep = 0.0;
+
+    private int maxSubSteps = 5;
+    private int velocityIterations = 8;
+    private int positionIterations = 3;
+
+    private boolean isInterpolationEnabled = true;
+
+    // frame time not yet simulated in fixed time step mode
+    private double accumulator = 0.0;
+
+    private int numSubSteps = 0;
+    private double interpolationAlpha = 1.0;
+
     public PhysicsWorld(int appHeight, double ppm) {
         this(appHeight, ppm, CollisionDetectionStrategy.BRUTE_FORCE);
     }
@@ -71,6 +95,8 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         PIXELS_PER_METER = ppm;
         METERS_PER_PIXELS = 1 / PIXELS_PER_METER;
 
+        collisionTree = new CollisionTree((float) METERS_PER_PIXELS);
+
         initCollisionPool();
         initContactListener();
         initParticles();
@@ -156,6 +182,8 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     }
 
     private void onPhysicsEntityRemoved(Entity entity) {
+        physicsComponents.removeValueByIdentity(entity.getComponent(PhysicsComponent.class));
+
         if (scaleListeners.containsKey(entity)) {
             ChangeListener<Number> scaleChangeListener = scaleListeners.get(entity);
 
@@ -173,13 +201,156 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     }
 
     public void onUpdate(double tpf) {
-        jboxWorld.step((float) tpf, 8, 3);
-        postStep();
+        if (isFixedTimeStep()) {
+            stepFixed(tpf);
+        } else {
+            step(tpf);
+
+            numSubSteps = 1;
+            interpolationAlpha = 1.0;
+        }
 
         checkCollisions();
         notifyCollisions();
     }
 
+    private void stepFixed(double tpf) {
+        accumulator += tpf;
+
+        int steps = 0;
+
+        while (accumulator >= fixedTimeStep && steps < maxSubSteps) {
+            for (int i = 0; i < physicsComponents.size(); i++) {
+                physicsComponents.get(i).savePreviousState();
+            }
+
+            step(fixedTimeStep);
+
+            accumulator -= fixedTimeStep;
+            steps++;
+        }
+
+        // drop the time we could not catch up with, otherwise each next frame would have even more to simulate
+        if (accumulator >= fixedTimeStep) {
+            accumulator %= fixedTimeStep;
+        }
+
+        numSubSteps = steps;
+        interpolationAlpha = accumulator / fixedTimeStep;
+    }
+
+    private void step(double dt) {
+        jboxWorld.step((float) dt, velocityIterations, positionIterations);
+        postStep();
+    }
+
+    /**
+     * Sets the duration of a physics step in seconds.
+     * If greater than 0, the world is stepped with this fixed duration as many times as needed
+     * to catch up with the frame time, up to max sub steps per frame,
+     * which makes the simulation independent of the frame rate.
+     * If 0 (default), the world is stepped once per frame with the frame time.
+     *
+     * @param fixedTimeStep step duration in seconds or 0
+     */
+    public void setFixedTimeStep(double fixedTimeStep) {
+        if (fixedTimeStep < 0)
+            throw new IllegalArgumentException("Fixed time step must be >= 0: " + fixedTimeStep);
+
+        this.fixedTimeStep = fixedTimeStep;
+        accumulator = 0.0;
+    }
+
+    /**
+     * @return duration of a physics step in seconds, or 0 if the world is stepped with frame time
+     */
+    public double getFixedTimeStep() {
+        return fixedTimeStep;
+    }
+
+    public boolean isFixedTimeStep() {
+        return fixedTimeStep > 0;
+    }
+
+    /**
+     * Sets the max number of physics steps per frame in fixed time step mode.
+     * Frame time beyond this number of steps is not simulated.
+     */
+    public void setMaxSubSteps(int maxSubSteps) {
+        if (maxSubSteps < 1)
+            throw new IllegalArgumentException("Max sub steps must be >= 1: " + maxSubSteps);
+
+        this.maxSubSteps = maxSubSteps;
+    }
+
+    public int getMaxSubSteps() {
+        return maxSubSteps;
+    }
+
+    /**
+     * @param velocityIterations number of velocity constraint solver iterations per step, default 8
+     */
+    public void setVelocityIterations(int velocityIterations) {
+        if (velocityIterations < 1)
+            throw new IllegalArgumentException("Velocity iterations must be >= 1: " + velocityIterations);
+
+        this.velocityIterations = velocityIterations;
+    }
+
+    public int getVelocityIterations() {
+        return velocityIterations;
+    }
+
+    /**
+     * @param positionIterations number of position constraint solver iterations per step, default 3
+     */
+    public void setPositionIterations(int positionIterations) {
+        if (positionIterations < 1)
+            throw new IllegalArgumentException("Position iterations must be >= 1: " + positionIterations);
+
+        this.positionIterations = positionIterations;
+    }
+
+    public int getPositionIterations() {
+        return positionIterations;
+    }
+
+    /**
+     * If enabled (default) in fixed time step mode, entity transforms are interpolated
+     * between the last two physics steps based on the frame time not yet simulated,
+     * so that movement appears smooth when frame rate and step rate differ.
+     * The rendered transform is then behind the simulation by at most one step.
+     */
+    public void setInterpolationEnabled(boolean interpolationEnabled) {
+        isInterpolationEnabled = interpolationEnabled;
+    }
+
+    public boolean isInterpolationEnabled() {
+        return isInterpolationEnabled;
+    }
+
+    /**
+     * @return true if entity transforms are currently interpolated between physics steps
+     */
+    boolean isInterpolating() {
+        return isFixedTimeStep() && isInterpolationEnabled;
+    }
+
+    /**
+     * @return number of physics steps performed by the last update
+     */
+    public int getNumSubSteps() {
+        return numSubSteps;
+    }
+
+    /**
+     * @return fraction of a fixed step not yet simulated after the last update, in [0, 1),
+     * or 1 if the world is stepped with frame time
+     */
+    public double getInterpolationAlpha() {
+        return interpolationAlpha;
+    }
+
     private void postStep() {
         for (Entity e : delayedBodiesAdd)
             createBody(e);
@@ -201,10 +372,14 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
 
         entities.clear();
         collisionsMap.clear();
+        collisionTree.clear();
+
+        accumulator = 0.0;
     }
 
     public void clearCollisionHandlers() {
         collisionHandlers.clear();
+        collisionFilter.invalidate();
     }
 
     @Override
@@ -276,9 +451,9 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         if (!e.isActive())
             return false;
 
-        return e.getComponentOptional(CollidableComponent.class)
-                .map(CollidableComponent::getValue)
-                .orElse(false);
+        CollidableComponent collidable = e.getComponentOrNull(COLLIDABLE_ID);
+
+        return collidable != null && collidable.getValue();
     }
 
     private boolean areCollidable(Entity e1, Entity e2) {
@@ -289,20 +464,19 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     private boolean needManualCheck(Entity e1, Entity e2) {
         // if no physics -> check manually
 
-        BodyType type1 = e1.getComponentOptional(PhysicsComponent.class)
-                .map(p -> p.body.getType())
-                .orElse(null);
+        PhysicsComponent p1 = e1.getComponentOrNull(PHYSICS_ID);
 
-        if (type1 == null)
+        if (p1 == null)
             return true;
 
-        BodyType type2 = e2.getComponentOptional(PhysicsComponent.class)
-                .map(p -> p.body.getType())
-                .orElse(null);
+        PhysicsComponent p2 = e2.getComponentOrNull(PHYSICS_ID);
 
-        if (type2 == null)
+        if (p2 == null)
             return true;
 
+        BodyType type1 = p1.body.getType();
+        BodyType type2 = p2.body.getType();
+
         // if one is kinematic and the other is static -> check manually
         return (type1 == BodyType.KINEMATIC && type2 == BodyType.STATIC)
                 || (type2 == BodyType.KINEMATIC && type1 == BodyType.STATIC);
@@ -340,6 +514,8 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
     private CollisionResult collisionResult = new CollisionResult();
 
     private CollisionGrid collisionGrid = new CollisionGrid(64, 64);
+    private CollisionTree collisionTree;
+    private CollisionFilter collisionFilter = new CollisionFilter(collisionHandlers);
 
     /**
      * Perform collision detection for all entities that have
@@ -348,73 +524,109 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      * setCollidable(true).
      */
     private void checkCollisions() {
+        for (Entity e : entities) {
+            if (isCollidable(e)) {
+                e.getBoundingBoxComponent().applyTransformToHitBoxes$fxgl_entity();
+
+                // the slot of an entity is its index in collidables
+                collisionFilter.setEntity(collidables.size(), e);
+                collidables.add(e);
+            }
+        }
+
+        collisionFilter.endAssignment(collidables.size());
+
         if (strategy == CollisionDetectionStrategy.GRID_INDEXING) {
-            for (Entity e : entities) {
-                if (isCollidable(e)) {
-                    e.getBoundingBoxComponent().applyTransformToHitBoxes$fxgl_entity();
-                    collisionGrid.insert(e);
-                }
+            for (int i = 0; i < collidables.size(); i++) {
+                collisionGrid.insert(collidables.get(i), i);
             }
 
-            collisionGrid.getCells().forEach((p, cell) -> {
-                checkCollisionsInGroup(cell.getEntities());
-            });
+            for (int i = 0; i < collisionGrid.getNumCells(); i++) {
+                checkCollisionsInCell(collisionGrid.getCell(i));
+            }
+
+            collisionGrid.clear();
 
-            collisionGrid.getCells().clear();
+        } else if (strategy == CollisionDetectionStrategy.DYNAMIC_TREE) {
+            for (int i = 0; i < collidables.size(); i++) {
+                collisionTree.insert(collidables.get(i), i);
+            }
+
+            collisionTree.update();
+
+            for (int i = 0; i < collisionTree.getNumPairs(); i++) {
+                checkCollision(collisionTree.getSlotA(i), collisionTree.getSlotB(i));
+            }
+
+            collisionTree.removeSeparatedPairs();
 
         } else {
-            for (Entity e : entities) {
-                if (isCollidable(e)) {
-                    e.getBoundingBoxComponent().applyTransformToHitBoxes$fxgl_entity();
-                    collidables.add(e);
+            for (int i = 0; i < collidables.size(); i++) {
+                for (int j = i + 1; j < collidables.size(); j++) {
+                    checkCollision(i, j);
                 }
             }
+        }
+
+        collidables.clear();
+    }
 
-            checkCollisionsInGroup(collidables);
+    private void checkCollisionsInCell(CollisionCell cell) {
+        int[] slots = cell.getSlots();
 
-            collidables.clear();
+        for (int i = 0; i < cell.getEntities().size(); i++) {
+            for (int j = i + 1; j < cell.getEntities().size(); j++) {
+                // entities that share several cells are only checked once
+                if (!collisionGrid.isPairOwner(cell, i, j))
+                    continue;
+
+                checkCollision(slots[i], slots[j]);
+            }
         }
     }
 
-    private void checkCollisionsInGroup(Array<Entity> group) {
-        for (int i = 0; i < group.size(); i++) {
-            Entity e1 = group.get(i);
+    /**
+     * @param slot1 index of entity 1 in collidables
+     * @param slot2 index of entity 2 in collidables
+     */
+    private void checkCollision(int slot1, int slot2) {
+        CollisionHandler handler = collisionFilter.getHandler(slot1, slot2);
 
-            for (int j = i + 1; j < group.size(); j++) {
-                Entity e2 = group.get(j);
+        // if no handler registered, no need to check for this pair
+        if (handler == null)
+            return;
 
-                CollisionHandler handler = getHandler(e1, e2);
+        // check if e1 ignores e2, or e2 ignores e1
+        if (collisionFilter.isIgnored(slot1, slot2))
+            return;
 
-                // if no handler registered, no need to check for this pair
-                if (handler == null)
-                    continue;
+        Entity e1 = collidables.get(slot1);
+        Entity e2 = collidables.get(slot2);
 
-                // if no need for manual check, let jbox handle it
-                if (!needManualCheck(e1, e2)) {
-                    continue;
-                }
+        // a handler may have removed one of the entities earlier in this frame
+        if (!e1.isActive() || !e2.isActive())
+            return;
 
-                // check if e1 ignores e2, or e2 ignores e1
-                if (isIgnored(e1, e2))
-                    continue;
+        // if no need for manual check, let jbox handle it
+        if (!needManualCheck(e1, e2))
+            return;
 
-                // check if colliding
-                var collision = e1.getBoundingBoxComponent().checkCollisionPAT(e2.getBoundingBoxComponent(), collisionResult);
+        // check if colliding
+        var collision = e1.getBoundingBoxComponent().checkCollisionPAT(e2.getBoundingBoxComponent(), collisionResult);
 
-                if (collision) {
-                    collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
-                } else {
-                    collisionEndFor(e1, e2);
-                }
-            }
+        if (collision) {
+            collisionBeginFor(handler, e1, e2, collisionResult.getBoxA(), collisionResult.getBoxB());
+        } else {
+            collisionEndFor(e1, e2);
         }
     }
 
     private boolean isIgnored(Entity e1, Entity e2) {
-        if (!e1.hasComponent(CollidableComponent.class) || !e2.hasComponent(CollidableComponent.class))
-            return false;
+        CollidableComponent c1 = e1.getComponentOrNull(COLLIDABLE_ID);
+        CollidableComponent c2 = e2.getComponentOrNull(COLLIDABLE_ID);
 
-        CollidableComponent c1 = e1.getComponent(CollidableComponent.class);
+        if (c1 == null || c2 == null)
+            return false;
 
         for (Serializable t1 : c1.getIgnoredTypes()) {
             if (e2.isType(t1)) {
@@ -422,8 +634,6 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
             }
         }
 
-        CollidableComponent c2 = e2.getComponent(CollidableComponent.class);
-
         for (Serializable t2 : c2.getIgnoredTypes()) {
             if (e1.isType(t2)) {
                 return true;
@@ -513,6 +723,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      */
     public void addCollisionHandler(CollisionHandler handler) {
         collisionHandlers.put(handler.getA(), handler.getB(), handler);
+        collisionFilter.invalidate();
     }
 
     /**
@@ -522,6 +733,7 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
      */
     public void removeCollisionHandler(CollisionHandler handler) {
         collisionHandlers.remove(handler.getA(), handler.getB());
+        collisionFilter.invalidate();
     }
 
     /**
@@ -559,6 +771,10 @@ public final class PhysicsWorld implements EntityWorldListener, ContactListener,
         createSensors(e);
 
         physics.body.setEntity(e);
+        physics.savePreviousState();
+
+        physicsComponents.add(physics);
+
         physics.onInitPhysics();
     }
 
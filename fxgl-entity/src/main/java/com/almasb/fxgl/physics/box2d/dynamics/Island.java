@@ -14,6 +14,7 @@ import com.almasb.fxgl.physics.box2d.common.Sweep;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.*;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.ContactSolver.ContactSolverDef;
 import com.almasb.fxgl.physics.box2d.dynamics.joints.Joint;
+import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
 import static com.almasb.fxgl.physics.box2d.common.JBoxSettings.*;
 
@@ -142,6 +143,8 @@ import static com.almasb.fxgl.physics.box2d.common.JBoxSettings.*;
  */
 class Island {
 
+    private final IWorldPool pool;
+
     private ContactListener listener;
 
     private Body[] bodies;
@@ -158,6 +161,31 @@ class Island {
     private int bodyCapacity;
     private int contactCapacity;
 
+    /**
+     * True if this island is solved concurrently with other islands.
+     * Static bodies may then be shared between islands, so they keep
+     * the index given by the parallel solver and are never written to.
+     */
+    private boolean isConcurrent = false;
+
+    /**
+     * Number of state slots reserved for shared static bodies,
+     * other bodies are indexed after them.
+     */
+    private int sharedBodyCount = 0;
+
+    private ContactImpulse[] impulseBuffer;
+    private int impulseOffset;
+
+    private boolean readyToSleep;
+
+    /**
+     * @param pool pool used by joints of this island, must only be accessed by the thread that solves this island
+     */
+    Island(IWorldPool pool) {
+        this.pool = pool;
+    }
+
     void init(int bodyCapacity, int contactCapacity, int jointCapacity, ContactListener listener) {
         this.bodyCapacity = bodyCapacity;
         this.contactCapacity = contactCapacity;
@@ -200,6 +228,29 @@ class Island {
         bodyCount = 0;
         contactCount = 0;
         jointCount = 0;
+        readyToSleep = false;
+    }
+
+    /**
+     * In concurrent mode, contact impulses are copied to the given buffer (starting from offset)
+     * instead of being reported to the listener, and bodies are not put to sleep, see {@link #isReadyToSleep()}.
+     * Capacity passed to {@link #init} must include the shared body count.
+     */
+    void setConcurrent(boolean isConcurrent, int sharedBodyCount) {
+        this.isConcurrent = isConcurrent;
+        this.sharedBodyCount = isConcurrent ? sharedBodyCount : 0;
+    }
+
+    void setImpulseBuffer(ContactImpulse[] impulseBuffer, int impulseOffset) {
+        this.impulseBuffer = impulseBuffer;
+        this.impulseOffset = impulseOffset;
+    }
+
+    /**
+     * @return true if the last solve found that all bodies of this island can sleep
+     */
+    boolean isReadyToSleep() {
+        return readyToSleep;
     }
 
     private final ContactSolver contactSolver = new ContactSolver();
@@ -212,6 +263,7 @@ class Island {
         // Integrate velocities and apply damping. Initialize the body state.
         for (int i = 0; i < bodyCount; ++i) {
             final Body b = bodies[i];
+            final int index = b.m_islandIndex;
             final Sweep bm_sweep = b.m_sweep;
             final Vec2 c = bm_sweep.c;
             float a = bm_sweep.a;
@@ -219,8 +271,11 @@ class Island {
             float w = b.getAngularVelocity();
 
             // Store positions for continuous collision.
-            bm_sweep.c0.set(bm_sweep.c);
-            bm_sweep.a0 = bm_sweep.a;
+            // Shared static bodies are updated by the parallel solver after all islands are solved.
+            if (!isShared(b)) {
+                bm_sweep.c0.set(bm_sweep.c);
+                bm_sweep.a0 = bm_sweep.a;
+            }
 
             if (b.getType() == BodyType.DYNAMIC) {
                 // Integrate velocities.
@@ -242,18 +297,19 @@ class Island {
                 w *= 1.0f / (1.0f + h * b.getAngularDamping());
             }
 
-            positions[i].c.x = c.x;
-            positions[i].c.y = c.y;
-            positions[i].a = a;
-            velocities[i].v.x = v.x;
-            velocities[i].v.y = v.y;
-            velocities[i].w = w;
+            positions[index].c.x = c.x;
+            positions[index].c.y = c.y;
+            positions[index].a = a;
+            velocities[index].v.x = v.x;
+            velocities[index].v.y = v.y;
+            velocities[index].w = w;
         }
 
         // Solver data
         solverData.step = step;
         solverData.positions = positions;
         solverData.velocities = velocities;
+        solverData.pool = pool;
 
         // Initialize velocity constraints.
         solverDef.step = step;
@@ -287,7 +343,8 @@ class Island {
 
         // Integrate positions
         for (int i = 0; i < bodyCount; ++i) {
-            Vec2 v = velocities[i].v;
+            final int index = bodies[i].m_islandIndex;
+            Vec2 v = velocities[index].v;
 
             // Check for large velocities
             float tX = v.x * h;
@@ -300,20 +357,20 @@ class Island {
                 v.mulLocal(ratio);
             }
 
-            float w = velocities[i].w;
+            float w = velocities[index].w;
             float rotation = h * w;
             if (rotation * rotation > maxRotationSquared) {
                 float ratio = maxRotation / FXGLMath.abs(rotation);
                 w *= ratio;
             }
 
-            Vec2 c = positions[i].c;
+            Vec2 c = positions[index].c;
             // Integrate
             c.x += h * v.x;
             c.y += h * v.y;
 
-            positions[i].a = positions[i].a + h * w;
-            velocities[i].w = w;
+            positions[index].a = positions[index].a + h * w;
+            velocities[index].w = w;
         }
 
         // Solve position constraints
@@ -337,12 +394,19 @@ class Island {
         // Copy state buffers back to the bodies
         for (int i = 0; i < bodyCount; ++i) {
             Body body = bodies[i];
-            body.m_sweep.c.x = positions[i].c.x;
-            body.m_sweep.c.y = positions[i].c.y;
-            body.m_sweep.a = positions[i].a;
 
-            body.setLinearVelocityDirectly(velocities[i].v.x, velocities[i].v.y);
-            body.setAngularVelocityDirectly(velocities[i].w);
+            // static bodies do not move, other islands may be reading a shared one
+            if (isShared(body)) {
+                continue;
+            }
+
+            final int index = body.m_islandIndex;
+            body.m_sweep.c.x = positions[index].c.x;
+            body.m_sweep.c.y = positions[index].c.y;
+            body.m_sweep.a = positions[index].a;
+
+            body.setLinearVelocityDirectly(velocities[index].v.x, velocities[index].v.y);
+            body.setAngularVelocityDirectly(velocities[index].w);
             body.synchronizeTransform();
         }
 
@@ -372,6 +436,13 @@ class Island {
             }
 
             if (minSleepTime >= timeToSleep && positionSolved) {
+                readyToSleep = true;
+
+                // the parallel solver puts bodies to sleep in island order
+                if (isConcurrent) {
+                    return;
+                }
+
                 for (int i = 0; i < bodyCount; ++i) {
                     Body b = bodies[i];
                     b.setAwake(false);
@@ -485,11 +556,18 @@ class Island {
     }
 
     void add(Body body) {
-        body.m_islandIndex = bodyCount;
+        if (!isShared(body)) {
+            body.m_islandIndex = sharedBodyCount + bodyCount;
+        }
+
         bodies[bodyCount] = body;
         ++bodyCount;
     }
 
+    private boolean isShared(Body body) {
+        return isConcurrent && body.getType() == BodyType.STATIC;
+    }
+
     void add(Contact contact) {
         contacts[contactCount++] = contact;
     }
@@ -516,6 +594,9 @@ class Island {
         for (int i = 0; i < contactCount; ++i) {
             Contact c = contacts[i];
 
+            // the listener is not thread-safe, so the parallel solver reports buffered impulses in island order
+            ContactImpulse impulse = isConcurrent ? impulseBuffer[impulseOffset + i] : this.impulse;
+
             ContactVelocityConstraint vc = constraints[i];
             impulse.count = vc.pointCount;
             for (int j = 0; j < vc.pointCount; ++j) {
@@ -523,7 +604,9 @@ class Island {
                 impulse.tangentImpulses[j] = vc.points[j].tangentImpulse;
             }
 
-            listener.postSolve(c, impulse);
+            if (!isConcurrent) {
+                listener.postSolve(c, impulse);
+            }
         }
     }
 
@@ -0,0 +1,380 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics.box2d.dynamics;
+
+import com.almasb.fxgl.physics.box2d.callbacks.ContactImpulse;
+import com.almasb.fxgl.physics.box2d.callbacks.ContactListener;
+import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact;
+import com.almasb.fxgl.physics.box2d.dynamics.contacts.ContactEdge;
+import com.almasb.fxgl.physics.box2d.dynamics.joints.Joint;
+import com.almasb.fxgl.physics.box2d.dynamics.joints.JointEdge;
+import com.almasb.fxgl.physics.box2d.pooling.DefaultWorldPool;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Solves islands of a world step concurrently.
+ * Islands are built on the calling thread in the same order as the serial solver,
+ * then solved on the pool, each thread using its own island (and hence contact solver and joint pool).
+ * Static bodies may belong to many islands, so they are given fixed state indices,
+ * are only read by the islands and are updated afterwards on the calling thread.
+ * Contact impulses are reported and bodies are put to sleep in island order,
+ * so the result is the same as the serial solver regardless of the number of threads.
+ *
+ * This is an internal class.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+final class ParallelIslandSolver {
+
+    private static final int MIN_BODIES_PER_TASK = 64;
+
+    private final World world;
+
+    // each thread has its own island, so contact solvers and joint temporaries are never shared
+    private final ThreadLocal<Island> threadIslands = ThreadLocal.withInitial(() ->
+            new Island(new DefaultWorldPool(World.WORLD_POOL_SIZE, World.WORLD_POOL_CONTAINER_SIZE))
+    );
+
+    // bodies, contacts and joints of all islands, stored one island after another
+    private Body[] bodies = new Body[16];
+    private Contact[] contacts = new Contact[16];
+    private Joint[] joints = new Joint[16];
+
+    private int bodyCount;
+    private int contactCount;
+    private int jointCount;
+
+    // island i owns bodies from bodyStart[i] until bodyStart[i + 1], same for contacts and joints
+    private int[] bodyStart = new int[16];
+    private int[] contactStart = new int[16];
+    private int[] jointStart = new int[16];
+
+    private boolean[] readyToSleep = new boolean[16];
+
+    private int islandCount;
+
+    private int staticBodyCount;
+
+    private Body[] stack = new Body[10];
+
+    private ContactImpulse[] impulses = new ContactImpulse[0];
+
+    ParallelIslandSolver(World world) {
+        this.world = world;
+    }
+
+    /**
+     * @return number of islands solved in the last step
+     */
+    int getIslandCount() {
+        return islandCount;
+    }
+
+    /**
+     * Island flags of bodies, contacts and joints must be cleared before calling this.
+     */
+    void solve(TimeStep step, ForkJoinPool pool) {
+        buildIslands();
+
+        if (islandCount == 0)
+            return;
+
+        ContactListener listener = world.getContactManager().getContactListener();
+
+        if (listener != null && impulses.length < contactCount) {
+            int oldLength = impulses.length;
+            impulses = Arrays.copyOf(impulses, contactCount * 2);
+
+            for (int i = oldLength; i < impulses.length; i++) {
+                impulses[i] = new ContactImpulse();
+            }
+        }
+
+        solveInParallel(step, listener, pool);
+
+        merge(listener);
+    }
+
+    private void buildIslands() {
+        bodyCount = 0;
+        contactCount = 0;
+        jointCount = 0;
+        islandCount = 0;
+        staticBodyCount = 0;
+
+        var worldBodies = world.getBodies();
+
+        if (stack.length < worldBodies.size()) {
+            stack = new Body[worldBodies.size()];
+        }
+
+        // static bodies are given indices the first time they are added to an island
+        for (Body b : worldBodies) {
+            if (b.getType() == BodyType.STATIC) {
+                b.m_islandIndex = -1;
+            }
+        }
+
+        for (Body seed : worldBodies) {
+            if (seed.isIslandFlagOn2()) {
+                continue;
+            }
+
+            if (!seed.isAwake() || !seed.isActive()) {
+                continue;
+            }
+
+            // The seed can be dynamic or kinematic.
+            if (seed.getType() == BodyType.STATIC) {
+                continue;
+            }
+
+            beginIsland();
+
+            int stackCount = 0;
+            stack[stackCount++] = seed;
+            seed.setIslandFlag(true);
+
+            // Perform a depth first search (DFS) on the constraint graph, same as World.solveIslands().
+            while (stackCount > 0) {
+                Body b = stack[--stackCount];
+
+                addBody(b);
+
+                if (b.getType() == BodyType.STATIC) {
+                    if (b.m_islandIndex < 0) {
+                        b.m_islandIndex = staticBodyCount++;
+                    }
+
+                    // Shared static bodies are woken up in island order during merge.
+                    continue;
+                }
+
+                // Make sure the body is awake.
+                b.setAwake(true);
+
+                for (ContactEdge ce = b.m_contactList; ce != null; ce = ce.next) {
+                    Contact contact = ce.contact;
+
+                    if ((contact.m_flags & Contact.ISLAND_FLAG) == Contact.ISLAND_FLAG) {
+                        continue;
+                    }
+
+                    if (!contact.isEnabled() || !contact.isTouching()) {
+                        continue;
+                    }
+
+                    if (contact.m_fixtureA.isSensor() || contact.m_fixtureB.isSensor()) {
+                        continue;
+                    }
+
+                    addContact(contact);
+                    contact.m_flags |= Contact.ISLAND_FLAG;
+
+                    Body other = ce.other;
+
+                    if (other.isIslandFlagOn2()) {
+                        continue;
+                    }
+
+                    stack[stackCount++] = other;
+                    other.setIslandFlag(true);
+                }
+
+                for (JointEdge je = b.m_jointList; je != null; je = je.next) {
+                    if (je.joint.m_islandFlag) {
+                        continue;
+                    }
+
+                    Body other = je.other;
+
+                    if (!other.isActive()) {
+                        continue;
+                    }
+
+                    addJoint(je.joint);
+                    je.joint.m_islandFlag = true;
+
+                    if (other.isIslandFlagOn2()) {
+                        continue;
+                    }
+
+                    stack[stackCount++] = other;
+                    other.setIslandFlag(true);
+                }
+            }
+
+            // Allow static bodies to participate in other islands.
+            for (int i = bodyStart[islandCount]; i < bodyCount; i++) {
+                if (bodies[i].getType() == BodyType.STATIC) {
+                    bodies[i].setIslandFlag(false);
+                }
+            }
+
+            islandCount++;
+        }
+
+        bodyStart[islandCount] = bodyCount;
+        contactStart[islandCount] = contactCount;
+        jointStart[islandCount] = jointCount;
+    }
+
+    private void beginIsland() {
+        // + 2 for the end offsets of the last island
+        if (bodyStart.length < islandCount + 2) {
+            int length = bodyStart.length * 2;
+
+            bodyStart = Arrays.copyOf(bodyStart, length);
+            contactStart = Arrays.copyOf(contactStart, length);
+            jointStart = Arrays.copyOf(jointStart, length);
+            readyToSleep = Arrays.copyOf(readyToSleep, length);
+        }
+
+        bodyStart[islandCount] = bodyCount;
+        contactStart[islandCount] = contactCount;
+        jointStart[islandCount] = jointCount;
+    }
+
+    private void addBody(Body body) {
+        // a static body is added once per island it touches, so there can be more entries than bodies
+        if (bodyCount == bodies.length) {
+            bodies = Arrays.copyOf(bodies, bodies.length * 2);
+        }
+
+        bodies[bodyCount++] = body;
+    }
+
+    private void addContact(Contact contact) {
+        if (contactCount == contacts.length) {
+            contacts = Arrays.copyOf(contacts, contacts.length * 2);
+        }
+
+        contacts[contactCount++] = contact;
+    }
+
+    private void addJoint(Joint joint) {
+        if (jointCount == joints.length) {
+            joints = Arrays.copyOf(joints, joints.length * 2);
+        }
+
+        joints[jointCount++] = joint;
+    }
+
+    private void solveInParallel(TimeStep step, ContactListener listener, ForkJoinPool pool) {
+        int bodiesPerTask = Math.max(MIN_BODIES_PER_TASK, bodyCount / (pool.getParallelism() * 4));
+
+        // consecutive islands are grouped into tasks of roughly equal size
+        List<RecursiveAction> tasks = new ArrayList<>();
+
+        int from = 0;
+
+        for (int i = 0; i < islandCount; i++) {
+            if (bodyStart[i + 1] - bodyStart[from] >= bodiesPerTask || i == islandCount - 1) {
+                final int taskFrom = from;
+                final int taskTo = i + 1;
+
+                tasks.add(new RecursiveAction() {
+                    @Override
+                    protected void compute() {
+                        solveIslands(step, listener, taskFrom, taskTo);
+                    }
+                });
+
+                from = i + 1;
+            }
+        }
+
+        if (tasks.size() == 1) {
+            solveIslands(step, listener, 0, islandCount);
+            return;
+        }
+
+        pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    private void solveIslands(TimeStep step, ContactListener listener, int from, int to) {
+        final Island island = threadIslands.get();
+
+        for (int k = from; k < to; k++) {
+            int numBodies = bodyStart[k + 1] - bodyStart[k];
+            int numContacts = contactStart[k + 1] - contactStart[k];
+            int numJoints = jointStart[k + 1] - jointStart[k];
+
+            island.init(staticBodyCount + numBodies, numContacts, numJoints, listener);
+            island.setConcurrent(true, staticBodyCount);
+
+            if (listener != null) {
+                island.setImpulseBuffer(impulses, contactStart[k]);
+            }
+
+            for (int i = bodyStart[k]; i < bodyStart[k + 1]; i++) {
+                island.add(bodies[i]);
+            }
+
+            for (int i = contactStart[k]; i < contactStart[k + 1]; i++) {
+                island.add(contacts[i]);
+            }
+
+            for (int i = jointStart[k]; i < jointStart[k + 1]; i++) {
+                island.add(joints[i]);
+            }
+
+            island.solve(step, world.getGravity(), world.isSleepingAllowed());
+
+            readyToSleep[k] = island.isReadyToSleep();
+        }
+
+        // do not keep references to bodies of this step
+        island.setImpulseBuffer(null, 0);
+    }
+
+    /**
+     * Applies what the serial solver does to shared state, in the same island order.
+     */
+    private void merge(ContactListener listener) {
+        for (int k = 0; k < islandCount; k++) {
+            for (int i = bodyStart[k]; i < bodyStart[k + 1]; i++) {
+                Body b = bodies[i];
+
+                if (b.getType() == BodyType.STATIC) {
+                    b.setAwake(true);
+
+                    b.m_sweep.c0.set(b.m_sweep.c);
+                    b.m_sweep.a0 = b.m_sweep.a;
+                    b.synchronizeTransform();
+                }
+            }
+
+            if (listener != null) {
+                for (int i = contactStart[k]; i < contactStart[k + 1]; i++) {
+                    listener.postSolve(contacts[i], impulses[i]);
+                }
+            }
+
+            if (readyToSleep[k]) {
+                for (int i = bodyStart[k]; i < bodyStart[k + 1]; i++) {
+                    bodies[i].setAwake(false);
+                }
+            }
+        }
+
+        // do not keep references to destroyed bodies and contacts until the next step
+        Arrays.fill(bodies, 0, bodyCount, null);
+        Arrays.fill(contacts, 0, contactCount, null);
+        Arrays.fill(joints, 0, jointCount, null);
+    }
+}
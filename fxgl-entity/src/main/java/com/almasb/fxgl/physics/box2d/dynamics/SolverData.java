@@ -8,9 +8,15 @@ package com.almasb.fxgl.physics.box2d.dynamics;
 
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Position;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Velocity;
+import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
 public class SolverData {
     public TimeStep step;
     public Position[] positions;
     public Velocity[] velocities;
+
+    /**
+     * Pool of temporary objects for joints, owned by the thread that solves the island.
+     */
+    public IWorldPool pool;
 }
@@ -31,6 +31,8 @@ import com.almasb.fxgl.physics.box2d.particle.*;
 import com.almasb.fxgl.physics.box2d.pooling.DefaultWorldPool;
 import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
+import java.util.concurrent.ForkJoinPool;
+
 /**
  * The world class manages all physics entities, dynamic simulation, and asynchronous queries.
  * The world also contains efficient memory management facilities.
@@ -38,12 +40,12 @@ import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
  * @author Daniel Murphy
  */
 public final class World {
-    private static final int WORLD_POOL_SIZE = 100;
-    private static final int WORLD_POOL_CONTAINER_SIZE = 10;
+    static final int WORLD_POOL_SIZE = 100;
+    static final int WORLD_POOL_CONTAINER_SIZE = 10;
 
     private final ContactManager contactManager;
     private final ParticleSystem particleSystem;
-    private final IWorldPool pool;
+    private final IWorldPool pool = new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE);
 
     private DestructionListener destructionListener = null;
     private ParticleDestructionListener particleDestructionListener = null;
@@ -71,8 +73,6 @@ public final class World {
     public World(Vec2 gravity) {
         this.gravity.set(gravity);
 
-        pool = new DefaultWorldPool(WORLD_POOL_SIZE, WORLD_POOL_CONTAINER_SIZE);
-
         contactManager = new ContactManager(pool, new DefaultBroadPhaseBuffer(new DynamicTree()));
         particleSystem = new ParticleSystem(this);
     }
@@ -294,18 +294,18 @@ public final class World {
         locked = false;
     }
 
-    private final Island island = new Island();
+    private final Island island = new Island(pool);
     private Body[] stack = new Body[10];
 
+    private final ParallelIslandSolver parallelIslandSolver = new ParallelIslandSolver(this);
+    private ForkJoinPool islandPool = null;
+
     private void solve(TimeStep step) {
         // update previous transforms
         for (Body b : bodies) {
             b.m_xf0.set(b.m_xf);
         }
 
-        // Size the island for the worst case.
-        island.init(getBodyCount(), contactManager.contactCount, getJointCount(), contactManager.getContactListener());
-
         // Clear all the island flags.
         for (Body b : bodies) {
             b.setIslandFlag(false);
@@ -317,6 +317,35 @@ public final class World {
             j.m_islandFlag = false;
         }
 
+        if (islandPool != null) {
+            parallelIslandSolver.solve(step, islandPool);
+        } else {
+            solveIslands(step);
+        }
+
+        // Synchronize fixtures, check for out of range bodies.
+        for (Body b : bodies) {
+            // If a body was not in an island then it did not move.
+            if (b.isIslandFlagOff()) {
+                continue;
+            }
+
+            if (b.getType() == BodyType.STATIC) {
+                continue;
+            }
+
+            // Update fixtures (for broad-phase).
+            b.synchronizeFixtures();
+        }
+
+        // Look for new contacts.
+        contactManager.findNewContacts();
+    }
+
+    private void solveIslands(TimeStep step) {
+        // Size the island for the worst case.
+        island.init(getBodyCount(), contactManager.contactCount, getJointCount(), contactManager.getContactListener());
+
         // Build and simulate all awake islands.
         int stackSize = getBodyCount();
         if (stack.length < stackSize) {
@@ -424,27 +453,9 @@ public final class World {
 
             island.postSolveCleanup();
         }
-
-        // Synchronize fixtures, check for out of range bodies.
-        for (Body b : bodies) {
-            // If a body was not in an island then it did not move.
-            if (b.isIslandFlagOff()) {
-                continue;
-            }
-
-            if (b.getType() == BodyType.STATIC) {
-                continue;
-            }
-
-            // Update fixtures (for broad-phase).
-            b.synchronizeFixtures();
-        }
-
-        // Look for new contacts.
-        contactManager.findNewContacts();
     }
 
-    private final Island toiIsland = new Island();
+    private final Island toiIsland = new Island(pool);
     private final TOIInput toiInput = new TOIInput();
     private final TOIOutput toiOutput = new TOIOutput();
     private final TimeStep subStep = new TimeStep();
@@ -964,6 +975,57 @@ public final class World {
         particleSystem.setParticleMaxCount(count);
     }
 
+    /**
+     * Set the pool used to solve contacts between particles in parallel.
+     * Results do not depend on the number of threads in the pool.
+     *
+     * @param pool pool or null to solve particles on the calling thread
+     */
+    public void setParticleParallelPool(ForkJoinPool pool) {
+        particleSystem.setParallelPool(pool);
+    }
+
+    public ForkJoinPool getParticleParallelPool() {
+        return particleSystem.getParallelPool();
+    }
+
+    /**
+     * Set the min number of particles to solve contacts in parallel.
+     * Default value is 4096.
+     *
+     * @param count number
+     */
+    public void setParticleParallelThreshold(int count) {
+        particleSystem.setParallelThreshold(count);
+    }
+
+    public int getParticleParallelThreshold() {
+        return particleSystem.getParallelThreshold();
+    }
+
+    /**
+     * Set the pool used to solve islands of bodies in parallel.
+     * Results do not depend on the number of threads in the pool
+     * and are the same as when islands are solved on the calling thread.
+     * Continuous collision (TOI) is always solved on the calling thread.
+     *
+     * @param pool pool or null to solve islands on the calling thread
+     */
+    public void setIslandParallelPool(ForkJoinPool pool) {
+        islandPool = pool;
+    }
+
+    public ForkJoinPool getIslandParallelPool() {
+        return islandPool;
+    }
+
+    /**
+     * @return number of islands solved in parallel during the last step, or 0 if islands are solved serially
+     */
+    public int getParallelIslandCount() {
+        return islandPool != null ? parallelIslandSolver.getIslandCount() : 0;
+    }
+
     /**
      * Change the particle density.
      *
@@ -1041,18 +1103,45 @@ public final class World {
         return particleSystem.getParticleFlagsBuffer();
     }
 
+    /**
+     * @return particle positions, changes are applied on the next step;
+     * prefer {@link #getParticlePositionX()} and {@link #getParticlePositionY()}
+     */
     public Vec2[] getParticlePositionBuffer() {
         return particleSystem.getParticlePositionBuffer();
     }
 
+    /**
+     * @return particle velocities, changes are applied on the next step;
+     * prefer {@link #getParticleVelocityX()} and {@link #getParticleVelocityY()}
+     */
     public Vec2[] getParticleVelocityBuffer() {
         return particleSystem.getParticleVelocityBuffer();
     }
 
+    /**
+     * @return particle colors, changes are applied on the next step
+     */
     public ParticleColor[] getParticleColorBuffer() {
         return particleSystem.getParticleColorBuffer();
     }
 
+    public float[] getParticlePositionX() {
+        return particleSystem.getParticlePositionX();
+    }
+
+    public float[] getParticlePositionY() {
+        return particleSystem.getParticlePositionY();
+    }
+
+    public float[] getParticleVelocityX() {
+        return particleSystem.getParticleVelocityX();
+    }
+
+    public float[] getParticleVelocityY() {
+        return particleSystem.getParticleVelocityY();
+    }
+
     public ParticleGroup[] getParticleGroupBuffer() {
         return particleSystem.getParticleGroupBuffer();
     }
@@ -13,6 +13,7 @@ import com.almasb.fxgl.physics.box2d.dynamics.SolverData;
 import com.almasb.fxgl.physics.box2d.dynamics.World;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Position;
 import com.almasb.fxgl.physics.box2d.dynamics.contacts.Velocity;
+import com.almasb.fxgl.physics.box2d.pooling.IWorldPool;
 
 public class ConstantVolumeJoint extends Joint {
 
@@ -109,7 +110,7 @@ public class ConstantVolumeJoint extends Joint {
         return area;
     }
 
-    private boolean constrainEdges(Position[] positions) {
+    private boolean constrainEdges(Position[] positions, IWorldPool pool) {
         float perimeter = 0.0f;
         for (int i = 0; i < bodies.length; ++i) {
             final int next = (i == bodies.length - 1) ? 0 : i + 1;
@@ -157,7 +158,7 @@ public class ConstantVolumeJoint extends Joint {
     public void initVelocityConstraints(final SolverData step) {
         Velocity[] velocities = step.velocities;
         Position[] positions = step.positions;
-        final Vec2[] d = pool.getVec2Array(bodies.length);
+        final Vec2[] d = step.pool.getVec2Array(bodies.length);
 
         for (int i = 0; i < bodies.length; ++i) {
             final int prev = (i == 0) ? bodies.length - 1 : i - 1;
@@ -184,7 +185,7 @@ public class ConstantVolumeJoint extends Joint {
 
     @Override
     public boolean solvePositionConstraints(SolverData step) {
-        return constrainEdges(step.positions);
+        return constrainEdges(step.positions, step.pool);
     }
 
     @Override
@@ -194,7 +195,7 @@ public class ConstantVolumeJoint extends Joint {
 
         Velocity[] velocities = step.velocities;
         Position[] positions = step.positions;
-        final Vec2[] d = pool.getVec2Array(bodies.length);
+        final Vec2[] d = step.pool.getVec2Array(bodies.length);
 
         for (int i = 0; i < bodies.length; ++i) {
             final int prev = (i == 0) ? bodies.length - 1 : i - 1;
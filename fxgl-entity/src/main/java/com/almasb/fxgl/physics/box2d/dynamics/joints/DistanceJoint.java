@@ -167,8 +167,8 @@ public class DistanceJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
 
         qA.set(aA);
         qB.set(aB);
@@ -178,7 +178,7 @@ public class DistanceJoint extends Joint {
         Rotation.mulToOutUnsafe(qB, m_u.set(m_localAnchorB).subLocal(m_localCenterB), m_rB);
         m_u.set(cB).addLocal(m_rB).subLocal(cA).subLocal(m_rA);
 
-        pool.pushRot(2);
+        data.pool.pushRot(2);
 
         // Handle singularity.
         float length = m_u.length();
@@ -226,7 +226,7 @@ public class DistanceJoint extends Joint {
             // Scale the impulse to support a variable time step.
             m_impulse *= data.step.dtRatio;
 
-            Vec2 P = pool.popVec2();
+            Vec2 P = data.pool.popVec2();
             P.set(m_u).mulLocal(m_impulse);
 
             vA.x -= m_invMassA * P.x;
@@ -237,7 +237,7 @@ public class DistanceJoint extends Joint {
             vB.y += m_invMassB * P.y;
             wB += m_invIB * Vec2.cross(m_rB, P);
 
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_impulse = 0.0f;
         }
@@ -254,8 +254,8 @@ public class DistanceJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Vec2 vpA = pool.popVec2();
-        final Vec2 vpB = pool.popVec2();
+        final Vec2 vpA = data.pool.popVec2();
+        final Vec2 vpB = data.pool.popVec2();
 
         // Cdot = dot(u, v + cross(w, r))
         Vec2.crossToOutUnsafe(wA, m_rA, vpA);
@@ -280,7 +280,7 @@ public class DistanceJoint extends Joint {
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(2);
+        data.pool.pushVec2(2);
     }
 
     @Override
@@ -288,11 +288,11 @@ public class DistanceJoint extends Joint {
         if (m_frequencyHz > 0.0f) {
             return true;
         }
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
-        final Vec2 u = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
+        final Vec2 u = data.pool.popVec2();
 
         Vec2 cA = data.positions[m_indexA].c;
         float aA = data.positions[m_indexA].a;
@@ -327,8 +327,8 @@ public class DistanceJoint extends Joint {
 //    data.positions[m_indexB].c.set(cB);
         data.positions[m_indexB].a = aB;
 
-        pool.pushVec2(3);
-        pool.pushRot(2);
+        data.pool.pushVec2(3);
+        data.pool.pushRot(2);
 
         return FXGLMath.abs(C) < JBoxSettings.linearSlop;
     }
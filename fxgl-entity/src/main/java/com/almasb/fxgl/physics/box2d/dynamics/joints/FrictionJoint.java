@@ -119,9 +119,9 @@ public class FrictionJoint extends Joint {
         float wB = data.velocities[m_indexB].w;
 
 
-        final Vec2 temp = pool.popVec2();
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
 
         qA.set(aA);
         qB.set(aB);
@@ -142,7 +142,7 @@ public class FrictionJoint extends Joint {
         float mA = m_invMassA, mB = m_invMassB;
         float iA = m_invIA, iB = m_invIB;
 
-        final Mat22 K = pool.popMat22();
+        final Mat22 K = data.pool.popMat22();
         K.ex.x = mA + mB + iA * m_rA.y * m_rA.y + iB * m_rB.y * m_rB.y;
         K.ex.y = -iA * m_rA.x * m_rA.y - iB * m_rB.x * m_rB.y;
         K.ey.x = K.ex.y;
@@ -160,7 +160,7 @@ public class FrictionJoint extends Joint {
             m_linearImpulse.mulLocal(data.step.dtRatio);
             m_angularImpulse *= data.step.dtRatio;
 
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             P.set(m_linearImpulse);
 
             temp.set(P).mulLocal(mA);
@@ -171,7 +171,7 @@ public class FrictionJoint extends Joint {
             vB.addLocal(temp);
             wB += iB * (Vec2.cross(m_rB, P) + m_angularImpulse);
 
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_linearImpulse.setZero();
             m_angularImpulse = 0.0f;
@@ -184,9 +184,9 @@ public class FrictionJoint extends Joint {
 //    data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushRot(2);
-        pool.pushVec2(1);
-        pool.pushMat22(1);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(1);
+        data.pool.pushMat22(1);
     }
 
     @Override
@@ -218,18 +218,18 @@ public class FrictionJoint extends Joint {
             Vec2 vA = data.velocities[m_indexA].v;
             Vec2 vB = data.velocities[m_indexB].v;
 
-            final Vec2 Cdot = pool.popVec2();
-            final Vec2 temp = pool.popVec2();
+            final Vec2 Cdot = data.pool.popVec2();
+            final Vec2 temp = data.pool.popVec2();
 
             Vec2.crossToOutUnsafe(wA, m_rA, temp);
             Vec2.crossToOutUnsafe(wB, m_rB, Cdot);
             Cdot.addLocal(vB).subLocal(vA).subLocal(temp);
 
-            final Vec2 impulse = pool.popVec2();
+            final Vec2 impulse = data.pool.popVec2();
             Mat22.mulToOutUnsafe(m_linearMass, Cdot, impulse);
             impulse.negateLocal();
 
-            final Vec2 oldImpulse = pool.popVec2();
+            final Vec2 oldImpulse = data.pool.popVec2();
             oldImpulse.set(m_linearImpulse);
             m_linearImpulse.addLocal(impulse);
 
@@ -254,7 +254,7 @@ public class FrictionJoint extends Joint {
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(4);
+        data.pool.pushVec2(4);
     }
 
     @Override
@@ -191,10 +191,10 @@ public class MotorJoint extends Joint {
         final Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
-        Mat22 K = pool.popMat22();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
+        Mat22 K = data.pool.popMat22();
 
         qA.set(aA);
         qB.set(aB);
@@ -254,9 +254,9 @@ public class MotorJoint extends Joint {
             angularImpulse = 0.0f;
         }
 
-        pool.pushVec2(1);
-        pool.pushMat22(1);
-        pool.pushRot(2);
+        data.pool.pushVec2(1);
+        data.pool.pushMat22(1);
+        data.pool.pushRot(2);
 
         // data.velocities[m_indexA].v = vA;
         data.velocities[m_indexA].w = wA;
@@ -279,7 +279,7 @@ public class MotorJoint extends Joint {
         float h = data.step.dt;
         float inv_h = data.step.inv_dt;
 
-        final Vec2 temp = pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
 
         // Solve angular friction
         {
@@ -295,7 +295,7 @@ public class MotorJoint extends Joint {
             wB += iB * impulse;
         }
 
-        final Vec2 Cdot = pool.popVec2();
+        final Vec2 Cdot = data.pool.popVec2();
 
         // Solve linear friction
         {
@@ -309,7 +309,7 @@ public class MotorJoint extends Joint {
             final Vec2 impulse = temp;
             Mat22.mulToOutUnsafe(m_linearMass, Cdot, impulse);
             impulse.negateLocal();
-            final Vec2 oldImpulse = pool.popVec2();
+            final Vec2 oldImpulse = data.pool.popVec2();
             oldImpulse.set(linearImpulse);
             linearImpulse.addLocal(impulse);
 
@@ -332,7 +332,7 @@ public class MotorJoint extends Joint {
             wB += iB * (m_rB.x * impulse.y - m_rB.y * impulse.x);
         }
 
-        pool.pushVec2(3);
+        data.pool.pushVec2(3);
 
         // data.velocities[m_indexA].v.set(vA);
         data.velocities[m_indexA].w = wA;
@@ -134,7 +134,7 @@ public class MouseJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qB = pool.popRot();
+        final Rotation qB = data.pool.popRot();
 
         qB.set(aB);
 
@@ -160,7 +160,7 @@ public class MouseJoint extends Joint {
         }
         m_beta = h * k * m_gamma;
 
-        Vec2 temp = pool.popVec2();
+        Vec2 temp = data.pool.popVec2();
 
         // Compute the effective mass matrix.
         Rotation.mulToOutUnsafe(qB, temp.set(m_localAnchorB).subLocal(m_localCenterB), m_rB);
@@ -168,7 +168,7 @@ public class MouseJoint extends Joint {
         // K = [(1/m1 + 1/m2) * eye(2) - skew(r1) * invI1 * skew(r1) - skew(r2) * invI2 * skew(r2)]
         // = [1/m1+1/m2 0 ] + invI1 * [r1.y*r1.y -r1.x*r1.y] + invI2 * [r1.y*r1.y -r1.x*r1.y]
         // [ 0 1/m1+1/m2] [-r1.x*r1.y r1.x*r1.x] [-r1.x*r1.y r1.x*r1.x]
-        final Mat22 K = pool.popMat22();
+        final Mat22 K = data.pool.popMat22();
         K.ex.x = m_invMassB + m_invIB * m_rB.y * m_rB.y + m_gamma;
         K.ex.y = -m_invIB * m_rB.x * m_rB.y;
         K.ey.x = K.ex.y;
@@ -194,9 +194,9 @@ public class MouseJoint extends Joint {
 //    data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(1);
-        pool.pushMat22(1);
-        pool.pushRot(1);
+        data.pool.pushVec2(1);
+        data.pool.pushMat22(1);
+        data.pool.pushRot(1);
     }
 
     @Override
@@ -211,12 +211,12 @@ public class MouseJoint extends Joint {
         float wB = data.velocities[m_indexB].w;
 
         // Cdot = v + cross(w, r)
-        final Vec2 Cdot = pool.popVec2();
+        final Vec2 Cdot = data.pool.popVec2();
         Vec2.crossToOutUnsafe(wB, m_rB, Cdot);
         Cdot.addLocal(vB);
 
-        final Vec2 impulse = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
+        final Vec2 impulse = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
 
         temp.set(m_impulse).mulLocal(m_gamma).addLocal(m_C).addLocal(Cdot).negateLocal();
         Mat22.mulToOutUnsafe(m_mass, temp, impulse);
@@ -237,7 +237,7 @@ public class MouseJoint extends Joint {
 //    data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(3);
+        data.pool.pushVec2(3);
     }
 
 }
@@ -391,12 +391,12 @@ public class PrismaticJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 d = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 d = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -480,7 +480,7 @@ public class PrismaticJoint extends Joint {
             m_impulse.mulLocal(data.step.dtRatio);
             m_motorImpulse *= data.step.dtRatio;
 
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             temp.set(m_axis).mulLocal(m_motorImpulse + m_impulse.z);
             P.set(m_perp).mulLocal(m_impulse.x).addLocal(temp);
 
@@ -495,7 +495,7 @@ public class PrismaticJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * LB;
 
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_impulse.setZero();
             m_motorImpulse = 0.0f;
@@ -506,8 +506,8 @@ public class PrismaticJoint extends Joint {
         // data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushRot(2);
-        pool.pushVec2(4);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(4);
     }
 
     @Override
@@ -520,7 +520,7 @@ public class PrismaticJoint extends Joint {
         float mA = m_invMassA, mB = m_invMassB;
         float iA = m_invIA, iB = m_invIB;
 
-        final Vec2 temp = pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
 
         // Solve linear motor constraint.
         if (m_enableMotor && m_limitState != LimitState.EQUAL) {
@@ -532,7 +532,7 @@ public class PrismaticJoint extends Joint {
             m_motorImpulse = FXGLMath.clamp(m_motorImpulse + impulse, -maxImpulse, maxImpulse);
             impulse = m_motorImpulse - oldImpulse;
 
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             P.set(m_axis).mulLocal(impulse);
             float LA = impulse * m_a1;
             float LB = impulse * m_a2;
@@ -545,10 +545,10 @@ public class PrismaticJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * LB;
 
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         }
 
-        final Vec2 Cdot1 = pool.popVec2();
+        final Vec2 Cdot1 = data.pool.popVec2();
         temp.set(vB).subLocal(vA);
         Cdot1.x = Vec2.dot(m_perp, temp) + m_s2 * wB - m_s1 * wA;
         Cdot1.y = wB - wA;
@@ -560,11 +560,11 @@ public class PrismaticJoint extends Joint {
             temp.set(vB).subLocal(vA);
             Cdot2 = Vec2.dot(m_axis, temp) + m_a2 * wB - m_a1 * wA;
 
-            final Vec3 Cdot = pool.popVec3();
+            final Vec3 Cdot = data.pool.popVec3();
             Cdot.set(Cdot1.x, Cdot1.y, Cdot2);
 
-            final Vec3 f1 = pool.popVec3();
-            final Vec3 df = pool.popVec3();
+            final Vec3 f1 = data.pool.popVec3();
+            final Vec3 df = data.pool.popVec3();
 
             f1.set(m_impulse);
             m_K.solve33ToOut(Cdot.negateLocal(), df);
@@ -579,8 +579,8 @@ public class PrismaticJoint extends Joint {
 
             // f2(1:2) = invK(1:2,1:2) * (-Cdot(1:2) - K(1:2,3) * (f2(3) - f1(3))) +
             // f1(1:2)
-            final Vec2 b = pool.popVec2();
-            final Vec2 f2r = pool.popVec2();
+            final Vec2 b = data.pool.popVec2();
+            final Vec2 f2r = data.pool.popVec2();
 
             temp.set(m_K.ez.x, m_K.ez.y).mulLocal(m_impulse.z - f1.z);
             b.set(Cdot1).negateLocal().subLocal(temp);
@@ -592,7 +592,7 @@ public class PrismaticJoint extends Joint {
 
             df.set(m_impulse).subLocal(f1);
 
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             temp.set(m_axis).mulLocal(df.z);
             P.set(m_perp).mulLocal(df.x).addLocal(temp);
 
@@ -607,18 +607,18 @@ public class PrismaticJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * LB;
 
-            pool.pushVec2(3);
-            pool.pushVec3(3);
+            data.pool.pushVec2(3);
+            data.pool.pushVec3(3);
         } else {
             // Limit is inactive, just solve the prismatic constraint in block form.
-            final Vec2 df = pool.popVec2();
+            final Vec2 df = data.pool.popVec2();
             m_K.solve22ToOut(Cdot1.negateLocal(), df);
             Cdot1.negateLocal();
 
             m_impulse.x += df.x;
             m_impulse.y += df.y;
 
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             P.set(m_perp).mulLocal(df.x);
             float LA = df.x * m_s1 + df.y;
             float LB = df.x * m_s2 + df.y;
@@ -631,7 +631,7 @@ public class PrismaticJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * LB;
 
-            pool.pushVec2(2);
+            data.pool.pushVec2(2);
         }
 
         // data.velocities[m_indexA].v.set(vA);
@@ -639,24 +639,24 @@ public class PrismaticJoint extends Joint {
         // data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(2);
+        data.pool.pushVec2(2);
     }
 
 
     @Override
     public boolean solvePositionConstraints(final SolverData data) {
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
-        final Vec2 d = pool.popVec2();
-        final Vec2 axis = pool.popVec2();
-        final Vec2 perp = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
-        final Vec2 C1 = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
+        final Vec2 d = data.pool.popVec2();
+        final Vec2 axis = data.pool.popVec2();
+        final Vec2 perp = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
+        final Vec2 C1 = data.pool.popVec2();
 
-        final Vec3 impulse = pool.popVec3();
+        final Vec3 impulse = data.pool.popVec3();
 
         Vec2 cA = data.positions[m_indexA].c;
         float aA = data.positions[m_indexA].a;
@@ -728,19 +728,19 @@ public class PrismaticJoint extends Joint {
             float k23 = iA * a1 + iB * a2;
             float k33 = mA + mB + iA * a1 * a1 + iB * a2 * a2;
 
-            final Mat33 K = pool.popMat33();
+            final Mat33 K = data.pool.popMat33();
             K.ex.set(k11, k12, k13);
             K.ey.set(k12, k22, k23);
             K.ez.set(k13, k23, k33);
 
-            final Vec3 C = pool.popVec3();
+            final Vec3 C = data.pool.popVec3();
             C.x = C1.x;
             C.y = C1.y;
             C.z = C2;
 
             K.solve33ToOut(C.negateLocal(), impulse);
-            pool.pushVec3(1);
-            pool.pushMat33(1);
+            data.pool.pushVec3(1);
+            data.pool.pushMat33(1);
         } else {
             float k11 = mA + mB + iA * s1 * s1 + iB * s2 * s2;
             float k12 = iA * s1 + iB * s2;
@@ -749,7 +749,7 @@ public class PrismaticJoint extends Joint {
                 k22 = 1.0f;
             }
 
-            final Mat22 K = pool.popMat22();
+            final Mat22 K = data.pool.popMat22();
             K.ex.set(k11, k12);
             K.ey.set(k12, k22);
 
@@ -761,7 +761,7 @@ public class PrismaticJoint extends Joint {
             impulse.y = temp.y;
             impulse.z = 0.0f;
 
-            pool.pushMat22(1);
+            data.pool.pushMat22(1);
         }
 
         float Px = impulse.x * perp.x + impulse.z * axis.x;
@@ -781,9 +781,9 @@ public class PrismaticJoint extends Joint {
         // data.positions[m_indexB].c.set(cB);
         data.positions[m_indexB].a = aB;
 
-        pool.pushVec2(7);
-        pool.pushVec3(1);
-        pool.pushRot(2);
+        data.pool.pushVec2(7);
+        data.pool.pushVec3(1);
+        data.pool.pushRot(2);
 
         return linearError <= JBoxSettings.linearSlop && angularError <= JBoxSettings.angularSlop;
     }
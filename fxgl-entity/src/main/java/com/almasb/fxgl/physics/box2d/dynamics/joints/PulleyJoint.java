@@ -181,9 +181,9 @@ public class PulleyJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -229,8 +229,8 @@ public class PulleyJoint extends Joint {
             m_impulse *= data.step.dtRatio;
 
             // Warm starting.
-            final Vec2 PA = pool.popVec2();
-            final Vec2 PB = pool.popVec2();
+            final Vec2 PA = data.pool.popVec2();
+            final Vec2 PB = data.pool.popVec2();
 
             PA.set(m_uA).mulLocal(-m_impulse);
             PB.set(m_uB).mulLocal(-m_ratio * m_impulse);
@@ -242,7 +242,7 @@ public class PulleyJoint extends Joint {
             vB.y += m_invMassB * PB.y;
             wB += m_invIB * Vec2.cross(m_rB, PB);
 
-            pool.pushVec2(2);
+            data.pool.pushVec2(2);
         } else {
             m_impulse = 0.0f;
         }
@@ -251,8 +251,8 @@ public class PulleyJoint extends Joint {
 //    data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(1);
-        pool.pushRot(2);
+        data.pool.pushVec2(1);
+        data.pool.pushRot(2);
     }
 
     @Override
@@ -262,10 +262,10 @@ public class PulleyJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Vec2 vpA = pool.popVec2();
-        final Vec2 vpB = pool.popVec2();
-        final Vec2 PA = pool.popVec2();
-        final Vec2 PB = pool.popVec2();
+        final Vec2 vpA = data.pool.popVec2();
+        final Vec2 vpB = data.pool.popVec2();
+        final Vec2 PA = data.pool.popVec2();
+        final Vec2 PB = data.pool.popVec2();
 
         Vec2.crossToOutUnsafe(wA, m_rA, vpA);
         vpA.addLocal(vA);
@@ -290,20 +290,20 @@ public class PulleyJoint extends Joint {
 //    data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(4);
+        data.pool.pushVec2(4);
     }
 
     @Override
     public boolean solvePositionConstraints(final SolverData data) {
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
-        final Vec2 uA = pool.popVec2();
-        final Vec2 uB = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
-        final Vec2 PA = pool.popVec2();
-        final Vec2 PB = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
+        final Vec2 uA = data.pool.popVec2();
+        final Vec2 uB = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
+        final Vec2 PA = data.pool.popVec2();
+        final Vec2 PB = data.pool.popVec2();
 
         Vec2 cA = data.positions[m_indexA].c;
         float aA = data.positions[m_indexA].a;
@@ -367,8 +367,8 @@ public class PulleyJoint extends Joint {
 //    data.positions[m_indexB].c.set(cB);
         data.positions[m_indexB].a = aB;
 
-        pool.pushRot(2);
-        pool.pushVec2(7);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(7);
 
         return linearError < JBoxSettings.linearSlop;
     }
@@ -107,9 +107,9 @@ public final class RevoluteJoint extends Joint {
         float aB = data.positions[m_indexB].a;
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -174,7 +174,7 @@ public final class RevoluteJoint extends Joint {
         }
 
         if (data.step.warmStarting) {
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             // Scale impulses to support a variable time step.
             m_impulse.x *= data.step.dtRatio;
             m_impulse.y *= data.step.dtRatio;
@@ -190,7 +190,7 @@ public final class RevoluteJoint extends Joint {
             vB.x += mB * P.x;
             vB.y += mB * P.y;
             wB += iB * (Vec2.cross(m_rB, P) + m_motorImpulse + m_impulse.z);
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_impulse.setZero();
             m_motorImpulse = 0.0f;
@@ -200,8 +200,8 @@ public final class RevoluteJoint extends Joint {
         // data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(1);
-        pool.pushRot(2);
+        data.pool.pushVec2(1);
+        data.pool.pushRot(2);
     }
 
     @Override
@@ -228,13 +228,13 @@ public final class RevoluteJoint extends Joint {
             wA -= iA * impulse;
             wB += iB * impulse;
         }
-        final Vec2 temp = pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
 
         // Solve limit constraint.
         if (m_enableLimit && m_limitState != LimitState.INACTIVE && !fixedRotation) {
 
-            final Vec2 Cdot1 = pool.popVec2();
-            final Vec3 Cdot = pool.popVec3();
+            final Vec2 Cdot1 = data.pool.popVec2();
+            final Vec3 Cdot = data.pool.popVec3();
 
             // Solve point-to-point constraint
             Vec2.crossToOutUnsafe(wA, m_rA, temp);
@@ -243,7 +243,7 @@ public final class RevoluteJoint extends Joint {
             float Cdot2 = wB - wA;
             Cdot.set(Cdot1.x, Cdot1.y, Cdot2);
 
-            Vec3 impulse = pool.popVec3();
+            Vec3 impulse = data.pool.popVec3();
             m_mass.solve33ToOut(Cdot, impulse);
             impulse.negateLocal();
 
@@ -252,7 +252,7 @@ public final class RevoluteJoint extends Joint {
             } else if (m_limitState == LimitState.AT_LOWER) {
                 float newImpulse = m_impulse.z + impulse.z;
                 if (newImpulse < 0.0f) {
-                    final Vec2 rhs = pool.popVec2();
+                    final Vec2 rhs = data.pool.popVec2();
                     rhs.set(m_mass.ez.x, m_mass.ez.y).mulLocal(m_impulse.z).subLocal(Cdot1);
                     m_mass.solve22ToOut(rhs, temp);
                     impulse.x = temp.x;
@@ -261,14 +261,14 @@ public final class RevoluteJoint extends Joint {
                     m_impulse.x += temp.x;
                     m_impulse.y += temp.y;
                     m_impulse.z = 0.0f;
-                    pool.pushVec2(1);
+                    data.pool.pushVec2(1);
                 } else {
                     m_impulse.addLocal(impulse);
                 }
             } else if (m_limitState == LimitState.AT_UPPER) {
                 float newImpulse = m_impulse.z + impulse.z;
                 if (newImpulse > 0.0f) {
-                    final Vec2 rhs = pool.popVec2();
+                    final Vec2 rhs = data.pool.popVec2();
                     rhs.set(m_mass.ez.x, m_mass.ez.y).mulLocal(m_impulse.z).subLocal(Cdot1);
                     m_mass.solve22ToOut(rhs, temp);
                     impulse.x = temp.x;
@@ -277,12 +277,12 @@ public final class RevoluteJoint extends Joint {
                     m_impulse.x += temp.x;
                     m_impulse.y += temp.y;
                     m_impulse.z = 0.0f;
-                    pool.pushVec2(1);
+                    data.pool.pushVec2(1);
                 } else {
                     m_impulse.addLocal(impulse);
                 }
             }
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
 
             P.set(impulse.x, impulse.y);
 
@@ -294,13 +294,13 @@ public final class RevoluteJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * (Vec2.cross(m_rB, P) + impulse.z);
 
-            pool.pushVec2(2);
-            pool.pushVec3(2);
+            data.pool.pushVec2(2);
+            data.pool.pushVec3(2);
         } else {
 
             // Solve point-to-point constraint
-            Vec2 Cdot = pool.popVec2();
-            Vec2 impulse = pool.popVec2();
+            Vec2 Cdot = data.pool.popVec2();
+            Vec2 impulse = data.pool.popVec2();
 
             Vec2.crossToOutUnsafe(wA, m_rA, temp);
             Vec2.crossToOutUnsafe(wB, m_rB, Cdot);
@@ -318,7 +318,7 @@ public final class RevoluteJoint extends Joint {
             vB.y += mB * impulse.y;
             wB += iB * Vec2.cross(m_rB, impulse);
 
-            pool.pushVec2(2);
+            data.pool.pushVec2(2);
         }
 
         // data.velocities[m_indexA].v.set(vA);
@@ -326,13 +326,13 @@ public final class RevoluteJoint extends Joint {
         // data.velocities[m_indexB].v.set(vB);
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(1);
+        data.pool.pushVec2(1);
     }
 
     @Override
     public boolean solvePositionConstraints(final SolverData data) {
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
         Vec2 cA = data.positions[m_indexA].c;
         float aA = data.positions[m_indexA].a;
         Vec2 cB = data.positions[m_indexB].c;
@@ -382,10 +382,10 @@ public final class RevoluteJoint extends Joint {
             qA.set(aA);
             qB.set(aB);
 
-            final Vec2 rA = pool.popVec2();
-            final Vec2 rB = pool.popVec2();
-            final Vec2 C = pool.popVec2();
-            final Vec2 impulse = pool.popVec2();
+            final Vec2 rA = data.pool.popVec2();
+            final Vec2 rB = data.pool.popVec2();
+            final Vec2 C = data.pool.popVec2();
+            final Vec2 impulse = data.pool.popVec2();
 
             Rotation.mulToOutUnsafe(qA, C.set(m_localAnchorA).subLocal(m_localCenterA), rA);
             Rotation.mulToOutUnsafe(qB, C.set(m_localAnchorB).subLocal(m_localCenterB), rB);
@@ -395,7 +395,7 @@ public final class RevoluteJoint extends Joint {
             float mA = m_invMassA, mB = m_invMassB;
             float iA = m_invIA, iB = m_invIB;
 
-            final Mat22 K = pool.popMat22();
+            final Mat22 K = data.pool.popMat22();
             K.ex.x = mA + mB + iA * rA.y * rA.y + iB * rB.y * rB.y;
             K.ex.y = -iA * rA.x * rA.y - iB * rB.x * rB.y;
             K.ey.x = K.ex.y;
@@ -411,15 +411,15 @@ public final class RevoluteJoint extends Joint {
             cB.y += mB * impulse.y;
             aB += iB * Vec2.cross(rB, impulse);
 
-            pool.pushVec2(4);
-            pool.pushMat22(1);
+            data.pool.pushVec2(4);
+            data.pool.pushMat22(1);
         }
         // data.positions[m_indexA].c.set(cA);
         data.positions[m_indexA].a = aA;
         // data.positions[m_indexB].c.set(cB);
         data.positions[m_indexB].a = aB;
 
-        pool.pushRot(2);
+        data.pool.pushRot(2);
 
         return positionError <= JBoxSettings.linearSlop && angularError <= JBoxSettings.angularSlop;
     }
@@ -74,9 +74,9 @@ public final class RopeJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -129,8 +129,8 @@ public final class RopeJoint extends Joint {
             m_impulse = 0.0f;
         }
 
-        pool.pushRot(2);
-        pool.pushVec2(1);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(1);
 
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
@@ -144,9 +144,9 @@ public final class RopeJoint extends Joint {
         float wB = data.velocities[m_indexB].w;
 
         // Cdot = dot(u, v + cross(w, r))
-        Vec2 vpA = pool.popVec2();
-        Vec2 vpB = pool.popVec2();
-        Vec2 temp = pool.popVec2();
+        Vec2 vpA = data.pool.popVec2();
+        Vec2 vpB = data.pool.popVec2();
+        Vec2 temp = data.pool.popVec2();
 
         Vec2.crossToOutUnsafe(wA, m_rA, vpA);
         vpA.addLocal(vA);
@@ -175,7 +175,7 @@ public final class RopeJoint extends Joint {
         vB.y += m_invMassB * Py;
         wB += m_invIB * (m_rB.x * Py - m_rB.y * Px);
 
-        pool.pushVec2(3);
+        data.pool.pushVec2(3);
 
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
@@ -188,12 +188,12 @@ public final class RopeJoint extends Joint {
         Vec2 cB = data.positions[m_indexB].c;
         float aB = data.positions[m_indexB].a;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 u = pool.popVec2();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 u = data.pool.popVec2();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -219,8 +219,8 @@ public final class RopeJoint extends Joint {
         cB.y += m_invMassB * Py;
         aB += m_invIB * (rB.x * Py - rB.y * Px);
 
-        pool.pushRot(2);
-        pool.pushVec2(4);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(4);
 
         data.positions[m_indexA].a = aA;
         data.positions[m_indexB].a = aB;
@@ -146,9 +146,9 @@ public class WeldJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -169,7 +169,7 @@ public class WeldJoint extends Joint {
         float mA = m_invMassA, mB = m_invMassB;
         float iA = m_invIA, iB = m_invIB;
 
-        final Mat33 K = pool.popMat33();
+        final Mat33 K = data.pool.popMat33();
 
         K.ex.x = mA + mB + m_rA.y * m_rA.y * iA + m_rB.y * m_rB.y * iB;
         K.ey.x = -m_rA.y * m_rA.x * iA - m_rB.y * m_rB.x * iB;
@@ -213,7 +213,7 @@ public class WeldJoint extends Joint {
         }
 
         if (data.step.warmStarting) {
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             // Scale impulses to support a variable time step.
             m_impulse.mulLocal(data.step.dtRatio);
 
@@ -226,7 +226,7 @@ public class WeldJoint extends Joint {
             vB.x += mB * P.x;
             vB.y += mB * P.y;
             wB += iB * (Vec2.cross(m_rB, P) + m_impulse.z);
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_impulse.setZero();
         }
@@ -234,9 +234,9 @@ public class WeldJoint extends Joint {
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(1);
-        pool.pushRot(2);
-        pool.pushMat33(1);
+        data.pool.pushVec2(1);
+        data.pool.pushRot(2);
+        data.pool.pushMat33(1);
     }
 
     @Override
@@ -249,9 +249,9 @@ public class WeldJoint extends Joint {
         float mA = m_invMassA, mB = m_invMassB;
         float iA = m_invIA, iB = m_invIB;
 
-        final Vec2 Cdot1 = pool.popVec2();
-        final Vec2 P = pool.popVec2();
-        final Vec2 temp = pool.popVec2();
+        final Vec2 Cdot1 = data.pool.popVec2();
+        final Vec2 P = data.pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
         if (m_frequencyHz > 0.0f) {
             float Cdot2 = wB - wA;
 
@@ -285,10 +285,10 @@ public class WeldJoint extends Joint {
             Cdot1.addLocal(vB).subLocal(vA).subLocal(temp);
             float Cdot2 = wB - wA;
 
-            final Vec3 Cdot = pool.popVec3();
+            final Vec3 Cdot = data.pool.popVec3();
             Cdot.set(Cdot1.x, Cdot1.y, Cdot2);
 
-            final Vec3 impulse = pool.popVec3();
+            final Vec3 impulse = data.pool.popVec3();
             Mat33.mulToOutUnsafe(m_mass, Cdot, impulse);
             impulse.negateLocal();
             m_impulse.addLocal(impulse);
@@ -303,13 +303,13 @@ public class WeldJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * (Vec2.cross(m_rB, P) + impulse.z);
 
-            pool.pushVec3(2);
+            data.pool.pushVec3(2);
         }
 
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
 
-        pool.pushVec2(3);
+        data.pool.pushVec2(3);
     }
 
     @Override
@@ -318,11 +318,11 @@ public class WeldJoint extends Joint {
         float aA = data.positions[m_indexA].a;
         Vec2 cB = data.positions[m_indexB].c;
         float aB = data.positions[m_indexB].a;
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
-        final Vec2 rA = pool.popVec2();
-        final Vec2 rB = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
+        final Vec2 rA = data.pool.popVec2();
+        final Vec2 rB = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -334,9 +334,9 @@ public class WeldJoint extends Joint {
         Rotation.mulToOutUnsafe(qB, temp.set(m_localAnchorB).subLocal(m_localCenterB), rB);
         float positionError, angularError;
 
-        final Mat33 K = pool.popMat33();
-        final Vec2 C1 = pool.popVec2();
-        final Vec2 P = pool.popVec2();
+        final Mat33 K = data.pool.popMat33();
+        final Vec2 C1 = data.pool.popVec2();
+        final Vec2 P = data.pool.popVec2();
 
         K.ex.x = mA + mB + rA.y * rA.y * iA + rB.y * rB.y * iB;
         K.ey.x = -rA.y * rA.x * iA - rB.y * rB.x * iB;
@@ -370,8 +370,8 @@ public class WeldJoint extends Joint {
             positionError = C1.length();
             angularError = FXGLMath.abs(C2);
 
-            final Vec3 C = pool.popVec3();
-            final Vec3 impulse = pool.popVec3();
+            final Vec3 C = data.pool.popVec3();
+            final Vec3 impulse = data.pool.popVec3();
             C.set(C1.x, C1.y, C2);
 
             K.solve33ToOut(C, impulse);
@@ -385,15 +385,15 @@ public class WeldJoint extends Joint {
             cB.x += mB * P.x;
             cB.y += mB * P.y;
             aB += iB * (Vec2.cross(rB, P) + impulse.z);
-            pool.pushVec3(2);
+            data.pool.pushVec3(2);
         }
 
         data.positions[m_indexA].a = aA;
         data.positions[m_indexB].a = aB;
 
-        pool.pushVec2(5);
-        pool.pushRot(2);
-        pool.pushMat33(1);
+        data.pool.pushVec2(5);
+        data.pool.pushRot(2);
+        data.pool.pushMat33(1);
 
         return positionError <= JBoxSettings.linearSlop && angularError <= JBoxSettings.angularSlop;
     }
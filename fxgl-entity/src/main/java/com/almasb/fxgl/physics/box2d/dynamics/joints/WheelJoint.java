@@ -229,9 +229,9 @@ public class WheelJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -309,7 +309,7 @@ public class WheelJoint extends Joint {
         }
 
         if (data.step.warmStarting) {
-            final Vec2 P = pool.popVec2();
+            final Vec2 P = data.pool.popVec2();
             // Account for variable time step.
             m_impulse *= data.step.dtRatio;
             m_springImpulse *= data.step.dtRatio;
@@ -327,14 +327,14 @@ public class WheelJoint extends Joint {
             vB.x += m_invMassB * P.x;
             vB.y += m_invMassB * P.y;
             wB += m_invIB * LB;
-            pool.pushVec2(1);
+            data.pool.pushVec2(1);
         } else {
             m_impulse = 0.0f;
             m_springImpulse = 0.0f;
             m_motorImpulse = 0.0f;
         }
-        pool.pushRot(2);
-        pool.pushVec2(1);
+        data.pool.pushRot(2);
+        data.pool.pushVec2(1);
 
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
@@ -350,8 +350,8 @@ public class WheelJoint extends Joint {
         Vec2 vB = data.velocities[m_indexB].v;
         float wB = data.velocities[m_indexB].w;
 
-        final Vec2 temp = pool.popVec2();
-        final Vec2 P = pool.popVec2();
+        final Vec2 temp = data.pool.popVec2();
+        final Vec2 P = data.pool.popVec2();
 
         // Solve spring constraint
         {
@@ -406,7 +406,7 @@ public class WheelJoint extends Joint {
             vB.y += mB * P.y;
             wB += iB * LB;
         }
-        pool.pushVec2(2);
+        data.pool.pushVec2(2);
 
         data.velocities[m_indexA].w = wA;
         data.velocities[m_indexB].w = wB;
@@ -419,9 +419,9 @@ public class WheelJoint extends Joint {
         Vec2 cB = data.positions[m_indexB].c;
         float aB = data.positions[m_indexB].a;
 
-        final Rotation qA = pool.popRot();
-        final Rotation qB = pool.popRot();
-        final Vec2 temp = pool.popVec2();
+        final Rotation qA = data.pool.popRot();
+        final Rotation qB = data.pool.popRot();
+        final Vec2 temp = data.pool.popVec2();
 
         qA.set(aA);
         qB.set(aB);
@@ -430,7 +430,7 @@ public class WheelJoint extends Joint {
         Rotation.mulToOut(qB, temp.set(m_localAnchorB).subLocal(m_localCenterB), rB);
         d.set(cB).subLocal(cA).addLocal(rB).subLocal(rA);
 
-        Vec2 ay = pool.popVec2();
+        Vec2 ay = data.pool.popVec2();
         Rotation.mulToOut(qA, m_localYAxisA, ay);
 
         float sAy = Vec2.cross(temp.set(d).addLocal(rA), ay);
@@ -447,7 +447,7 @@ public class WheelJoint extends Joint {
             impulse = 0.0f;
         }
 
-        final Vec2 P = pool.popVec2();
+        final Vec2 P = data.pool.popVec2();
         P.x = impulse * ay.x;
         P.y = impulse * ay.y;
         float LA = impulse * sAy;
@@ -460,8 +460,8 @@ public class WheelJoint extends Joint {
         cB.y += m_invMassB * P.y;
         aB += m_invIB * LB;
 
-        pool.pushVec2(3);
-        pool.pushRot(2);
+        data.pool.pushVec2(3);
+        data.pool.pushRot(2);
         data.positions[m_indexA].a = aA;
         data.positions[m_indexB].a = aB;
 
@@ -103,6 +103,8 @@ public class ParticleGroup {
     }
 
     public void updateStatistics() {
+        m_system.flushBufferViews();
+
         if (m_timestamp != m_system.m_timestamp) {
             float m = m_system.getParticleMass();
             m_mass = 0;
@@ -110,12 +112,10 @@ public class ParticleGroup {
             m_linearVelocity.setZero();
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
                 m_mass += m;
-                Vec2 pos = m_system.m_positionBuffer.data[i];
-                m_center.x += m * pos.x;
-                m_center.y += m * pos.y;
-                Vec2 vel = m_system.m_velocityBuffer.data[i];
-                m_linearVelocity.x += m * vel.x;
-                m_linearVelocity.y += m * vel.y;
+                m_center.x += m * m_system.m_positionX[i];
+                m_center.y += m * m_system.m_positionY[i];
+                m_linearVelocity.x += m * m_system.m_velocityX[i];
+                m_linearVelocity.y += m * m_system.m_velocityY[i];
             }
             if (m_mass > 0) {
                 m_center.x *= 1 / m_mass;
@@ -126,12 +126,10 @@ public class ParticleGroup {
             m_inertia = 0;
             m_angularVelocity = 0;
             for (int i = m_firstIndex; i < m_lastIndex; i++) {
-                Vec2 pos = m_system.m_positionBuffer.data[i];
-                Vec2 vel = m_system.m_velocityBuffer.data[i];
-                float px = pos.x - m_center.x;
-                float py = pos.y - m_center.y;
-                float vx = vel.x - m_linearVelocity.x;
-                float vy = vel.y - m_linearVelocity.y;
+                float px = m_system.m_positionX[i] - m_center.x;
+                float py = m_system.m_positionY[i] - m_center.y;
+                float vx = m_system.m_velocityX[i] - m_linearVelocity.x;
+                float vy = m_system.m_velocityY[i] - m_linearVelocity.y;
                 m_inertia += m * (px * px + py * py);
                 m_angularVelocity += m * (px * vy - py * vx);
             }
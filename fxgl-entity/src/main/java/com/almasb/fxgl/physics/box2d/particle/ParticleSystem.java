@@ -26,6 +26,8 @@ import com.almasb.fxgl.physics.box2d.particle.VoronoiDiagram.VoronoiDiagramCallb
 
 import java.lang.reflect.Array;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import static com.almasb.fxgl.physics.box2d.common.JBoxSettings.*;
 
@@ -43,6 +45,16 @@ public class ParticleSystem {
      */
     private static final int k_noPressureFlags = ParticleTypeInternal.b2_powderParticle;
 
+    /**
+     * Max number of contact colors, contacts that cannot be colored are solved serially.
+     */
+    private static final int MAX_CONTACT_COLORS = 64;
+
+    /**
+     * Min number of contacts solved by a single parallel task.
+     */
+    private static final int MIN_CONTACTS_PER_TASK = 512;
+
     private static final int xTruncBits = 12;
     private static final int yTruncBits = 12;
     private static final int tagBits = 8 * 4 - 1  /* sizeof(int) */;
@@ -79,13 +91,19 @@ public class ParticleSystem {
     private int m_internalAllocatedCapacity = 0;
     private int m_maxCount = 0;
     private ParticleBufferInt m_flagsBuffer = new ParticleBufferInt();
-    ParticleBuffer<Vec2> m_positionBuffer = new ParticleBuffer<Vec2>(Vec2.class);
-    ParticleBuffer<Vec2> m_velocityBuffer = new ParticleBuffer<Vec2>(Vec2.class);
+
+    // particle state is kept in one primitive array per component (structure of arrays),
+    // Vec2 and ParticleColor buffers returned by getters are copies
+    float[] m_positionX;
+    float[] m_positionY;
+    float[] m_velocityX;
+    float[] m_velocityY;
     private float[] m_accumulationBuffer; // temporary values
-    private Vec2[] m_accumulation2Buffer; // temporary vector values
+    private float[] m_accumulation2X; // temporary vector values
+    private float[] m_accumulation2Y;
     private float[] m_depthBuffer; // distance from the surface
 
-    private ParticleBuffer<ParticleColor> m_colorBuffer = new ParticleBuffer<ParticleColor>(ParticleColor.class);
+    private int[] m_colorBuffer; // packed RGBA, allocated when the first particle with color is created
     private ParticleGroup[] m_groupBuffer;
     private ParticleBuffer<Object> m_userDataBuffer = new ParticleBuffer<Object>(Object.class);
 
@@ -97,6 +115,20 @@ public class ParticleSystem {
     private int m_contactCapacity = 0;
     public ParticleContact[] m_contactBuffer;
 
+    private ForkJoinPool m_pool = null;
+    private int m_parallelThreshold = 4096;
+
+    /**
+     * Contact indices ordered by color, contacts of the same color do not share particles.
+     * Only computed when contacts are solved in parallel.
+     */
+    private int[] m_contactOrder;
+    private int[] m_contactColor;
+    private long[] m_contactColorMasks;
+    private final int[] m_colorStart = new int[MAX_CONTACT_COLORS + 2];
+    private final int[] m_colorCursor = new int[MAX_CONTACT_COLORS + 1];
+    private boolean m_solveInParallel = false;
+
     public int m_bodyContactCount = 0;
     private int m_bodyContactCapacity = 0;
     public ParticleBodyContact[] m_bodyContactBuffer;
@@ -125,34 +157,44 @@ public class ParticleSystem {
 
     private final World m_world;
 
+    // vectors handed out by the buffer getters, which may have been changed by the user
+    private Vec2[] m_positionView;
+    private Vec2[] m_velocityView;
+    private ParticleColor[] m_colorView;
+
+    private boolean m_positionViewInUse = false;
+    private boolean m_velocityViewInUse = false;
+    private boolean m_colorViewInUse = false;
+
     public ParticleSystem(World world) {
         m_world = world;
     }
 
     public int createParticle(ParticleDef def) {
+        flushBufferViews();
+
         if (m_count >= m_internalAllocatedCapacity) {
             int capacity = m_count != 0 ? 2 * m_count : minParticleBufferCapacity;
             capacity = limitCapacity(capacity, m_maxCount);
             capacity = limitCapacity(capacity, m_flagsBuffer.userSuppliedCapacity);
-            capacity = limitCapacity(capacity, m_positionBuffer.userSuppliedCapacity);
-            capacity = limitCapacity(capacity, m_velocityBuffer.userSuppliedCapacity);
-            capacity = limitCapacity(capacity, m_colorBuffer.userSuppliedCapacity);
             capacity = limitCapacity(capacity, m_userDataBuffer.userSuppliedCapacity);
             if (m_internalAllocatedCapacity < capacity) {
                 m_flagsBuffer.data =
                         reallocateBuffer(m_flagsBuffer, m_internalAllocatedCapacity, capacity, false);
-                m_positionBuffer.data =
-                        reallocateBuffer(m_positionBuffer, m_internalAllocatedCapacity, capacity, false);
-                m_velocityBuffer.data =
-                        reallocateBuffer(m_velocityBuffer, m_internalAllocatedCapacity, capacity, false);
+                m_positionX = reallocateBuffer(m_positionX, m_internalAllocatedCapacity, capacity);
+                m_positionY = reallocateBuffer(m_positionY, m_internalAllocatedCapacity, capacity);
+                m_velocityX = reallocateBuffer(m_velocityX, m_internalAllocatedCapacity, capacity);
+                m_velocityY = reallocateBuffer(m_velocityY, m_internalAllocatedCapacity, capacity);
                 m_accumulationBuffer =
                         reallocateBuffer(m_accumulationBuffer, 0, m_internalAllocatedCapacity, capacity, false);
-                m_accumulation2Buffer =
-                        reallocateBuffer(Vec2.class, m_accumulation2Buffer, 0, m_internalAllocatedCapacity, capacity, true);
+                m_accumulation2X =
+                        reallocateBuffer(m_accumulation2X, 0, m_internalAllocatedCapacity, capacity, true);
+                m_accumulation2Y =
+                        reallocateBuffer(m_accumulation2Y, 0, m_internalAllocatedCapacity, capacity, true);
                 m_depthBuffer =
                         reallocateBuffer(m_depthBuffer, 0, m_internalAllocatedCapacity, capacity, true);
-                m_colorBuffer.data =
-                        reallocateBuffer(m_colorBuffer, m_internalAllocatedCapacity, capacity, true);
+                m_colorBuffer = m_colorBuffer == null ? null
+                        : reallocateBuffer(m_colorBuffer, m_internalAllocatedCapacity, capacity);
                 m_groupBuffer =
                         reallocateBuffer(ParticleGroup.class, m_groupBuffer, 0, m_internalAllocatedCapacity, capacity, false);
                 m_userDataBuffer.data =
@@ -165,15 +207,17 @@ public class ParticleSystem {
         }
         int index = m_count++;
         m_flagsBuffer.data[index] = def.getTypeFlags();
-        m_positionBuffer.data[index].set(def.position);
-        m_velocityBuffer.data[index].set(def.velocity);
+        m_positionX[index] = def.position.x;
+        m_positionY[index] = def.position.y;
+        m_velocityX[index] = def.velocity.x;
+        m_velocityY[index] = def.velocity.y;
         m_groupBuffer[index] = null;
         if (m_depthBuffer != null) {
             m_depthBuffer[index] = 0;
         }
-        if (m_colorBuffer.data != null || def.color != null) {
-            m_colorBuffer.data = requestParticleBuffer(m_colorBuffer.dataClass, m_colorBuffer.data);
-            m_colorBuffer.data[index].set(def.color);
+        if (m_colorBuffer != null || def.color != null) {
+            m_colorBuffer = requestParticleBuffer(m_colorBuffer);
+            m_colorBuffer[index] = def.color != null ? packColor(def.color) : 0;
         }
         if (m_userDataBuffer.data != null || def.getUserData() != null) {
             m_userDataBuffer.data = requestParticleBuffer(m_userDataBuffer.dataClass, m_userDataBuffer.data);
@@ -191,6 +235,8 @@ public class ParticleSystem {
     }
 
     public void destroyParticle(int index, boolean callDestructionListener) {
+        flushBufferViews();
+
         int flags = ParticleTypeInternal.b2_zombieParticle;
         if (callDestructionListener) {
             flags |= ParticleTypeInternal.b2_destructionListener;
@@ -202,6 +248,8 @@ public class ParticleSystem {
     private final DestroyParticlesInShapeCallback dpcallback = new DestroyParticlesInShapeCallback();
 
     public int destroyParticlesInShape(Shape shape, Transform xf, boolean callDestructionListener) {
+        flushBufferViews();
+
         dpcallback.init(this, shape, xf, callDestructionListener);
         shape.computeAABB(temp, xf, 0);
         m_world.queryAABB(dpcallback, temp);
@@ -209,6 +257,8 @@ public class ParticleSystem {
     }
 
     public void destroyParticlesInGroup(ParticleGroup group, boolean callDestructionListener) {
+        flushBufferViews();
+
         for (int i = group.m_firstIndex; i < group.m_lastIndex; i++) {
             destroyParticle(i, callDestructionListener);
         }
@@ -223,6 +273,8 @@ public class ParticleSystem {
 
     @SuppressWarnings("PMD.DontUseFloatTypeForLoopIndices")
     public ParticleGroup createParticleGroup(ParticleGroupDef groupDef) {
+        flushBufferViews();
+
         float stride = getParticleStride();
         final Transform identity = tempTransform;
         identity.setIdentity();
@@ -313,7 +365,7 @@ public class ParticleSystem {
                     pair.indexB = b;
                     pair.flags = contact.flags;
                     pair.strength = groupDef.getStrength();
-                    pair.distance = m_positionBuffer.data[a].distanceF(m_positionBuffer.data[b]);
+                    pair.distance = distance(a, b);
                     m_pairCount++;
                 }
             }
@@ -321,7 +373,7 @@ public class ParticleSystem {
         if ((groupDef.getTypeFlags() & k_triadFlags) != 0) {
             VoronoiDiagram diagram = new VoronoiDiagram(lastIndex - firstIndex);
             for (int i = firstIndex; i < lastIndex; i++) {
-                diagram.addGenerator(m_positionBuffer.data[i], i);
+                diagram.addGenerator(new Vec2(m_positionX[i], m_positionY[i]), i);
             }
             diagram.generate(stride / 2);
             createParticleGroupCallback.system = this;
@@ -337,6 +389,8 @@ public class ParticleSystem {
     }
 
     public void joinParticleGroups(ParticleGroup groupA, ParticleGroup groupB) {
+        flushBufferViews();
+
         assert groupA != groupB;
         RotateBuffer(groupB.m_firstIndex, groupB.m_lastIndex, m_count);
         assert groupB.m_lastIndex == m_count;
@@ -373,7 +427,7 @@ public class ParticleSystem {
                     pair.indexB = b;
                     pair.flags = contact.flags;
                     pair.strength = Math.min(groupA.m_strength, groupB.m_strength);
-                    pair.distance = m_positionBuffer.data[a].distanceF(m_positionBuffer.data[b]);
+                    pair.distance = distance(a, b);
                     m_pairCount++;
                 }
             }
@@ -382,7 +436,7 @@ public class ParticleSystem {
             VoronoiDiagram diagram = new VoronoiDiagram(groupB.m_lastIndex - groupA.m_firstIndex);
             for (int i = groupA.m_firstIndex; i < groupB.m_lastIndex; i++) {
                 if ((m_flagsBuffer.data[i] & ParticleTypeInternal.b2_zombieParticle) == 0) {
-                    diagram.addGenerator(m_positionBuffer.data[i], i);
+                    diagram.addGenerator(new Vec2(m_positionX[i], m_positionY[i]), i);
                 }
             }
             diagram.generate(getParticleStride() / 2);
@@ -407,6 +461,16 @@ public class ParticleSystem {
         }
     }
 
+    private float distance(int a, int b) {
+        final float dx = m_positionX[b] - m_positionX[a];
+        final float dy = m_positionY[b] - m_positionY[a];
+        return FXGLMath.sqrtF(dx * dx + dy * dy);
+    }
+
+    Vec2 loadPosition(int index, Vec2 out) {
+        return out.set(m_positionX[index], m_positionY[index]);
+    }
+
     private void destroyParticleGroup(ParticleGroup group) {
         assert m_groupCount > 0;
         assert group != null;
@@ -492,10 +556,8 @@ public class ParticleSystem {
 
     private void addContact(int a, int b) {
         assert a != b;
-        Vec2 pa = m_positionBuffer.data[a];
-        Vec2 pb = m_positionBuffer.data[b];
-        float dx = pb.x - pa.x;
-        float dy = pb.y - pa.y;
+        float dx = m_positionX[b] - m_positionX[a];
+        float dy = m_positionY[b] - m_positionY[a];
         float d2 = dx * dx + dy * dy;
 
         if (d2 < m_squaredDiameter) {
@@ -523,8 +585,7 @@ public class ParticleSystem {
         for (int p = 0; p < m_proxyCount; p++) {
             Proxy proxy = m_proxyBuffer[p];
             int i = proxy.index;
-            Vec2 pos = m_positionBuffer.data[i];
-            proxy.tag = computeTag(m_inverseDiameter * pos.x, m_inverseDiameter * pos.y);
+            proxy.tag = computeTag(m_inverseDiameter * m_positionX[i], m_inverseDiameter * m_positionY[i]);
         }
         Arrays.sort(m_proxyBuffer, 0, m_proxyCount);
         m_contactCount = 0;
@@ -580,9 +641,12 @@ public class ParticleSystem {
         aabb.upperBound.x = -Float.MAX_VALUE;
         aabb.upperBound.y = -Float.MAX_VALUE;
         for (int i = 0; i < m_count; i++) {
-            Vec2 p = m_positionBuffer.data[i];
-            Vec2.minToOut(aabb.lowerBound, p, aabb.lowerBound);
-            Vec2.maxToOut(aabb.upperBound, p, aabb.upperBound);
+            final float px = m_positionX[i];
+            final float py = m_positionY[i];
+            aabb.lowerBound.x = Math.min(aabb.lowerBound.x, px);
+            aabb.lowerBound.y = Math.min(aabb.lowerBound.y, py);
+            aabb.upperBound.x = Math.max(aabb.upperBound.x, px);
+            aabb.upperBound.y = Math.max(aabb.upperBound.y, py);
         }
         aabb.lowerBound.x -= m_particleDiameter;
         aabb.lowerBound.y -= m_particleDiameter;
@@ -605,12 +669,10 @@ public class ParticleSystem {
         upperBound.x = -Float.MAX_VALUE;
         upperBound.y = -Float.MAX_VALUE;
         for (int i = 0; i < m_count; i++) {
-            final Vec2 v = m_velocityBuffer.data[i];
-            final Vec2 p1 = m_positionBuffer.data[i];
-            final float p1x = p1.x;
-            final float p1y = p1.y;
-            final float p2x = p1x + step.dt * v.x;
-            final float p2y = p1y + step.dt * v.y;
+            final float p1x = m_positionX[i];
+            final float p1y = m_positionY[i];
+            final float p2x = p1x + step.dt * m_velocityX[i];
+            final float p2y = p1y + step.dt * m_velocityY[i];
             final float bx = p1x < p2x ? p1x : p2x;
             final float by = p1y < p2y ? p1y : p2y;
             lowerBound.x = lowerBound.x < bx ? lowerBound.x : bx;
@@ -626,6 +688,8 @@ public class ParticleSystem {
     }
 
     public void solve(TimeStep step) {
+        flushBufferViews();
+
         ++m_timestamp;
         if (m_count == 0) {
             return;
@@ -648,15 +712,16 @@ public class ParticleSystem {
         final float gravityy = step.dt * m_gravityScale * m_world.getGravity().y;
         float criticalVelocytySquared = getCriticalVelocitySquared(step);
         for (int i = 0; i < m_count; i++) {
-            Vec2 v = m_velocityBuffer.data[i];
-            v.x += gravityx;
-            v.y += gravityy;
-            float v2 = v.x * v.x + v.y * v.y;
+            float vx = m_velocityX[i] + gravityx;
+            float vy = m_velocityY[i] + gravityy;
+            float v2 = vx * vx + vy * vy;
             if (v2 > criticalVelocytySquared) {
                 float a = v2 == 0 ? Float.MAX_VALUE : FXGLMath.sqrtF(criticalVelocytySquared / v2);
-                v.x *= a;
-                v.y *= a;
+                vx *= a;
+                vy *= a;
             }
+            m_velocityX[i] = vx;
+            m_velocityY[i] = vy;
         }
         solveCollision(step);
         if ((m_allGroupFlags & ParticleGroupType.b2_rigidParticleGroup) != 0) {
@@ -666,13 +731,15 @@ public class ParticleSystem {
             solveWall(step);
         }
         for (int i = 0; i < m_count; i++) {
-            Vec2 pos = m_positionBuffer.data[i];
-            Vec2 vel = m_velocityBuffer.data[i];
-            pos.x += step.dt * vel.x;
-            pos.y += step.dt * vel.y;
+            m_positionX[i] += step.dt * m_velocityX[i];
+            m_positionY[i] += step.dt * m_velocityY[i];
         }
         updateBodyContacts();
         updateContacts(false);
+        m_solveInParallel = m_pool != null && m_count >= m_parallelThreshold;
+        if (m_solveInParallel) {
+            colorContacts();
+        }
         if ((m_allParticleFlags & ParticleTypeInternal.b2_viscousParticle) != 0) {
             solveViscous(step);
         }
@@ -698,6 +765,132 @@ public class ParticleSystem {
         solveDamping(step);
     }
 
+    /**
+     * Solves a range of contacts, if order is null, indices in range are contact indices,
+     * otherwise contact indices are order[from] .. order[to - 1].
+     */
+    private interface ContactPass {
+        void solve(int[] order, int from, int to);
+    }
+
+    /**
+     * Assigns each contact a color, such that contacts of the same color do not share particles,
+     * then sorts contacts by color into {@link #m_contactOrder}.
+     * Contacts of the same color can then be solved in parallel without data races,
+     * and since colors are solved in a fixed order, results do not depend on the number of threads.
+     */
+    private void colorContacts() {
+        if (m_contactOrder == null || m_contactOrder.length < m_contactCount) {
+            m_contactOrder = new int[m_contactCapacity];
+            m_contactColor = new int[m_contactCapacity];
+        }
+        if (m_contactColorMasks == null || m_contactColorMasks.length < m_count) {
+            m_contactColorMasks = new long[m_internalAllocatedCapacity];
+        } else {
+            Arrays.fill(m_contactColorMasks, 0, m_count, 0L);
+        }
+        Arrays.fill(m_colorStart, 0);
+
+        for (int k = 0; k < m_contactCount; k++) {
+            final ParticleContact contact = m_contactBuffer[k];
+            int a = contact.indexA;
+            int b = contact.indexB;
+            long used = m_contactColorMasks[a] | m_contactColorMasks[b];
+            int color;
+            if (used == -1L) {
+                // solved serially after all colors
+                color = MAX_CONTACT_COLORS;
+            } else {
+                color = Long.numberOfTrailingZeros(~used);
+                m_contactColorMasks[a] |= 1L << color;
+                m_contactColorMasks[b] |= 1L << color;
+            }
+            m_contactColor[k] = color;
+            m_colorStart[color + 1]++;
+        }
+
+        for (int c = 0; c <= MAX_CONTACT_COLORS; c++) {
+            m_colorStart[c + 1] += m_colorStart[c];
+            m_colorCursor[c] = m_colorStart[c];
+        }
+
+        for (int k = 0; k < m_contactCount; k++) {
+            m_contactOrder[m_colorCursor[m_contactColor[k]]++] = k;
+        }
+    }
+
+    private void solveContacts(ContactPass pass) {
+        if (!m_solveInParallel) {
+            pass.solve(null, 0, m_contactCount);
+            return;
+        }
+
+        for (int c = 0; c < MAX_CONTACT_COLORS; c++) {
+            int from = m_colorStart[c];
+            int to = m_colorStart[c + 1];
+            if (from < to) {
+                solveContactsInParallel(pass, from, to);
+            }
+        }
+
+        pass.solve(m_contactOrder, m_colorStart[MAX_CONTACT_COLORS], m_colorStart[MAX_CONTACT_COLORS + 1]);
+    }
+
+    private void solveContactsInParallel(ContactPass pass, int from, int to) {
+        final int[] order = m_contactOrder;
+        int numTasks = Math.min(m_pool.getParallelism(), (to - from) / MIN_CONTACTS_PER_TASK);
+
+        if (numTasks <= 1) {
+            pass.solve(order, from, to);
+            return;
+        }
+
+        final RecursiveAction[] tasks = new RecursiveAction[numTasks];
+        int size = (to - from + numTasks - 1) / numTasks;
+
+        for (int i = 0; i < numTasks; i++) {
+            final int taskFrom = from + i * size;
+            final int taskTo = Math.min(to, taskFrom + size);
+
+            tasks[i] = new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    pass.solve(order, taskFrom, taskTo);
+                }
+            };
+        }
+
+        m_pool.invoke(new RecursiveAction() {
+            @Override
+            protected void compute() {
+                invokeAll(tasks);
+            }
+        });
+    }
+
+    /**
+     * @param pool if not null, contacts between particles are solved on this pool
+     * when there are at least {@link #getParallelThreshold()} particles
+     */
+    public void setParallelPool(ForkJoinPool pool) {
+        m_pool = pool;
+    }
+
+    public ForkJoinPool getParallelPool() {
+        return m_pool;
+    }
+
+    /**
+     * @param count min number of particles to solve contacts in parallel
+     */
+    public void setParallelThreshold(int count) {
+        m_parallelThreshold = count;
+    }
+
+    public int getParallelThreshold() {
+        return m_parallelThreshold;
+    }
+
     private void solvePressure(TimeStep step) {
         // calculates the sum of contact-weights for each particle
         // that means dimensionless density
@@ -710,14 +903,16 @@ public class ParticleSystem {
             float w = contact.weight;
             m_accumulationBuffer[a] += w;
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            m_accumulationBuffer[a] += w;
-            m_accumulationBuffer[b] += w;
-        }
+        solveContacts((order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                ParticleContact contact = m_contactBuffer[order == null ? i : order[i]];
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                m_accumulationBuffer[a] += w;
+                m_accumulationBuffer[b] += w;
+            }
+        });
         // ignores powder particles
         if ((m_allParticleFlags & k_noPressureFlags) != 0) {
             for (int i = 0; i < m_count; i++) {
@@ -743,34 +938,32 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             Vec2 n = contact.normal;
-            Vec2 p = m_positionBuffer.data[a];
             float h = m_accumulationBuffer[a] + pressurePerWeight * w;
             final Vec2 f = tempVec;
             final float coef = velocityPerPressure * w * m * h;
             f.x = coef * n.x;
             f.y = coef * n.y;
-            final Vec2 velData = m_velocityBuffer.data[a];
             final float particleInvMass = getParticleInvMass();
-            velData.x -= particleInvMass * f.x;
-            velData.y -= particleInvMass * f.y;
-            b.applyLinearImpulse(f, p, true);
-        }
-        for (int k = 0; k < m_contactCount; k++) {
-            ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            Vec2 n = contact.normal;
-            float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-            final float fx = velocityPerPressure * w * h * n.x;
-            final float fy = velocityPerPressure * w * h * n.y;
-            final Vec2 velDataA = m_velocityBuffer.data[a];
-            final Vec2 velDataB = m_velocityBuffer.data[b];
-            velDataA.x -= fx;
-            velDataA.y -= fy;
-            velDataB.x += fx;
-            velDataB.y += fy;
+            m_velocityX[a] -= particleInvMass * f.x;
+            m_velocityY[a] -= particleInvMass * f.y;
+            b.applyLinearImpulse(f, tempVec2.set(m_positionX[a], m_positionY[a]), true);
         }
+        solveContacts((order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                ParticleContact contact = m_contactBuffer[order == null ? i : order[i]];
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                Vec2 n = contact.normal;
+                float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
+                final float fx = velocityPerPressure * w * h * n.x;
+                final float fy = velocityPerPressure * w * h * n.y;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
+            }
+        });
     }
 
     @SuppressWarnings("PMD.UnusedFormalParameter")
@@ -784,13 +977,13 @@ public class ParticleSystem {
             float w = contact.weight;
             float m = contact.mass;
             Vec2 n = contact.normal;
-            Vec2 p = m_positionBuffer.data[a];
-            final float tempX = p.x - b.m_sweep.c.x;
-            final float tempY = p.y - b.m_sweep.c.y;
-            final Vec2 velA = m_velocityBuffer.data[a];
+            final float px = m_positionX[a];
+            final float py = m_positionY[a];
+            final float tempX = px - b.m_sweep.c.x;
+            final float tempY = py - b.m_sweep.c.y;
             // getLinearVelocityFromWorldPointToOut, with -= velA
-            float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - velA.x;
-            float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - velA.y;
+            float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - m_velocityX[a];
+            float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - m_velocityY[a];
             // done
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
@@ -798,42 +991,41 @@ public class ParticleSystem {
                 f.x = damping * w * m * vn * n.x;
                 f.y = damping * w * m * vn * n.y;
                 final float invMass = getParticleInvMass();
-                velA.x += invMass * f.x;
-                velA.y += invMass * f.y;
+                m_velocityX[a] += invMass * f.x;
+                m_velocityY[a] += invMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
-                b.applyLinearImpulse(f, p, true);
+                b.applyLinearImpulse(f, tempVec2.set(px, py), true);
             }
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            final ParticleContact contact = m_contactBuffer[k];
-            int a = contact.indexA;
-            int b = contact.indexB;
-            float w = contact.weight;
-            Vec2 n = contact.normal;
-            final Vec2 velA = m_velocityBuffer.data[a];
-            final Vec2 velB = m_velocityBuffer.data[b];
-            final float vx = velB.x - velA.x;
-            final float vy = velB.y - velA.y;
-            float vn = vx * n.x + vy * n.y;
-            if (vn < 0) {
-                float fx = damping * w * vn * n.x;
-                float fy = damping * w * vn * n.y;
-                velA.x += fx;
-                velA.y += fy;
-                velB.x -= fx;
-                velB.y -= fy;
+        solveContacts((order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final ParticleContact contact = m_contactBuffer[order == null ? i : order[i]];
+                int a = contact.indexA;
+                int b = contact.indexB;
+                float w = contact.weight;
+                Vec2 n = contact.normal;
+                final float vx = m_velocityX[b] - m_velocityX[a];
+                final float vy = m_velocityY[b] - m_velocityY[a];
+                float vn = vx * n.x + vy * n.y;
+                if (vn < 0) {
+                    float fx = damping * w * vn * n.x;
+                    float fy = damping * w * vn * n.y;
+                    m_velocityX[a] += fx;
+                    m_velocityY[a] += fy;
+                    m_velocityX[b] -= fx;
+                    m_velocityY[b] -= fy;
+                }
             }
-        }
+        });
     }
 
     @SuppressWarnings("PMD.UnusedFormalParameter")
     private void solveWall(TimeStep step) {
         for (int i = 0; i < m_count; i++) {
             if ((m_flagsBuffer.data[i] & ParticleTypeInternal.b2_wallParticle) != 0) {
-                final Vec2 r = m_velocityBuffer.data[i];
-                r.x = 0.0f;
-                r.y = 0.0f;
+                m_velocityX[i] = 0.0f;
+                m_velocityY[i] = 0.0f;
             }
         }
     }
@@ -861,9 +1053,14 @@ public class ParticleSystem {
                 velocityTransform.p.y = step.inv_dt * tempXf.p.y;
                 velocityTransform.q.s = step.inv_dt * tempXf.q.s;
                 velocityTransform.q.c = step.inv_dt * (tempXf.q.c - 1);
+                final Rotation q = velocityTransform.q;
+                final Vec2 p = velocityTransform.p;
                 for (int i = group.m_firstIndex; i < group.m_lastIndex; i++) {
-                    Transform.mulToOutUnsafe(velocityTransform, m_positionBuffer.data[i],
-                            m_velocityBuffer.data[i]);
+                    // Transform.mulToOutUnsafe
+                    final float px = m_positionX[i];
+                    final float py = m_positionY[i];
+                    m_velocityX[i] = q.c * px - q.s * py + p.x;
+                    m_velocityY[i] = q.s * px + q.c * py + p.y;
                 }
             }
         }
@@ -880,13 +1077,16 @@ public class ParticleSystem {
                 final Vec2 oa = triad.pa;
                 final Vec2 ob = triad.pb;
                 final Vec2 oc = triad.pc;
-                final Vec2 pa = m_positionBuffer.data[a];
-                final Vec2 pb = m_positionBuffer.data[b];
-                final Vec2 pc = m_positionBuffer.data[c];
-                final float px = 1f / 3 * (pa.x + pb.x + pc.x);
-                final float py = 1f / 3 * (pa.y + pb.y + pc.y);
-                float rs = Vec2.cross(oa, pa) + Vec2.cross(ob, pb) + Vec2.cross(oc, pc);
-                float rc = Vec2.dot(oa, pa) + Vec2.dot(ob, pb) + Vec2.dot(oc, pc);
+                final float pax = m_positionX[a];
+                final float pay = m_positionY[a];
+                final float pbx = m_positionX[b];
+                final float pby = m_positionY[b];
+                final float pcx = m_positionX[c];
+                final float pcy = m_positionY[c];
+                final float px = 1f / 3 * (pax + pbx + pcx);
+                final float py = 1f / 3 * (pay + pby + pcy);
+                float rs = oa.x * pay - oa.y * pax + (ob.x * pby - ob.y * pbx) + (oc.x * pcy - oc.y * pcx);
+                float rc = oa.x * pax + oa.y * pay + (ob.x * pbx + ob.y * pby) + (oc.x * pcx + oc.y * pcy);
                 float r2 = rs * rs + rc * rc;
                 float invR = r2 == 0 ? Float.MAX_VALUE : FXGLMath.sqrtF(1f / r2);
                 rs *= invR;
@@ -898,15 +1098,12 @@ public class ParticleSystem {
                 final float roby = rs * ob.x + rc * ob.y;
                 final float rocx = rc * oc.x - rs * oc.y;
                 final float rocy = rs * oc.x + rc * oc.y;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                final Vec2 vc = m_velocityBuffer.data[c];
-                va.x += strength * (roax - (pa.x - px));
-                va.y += strength * (roay - (pa.y - py));
-                vb.x += strength * (robx - (pb.x - px));
-                vb.y += strength * (roby - (pb.y - py));
-                vc.x += strength * (rocx - (pc.x - px));
-                vc.y += strength * (rocy - (pc.y - py));
+                m_velocityX[a] += strength * (roax - (pax - px));
+                m_velocityY[a] += strength * (roay - (pay - py));
+                m_velocityX[b] += strength * (robx - (pbx - px));
+                m_velocityY[b] += strength * (roby - (pby - py));
+                m_velocityX[c] += strength * (rocx - (pcx - px));
+                m_velocityY[c] += strength * (rocy - (pcy - py));
             }
         }
     }
@@ -918,31 +1115,29 @@ public class ParticleSystem {
             if ((pair.flags & ParticleTypeInternal.b2_springParticle) != 0) {
                 int a = pair.indexA;
                 int b = pair.indexB;
-                final Vec2 pa = m_positionBuffer.data[a];
-                final Vec2 pb = m_positionBuffer.data[b];
-                final float dx = pb.x - pa.x;
-                final float dy = pb.y - pa.y;
+                final float dx = m_positionX[b] - m_positionX[a];
+                final float dy = m_positionY[b] - m_positionY[a];
                 float r0 = pair.distance;
                 float r1 = FXGLMath.sqrtF(dx * dx + dy * dy);
                 if (r1 == 0) r1 = Float.MAX_VALUE;
                 float strength = springStrength * pair.strength;
                 final float fx = strength * (r0 - r1) / r1 * dx;
                 final float fy = strength * (r0 - r1) / r1 * dy;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
 
     private void solveTensile(final TimeStep step) {
-        m_accumulation2Buffer = requestParticleBuffer(Vec2.class, m_accumulation2Buffer);
+        m_accumulation2X = requestParticleBuffer(m_accumulation2X);
+        m_accumulation2Y = requestParticleBuffer(m_accumulation2Y);
         for (int i = 0; i < m_count; i++) {
             m_accumulationBuffer[i] = 0;
-            m_accumulation2Buffer[i].setZero();
+            m_accumulation2X[i] = 0;
+            m_accumulation2Y[i] = 0;
         }
         for (int k = 0; k < m_contactCount; k++) {
             final ParticleContact contact = m_contactBuffer[k];
@@ -953,13 +1148,11 @@ public class ParticleSystem {
                 Vec2 n = contact.normal;
                 m_accumulationBuffer[a] += w;
                 m_accumulationBuffer[b] += w;
-                final Vec2 a2A = m_accumulation2Buffer[a];
-                final Vec2 a2B = m_accumulation2Buffer[b];
                 final float inter = (1 - w) * w;
-                a2A.x -= inter * n.x;
-                a2A.y -= inter * n.y;
-                a2B.x += inter * n.x;
-                a2B.y += inter * n.y;
+                m_accumulation2X[a] -= inter * n.x;
+                m_accumulation2Y[a] -= inter * n.y;
+                m_accumulation2X[b] += inter * n.x;
+                m_accumulation2Y[b] += inter * n.y;
             }
         }
         float strengthA = m_surfaceTensionStrengthA * getCriticalVelocity(step);
@@ -971,20 +1164,16 @@ public class ParticleSystem {
                 int b = contact.indexB;
                 float w = contact.weight;
                 Vec2 n = contact.normal;
-                final Vec2 a2A = m_accumulation2Buffer[a];
-                final Vec2 a2B = m_accumulation2Buffer[b];
                 float h = m_accumulationBuffer[a] + m_accumulationBuffer[b];
-                final float sx = a2B.x - a2A.x;
-                final float sy = a2B.y - a2A.y;
+                final float sx = m_accumulation2X[b] - m_accumulation2X[a];
+                final float sy = m_accumulation2Y[b] - m_accumulation2Y[a];
                 float fn = (strengthA * (h - 2) + strengthB * (sx * n.x + sy * n.y)) * w;
                 final float fx = fn * n.x;
                 final float fy = fn * n.y;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
@@ -999,41 +1188,41 @@ public class ParticleSystem {
                 Body b = contact.body;
                 float w = contact.weight;
                 float m = contact.mass;
-                Vec2 p = m_positionBuffer.data[a];
-                final Vec2 va = m_velocityBuffer.data[a];
-                final float tempX = p.x - b.m_sweep.c.x;
-                final float tempY = p.y - b.m_sweep.c.y;
-                final float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - va.x;
-                final float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - va.y;
+                final float px = m_positionX[a];
+                final float py = m_positionY[a];
+                final float tempX = px - b.m_sweep.c.x;
+                final float tempY = py - b.m_sweep.c.y;
+                final float vx = -b.getAngularVelocity() * tempY + b.getLinearVelocity().x - m_velocityX[a];
+                final float vy = b.getAngularVelocity() * tempX + b.getLinearVelocity().y - m_velocityY[a];
                 final Vec2 f = tempVec;
                 final float pInvMass = getParticleInvMass();
                 f.x = viscousStrength * m * w * vx;
                 f.y = viscousStrength * m * w * vy;
-                va.x += pInvMass * f.x;
-                va.y += pInvMass * f.y;
+                m_velocityX[a] += pInvMass * f.x;
+                m_velocityY[a] += pInvMass * f.y;
                 f.x = -f.x;
                 f.y = -f.y;
-                b.applyLinearImpulse(f, p, true);
+                b.applyLinearImpulse(f, tempVec2.set(px, py), true);
             }
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            final ParticleContact contact = m_contactBuffer[k];
-            if ((contact.flags & ParticleTypeInternal.b2_viscousParticle) != 0) {
-                int a = contact.indexA;
-                int b = contact.indexB;
-                float w = contact.weight;
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
-                final float vx = vb.x - va.x;
-                final float vy = vb.y - va.y;
-                final float fx = viscousStrength * w * vx;
-                final float fy = viscousStrength * w * vy;
-                va.x += fx;
-                va.y += fy;
-                vb.x -= fx;
-                vb.y -= fy;
+        solveContacts((order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final ParticleContact contact = m_contactBuffer[order == null ? i : order[i]];
+                if ((contact.flags & ParticleTypeInternal.b2_viscousParticle) != 0) {
+                    int a = contact.indexA;
+                    int b = contact.indexB;
+                    float w = contact.weight;
+                    final float vx = m_velocityX[b] - m_velocityX[a];
+                    final float vy = m_velocityY[b] - m_velocityY[a];
+                    final float fx = viscousStrength * w * vx;
+                    final float fy = viscousStrength * w * vy;
+                    m_velocityX[a] += fx;
+                    m_velocityY[a] += fy;
+                    m_velocityX[b] -= fx;
+                    m_velocityY[b] -= fy;
+                }
             }
-        }
+        });
     }
 
     private void solvePowder(final TimeStep step) {
@@ -1047,40 +1236,38 @@ public class ParticleSystem {
                 if (w > minWeight) {
                     Body b = contact.body;
                     float m = contact.mass;
-                    Vec2 p = m_positionBuffer.data[a];
                     Vec2 n = contact.normal;
                     final Vec2 f = tempVec;
-                    final Vec2 va = m_velocityBuffer.data[a];
                     final float inter = powderStrength * m * (w - minWeight);
                     final float pInvMass = getParticleInvMass();
                     f.x = inter * n.x;
                     f.y = inter * n.y;
-                    va.x -= pInvMass * f.x;
-                    va.y -= pInvMass * f.y;
-                    b.applyLinearImpulse(f, p, true);
+                    m_velocityX[a] -= pInvMass * f.x;
+                    m_velocityY[a] -= pInvMass * f.y;
+                    b.applyLinearImpulse(f, tempVec2.set(m_positionX[a], m_positionY[a]), true);
                 }
             }
         }
-        for (int k = 0; k < m_contactCount; k++) {
-            final ParticleContact contact = m_contactBuffer[k];
-            if ((contact.flags & ParticleTypeInternal.b2_powderParticle) != 0) {
-                float w = contact.weight;
-                if (w > minWeight) {
-                    int a = contact.indexA;
-                    int b = contact.indexB;
-                    Vec2 n = contact.normal;
-                    final Vec2 va = m_velocityBuffer.data[a];
-                    final Vec2 vb = m_velocityBuffer.data[b];
-                    final float inter = powderStrength * (w - minWeight);
-                    final float fx = inter * n.x;
-                    final float fy = inter * n.y;
-                    va.x -= fx;
-                    va.y -= fy;
-                    vb.x += fx;
-                    vb.y += fy;
+        solveContacts((order, from, to) -> {
+            for (int i = from; i < to; i++) {
+                final ParticleContact contact = m_contactBuffer[order == null ? i : order[i]];
+                if ((contact.flags & ParticleTypeInternal.b2_powderParticle) != 0) {
+                    float w = contact.weight;
+                    if (w > minWeight) {
+                        int a = contact.indexA;
+                        int b = contact.indexB;
+                        Vec2 n = contact.normal;
+                        final float inter = powderStrength * (w - minWeight);
+                        final float fx = inter * n.x;
+                        final float fy = inter * n.y;
+                        m_velocityX[a] -= fx;
+                        m_velocityY[a] -= fy;
+                        m_velocityX[b] += fx;
+                        m_velocityY[b] += fy;
+                    }
                 }
             }
-        }
+        });
     }
 
     private void solveSolid(final TimeStep step) {
@@ -1095,15 +1282,13 @@ public class ParticleSystem {
                 float w = contact.weight;
                 Vec2 n = contact.normal;
                 float h = m_depthBuffer[a] + m_depthBuffer[b];
-                final Vec2 va = m_velocityBuffer.data[a];
-                final Vec2 vb = m_velocityBuffer.data[b];
                 final float inter = ejectionStrength * h * w;
                 final float fx = inter * n.x;
                 final float fy = inter * n.y;
-                va.x -= fx;
-                va.y -= fy;
-                vb.x += fx;
-                vb.y += fy;
+                m_velocityX[a] -= fx;
+                m_velocityY[a] -= fy;
+                m_velocityX[b] += fx;
+                m_velocityY[b] += fy;
             }
         }
     }
@@ -1111,27 +1296,25 @@ public class ParticleSystem {
     @SuppressWarnings("PMD.UnusedFormalParameter")
     private void solveColorMixing(final TimeStep step) {
         // mixes color between contacting particles
-        m_colorBuffer.data = requestParticleBuffer(ParticleColor.class, m_colorBuffer.data);
+        m_colorBuffer = requestParticleBuffer(m_colorBuffer);
         int colorMixing256 = (int) (256 * m_colorMixingStrength);
         for (int k = 0; k < m_contactCount; k++) {
             final ParticleContact contact = m_contactBuffer[k];
             int a = contact.indexA;
             int b = contact.indexB;
             if ((m_flagsBuffer.data[a] & m_flagsBuffer.data[b] & ParticleTypeInternal.b2_colorMixingParticle) != 0) {
-                ParticleColor colorA = m_colorBuffer.data[a];
-                ParticleColor colorB = m_colorBuffer.data[b];
-                int dr = (colorMixing256 * (colorB.r - colorA.r)) >> 8;
-                int dg = (colorMixing256 * (colorB.g - colorA.g)) >> 8;
-                int db = (colorMixing256 * (colorB.b - colorA.b)) >> 8;
-                int da = (colorMixing256 * (colorB.a - colorA.a)) >> 8;
-                colorA.r += dr;
-                colorA.g += dg;
-                colorA.b += db;
-                colorA.a += da;
-                colorB.r -= dr;
-                colorB.g -= dg;
-                colorB.b -= db;
-                colorB.a -= da;
+                final int colorA = m_colorBuffer[a];
+                final int colorB = m_colorBuffer[b];
+                int dr = (colorMixing256 * (red(colorB) - red(colorA))) >> 8;
+                int dg = (colorMixing256 * (green(colorB) - green(colorA))) >> 8;
+                int db = (colorMixing256 * (blue(colorB) - blue(colorA))) >> 8;
+                int da = (colorMixing256 * (alpha(colorB) - alpha(colorA))) >> 8;
+                m_colorBuffer[a] = packColor(
+                        (byte) (red(colorA) + dr), (byte) (green(colorA) + dg),
+                        (byte) (blue(colorA) + db), (byte) (alpha(colorA) + da));
+                m_colorBuffer[b] = packColor(
+                        (byte) (red(colorB) - dr), (byte) (green(colorB) - dg),
+                        (byte) (blue(colorB) - db), (byte) (alpha(colorB) - da));
             }
         }
     }
@@ -1153,14 +1336,16 @@ public class ParticleSystem {
                 newIndices[i] = newCount;
                 if (i != newCount) {
                     m_flagsBuffer.data[newCount] = m_flagsBuffer.data[i];
-                    m_positionBuffer.data[newCount].set(m_positionBuffer.data[i]);
-                    m_velocityBuffer.data[newCount].set(m_velocityBuffer.data[i]);
+                    m_positionX[newCount] = m_positionX[i];
+                    m_positionY[newCount] = m_positionY[i];
+                    m_velocityX[newCount] = m_velocityX[i];
+                    m_velocityY[newCount] = m_velocityY[i];
                     m_groupBuffer[newCount] = m_groupBuffer[i];
                     if (m_depthBuffer != null) {
                         m_depthBuffer[newCount] = m_depthBuffer[i];
                     }
-                    if (m_colorBuffer.data != null) {
-                        m_colorBuffer.data[newCount].set(m_colorBuffer.data[i]);
+                    if (m_colorBuffer != null) {
+                        m_colorBuffer[newCount] = m_colorBuffer[i];
                     }
                     if (m_userDataBuffer.data != null) {
                         m_userDataBuffer.data[newCount] = m_userDataBuffer.data[i];
@@ -1351,14 +1536,16 @@ public class ParticleSystem {
         newIndices.end = end;
 
         rotate(m_flagsBuffer.data, start, mid, end);
-        rotate(m_positionBuffer.data, start, mid, end);
-        rotate(m_velocityBuffer.data, start, mid, end);
+        rotate(m_positionX, start, mid, end);
+        rotate(m_positionY, start, mid, end);
+        rotate(m_velocityX, start, mid, end);
+        rotate(m_velocityY, start, mid, end);
         rotate(m_groupBuffer, start, mid, end);
         if (m_depthBuffer != null) {
             rotate(m_depthBuffer, start, mid, end);
         }
-        if (m_colorBuffer.data != null) {
-            rotate(m_colorBuffer.data, start, mid, end);
+        if (m_colorBuffer != null) {
+            rotate(m_colorBuffer, start, mid, end);
         }
         if (m_userDataBuffer.data != null) {
             rotate(m_userDataBuffer.data, start, mid, end);
@@ -1470,17 +1657,171 @@ public class ParticleSystem {
         return m_flagsBuffer.data;
     }
 
+    /**
+     * Positions are stored in {@link #getParticlePositionX()} and {@link #getParticlePositionY()},
+     * this returns them as vectors, which can be changed to move particles.
+     * The vectors are valid until particles are next changed, e.g. by {@link #solve(TimeStep)},
+     * at which point changes to them are written back.
+     * Prefer the float arrays in new code, since the first call after a change copies all positions.
+     *
+     * @return particle positions, valid up to {@link #getParticleCount()}
+     */
     public Vec2[] getParticlePositionBuffer() {
-        return m_positionBuffer.data;
+        if (!m_positionViewInUse) {
+            m_positionView = toVectors(m_positionView, m_positionX, m_positionY);
+            m_positionViewInUse = true;
+        }
+
+        return m_positionView;
     }
 
+    /**
+     * Velocities are stored in {@link #getParticleVelocityX()} and {@link #getParticleVelocityY()},
+     * this returns them as vectors, same as {@link #getParticlePositionBuffer()}.
+     *
+     * @return particle velocities, valid up to {@link #getParticleCount()}
+     */
     public Vec2[] getParticleVelocityBuffer() {
-        return m_velocityBuffer.data;
+        if (!m_velocityViewInUse) {
+            m_velocityView = toVectors(m_velocityView, m_velocityX, m_velocityY);
+            m_velocityViewInUse = true;
+        }
+
+        return m_velocityView;
     }
 
+    /**
+     * Colors are stored packed, this returns them as objects, same as {@link #getParticlePositionBuffer()}.
+     *
+     * @return particle colors, valid up to {@link #getParticleCount()}
+     */
     public ParticleColor[] getParticleColorBuffer() {
-        m_colorBuffer.data = requestParticleBuffer(ParticleColor.class, m_colorBuffer.data);
-        return m_colorBuffer.data;
+        if (m_colorViewInUse)
+            return m_colorView;
+
+        m_colorBuffer = requestParticleBuffer(m_colorBuffer);
+
+        if (m_colorView == null || m_colorView.length < m_count) {
+            m_colorView = new ParticleColor[m_internalAllocatedCapacity];
+        }
+
+        for (int i = 0; i < m_count; i++) {
+            int color = m_colorBuffer[i];
+
+            if (m_colorView[i] == null) {
+                m_colorView[i] = new ParticleColor(red(color), green(color), blue(color), alpha(color));
+            } else {
+                m_colorView[i].set(red(color), green(color), blue(color), alpha(color));
+            }
+        }
+
+        m_colorViewInUse = true;
+
+        return m_colorView;
+    }
+
+    /**
+     * Writes changes made to vectors and colors returned by the buffer getters back to particles.
+     * Called before particles are read or changed, the getters then copy particles again on next call.
+     */
+    void flushBufferViews() {
+        if (m_positionViewInUse) {
+            for (int i = 0; i < m_count; i++) {
+                m_positionX[i] = m_positionView[i].x;
+                m_positionY[i] = m_positionView[i].y;
+            }
+
+            m_positionViewInUse = false;
+        }
+
+        if (m_velocityViewInUse) {
+            for (int i = 0; i < m_count; i++) {
+                m_velocityX[i] = m_velocityView[i].x;
+                m_velocityY[i] = m_velocityView[i].y;
+            }
+
+            m_velocityViewInUse = false;
+        }
+
+        if (m_colorViewInUse) {
+            for (int i = 0; i < m_count; i++) {
+                m_colorBuffer[i] = packColor(m_colorView[i]);
+            }
+
+            m_colorViewInUse = false;
+        }
+    }
+
+    /**
+     * @return x positions of particles, valid up to {@link #getParticleCount()}
+     */
+    public float[] getParticlePositionX() {
+        flushBufferViews();
+        return m_positionX;
+    }
+
+    /**
+     * @return y positions of particles, valid up to {@link #getParticleCount()}
+     */
+    public float[] getParticlePositionY() {
+        flushBufferViews();
+        return m_positionY;
+    }
+
+    /**
+     * @return x velocities of particles, valid up to {@link #getParticleCount()}
+     */
+    public float[] getParticleVelocityX() {
+        flushBufferViews();
+        return m_velocityX;
+    }
+
+    /**
+     * @return y velocities of particles, valid up to {@link #getParticleCount()}
+     */
+    public float[] getParticleVelocityY() {
+        flushBufferViews();
+        return m_velocityY;
+    }
+
+    public void setParticlePosition(int index, float x, float y) {
+        flushBufferViews();
+        m_positionX[index] = x;
+        m_positionY[index] = y;
+    }
+
+    public void setParticleVelocity(int index, float x, float y) {
+        flushBufferViews();
+        m_velocityX[index] = x;
+        m_velocityY[index] = y;
+    }
+
+    public void setParticleColor(int index, ParticleColor color) {
+        flushBufferViews();
+        m_colorBuffer = requestParticleBuffer(m_colorBuffer);
+        m_colorBuffer[index] = packColor(color);
+    }
+
+    private Vec2[] toVectors(Vec2[] vectors, float[] x, float[] y) {
+        if (vectors == null || vectors.length < m_count) {
+            Vec2[] newVectors = new Vec2[m_internalAllocatedCapacity];
+
+            if (vectors != null) {
+                System.arraycopy(vectors, 0, newVectors, 0, vectors.length);
+            }
+
+            for (int i = vectors == null ? 0 : vectors.length; i < newVectors.length; i++) {
+                newVectors[i] = new Vec2();
+            }
+
+            vectors = newVectors;
+        }
+
+        for (int i = 0; i < m_count; i++) {
+            vectors[i].set(x[i], y[i]);
+        }
+
+        return vectors;
     }
 
     public Object[] getParticleUserDataBuffer() {
@@ -1546,6 +1887,8 @@ public class ParticleSystem {
     }
 
     public void queryAABB(ParticleQueryCallback callback, final AABB aabb) {
+        flushBufferViews();
+
         if (m_proxyCount == 0) {
             return;
         }
@@ -1562,14 +1905,17 @@ public class ParticleSystem {
                         computeTag(m_inverseDiameter * upperBoundX, m_inverseDiameter * upperBoundY));
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
             int i = m_proxyBuffer[proxy].index;
-            final Vec2 p = m_positionBuffer.data[i];
-            if (lowerBoundX < p.x && p.x < upperBoundX && lowerBoundY < p.y && p.y < upperBoundY && !callback.reportParticle(i)) {
+            final float px = m_positionX[i];
+            final float py = m_positionY[i];
+            if (lowerBoundX < px && px < upperBoundX && lowerBoundY < py && py < upperBoundY && !callback.reportParticle(i)) {
                 break;
             }
         }
     }
 
     public void raycast(ParticleRaycastCallback callback, final Vec2 point1, final Vec2 point2) {
+        flushBufferViews();
+
         if (m_proxyCount == 0) {
             return;
         }
@@ -1595,9 +1941,8 @@ public class ParticleSystem {
         if (v2 == 0) v2 = Float.MAX_VALUE;
         for (int proxy = firstProxy; proxy < lastProxy; ++proxy) {
             int i = m_proxyBuffer[proxy].index;
-            final Vec2 posI = m_positionBuffer.data[i];
-            final float px = point1.x - posI.x;
-            final float py = point1.y - posI.y;
+            final float px = point1.x - m_positionX[i];
+            final float py = point1.y - m_positionY[i];
             float pv = px * vx + py * vy;
             float p2 = px * px + py * py;
             float determinant = pv * pv - v2 * (p2 - m_squaredDiameter);
@@ -1631,16 +1976,16 @@ public class ParticleSystem {
     }
 
     public float computeParticleCollisionEnergy() {
+        flushBufferViews();
+
         float sum_v2 = 0;
         for (int k = 0; k < m_contactCount; k++) {
             final ParticleContact contact = m_contactBuffer[k];
             int a = contact.indexA;
             int b = contact.indexB;
             Vec2 n = contact.normal;
-            final Vec2 va = m_velocityBuffer.data[a];
-            final Vec2 vb = m_velocityBuffer.data[b];
-            final float vx = vb.x - va.x;
-            final float vy = vb.y - va.y;
+            final float vx = m_velocityX[b] - m_velocityX[a];
+            final float vy = m_velocityY[b] - m_velocityY[a];
             float vn = vx * n.x + vy * n.y;
             if (vn < 0) {
                 sum_v2 += vn * vn;
@@ -1679,6 +2024,37 @@ public class ParticleSystem {
         return buffer;
     }
 
+    int[] requestParticleBuffer(int[] buffer) {
+        if (buffer == null) {
+            buffer = new int[m_internalAllocatedCapacity];
+        }
+        return buffer;
+    }
+
+    static int packColor(ParticleColor color) {
+        return packColor(color.r, color.g, color.b, color.a);
+    }
+
+    static int packColor(byte r, byte g, byte b, byte a) {
+        return (r & 0xFF) << 24 | (g & 0xFF) << 16 | (b & 0xFF) << 8 | (a & 0xFF);
+    }
+
+    private static byte red(int color) {
+        return (byte) (color >>> 24);
+    }
+
+    private static byte green(int color) {
+        return (byte) (color >>> 16);
+    }
+
+    private static byte blue(int color) {
+        return (byte) (color >>> 8);
+    }
+
+    private static byte alpha(int color) {
+        return (byte) color;
+    }
+
     public static class ParticleBuffer<T> {
         public T[] data;
         final Class<T> dataClass;
@@ -1744,10 +2120,14 @@ public class ParticleSystem {
         ParticleGroupDef def; // pointer
         int firstIndex;
 
+        private final Vec2 pa = new Vec2();
+        private final Vec2 pb = new Vec2();
+        private final Vec2 pc = new Vec2();
+
         public void callback(int a, int b, int c) {
-            final Vec2 pa = system.m_positionBuffer.data[a];
-            final Vec2 pb = system.m_positionBuffer.data[b];
-            final Vec2 pc = system.m_positionBuffer.data[c];
+            system.loadPosition(a, pa);
+            system.loadPosition(b, pb);
+            system.loadPosition(c, pc);
             final float dabx = pa.x - pb.x;
             final float daby = pa.y - pb.y;
             final float dbcx = pb.x - pc.x;
@@ -1805,9 +2185,9 @@ public class ParticleSystem {
                 int bf = system.m_flagsBuffer.data[b];
                 int cf = system.m_flagsBuffer.data[c];
                 if ((af & bf & cf & k_triadFlags) != 0) {
-                    final Vec2 pa = system.m_positionBuffer.data[a];
-                    final Vec2 pb = system.m_positionBuffer.data[b];
-                    final Vec2 pc = system.m_positionBuffer.data[c];
+                    final Vec2 pa = system.loadPosition(a, this.pa);
+                    final Vec2 pb = system.loadPosition(b, this.pb);
+                    final Vec2 pc = system.loadPosition(c, this.pc);
                     final float dabx = pa.x - pb.x;
                     final float daby = pa.y - pb.y;
                     final float dbcx = pb.x - pc.x;
@@ -1856,12 +2236,18 @@ public class ParticleSystem {
         ParticleSystem system;
         ParticleGroup groupA;
         ParticleGroup groupB;
+
+        private final Vec2 pa = new Vec2();
+        private final Vec2 pb = new Vec2();
+        private final Vec2 pc = new Vec2();
     }
 
     static class DestroyParticlesInShapeCallback implements ParticleQueryCallback {
         ParticleSystem system;
         Shape shape;
         Transform xf;
+
+        private final Vec2 position = new Vec2();
         boolean callDestructionListener;
         int destroyed;
 
@@ -1876,7 +2262,7 @@ public class ParticleSystem {
         @Override
         public boolean reportParticle(int index) {
             assert index >= 0 && index < system.m_count;
-            if (shape.containsPoint(xf, system.m_positionBuffer.data[index])) {
+            if (shape.containsPoint(xf, system.loadPosition(index, position))) {
                 system.destroyParticle(index, callDestructionListener);
                 destroyed++;
             }
@@ -1888,6 +2274,7 @@ public class ParticleSystem {
         ParticleSystem system;
 
         private final Vec2 tempVec = new Vec2();
+        private final Vec2 position = new Vec2();
 
         @Override
         public boolean reportFixture(Fixture fixture) {
@@ -1922,7 +2309,7 @@ public class ParticleSystem {
 
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
                     int a = system.m_proxyBuffer[proxy].index;
-                    Vec2 ap = system.m_positionBuffer.data[a];
+                    Vec2 ap = system.loadPosition(a, position);
                     if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y && ap.y <= aabbupperBoundy) {
                         final Vec2 n = tempVec;
                         float d = fixture.computeDistance(ap, childIndex, n);
@@ -1962,6 +2349,7 @@ public class ParticleSystem {
         private final RayCastOutput output = new RayCastOutput();
         private final Vec2 tempVec = new Vec2();
         private final Vec2 tempVec2 = new Vec2();
+        private final Vec2 position = new Vec2();
 
         @Override
         public boolean reportFixture(Fixture fixture) {
@@ -1991,14 +2379,13 @@ public class ParticleSystem {
 
                 for (int proxy = firstProxy; proxy != lastProxy; ++proxy) {
                     int a = system.m_proxyBuffer[proxy].index;
-                    Vec2 ap = system.m_positionBuffer.data[a];
+                    Vec2 ap = system.loadPosition(a, position);
                     if (aabblowerBoundx <= ap.x && ap.x <= aabbupperBoundx && aabblowerBoundy <= ap.y && ap.y <= aabbupperBoundy) {
-                        Vec2 av = system.m_velocityBuffer.data[a];
                         final Vec2 temp = tempVec;
                         Transform.mulTransToOutUnsafe(body.m_xf0, ap, temp);
                         Transform.mulToOutUnsafe(body.m_xf, temp, input.p1);
-                        input.p2.x = ap.x + step.dt * av.x;
-                        input.p2.y = ap.y + step.dt * av.y;
+                        input.p2.x = ap.x + step.dt * system.m_velocityX[a];
+                        input.p2.y = ap.y + step.dt * system.m_velocityY[a];
                         input.maxFraction = 1;
                         if (fixture.raycast(output, input, childIndex)) {
                             final Vec2 p = tempVec;
@@ -2007,11 +2394,11 @@ public class ParticleSystem {
 
                             final float vx = step.inv_dt * (p.x - ap.x);
                             final float vy = step.inv_dt * (p.y - ap.y);
-                            av.x = vx;
-                            av.y = vy;
+                            system.m_velocityX[a] = vx;
+                            system.m_velocityY[a] = vy;
                             final float particleMass = system.getParticleMass();
-                            final float ax = particleMass * (av.x - vx);
-                            final float ay = particleMass * (av.y - vy);
+                            final float ax = particleMass * (system.m_velocityX[a] - vx);
+                            final float ay = particleMass * (system.m_velocityY[a] - vy);
                             Vec2 b = output.normal;
                             final float fdn = ax * b.x + ay * b.y;
                             final Vec2 f = tempVec2;
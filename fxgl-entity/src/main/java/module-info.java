@@ -21,10 +21,12 @@ module com.almasb.fxgl.entity {
     exports com.almasb.fxgl.entity.level.text;
     exports com.almasb.fxgl.entity.level.tiled;
     exports com.almasb.fxgl.entity.state;
+    exports com.almasb.fxgl.entity.system;
     exports com.almasb.fxgl.particle;
     exports com.almasb.fxgl.pathfinding;
     exports com.almasb.fxgl.pathfinding.astar;
     exports com.almasb.fxgl.pathfinding.dungeon;
+    exports com.almasb.fxgl.pathfinding.flowfield;
     exports com.almasb.fxgl.pathfinding.heuristic;
     exports com.almasb.fxgl.pathfinding.maze;
     exports com.almasb.fxgl.physics;
@@ -35,4 +37,5 @@ module com.almasb.fxgl.entity {
     opens com.almasb.fxgl.entity.component to com.almasb.fxgl.core;
     opens com.almasb.fxgl.entity.components to com.almasb.fxgl.core;
     opens com.almasb.fxgl.pathfinding.astar to com.almasb.fxgl.core;
+    opens com.almasb.fxgl.pathfinding.flowfield to com.almasb.fxgl.core;
 }
\ No newline at end of file
@@ -0,0 +1,215 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.goap
+
+import com.almasb.fxgl.core.collection.PropertyMap
+import java.util.*
+
+/**
+ * A* over world states where all values are boolean.
+ * Each key is given a bit index, and a state is a LongArray of [numWords] words
+ * with bits for keys that are set, followed by [numWords] words with values of those keys.
+ * A key that is not set does not satisfy any condition, same as in the exhaustive planner.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal object BitsetGoapPlanner {
+
+    /**
+     * @return the cheapest plan, an empty queue if there is no plan,
+     * or null if any state contains a value that is not boolean
+     */
+    fun plan(availableActions: Set<GoapAction>,
+             currentState: PropertyMap,
+             goalState: PropertyMap): Queue<GoapAction>? {
+
+        val keys = hashMapOf<String, Int>()
+
+        val maps = arrayListOf(currentState, goalState)
+        availableActions.forEach {
+            maps += it.preconditions
+            maps += it.effects
+        }
+
+        for (map in maps) {
+            for (key in map.keys()) {
+                if (map.getValue<Any>(key) !is Boolean)
+                    return null
+
+                keys.getOrPut(key) { keys.size }
+            }
+        }
+
+        val numWords = maxOf(1, (keys.size + 63) / 64)
+
+        val start = Condition(currentState, keys, numWords).toState()
+        val goal = Condition(goalState, keys, numWords)
+
+        // prefer low cost actions over high cost when f costs are equal
+        val actions = availableActions
+                .sortedBy { it.cost }
+                .map { CompiledAction(it, Condition(it.preconditions, keys, numWords), Condition(it.effects, keys, numWords)) }
+
+        val heuristic = Heuristic(goal, actions)
+
+        val open = PriorityQueue<Node>(compareBy<Node> { it.fCost }.thenBy { it.order })
+        val closed = hashSetOf<State>()
+        val bestCosts = hashMapOf<State, Float>()
+
+        var order = 0
+
+        open += Node(start, null, null, 0f, heuristic.getCost(start.bits), order++)
+        bestCosts[start] = 0f
+
+        while (open.isNotEmpty()) {
+            val node = open.poll()
+
+            // a cheaper node with the same state was already expanded
+            if (!closed.add(node.state))
+                continue
+
+            if (goal.isMetBy(node.state.bits))
+                return buildPlan(node)
+
+            for (action in actions) {
+                if (!action.preconditions.isMetBy(node.state.bits))
+                    continue
+
+                val next = State(action.effects.applyTo(node.state.bits))
+
+                if (next in closed)
+                    continue
+
+                val gCost = node.gCost + action.action.cost
+
+                val oldCost = bestCosts[next]
+                if (oldCost != null && oldCost <= gCost)
+                    continue
+
+                bestCosts[next] = gCost
+
+                open += Node(next, node, action.action, gCost, gCost + heuristic.getCost(next.bits), order++)
+            }
+        }
+
+        return ArrayDeque()
+    }
+
+    private fun buildPlan(node: Node): Queue<GoapAction> {
+        val result = ArrayDeque<GoapAction>()
+
+        var n: Node? = node
+        while (n != null) {
+            n.action?.let { result.addFirst(it) }
+            n = n.parent
+        }
+
+        return result
+    }
+
+    /**
+     * Bits of keys that a condition (or effect) sets, and values of those keys.
+     */
+    private class Condition(map: PropertyMap, keys: Map<String, Int>, private val numWords: Int) {
+        val mask = LongArray(numWords)
+        val values = LongArray(numWords)
+
+        init {
+            map.forEach { key, value ->
+                val index = keys[key]!!
+                val bit = 1L shl (index and 63)
+
+                mask[index ushr 6] = mask[index ushr 6] or bit
+
+                if (value as Boolean) {
+                    values[index ushr 6] = values[index ushr 6] or bit
+                }
+            }
+        }
+
+        fun toState(): State {
+            return State(mask + values)
+        }
+
+        fun isMetBy(state: LongArray): Boolean {
+            for (w in 0 until numWords) {
+                if (state[w] and mask[w] != mask[w] || state[numWords + w] and mask[w] != values[w])
+                    return false
+            }
+
+            return true
+        }
+
+        fun countUnmet(state: LongArray): Int {
+            var count = 0
+
+            for (w in 0 until numWords) {
+                val met = state[w] and (state[numWords + w] xor values[w]).inv()
+
+                count += java.lang.Long.bitCount(mask[w] and met.inv())
+            }
+
+            return count
+        }
+
+        /**
+         * @return a new state with keys of this condition set to its values
+         */
+        fun applyTo(state: LongArray): LongArray {
+            val result = state.copyOf()
+
+            for (w in 0 until numWords) {
+                result[w] = state[w] or mask[w]
+                result[numWords + w] = (state[numWords + w] and mask[w].inv()) or values[w]
+            }
+
+            return result
+        }
+    }
+
+    /**
+     * Number of unmet goal keys, divided by the largest number of goal keys a single action sets,
+     * times the lowest action cost, so it never overestimates the cost to reach the goal.
+     */
+    private class Heuristic(private val goal: Condition, actions: List<CompiledAction>) {
+        private val minCost = actions.minOfOrNull { it.action.cost }?.coerceAtLeast(0f) ?: 0f
+
+        private val maxGoalKeysPerAction = actions.maxOfOrNull { action ->
+            goal.mask.indices.sumOf { java.lang.Long.bitCount(goal.mask[it] and action.effects.mask[it]) }
+        }?.coerceAtLeast(1) ?: 1
+
+        fun getCost(state: LongArray): Float {
+            val numUnmet = goal.countUnmet(state)
+
+            if (numUnmet == 0)
+                return 0f
+
+            return ((numUnmet + maxGoalKeysPerAction - 1) / maxGoalKeysPerAction) * minCost
+        }
+    }
+
+    private class CompiledAction(val action: GoapAction, val preconditions: Condition, val effects: Condition)
+
+    private class State(val bits: LongArray) {
+        private val hash = bits.contentHashCode()
+
+        override fun hashCode(): Int = hash
+
+        override fun equals(other: Any?): Boolean {
+            return other is State && bits.contentEquals(other.bits)
+        }
+    }
+
+    private class Node(
+        val state: State,
+        val parent: Node?,
+        val action: GoapAction?,
+        val gCost: Float,
+        val fCost: Float,
+        val order: Int
+    )
+}
@@ -0,0 +1,127 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.goap
+
+import com.almasb.fxgl.core.collection.PropertyMap
+import com.almasb.fxgl.entity.Entity
+import java.util.*
+import java.util.function.Consumer
+
+/**
+ * A handle to a plan requested from [GoapScheduler].
+ * All methods must be called on the thread that updates the scheduler.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class GoapPlanRequest internal constructor(
+    private val scheduler: GoapScheduler,
+    val agent: Entity,
+    private val actions: Set<GoapAction>,
+    private val currentState: PropertyMap,
+    private val goalState: PropertyMap,
+    private val onPlanned: Consumer<Queue<GoapAction>>
+) {
+
+    /**
+     * True if the plan was delivered.
+     */
+    var isDone = false
+        private set
+
+    var isCancelled = false
+        private set
+
+    /**
+     * True if this request is neither done nor cancelled.
+     */
+    val isPending: Boolean
+        get() = !isDone && !isCancelled
+
+    internal val requestTime = System.nanoTime()
+
+    /**
+     * Distance from the agent to the scheduler focus, updated before the queue is sorted.
+     */
+    internal var priority = 0.0
+
+    /**
+     * Read by the planning thread, so a cancelled plan is not computed.
+     */
+    @Volatile
+    private var isPlanCancelled = false
+
+    /**
+     * Copies of actions mapped to the original actions.
+     */
+    private var snapshotActions: Map<GoapAction, GoapAction> = emptyMap()
+    private lateinit var snapshotCurrentState: PropertyMap
+    private lateinit var snapshotGoalState: PropertyMap
+    private var plannerMode = GoapPlannerMode.EXHAUSTIVE
+
+    internal var result: Queue<GoapAction> = ArrayDeque()
+        private set
+
+    internal var planningTimeNanos = 0L
+        private set
+
+    /**
+     * Cancels this request, so that its plan is never delivered.
+     * If the plan is already being computed, the result is discarded.
+     * Does nothing if the request is already done.
+     */
+    fun cancel() {
+        if (!isPending)
+            return
+
+        isCancelled = true
+        isPlanCancelled = true
+        scheduler.cancel(this)
+    }
+
+    /**
+     * Copies states and actions, so that planning does not read anything
+     * that can be modified on the game thread.
+     */
+    internal fun takeSnapshot(mode: GoapPlannerMode) {
+        val copies = LinkedHashMap<GoapAction, GoapAction>()
+
+        actions.forEach {
+            val copy = GoapAction(it.name)
+            copy.preconditions.addAll(it.preconditions)
+            copy.effects.addAll(it.effects)
+            copy.cost = it.cost
+
+            copies[copy] = it
+        }
+
+        snapshotActions = copies
+        snapshotCurrentState = currentState.copy()
+        snapshotGoalState = goalState.copy()
+        plannerMode = mode
+    }
+
+    /**
+     * Can be called on any thread after [takeSnapshot].
+     */
+    internal fun plan() {
+        if (isPlanCancelled)
+            return
+
+        val start = System.nanoTime()
+
+        val plan = GoapPlanner.plan(snapshotActions.keys, snapshotCurrentState, snapshotGoalState, plannerMode)
+
+        result = plan.mapTo(ArrayDeque()) { snapshotActions[it]!! }
+
+        planningTimeNanos = System.nanoTime() - start
+    }
+
+    internal fun complete() {
+        isDone = true
+        onPlanned.accept(result)
+    }
+}
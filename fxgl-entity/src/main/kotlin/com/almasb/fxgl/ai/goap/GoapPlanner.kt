@@ -23,10 +23,18 @@ object GoapPlanner {
      * Plan what sequence of actions can fulfill the goal.
      * Returns an empty queue if a plan could not be found,
      * or a list of the actions that must be performed, in order, to fulfill the goal.
+     *
+     * @param mode how to search for the plan, see [GoapPlannerMode]
      */
+    @JvmOverloads
     fun plan(availableActions: Set<GoapAction>,
              currentState: PropertyMap,
-             goalState: PropertyMap): Queue<GoapAction> {
+             goalState: PropertyMap,
+             mode: GoapPlannerMode = GoapPlannerMode.EXHAUSTIVE): Queue<GoapAction> {
+
+        if (mode == GoapPlannerMode.A_STAR) {
+            BitsetGoapPlanner.plan(availableActions, currentState, goalState)?.let { return it }
+        }
 
         // reset the actions so we can start fresh with them
         // TODO:
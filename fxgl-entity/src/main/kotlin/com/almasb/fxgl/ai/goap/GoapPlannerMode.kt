@@ -0,0 +1,30 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.goap
+
+/**
+ * How [GoapPlanner] searches for a plan.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+enum class GoapPlannerMode {
+
+    /**
+     * Expands every sequence of actions, where each action is used at most once,
+     * and picks the cheapest sequence that reaches the goal.
+     * Supports values of any type, but the number of sequences grows very quickly with the number of actions.
+     */
+    EXHAUSTIVE,
+
+    /**
+     * A* over world states, where each boolean key of a state is stored as a bit.
+     * Each state is visited once, and the search stops at the first (cheapest) plan.
+     * Unlike [EXHAUSTIVE], an action can be used more than once in a plan.
+     * If any state contains a value that is not boolean, [EXHAUSTIVE] is used instead.
+     */
+    A_STAR
+}
@@ -0,0 +1,70 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.goap
+
+import com.almasb.fxgl.core.EngineService
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Computes GOAP plans of all agents on worker threads via a single [GoapScheduler].
+ * Plans are delivered on the JavaFX thread during game update.
+ *
+ * The service is not added by default, use settings.addEngineService(GoapPlanningService::class.java).
+ * To serve agents near the player first, set scheduler.focus, e.g. to the center of the viewport.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class GoapPlanningService : EngineService() {
+
+    /**
+     * Number of worker threads, must be set before the scheduler is first accessed.
+     */
+    var numThreads = 1
+
+    /**
+     * Max number of plans submitted to the workers at the same time,
+     * must be set before the scheduler is first accessed.
+     */
+    var maxPlansInFlight = 4
+
+    private var executor: ExecutorService? = null
+
+    val scheduler: GoapScheduler by lazy {
+        GoapScheduler(Executors.newFixedThreadPool(numThreads, WorkerThreadFactory()).also { executor = it }, maxPlansInFlight)
+    }
+
+    override fun onGameUpdate(tpf: Double) {
+        if (executor != null) {
+            scheduler.onUpdate(tpf)
+        }
+    }
+
+    override fun onGameReset() {
+        // agents of the previous game are no longer used
+        if (executor != null) {
+            scheduler.cancelAll()
+        }
+    }
+
+    override fun onExit() {
+        executor?.shutdownNow()
+        executor = null
+    }
+
+    private class WorkerThreadFactory : ThreadFactory {
+        private val count = AtomicInteger(0)
+
+        override fun newThread(r: Runnable): Thread {
+            val t = Thread(r, "FXGL GOAP Planning Thread ${count.getAndIncrement()}")
+            t.isDaemon = true
+            return t
+        }
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.goap
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.collection.PropertyMap
+import com.almasb.fxgl.entity.Entity
+import javafx.geometry.Point2D
+import javafx.util.Duration
+import java.util.*
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.concurrent.RejectedExecutionException
+import java.util.function.Consumer
+import java.util.function.Supplier
+
+/**
+ * Queues [GoapPlanner.plan] requests of many agents and spreads them over frames,
+ * so that agents replanning on the same frame (e.g. after an alarm) do not cause a frame spike.
+ * Plans are delivered in [onUpdate], which must be called once per frame on the game thread
+ * (or by [GoapPlanningService]).
+ *
+ * Queued requests are ordered by distance from the agent to [focus], so that agents near the player are served first.
+ * Each agent has at most one pending request, a new request of the same agent cancels the previous one.
+ *
+ * With an executor, plans are computed on the executor against copies of states and actions taken on the game thread.
+ * Without an executor, plans are computed in [onUpdate].
+ * Either way, the time spent per frame on the calling thread is limited by [frameBudget].
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class GoapScheduler
+@JvmOverloads constructor(
+
+    /**
+     * Computes plans, or null to compute plans on the thread that calls [onUpdate].
+     */
+    private val executor: Executor? = null,
+
+    /**
+     * Max number of plans submitted to executor at the same time,
+     * the rest stay queued, so that they can still be reordered and cancelled cheaply.
+     */
+    private val maxPlansInFlight: Int = 1
+) : Updatable {
+
+    init {
+        if (executor != null && maxPlansInFlight < 1)
+            throw IllegalArgumentException("Max plans in flight must be at least 1: $maxPlansInFlight")
+    }
+
+    var plannerMode = GoapPlannerMode.EXHAUSTIVE
+
+    /**
+     * Position that agents are prioritized by, e.g. center of the viewport.
+     */
+    var focus: Supplier<Point2D> = Supplier { Point2D.ZERO }
+
+    /**
+     * Max time per frame spent on the calling thread, at least one plan (or delivery) is always processed.
+     * Default is 2 ms.
+     */
+    var frameBudget: Duration = Duration.millis(2.0)
+
+    private val queue = ArrayList<GoapPlanRequest>()
+
+    private val requests = HashMap<Entity, GoapPlanRequest>()
+
+    private val completed = ConcurrentLinkedQueue<GoapPlanRequest>()
+
+    /**
+     * Number of requests that are waiting to be planned.
+     */
+    val queueDepth: Int
+        get() = queue.size
+
+    /**
+     * Number of plans being computed by the executor.
+     */
+    var numPlansInFlight = 0
+        private set
+
+    /**
+     * Number of plans delivered since the last [resetMetrics].
+     */
+    var numPlansCompleted = 0L
+        private set
+
+    private var totalLatencyNanos = 0L
+    private var maxLatencyNanos = 0L
+    private var totalPlanningTimeNanos = 0L
+
+    /**
+     * Average time from a request to delivery of its plan.
+     */
+    val averageLatency: Duration
+        get() = toDuration(if (numPlansCompleted == 0L) 0L else totalLatencyNanos / numPlansCompleted)
+
+    val maxLatency: Duration
+        get() = toDuration(maxLatencyNanos)
+
+    /**
+     * Average time spent in the planner itself.
+     */
+    val averagePlanningTime: Duration
+        get() = toDuration(if (numPlansCompleted == 0L) 0L else totalPlanningTimeNanos / numPlansCompleted)
+
+    /**
+     * Requests a plan for [agent], which is passed to [onPlanned] on a later call to [onUpdate].
+     * The plan is empty if it could not be found.
+     * States and actions are read when planning starts, not when this is called.
+     */
+    fun requestPlan(agent: Entity,
+                    actions: Set<GoapAction>,
+                    currentState: PropertyMap,
+                    goalState: PropertyMap,
+                    onPlanned: Consumer<Queue<GoapAction>>): GoapPlanRequest {
+
+        requests[agent]?.cancel()
+
+        val request = GoapPlanRequest(this, agent, actions, currentState, goalState, onPlanned)
+
+        requests[agent] = request
+        queue += request
+
+        return request
+    }
+
+    /**
+     * @return pending request of given agent or null
+     */
+    fun getRequest(agent: Entity): GoapPlanRequest? = requests[agent]
+
+    /**
+     * Cancels all pending requests.
+     */
+    fun cancelAll() {
+        requests.values.toList().forEach { it.cancel() }
+    }
+
+    fun resetMetrics() {
+        numPlansCompleted = 0L
+        totalLatencyNanos = 0L
+        maxLatencyNanos = 0L
+        totalPlanningTimeNanos = 0L
+    }
+
+    internal fun cancel(request: GoapPlanRequest) {
+        requests.remove(request.agent, request)
+
+        // running plans are discarded when completed
+        queue.remove(request)
+    }
+
+    override fun onUpdate(tpf: Double) {
+        val start = System.nanoTime()
+        val budget = (frameBudget.toMillis() * 1_000_000).toLong()
+
+        deliverCompleted(start, budget)
+
+        if (queue.isEmpty())
+            return
+
+        val focusPoint = focus.get()
+
+        queue.forEach { it.priority = it.agent.center.distance(focusPoint) }
+        queue.sortBy { it.priority }
+
+        if (executor == null) {
+            runQueued(start, budget)
+        } else {
+            submitQueued(start, budget)
+        }
+    }
+
+    private fun deliverCompleted(start: Long, budget: Long) {
+        while (true) {
+            val request = completed.poll() ?: break
+
+            numPlansInFlight--
+
+            deliver(request)
+
+            if (System.nanoTime() - start >= budget)
+                break
+        }
+    }
+
+    private fun runQueued(start: Long, budget: Long) {
+        while (queue.isNotEmpty()) {
+            // removed before delivery, since callbacks may add or cancel requests
+            val request = queue.removeAt(0)
+
+            request.takeSnapshot(plannerMode)
+            request.plan()
+
+            deliver(request)
+
+            if (System.nanoTime() - start >= budget)
+                break
+        }
+    }
+
+    private fun submitQueued(start: Long, budget: Long) {
+        while (queue.isNotEmpty() && numPlansInFlight < maxPlansInFlight) {
+            val request = queue.removeAt(0)
+
+            request.takeSnapshot(plannerMode)
+
+            try {
+                executor!!.execute {
+                    try {
+                        request.plan()
+                    } finally {
+                        completed += request
+                    }
+                }
+            } catch (e: RejectedExecutionException) {
+                // keep the request, so that it is submitted again when the executor accepts tasks
+                queue.add(0, request)
+                break
+            }
+
+            numPlansInFlight++
+
+            if (System.nanoTime() - start >= budget)
+                break
+        }
+    }
+
+    private fun deliver(request: GoapPlanRequest) {
+        if (request.isCancelled)
+            return
+
+        requests.remove(request.agent, request)
+
+        val latency = System.nanoTime() - request.requestTime
+
+        numPlansCompleted++
+        totalLatencyNanos += latency
+        maxLatencyNanos = maxOf(maxLatencyNanos, latency)
+        totalPlanningTimeNanos += request.planningTimeNanos
+
+        request.complete()
+    }
+
+    private fun toDuration(nanos: Long): Duration = Duration.millis(nanos / 1_000_000.0)
+}
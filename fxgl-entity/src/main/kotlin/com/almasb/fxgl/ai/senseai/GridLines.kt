@@ -0,0 +1,49 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.senseai
+
+import kotlin.math.abs
+
+/**
+ * Visits cells of Bresenham's line from (x0, y0) to (x1, y1), excluding both ends,
+ * until [action] returns false.
+ *
+ * @return true if all cells were visited
+ */
+internal inline fun forEachCellBetween(x0: Int, y0: Int, x1: Int, y1: Int, action: (Int, Int) -> Boolean): Boolean {
+    var cx = x0
+    var cy = y0
+
+    val dx = abs(x1 - cx)
+    val dy = -abs(y1 - cy)
+    val sx = if (cx < x1) 1 else -1
+    val sy = if (cy < y1) 1 else -1
+
+    var error = dx + dy
+
+    while (cx != x1 || cy != y1) {
+        val e2 = 2 * error
+
+        if (e2 >= dy) {
+            error += dy
+            cx += sx
+        }
+
+        if (e2 <= dx) {
+            error += dx
+            cy += sy
+        }
+
+        if (cx == x1 && cy == y1)
+            return true
+
+        if (!action(cx, cy))
+            return false
+    }
+
+    return true
+}
@@ -62,6 +62,23 @@ class HearingSenseComponent(
      */
     var lastHeardPoint = Point2D.ZERO
 
+    /**
+     * If true, noises delivered by [HearingSystem] are attenuated by not walkable cells
+     * of [HearingSystem.occlusionGrid] between the noise and the entity.
+     */
+    var isOcclusionEnabled = false
+
+    /**
+     * When [isOcclusionEnabled], noise volume is multiplied by this value for each not walkable cell.
+     * By default the value is 0.5 (=50%).
+     */
+    var occlusionFactor: Double = 0.5
+
+    /**
+     * The system that delivers noises to this component, if any.
+     */
+    internal var hearingSystem: HearingSystem? = null
+
     private val stateProp = SimpleObjectProperty(CALM)
 
     var state: SenseAIState
@@ -70,6 +87,10 @@ class HearingSenseComponent(
 
     fun stateProperty() = stateProp
 
+    override fun onRemoved() {
+        hearingSystem?.removeListener(this)
+    }
+
     override fun onUpdate(tpf: Double) {
         alertness = max(0.0, alertness - alertnessDecay * tpf)
 
@@ -132,4 +153,9 @@ class HearingSenseComponent(
         this.lastHeardPoint = lastHeardPoint
     }
 
+    fun occlusion(occlusionFactor: Double) = this.apply {
+        this.isOcclusionEnabled = true
+        this.occlusionFactor = occlusionFactor
+    }
+
 }
\ No newline at end of file
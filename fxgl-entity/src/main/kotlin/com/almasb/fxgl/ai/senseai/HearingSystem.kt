@@ -0,0 +1,337 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.collection.LongMap
+import com.almasb.fxgl.core.collection.UnorderedArray
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.EntityWorldListener
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid
+import javafx.geometry.Point2D
+import kotlin.math.floor
+
+/**
+ * Delivers noises to [HearingSenseComponent]s whose hearing radius contains the noise,
+ * so that user code does not need to call [HearingSenseComponent.hearNoise] on every listener.
+ *
+ * Noises emitted during a frame are queued and delivered together in [onUpdate].
+ * Listeners are kept in a uniform grid, where each listener is registered in every cell
+ * covered by its hearing circle, so a noise only checks listeners registered in the cell of the noise.
+ *
+ * When added as a world listener, entities that have [HearingSenseComponent] when added to the world
+ * are registered automatically, other listeners can be registered with [addListener].
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HearingSystem
+@JvmOverloads constructor(
+
+    /**
+     * Size of grid cells in world units, ideally close to a typical hearing radius.
+     */
+    val cellSize: Int = 128
+
+) : Updatable, EntityWorldListener {
+
+    companion object {
+
+        /**
+         * Listeners whose hearing circle covers more cells than this are checked for every noise.
+         */
+        private const val MAX_CELLS_PER_LISTENER = 1024
+    }
+
+    init {
+        require(cellSize > 0) { "Cell size must be > 0: $cellSize" }
+    }
+
+    /**
+     * Grid of walkable (sound passes) and not walkable (sound is attenuated) cells,
+     * used by listeners with [HearingSenseComponent.isOcclusionEnabled].
+     */
+    var occlusionGrid: TraversableGrid<*>? = null
+        private set
+
+    private var occlusionCellWidth = 1
+    private var occlusionCellHeight = 1
+
+    /**
+     * @param cellWidth width of grid cells in world units
+     * @param cellHeight height of grid cells in world units
+     */
+    fun setOcclusionGrid(grid: TraversableGrid<*>?, cellWidth: Int, cellHeight: Int) {
+        require(cellWidth > 0 && cellHeight > 0) { "Cell size must be > 0: $cellWidth x $cellHeight" }
+
+        occlusionGrid = grid
+        occlusionCellWidth = cellWidth
+        occlusionCellHeight = cellHeight
+    }
+
+    private val listeners = hashMapOf<HearingSenseComponent, Listener>()
+    private val allListeners = UnorderedArray<Listener>(64)
+    private val unboundedListeners = UnorderedArray<Listener>()
+
+    private val cells = LongMap<UnorderedArray<Listener>>(256)
+
+    private var noises = DoubleArray(3 * 64)
+    private var numNoises = 0
+
+    /**
+     * Number of listeners checked by the last [onUpdate], which is useful to tune [cellSize].
+     */
+    var numChecks = 0
+        private set
+
+    val numListeners: Int
+        get() = allListeners.size()
+
+    /**
+     * Number of noises that will be delivered on next [onUpdate].
+     */
+    val numPendingNoises: Int
+        get() = numNoises
+
+    fun addListener(sense: HearingSenseComponent) {
+        if (sense in listeners)
+            return
+
+        val listener = Listener(sense)
+
+        listeners[sense] = listener
+        allListeners.add(listener)
+
+        sense.hearingSystem = this
+    }
+
+    fun removeListener(sense: HearingSenseComponent) {
+        val listener = listeners.remove(sense) ?: return
+
+        allListeners.removeValueByIdentity(listener)
+        unlink(listener)
+
+        if (sense.hearingSystem === this) {
+            sense.hearingSystem = null
+        }
+    }
+
+    fun emitNoise(point: Point2D, volume: Double) {
+        emitNoise(point.x, point.y, volume)
+    }
+
+    /**
+     * Queues a noise at ([x], [y]) with given [volume], which is delivered on next [onUpdate].
+     */
+    fun emitNoise(x: Double, y: Double, volume: Double) {
+        if (numNoises * 3 == noises.size) {
+            noises = noises.copyOf(noises.size * 2)
+        }
+
+        noises[numNoises * 3] = x
+        noises[numNoises * 3 + 1] = y
+        noises[numNoises * 3 + 2] = volume
+
+        numNoises++
+    }
+
+    /**
+     * Removes all listeners and pending noises.
+     */
+    fun clear() {
+        listeners.keys.toList().forEach { removeListener(it) }
+        numNoises = 0
+    }
+
+    override fun onEntityAdded(entity: Entity) {
+        entity.getComponentOptional(HearingSenseComponent::class.java).ifPresent { addListener(it) }
+    }
+
+    override fun onEntityRemoved(entity: Entity) {
+        entity.getComponentOptional(HearingSenseComponent::class.java).ifPresent { removeListener(it) }
+    }
+
+    /**
+     * Delivers noises emitted since the last call.
+     */
+    override fun onUpdate(tpf: Double) {
+        numChecks = 0
+
+        if (numNoises == 0)
+            return
+
+        // listeners move between noises of different frames, but not during delivery
+        for (i in 0 until allListeners.size()) {
+            update(allListeners[i])
+        }
+
+        // listeners may emit noises when they hear one, which are delivered on next frame
+        val count = numNoises
+        val batch = noises.copyOf(count * 3)
+
+        numNoises = 0
+
+        for (i in 0 until count) {
+            deliver(batch[i * 3], batch[i * 3 + 1], batch[i * 3 + 2])
+        }
+    }
+
+    private fun deliver(x: Double, y: Double, volume: Double) {
+        var point: Point2D? = null
+
+        val cell = cells.get(LongMap.key(toCell(x), toCell(y)))
+
+        // sizes are checked on each step, since listeners may be removed by user code while hearing a noise
+        var i = 0
+        while (cell != null && i < cell.size()) {
+            point = deliver(cell[i++], x, y, volume, point)
+        }
+
+        i = 0
+        while (i < unboundedListeners.size()) {
+            point = deliver(unboundedListeners[i++], x, y, volume, point)
+        }
+    }
+
+    /**
+     * @return the noise point, created when first heard
+     */
+    private fun deliver(listener: Listener, x: Double, y: Double, volume: Double, point: Point2D?): Point2D? {
+        numChecks++
+
+        val sense = listener.sense
+        val entity = sense.entity ?: return point
+
+        val dx = entity.x - x
+        val dy = entity.y - y
+        val radius = sense.hearingRadius
+
+        if (dx * dx + dy * dy > radius * radius)
+            return point
+
+        val grid = occlusionGrid
+
+        val adjustedVolume = if (sense.isOcclusionEnabled && grid != null) {
+            volume * attenuation(grid, x, y, entity.x, entity.y, sense.occlusionFactor)
+        } else {
+            volume
+        }
+
+        val p = point ?: Point2D(x, y)
+
+        sense.hearNoise(p, adjustedVolume)
+
+        return p
+    }
+
+    /**
+     * @return [factor] to the power of the number of not walkable cells between (x0, y0) and (x1, y1)
+     */
+    private fun attenuation(grid: TraversableGrid<*>, x0: Double, y0: Double, x1: Double, y1: Double, factor: Double): Double {
+        val cx = floor(x0 / occlusionCellWidth).toInt()
+        val cy = floor(y0 / occlusionCellHeight).toInt()
+        val tx = floor(x1 / occlusionCellWidth).toInt()
+        val ty = floor(y1 / occlusionCellHeight).toInt()
+
+        var result = 1.0
+
+        forEachCellBetween(cx, cy, tx, ty) { x, y ->
+            if (grid.isWithin(x, y) && !grid.get(x, y).isWalkable) {
+                result *= factor
+            }
+
+            true
+        }
+
+        return result
+    }
+
+    private fun update(listener: Listener) {
+        val entity = listener.sense.entity ?: return
+        val radius = listener.sense.hearingRadius
+
+        val cx0 = toCell(entity.x - radius)
+        val cy0 = toCell(entity.y - radius)
+        val cx1 = toCell(entity.x + radius)
+        val cy1 = toCell(entity.y + radius)
+
+        if (listener.isLinked && listener.cellMinX == cx0 && listener.cellMinY == cy0 && listener.cellMaxX == cx1 && listener.cellMaxY == cy1)
+            return
+
+        val numCells = (cx1.toLong() - cx0 + 1) * (cy1.toLong() - cy0 + 1)
+
+        if (numCells > MAX_CELLS_PER_LISTENER) {
+            if (!listener.isUnbounded) {
+                unlink(listener)
+
+                listener.isUnbounded = true
+                unboundedListeners.add(listener)
+            }
+
+            return
+        }
+
+        unlink(listener)
+
+        for (cx in cx0..cx1) {
+            for (cy in cy0..cy1) {
+                val key = LongMap.key(cx, cy)
+
+                var cell = cells.get(key)
+                if (cell == null) {
+                    cell = UnorderedArray(8)
+                    cells.put(key, cell)
+                }
+
+                cell.add(listener)
+            }
+        }
+
+        listener.cellMinX = cx0
+        listener.cellMinY = cy0
+        listener.cellMaxX = cx1
+        listener.cellMaxY = cy1
+        listener.isLinked = true
+    }
+
+    private fun unlink(listener: Listener) {
+        if (listener.isUnbounded) {
+            unboundedListeners.removeValueByIdentity(listener)
+            listener.isUnbounded = false
+            return
+        }
+
+        if (!listener.isLinked)
+            return
+
+        for (cx in listener.cellMinX..listener.cellMaxX) {
+            for (cy in listener.cellMinY..listener.cellMaxY) {
+                val key = LongMap.key(cx, cy)
+                val cell = cells.get(key) ?: continue
+
+                cell.removeValueByIdentity(listener)
+
+                if (cell.isEmpty) {
+                    cells.remove(key)
+                }
+            }
+        }
+
+        listener.isLinked = false
+    }
+
+    private fun toCell(value: Double): Int = floor(value / cellSize).toInt()
+
+    private class Listener(val sense: HearingSenseComponent) {
+        var cellMinX = 0
+        var cellMinY = 0
+        var cellMaxX = 0
+        var cellMaxY = 0
+
+        var isLinked = false
+        var isUnbounded = false
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid
+import com.almasb.fxgl.physics.PhysicsWorld
+import javafx.geometry.Point2D
+import kotlin.math.floor
+
+/**
+ * Checks whether anything blocks the view from an observer to a target.
+ * Used by [SightSystem] after range and field of view checks have passed.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+fun interface LineOfSight {
+
+    /**
+     * @return true if nothing blocks the line from ([x0], [y0]) of [observer] to ([x1], [y1]) of [target]
+     */
+    fun isClear(observer: Entity, target: Entity, x0: Double, y0: Double, x1: Double, y1: Double): Boolean
+}
+
+/**
+ * Line of sight over a grid, where not walkable cells block the view.
+ * Cells are traced with Bresenham's line, so the cost is linear in the distance in cells.
+ * The cells of the observer and the target themselves do not block the view.
+ */
+class GridLineOfSight(
+
+    val grid: TraversableGrid<*>,
+
+    /**
+     * Width of grid cells in world units.
+     */
+    val cellWidth: Int,
+
+    /**
+     * Height of grid cells in world units.
+     */
+    val cellHeight: Int
+
+) : LineOfSight {
+
+    init {
+        require(cellWidth > 0 && cellHeight > 0) { "Cell size must be > 0: $cellWidth x $cellHeight" }
+    }
+
+    override fun isClear(observer: Entity, target: Entity, x0: Double, y0: Double, x1: Double, y1: Double): Boolean {
+        val cx = floor(x0 / cellWidth).toInt()
+        val cy = floor(y0 / cellHeight).toInt()
+        val tx = floor(x1 / cellWidth).toInt()
+        val ty = floor(y1 / cellHeight).toInt()
+
+        return forEachCellBetween(cx, cy, tx, ty) { x, y ->
+            !grid.isWithin(x, y) || grid.get(x, y).isWalkable
+        }
+    }
+}
+
+/**
+ * Line of sight via [PhysicsWorld.raycast], where the first physics entity hit blocks the view,
+ * unless it is the target itself.
+ * Observers with a physics body should set raycastIgnored or have the ray start inside their body,
+ * so that they do not block their own view.
+ */
+class PhysicsLineOfSight(val physicsWorld: PhysicsWorld) : LineOfSight {
+
+    override fun isClear(observer: Entity, target: Entity, x0: Double, y0: Double, x1: Double, y1: Double): Boolean {
+        val result = physicsWorld.raycast(Point2D(x0, y0), Point2D(x1, y1))
+
+        return result.entity.map { it === target }.orElse(true)
+    }
+}
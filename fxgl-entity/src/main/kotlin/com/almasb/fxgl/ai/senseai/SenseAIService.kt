@@ -0,0 +1,45 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.core.EngineService
+import javafx.geometry.Point2D
+
+/**
+ * Delivers stimuli, such as noises and sight of targets, to sense components during game update.
+ *
+ * The service is not added by default, use settings.addEngineService(SenseAIService::class.java).
+ * To register hearing entities automatically, add [hearing] as a world listener:
+ * getGameWorld().addWorldListener(service.hearing).
+ * Similarly, add [sight] as a world listener to register sight observers and, via [SightSystem.targetFilter], targets.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SenseAIService : EngineService() {
+
+    val hearing = HearingSystem()
+
+    val sight = SightSystem()
+
+    /**
+     * Queues a noise, which is delivered to [HearingSenseComponent]s in range on next game update.
+     */
+    fun emitNoise(point: Point2D, volume: Double) {
+        hearing.emitNoise(point, volume)
+    }
+
+    override fun onGameUpdate(tpf: Double) {
+        hearing.onUpdate(tpf)
+        sight.onUpdate(tpf)
+    }
+
+    override fun onGameReset() {
+        // entities of the previous game are no longer used
+        hearing.clear()
+        sight.clear()
+    }
+}
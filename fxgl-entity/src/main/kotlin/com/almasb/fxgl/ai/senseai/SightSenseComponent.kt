@@ -6,9 +6,78 @@
 
 package com.almasb.fxgl.ai.senseai
 
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.Component
+import java.util.*
+
 /**
+ * Adds the ability to "see" targets of interest within a vision cone.
+ * Targets are seen if they are within [range], inside [fieldOfView] around the facing direction
+ * and, if a [LineOfSight] is set, not blocked.
+ * Visible targets are computed by [SightSystem], which checks all observers together every frame.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-class SightSenseComponent {
-}
\ No newline at end of file
+class SightSenseComponent
+
+@JvmOverloads constructor(
+
+        /**
+         * Targets further than this distance are not seen.
+         */
+        var range: Double,
+
+        /**
+         * Angle of the vision cone in degrees, 360 allows to see in all directions.
+         */
+        var fieldOfView: Double = 360.0
+
+): Component() {
+
+    /**
+     * Facing direction in degrees relative to entity rotation.
+     * 0 means facing the same way as an unrotated entity, i.e. to the right.
+     */
+    var angleOffset = 0.0
+
+    /**
+     * Interval in seconds between updates of [visibleTargets].
+     * [SightSystem] may use a longer interval for observers far from its focus.
+     */
+    var updateInterval = 0.1
+
+    /**
+     * Time since visible targets were last updated, managed by [SightSystem].
+     */
+    internal var timeSinceUpdate = 0.0
+
+    internal val visibleTargetsList = arrayListOf<Entity>()
+
+    /**
+     * Targets seen during the last update.
+     */
+    val visibleTargets: List<Entity> = Collections.unmodifiableList(visibleTargetsList)
+
+    /**
+     * The system that updates visible targets of this component, if any.
+     */
+    internal var sightSystem: SightSystem? = null
+
+    override fun onRemoved() {
+        sightSystem?.removeObserver(this)
+        visibleTargetsList.clear()
+    }
+
+    /**
+     * @return true if [target] was seen during the last update
+     */
+    fun isVisible(target: Entity): Boolean = target in visibleTargetsList
+
+    fun angleOffset(angleOffset: Double) = this.apply {
+        this.angleOffset = angleOffset
+    }
+
+    fun updateInterval(updateInterval: Double) = this.apply {
+        this.updateInterval = updateInterval
+    }
+}
@@ -0,0 +1,442 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.core.Updatable
+import com.almasb.fxgl.core.collection.LongMap
+import com.almasb.fxgl.core.collection.UnorderedArray
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.EntityWorldListener
+import javafx.geometry.Point2D
+import java.util.function.Predicate
+import java.util.function.Supplier
+import kotlin.math.cos
+import kotlin.math.floor
+import kotlin.math.min
+import kotlin.math.sin
+import kotlin.math.sqrt
+
+/**
+ * Updates visible targets of all [SightSenseComponent]s in a single pass per frame.
+ *
+ * Each observer is updated every [SightSenseComponent.updateInterval] seconds, or less often
+ * if it is far from [focus], and update times of different observers are spread over the interval.
+ * Targets are kept in a uniform grid, so an observer only checks targets in the cells covered by its range.
+ * Targets within range and field of view are then checked with [lineOfSight], whose results are cached
+ * for each observer and target pair until either of them moves or [invalidateCache] is called.
+ *
+ * When added as a world listener, entities that have [SightSenseComponent] when added to the world
+ * are registered as observers and entities accepted by [targetFilter] are registered as targets,
+ * other observers and targets can be registered with [addObserver] and [addTarget].
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SightSystem
+@JvmOverloads constructor(
+
+    /**
+     * Size of grid cells in world units, ideally close to a typical sight range.
+     */
+    val cellSize: Int = 128
+
+) : Updatable, EntityWorldListener {
+
+    companion object {
+
+        /**
+         * Fractional part of the golden ratio, used to spread first updates of observers over their interval.
+         */
+        private const val STAGGER_STEP = 0.6180339887498949
+    }
+
+    init {
+        require(cellSize > 0) { "Cell size must be > 0: $cellSize" }
+    }
+
+    /**
+     * Checks whether the view between an observer and a target is blocked.
+     * If null, targets within range and field of view are always seen.
+     */
+    var lineOfSight: LineOfSight? = null
+        set(value) {
+            field = value
+            invalidateCache()
+        }
+
+    /**
+     * Point of interest, typically the center of the viewport.
+     * Observers further than [lodDistance] from it are updated less often.
+     * If null, all observers are updated at their own interval.
+     */
+    var focus: Supplier<Point2D>? = null
+
+    /**
+     * Update interval of observers further than this distance from [focus] is multiplied by
+     * distance / lodDistance, up to [maxIntervalMultiplier].
+     */
+    var lodDistance = 1000.0
+
+    var maxIntervalMultiplier = 8.0
+
+    /**
+     * Entities added to the world that are accepted by this filter are registered as targets.
+     * If null, targets are only registered with [addTarget].
+     */
+    var targetFilter: Predicate<Entity>? = null
+
+    private val observers = hashMapOf<SightSenseComponent, Observer>()
+    private val allObservers = UnorderedArray<Observer>(64)
+
+    private val targets = hashMapOf<Entity, Target>()
+    private val allTargets = UnorderedArray<Target>(64)
+
+    private val cells = LongMap<UnorderedArray<Target>>(256)
+
+    private var cacheVersion = 0
+    private var stagger = 0.0
+
+    /**
+     * Number of observers updated by the last [onUpdate].
+     */
+    var numObserversUpdated = 0
+        private set
+
+    /**
+     * Number of targets checked against range and field of view by the last [onUpdate],
+     * which is useful to tune [cellSize].
+     */
+    var numCandidates = 0
+        private set
+
+    /**
+     * Number of [LineOfSight.isClear] calls made by the last [onUpdate].
+     */
+    var numLineOfSightChecks = 0
+        private set
+
+    /**
+     * Number of line of sight results reused from the cache by the last [onUpdate].
+     */
+    var numCacheHits = 0
+        private set
+
+    val numObservers: Int
+        get() = allObservers.size()
+
+    val numTargets: Int
+        get() = allTargets.size()
+
+    fun addObserver(sense: SightSenseComponent) {
+        if (sense in observers)
+            return
+
+        val observer = Observer(sense)
+
+        observers[sense] = observer
+        allObservers.add(observer)
+
+        stagger = (stagger + STAGGER_STEP) % 1.0
+
+        sense.timeSinceUpdate = sense.updateInterval * stagger
+        sense.sightSystem = this
+    }
+
+    fun removeObserver(sense: SightSenseComponent) {
+        val observer = observers.remove(sense) ?: return
+
+        allObservers.removeValueByIdentity(observer)
+
+        if (sense.sightSystem === this) {
+            sense.sightSystem = null
+        }
+    }
+
+    fun addTarget(entity: Entity) {
+        if (entity in targets)
+            return
+
+        val target = Target(entity)
+
+        targets[entity] = target
+        allTargets.add(target)
+
+        update(target)
+    }
+
+    fun removeTarget(entity: Entity) {
+        val target = targets.remove(entity) ?: return
+
+        allTargets.removeValueByIdentity(target)
+        unlink(target)
+
+        for (i in 0 until allObservers.size()) {
+            val observer = allObservers[i]
+
+            observer.cache.remove(target)
+            observer.sense.visibleTargetsList.remove(entity)
+        }
+    }
+
+    /**
+     * Discards cached line of sight results, e.g. when obstacles have changed.
+     */
+    fun invalidateCache() {
+        cacheVersion++
+    }
+
+    /**
+     * Removes all observers and targets.
+     */
+    fun clear() {
+        observers.keys.toList().forEach { removeObserver(it) }
+        targets.keys.toList().forEach { removeTarget(it) }
+    }
+
+    override fun onEntityAdded(entity: Entity) {
+        entity.getComponentOptional(SightSenseComponent::class.java).ifPresent { addObserver(it) }
+
+        if (targetFilter?.test(entity) == true) {
+            addTarget(entity)
+        }
+    }
+
+    override fun onEntityRemoved(entity: Entity) {
+        entity.getComponentOptional(SightSenseComponent::class.java).ifPresent { removeObserver(it) }
+
+        removeTarget(entity)
+    }
+
+    /**
+     * Updates visible targets of observers whose update interval has passed.
+     */
+    override fun onUpdate(tpf: Double) {
+        numObserversUpdated = 0
+        numCandidates = 0
+        numLineOfSightChecks = 0
+        numCacheHits = 0
+
+        // targets move between frames, but not during the update
+        for (i in 0 until allTargets.size()) {
+            update(allTargets[i])
+        }
+
+        val focusPoint = focus?.get()
+
+        for (i in 0 until allObservers.size()) {
+            val observer = allObservers[i]
+            val sense = observer.sense
+            val entity = sense.entity ?: continue
+
+            sense.timeSinceUpdate += tpf
+
+            if (sense.timeSinceUpdate < sense.updateInterval * intervalMultiplier(entity, focusPoint))
+                continue
+
+            sense.timeSinceUpdate = 0.0
+
+            update(observer, entity)
+        }
+    }
+
+    private fun intervalMultiplier(entity: Entity, focusPoint: Point2D?): Double {
+        if (focusPoint == null)
+            return 1.0
+
+        val distance = entity.center.distance(focusPoint)
+
+        if (distance <= lodDistance)
+            return 1.0
+
+        return min(distance / lodDistance, maxIntervalMultiplier)
+    }
+
+    private fun update(observer: Observer, entity: Entity) {
+        numObserversUpdated++
+
+        val sense = observer.sense
+        val center = entity.center
+        val range = sense.range
+        val angle = Math.toRadians(entity.rotation + sense.angleOffset)
+
+        observer.x = center.x
+        observer.y = center.y
+        observer.rangeSquared = range * range
+        observer.isFieldOfViewLimited = sense.fieldOfView < 360.0
+        observer.dirX = cos(angle)
+        observer.dirY = sin(angle)
+        observer.minDot = cos(Math.toRadians(sense.fieldOfView / 2))
+
+        sense.visibleTargetsList.clear()
+
+        val cx0 = toCell(observer.x - range)
+        val cy0 = toCell(observer.y - range)
+        val cx1 = toCell(observer.x + range)
+        val cy1 = toCell(observer.y + range)
+
+        val numCells = (cx1.toLong() - cx0 + 1) * (cy1.toLong() - cy0 + 1)
+
+        // with a large range, it is cheaper to check all targets than to visit all cells
+        if (numCells >= allTargets.size()) {
+            for (i in 0 until allTargets.size()) {
+                check(observer, entity, allTargets[i])
+            }
+
+            return
+        }
+
+        for (cx in cx0..cx1) {
+            for (cy in cy0..cy1) {
+                val cell = cells.get(LongMap.key(cx, cy)) ?: continue
+
+                for (i in 0 until cell.size()) {
+                    check(observer, entity, cell[i])
+                }
+            }
+        }
+    }
+
+    private fun check(observer: Observer, entity: Entity, target: Target) {
+        if (target.entity === entity)
+            return
+
+        numCandidates++
+
+        val dx = target.x - observer.x
+        val dy = target.y - observer.y
+        val distanceSquared = dx * dx + dy * dy
+
+        if (distanceSquared > observer.rangeSquared)
+            return
+
+        if (observer.isFieldOfViewLimited && distanceSquared > 0.0) {
+            val dot = (dx * observer.dirX + dy * observer.dirY) / sqrt(distanceSquared)
+
+            if (dot < observer.minDot)
+                return
+        }
+
+        if (isClear(observer, entity, target)) {
+            observer.sense.visibleTargetsList += target.entity
+        }
+    }
+
+    private fun isClear(observer: Observer, entity: Entity, target: Target): Boolean {
+        val los = lineOfSight ?: return true
+
+        var entry = observer.cache[target]
+
+        if (entry != null && entry.version == cacheVersion
+                && entry.observerX == observer.x && entry.observerY == observer.y
+                && entry.targetX == target.x && entry.targetY == target.y) {
+
+            numCacheHits++
+            return entry.isClear
+        }
+
+        numLineOfSightChecks++
+
+        val isClear = los.isClear(entity, target.entity, observer.x, observer.y, target.x, target.y)
+
+        if (entry == null) {
+            entry = CacheEntry()
+            observer.cache[target] = entry
+        }
+
+        entry.version = cacheVersion
+        entry.observerX = observer.x
+        entry.observerY = observer.y
+        entry.targetX = target.x
+        entry.targetY = target.y
+        entry.isClear = isClear
+
+        return isClear
+    }
+
+    private fun update(target: Target) {
+        val center = target.entity.center
+
+        target.x = center.x
+        target.y = center.y
+
+        val cx = toCell(target.x)
+        val cy = toCell(target.y)
+
+        if (target.isLinked && target.cellX == cx && target.cellY == cy)
+            return
+
+        unlink(target)
+
+        val key = LongMap.key(cx, cy)
+
+        var cell = cells.get(key)
+        if (cell == null) {
+            cell = UnorderedArray(8)
+            cells.put(key, cell)
+        }
+
+        cell.add(target)
+
+        target.cellX = cx
+        target.cellY = cy
+        target.isLinked = true
+    }
+
+    private fun unlink(target: Target) {
+        if (!target.isLinked)
+            return
+
+        val key = LongMap.key(target.cellX, target.cellY)
+        val cell = cells.get(key)
+
+        if (cell != null) {
+            cell.removeValueByIdentity(target)
+
+            if (cell.isEmpty) {
+                cells.remove(key)
+            }
+        }
+
+        target.isLinked = false
+    }
+
+    private fun toCell(value: Double): Int = floor(value / cellSize).toInt()
+
+    private class Observer(val sense: SightSenseComponent) {
+
+        /**
+         * Line of sight results of targets that passed range and field of view checks.
+         */
+        val cache = hashMapOf<Target, CacheEntry>()
+
+        var x = 0.0
+        var y = 0.0
+        var rangeSquared = 0.0
+        var isFieldOfViewLimited = false
+        var dirX = 0.0
+        var dirY = 0.0
+        var minDot = 0.0
+    }
+
+    private class Target(val entity: Entity) {
+        var x = 0.0
+        var y = 0.0
+
+        var cellX = 0
+        var cellY = 0
+
+        var isLinked = false
+    }
+
+    private class CacheEntry {
+        var version = 0
+        var observerX = 0.0
+        var observerY = 0.0
+        var targetX = 0.0
+        var targetY = 0.0
+        var isClear = false
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import java.util.*
+
+/**
+ * Groups entities of a [GameWorld] by a key, e.g. entity type or component class.
+ * Entities within each group are kept in the order they were added to the world,
+ * as given by [orderOf], so that query results match a linear scan of the world entities.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class EntityIndex<K : Any>(private val orderOf: (Entity) -> Long) {
+
+    private class Bucket {
+        val entities = ArrayList<Entity>()
+
+        /**
+         * Once a view has been handed out, the bucket is kept even when empty, so the view stays live.
+         */
+        var view: List<Entity>? = null
+    }
+
+    private val buckets = hashMapOf<K, Bucket>()
+
+    fun add(key: K, entity: Entity) {
+        val list = buckets.getOrPut(key) { Bucket() }.entities
+
+        val order = orderOf(entity)
+
+        // fast path: entities are mostly indexed in the order they are added to the world
+        if (list.isEmpty() || orderOf(list[list.size - 1]) < order) {
+            list.add(entity)
+            return
+        }
+
+        var low = 0
+        var high = list.size
+
+        while (low < high) {
+            val mid = (low + high) ushr 1
+
+            if (orderOf(list[mid]) < order) {
+                low = mid + 1
+            } else {
+                high = mid
+            }
+        }
+
+        list.add(low, entity)
+    }
+
+    fun remove(key: K, entity: Entity) {
+        val bucket = buckets[key] ?: return
+
+        bucket.entities.remove(entity)
+
+        if (bucket.entities.isEmpty() && bucket.view == null) {
+            buckets.remove(key)
+        }
+    }
+
+    /**
+     * @return direct list of entities with given key (do NOT modify) or null if there are none
+     */
+    operator fun get(key: K): List<Entity>? {
+        return buckets[key]?.entities
+    }
+
+    /**
+     * @return live read-only view of entities with given key
+     */
+    fun view(key: K): List<Entity> {
+        val bucket = buckets.getOrPut(key) { Bucket() }
+
+        return bucket.view ?: Collections.unmodifiableList(bucket.entities).also { bucket.view = it }
+    }
+
+    fun clear() {
+        val it = buckets.values.iterator()
+        while (it.hasNext()) {
+            val bucket = it.next()
+
+            if (bucket.view == null) {
+                it.remove()
+            } else {
+                bucket.entities.clear()
+            }
+        }
+    }
+}
@@ -9,32 +9,185 @@ package com.almasb.fxgl.entity
 import java.util.*
 
 /**
+ * Keeps entities, which can be spawned again, by their spawn name.
+ * Reusable entities are put into the pool when removed from the world,
+ * entities declared with [Preload] are put into the pool before they are first spawned.
+ * Spawning an entity takes it from the pool if possible (hit), otherwise the entity factory is called (miss).
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-internal class EntityPool {
+class EntityPool {
+
+    enum class EvictionPolicy {
+
+        /**
+         * When the pool of a spawn name is full, the entity being put is discarded.
+         */
+        DISCARD_NEWEST,
+
+        /**
+         * When the pool of a spawn name is full, the entity that has been in the pool the longest is discarded.
+         */
+        DISCARD_OLDEST
+    }
 
     private val pool = hashMapOf<String, Deque<Entity>>()
 
-    fun put(spawnName: String, entity: Entity) {
-        var queue: Deque<Entity>? = pool[spawnName]
+    private val capacities = hashMapOf<String, Int>()
+
+    private val stats = hashMapOf<String, Stats>()
+
+    /**
+     * Max number of pooled entities of a spawn name, unless set by [setCapacity].
+     * Default is unbounded.
+     */
+    var defaultCapacity = Int.MAX_VALUE
+        set(value) {
+            require(value >= 0) { "Capacity must be >= 0: $value" }
+            field = value
+        }
+
+    var evictionPolicy = EvictionPolicy.DISCARD_NEWEST
+
+    /**
+     * Number of entities taken from the pool.
+     */
+    var numHits = 0L
+        private set
+
+    /**
+     * Number of entities that were requested but not in the pool.
+     */
+    var numMisses = 0L
+        private set
+
+    /**
+     * Number of entities discarded because the pool was full.
+     */
+    var numEvictions = 0L
+        private set
+
+    /**
+     * Total number of pooled entities.
+     */
+    val size: Int
+        get() = pool.values.sumOf { it.size }
 
-        if (queue == null) {
-            queue = ArrayDeque()
+    /**
+     * Sets max number of pooled entities of [spawnName].
+     * Entities above the new capacity are discarded based on [evictionPolicy].
+     */
+    fun setCapacity(spawnName: String, capacity: Int) {
+        require(capacity >= 0) { "Capacity must be >= 0: $capacity" }
+
+        capacities[spawnName] = capacity
+
+        val queue = pool[spawnName] ?: return
+
+        while (queue.size > capacity) {
+            evict(spawnName, queue)
+        }
+    }
+
+    fun getCapacity(spawnName: String): Int = capacities[spawnName] ?: defaultCapacity
+
+    /**
+     * @return number of pooled entities of [spawnName]
+     */
+    fun size(spawnName: String): Int = pool[spawnName]?.size ?: 0
+
+    fun getNumHits(spawnName: String): Long = stats[spawnName]?.hits ?: 0L
+
+    fun getNumMisses(spawnName: String): Long = stats[spawnName]?.misses ?: 0L
+
+    fun getNumEvictions(spawnName: String): Long = stats[spawnName]?.evictions ?: 0L
+
+    fun resetStats() {
+        stats.clear()
+        numHits = 0L
+        numMisses = 0L
+        numEvictions = 0L
+    }
 
-            pool[spawnName] = queue
+    /**
+     * Discards all pooled entities, capacities are kept.
+     */
+    fun clear() {
+        pool.values.forEach { queue ->
+            queue.forEach { discard(it) }
+        }
+
+        pool.clear()
+    }
+
+    /**
+     * @return true if [entity] was pooled, false if it was discarded
+     */
+    internal fun put(spawnName: String, entity: Entity): Boolean {
+        val capacity = getCapacity(spawnName)
+
+        if (capacity == 0 || evictionPolicy == EvictionPolicy.DISCARD_NEWEST && size(spawnName) >= capacity) {
+            onEvicted(spawnName)
+            discard(entity)
+            return false
+        }
+
+        val queue = pool.getOrPut(spawnName) { ArrayDeque() }
+
+        while (queue.size >= capacity) {
+            evict(spawnName, queue)
         }
 
         queue.addLast(entity)
+
+        return true
     }
 
-    fun take(spawnName: String): Entity? {
+    internal fun take(spawnName: String): Entity? {
         val queue: Deque<Entity>? = pool[spawnName]
 
+        val s = stats.getOrPut(spawnName) { Stats() }
+
         if (queue != null && queue.isNotEmpty()) {
+            s.hits++
+            numHits++
+
             return queue.removeFirst()
         }
 
+        s.misses++
+        numMisses++
+
         return null
     }
-}
\ No newline at end of file
+
+    private fun evict(spawnName: String, queue: Deque<Entity>) {
+        val entity = if (evictionPolicy == EvictionPolicy.DISCARD_OLDEST) queue.removeFirst() else queue.removeLast()
+
+        onEvicted(spawnName)
+        discard(entity)
+    }
+
+    private fun onEvicted(spawnName: String) {
+        stats.getOrPut(spawnName) { Stats() }.evictions++
+        numEvictions++
+    }
+
+    /**
+     * Lets the entity be cleaned like any non-reusable entity.
+     */
+    private fun discard(entity: Entity) {
+        entity.isReusable = false
+
+        // if the world has not cleaned the entity yet, it will do so on next update
+        if (entity.world == null) {
+            entity.clean()
+        }
+    }
+
+    private class Stats {
+        var hits = 0L
+        var misses = 0L
+        var evictions = 0L
+    }
+}
@@ -7,20 +7,30 @@
 package com.almasb.fxgl.entity
 
 import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.collection.LongMap
 import com.almasb.fxgl.core.collection.PropertyMap
 import com.almasb.fxgl.core.collection.UnorderedArray
 import com.almasb.fxgl.core.math.FXGLMath
 import com.almasb.fxgl.core.reflect.ReflectionUtils
 import com.almasb.fxgl.core.util.tryCatchRoot
 import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentListener
+import com.almasb.fxgl.entity.component.ComponentTypes
 import com.almasb.fxgl.entity.components.IDComponent
 import com.almasb.fxgl.entity.components.IrremovableComponent
 import com.almasb.fxgl.entity.components.TimeComponent
 import com.almasb.fxgl.entity.level.Level
+import com.almasb.fxgl.entity.system.ArchetypeStorage
+import com.almasb.fxgl.entity.system.EntitySystem
 import com.almasb.fxgl.logging.Logger
+import javafx.beans.value.ChangeListener
+import javafx.beans.value.ObservableValue
 import javafx.geometry.Point2D
 import javafx.geometry.Rectangle2D
+import javafx.util.Duration
+import java.io.Serializable
 import java.util.*
+import java.util.concurrent.ForkJoinPool
 import java.util.function.Function
 import java.util.function.Predicate
 import kotlin.NoSuchElementException
@@ -36,6 +46,8 @@ class GameWorld {
 
     companion object {
         private val log = Logger.get("GameWorld")
+
+        private val TIME_COMPONENT_ID = ComponentTypes.idOf(TimeComponent::class.java)
     }
 
     val properties = PropertyMap()
@@ -60,7 +72,59 @@ class GameWorld {
     val entitiesCopy: List<Entity>
         get(): List<Entity> = ArrayList(entities)
 
-    private val pool = EntityPool()
+    /**
+     * Entities that can be spawned without calling their factory, see [Preload] and [Entity.isReusable].
+     */
+    val entityPool = EntityPool()
+
+    /**
+     * If true, entities of [Spawns] methods annotated with [Preload] are created in advance
+     * and put into [entityPool] by [preloadEntities] or, within [preloadFrameBudget], by [onUpdate].
+     * Must be set before entity factories are added.
+     */
+    var isEntityPreloadEnabled = true
+
+    /**
+     * Max time per [onUpdate] spent creating preloaded entities, which have not been created during loading.
+     */
+    var preloadFrameBudget: Duration = Duration.millis(1.0)
+
+    private val preloadRequests: Deque<PreloadRequest> = ArrayDeque()
+
+    /**
+     * Number of preloaded entities that are yet to be created.
+     */
+    val numPendingPreloads: Int
+        get() = preloadRequests.sumOf { it.remaining }
+
+    private val spatialIndex = SpatialIndex(128)
+
+    /**
+     * Size (in pixels) of a cell in the spatial index that backs position based queries,
+     * such as [getEntitiesInRange] and [getClosestEntity].
+     * Ideally, it should be comparable to the size of a typical entity or a typical query range.
+     * Changing this value rebuilds the index.
+     */
+    var spatialIndexCellSize: Int
+        get() = spatialIndex.cellSize
+        set(value) { spatialIndex.setCellSize(value) }
+
+    private var nextIndexOrder = 0L
+
+    /**
+     * Entities currently in the world mapped to their index entries.
+     */
+    private val indexEntries = hashMapOf<Entity, IndexEntry>()
+
+    private val typeIndex = EntityIndex<Any>(::orderOf)
+    private val componentIndex = EntityIndex<Class<out Component>>(::orderOf)
+
+    /**
+     * Maps IDComponent name to id to entity.
+     */
+    private val idIndex = hashMapOf<String, LongMap<Entity>>()
+
+    private val archetypeStorage = ArchetypeStorage()
 
     init {
         log.debug("Game world initialized")
@@ -81,6 +145,8 @@ class GameWorld {
             waitingList.add(entity)
 
         entities.add(entity)
+        spatialIndex.add(entity)
+        indexEntity(entity)
 
         add(entity)
     }
@@ -116,6 +182,8 @@ class GameWorld {
         }
 
         entities.remove(entity)
+        spatialIndex.remove(entity)
+        unindexEntity(entity)
 
         entity.markForRemoval()
         notifyEntityRemoved(entity)
@@ -123,7 +191,7 @@ class GameWorld {
         if (entity.isReusable) {
             // if spawnName is not present, then the user must be maintaining this entity manually
             entity.getPropertyOptional<String>("spawnName").ifPresent { spawnName ->
-                pool.put(spawnName, entity)
+                entityPool.put(spawnName, entity)
             }
         }
 
@@ -170,18 +238,93 @@ class GameWorld {
                 e.clean()
                 it.remove()
             } else {
-                val tpfRatio = e.getComponentOptional(TimeComponent::class.java)
-                        .map { it.value }
-                        .orElse(1.0)
+                val tpfRatio = e.getComponentOrNull<TimeComponent>(TIME_COMPONENT_ID)?.value ?: 1.0
 
                 e.update(tpf * tpfRatio)
             }
         }
+
+        archetypeStorage.update(tpf)
+
+        if (preloadRequests.isNotEmpty()) {
+            preloadEntities(preloadFrameBudget)
+        }
+    }
+
+    /**
+     * Creates preloaded entities and puts them into [entityPool] until all are created or [maxTime] has passed,
+     * creating at least one entity if any are pending.
+     * This allows to preload entities in slices, e.g. while a loading screen is shown.
+     *
+     * @return true if all preloaded entities have been created
+     */
+    fun preloadEntities(maxTime: Duration): Boolean {
+        val deadline = System.nanoTime() + (maxTime.toMillis() * 1_000_000).toLong()
+
+        do {
+            val request = preloadRequests.peekFirst() ?: return true
+
+            preload(request)
+
+        } while (System.nanoTime() < deadline)
+
+        return preloadRequests.isEmpty()
+    }
+
+    private fun preload(request: PreloadRequest) {
+        val spawnName = request.spawnName
+        val spawner = entitySpawners[spawnName]
+
+        // the factory has been removed or the pool cannot take more entities
+        if (spawner == null || entityPool.size(spawnName) >= entityPool.getCapacity(spawnName)) {
+            preloadRequests.removeFirst()
+            return
+        }
+
+        // factories may expect spawn data that is only known when spawning, preloading is optional
+        val entity = try {
+            newEntity(spawnName, spawner, SpawnData(0.0, 0.0))
+        } catch (e: Exception) {
+            log.warning("Failed to preload entity \"$spawnName\", it will be created when spawned", e)
+            preloadRequests.removeFirst()
+            return
+        }
+
+        entityPool.put(spawnName, entity)
+
+        request.remaining--
+
+        if (request.remaining == 0) {
+            preloadRequests.removeFirst()
+        }
     }
 
+    /**
+     * Adds given system to this world.
+     * From now on, entities that match the system signature are stored in archetypes
+     * and the system is updated once per frame after all entities have been updated.
+     */
+    fun addSystem(system: EntitySystem) {
+        archetypeStorage.addSystem(system, entities)
+    }
+
+    fun removeSystem(system: EntitySystem) {
+        archetypeStorage.removeSystem(system)
+    }
+
+    /**
+     * If set, systems that declare their component access are updated in parallel on this pool,
+     * see [EntitySystem] for the rules such systems must follow.
+     * The per-entity (component) update is not affected and always runs on the calling thread.
+     * If null (default), all systems are updated on the calling thread.
+     */
+    var parallelUpdatePool: ForkJoinPool?
+        get() = archetypeStorage.pool
+        set(value) { archetypeStorage.pool = value }
+
     /**
      * Resets this game world to its original state (as if newly constructed) by
-     * removing all (including with IrremovableComponent) entities, properties, entity factories and world listeners.
+     * removing all (including with IrremovableComponent) entities, properties, entity factories, systems and world listeners.
      * Do NOT call this method manually.
      * It is called automatically by FXGL during initGame().
      */
@@ -207,6 +350,8 @@ class GameWorld {
         // entities list does not contain "not active" entities, so we do full clean
         // also we copy since during removal notification components may remove other entities
         entitiesCopy.forEach { e ->
+            unindexEntity(e)
+
             e.markForRemoval()
             notifyEntityRemoved(e)
             e.clean()
@@ -214,9 +359,18 @@ class GameWorld {
 
         properties.clear()
         entities.clear()
+        spatialIndex.clear()
+        typeIndex.clear()
+        componentIndex.clear()
+        idIndex.clear()
+        indexEntries.clear()
+        archetypeStorage.clear()
         entityFactories.clear()
         entitySpawners.clear()
         worldListeners.clear()
+
+        preloadRequests.clear()
+        entityPool.clear()
     }
 
     private val worldListeners = Array<EntityWorldListener>()
@@ -284,6 +438,9 @@ class GameWorld {
             val e = it.next()
 
             if (canRemove(e)) {
+                spatialIndex.remove(e)
+                unindexEntity(e)
+
                 e.markForRemoval()
                 notifyEntityRemoved(e)
                 e.clean()
@@ -293,6 +450,121 @@ class GameWorld {
         }
     }
 
+    /**
+     * Keeps type, component and ID indices of an entity in sync while the entity is in this world.
+     */
+    private inner class IndexEntry(
+            private val entity: Entity,
+            val order: Long
+    ) : ComponentListener, ChangeListener<Serializable> {
+
+        override fun onAdded(component: Component) {
+            indexComponent(entity, component)
+            archetypeStorage.onComponentAdded(entity, component)
+        }
+
+        override fun onRemoved(component: Component) {
+            unindexComponent(entity, component)
+            archetypeStorage.onComponentRemoved(entity, component)
+        }
+
+        override fun changed(observable: ObservableValue<out Serializable>, oldType: Serializable, newType: Serializable) {
+            typeIndex.remove(oldType, entity)
+            typeIndex.add(newType, entity)
+        }
+    }
+
+    private fun orderOf(entity: Entity): Long = indexEntries[entity]!!.order
+
+    private fun indexEntity(entity: Entity) {
+        val entry = IndexEntry(entity, nextIndexOrder++)
+
+        indexEntries[entity] = entry
+
+        typeIndex.add(entity.type, entity)
+        entity.components.forEach { indexComponent(entity, it) }
+
+        entity.typeProperty().addListener(entry)
+        entity.addComponentListener(entry)
+
+        archetypeStorage.onEntityAdded(entity)
+    }
+
+    private fun unindexEntity(entity: Entity) {
+        val entry = indexEntries[entity] ?: return
+
+        entity.typeProperty().removeListener(entry)
+        entity.removeComponentListener(entry)
+
+        archetypeStorage.onEntityRemoved(entity)
+
+        typeIndex.remove(entity.type, entity)
+        entity.components.forEach { unindexComponent(entity, it) }
+
+        indexEntries.remove(entity)
+    }
+
+    private fun indexComponent(entity: Entity, component: Component) {
+        componentIndex.add(component.javaClass, entity)
+
+        if (component is IDComponent) {
+            indexID(entity, component.name, component.id)
+        }
+    }
+
+    private fun unindexComponent(entity: Entity, component: Component) {
+        componentIndex.remove(component.javaClass, entity)
+
+        if (component is IDComponent) {
+            unindexID(entity, component.name, component.id)
+        }
+    }
+
+    private fun indexID(entity: Entity, name: String, id: Int) {
+        val ids = idIndex.getOrPut(name) { LongMap(8) }
+        val existing = ids.get(id.toLong())
+
+        // IDs should be unique, but if they are not, the first entity in the world wins (as a linear search would)
+        if (existing == null || orderOf(existing) > orderOf(entity)) {
+            ids.put(id.toLong(), entity)
+        }
+    }
+
+    private fun unindexID(entity: Entity, name: String, id: Int) {
+        val ids = idIndex[name] ?: return
+
+        if (ids.get(id.toLong()) !== entity)
+            return
+
+        ids.remove(id.toLong())
+
+        // if the ID was not unique, the next entity with the same ID takes its place
+        componentIndex[IDComponent::class.java]
+                ?.find {
+                    val idComponent = it.getComponent(IDComponent::class.java)
+
+                    it !== entity && idComponent.name == name && idComponent.id == id
+                }
+                ?.let { ids.put(id.toLong(), it) }
+
+        if (ids.isEmpty) {
+            idIndex.remove(name)
+        }
+    }
+
+    /**
+     * Called by [IDComponent] when its name or id changes.
+     */
+    internal fun onIDChanged(component: IDComponent, oldName: String, oldID: Int) {
+        val entity = component.entity ?: return
+
+        if (entity !in indexEntries)
+            return
+
+        unindexID(entity, oldName, oldID)
+        indexID(entity, component.name, component.id)
+    }
+
     private val entityFactories = hashMapOf<EntityFactory, List<String>>()
 
     /**
@@ -318,16 +590,22 @@ class GameWorld {
                     }
                 }
 
-//        ReflectionUtils.findMethods(entityFactory, Preload::class.java)
-//                .forEach { preload, method ->
-//
-//                    val ann = method.getDeclaredAnnotation(Spawns::class.java)
-//                    val entityAliases = ann.value.split(",".toRegex())
-//
-//                    val numToPreload = preload.value
-//
-//                    entityPreloader.addForPreloading(entityAliases, numToPreload)
-//                }
+        // the methods are found via Spawns, since equal Preload annotations of different methods would clash
+        ReflectionUtils.findMethods(entityFactory, Spawns::class.java)
+                .forEach { spawns, method ->
+                    val preload = method.getAnnotation(Preload::class.java) ?: return@forEach
+
+                    val entityAliases = spawns.value.split(",".toRegex())
+                    entityAliases.forEach { entityName ->
+                        if (preload.capacity >= 0) {
+                            entityPool.setCapacity(entityName, preload.capacity)
+                        }
+
+                        if (isEntityPreloadEnabled && preload.value > 0) {
+                            preloadRequests.addLast(PreloadRequest(entityName, preload.value))
+                        }
+                    }
+                }
 
         entityFactories.put(entityFactory, entityNames)
     }
@@ -345,6 +623,7 @@ class GameWorld {
     fun removeEntityFactory(entityFactory: EntityFactory) {
         entityFactories.remove(entityFactory)?.forEach {
             entitySpawners.remove(it)
+            preloadRequests.removeIf { request -> request.spawnName == it }
         }
     }
 
@@ -412,26 +691,47 @@ class GameWorld {
         val spawner = entitySpawners.get(entityName)
                 ?: throw IllegalArgumentException("No EntityFactory has a method annotated @Spawns($entityName)")
 
-        val pooledEntity = pool.take(entityName)
-        if (pooledEntity != null) {
-            pooledEntity.setPosition3D(data.x, data.y, data.z)
+        // pooled entities were created with other spawn data, so only the position can be applied to them
+        if (isPositionOnly(entityName, data)) {
+            val pooledEntity = entityPool.take(entityName)
+            if (pooledEntity != null) {
+                pooledEntity.setPosition3D(data.x, data.y, data.z)
 
-            return pooledEntity
+                return pooledEntity
+            }
         }
 
+        return newEntity(entityName, spawner, data)
+    }
+
+    /**
+     * @return true if [data] has no values other than those filled in by [newEntity]
+     */
+    private fun isPositionOnly(entityName: String, data: SpawnData): Boolean {
+        return data.data.all { (key, value) -> (key == "type" || key == "spawnName") && value == entityName }
+    }
+
+    private fun newEntity(entityName: String, spawner: Function<SpawnData, Entity>, data: SpawnData): Entity {
         if (!data.hasKey("type")) {
             data.put("type", entityName)
         }
 
         data.put("spawnName", entityName)
 
-        return tryCatchRoot { spawner.apply(data) }
+        val entity = tryCatchRoot { spawner.apply(data) }
+
+        // factories that do not use entityBuilder(data) do not copy spawnName, which is needed to pool the entity
+        if (!entity.properties.exists("spawnName")) {
+            entity.setProperty("spawnName", entityName)
+        }
+
+        return entity
     }
 
     /* QUERIES */
 
     fun getSingleton(type: Enum<*>): Entity {
-        return getSingleton(Predicate { it.isType(type) })
+        return typeIndex[type]?.firstOrNull() ?: throw NoSuchElementException("No entity found with type: $type")
     }
 
     fun getSingleton(predicate: Predicate<Entity>): Entity {
@@ -444,7 +744,7 @@ class GameWorld {
      * @return first occurrence matching given type
      */
     fun getSingletonOptional(type: Enum<*>): Optional<Entity> {
-        return getSingletonOptional(Predicate { it.isType(type) })
+        return Optional.ofNullable(typeIndex[type]?.firstOrNull())
     }
 
     /**
@@ -459,7 +759,7 @@ class GameWorld {
      * @return a random entity with given type
      */
     fun getRandom(type: Enum<*>): Optional<Entity> {
-        return FXGLMath.random(getEntitiesByType(type))
+        return FXGLMath.random(getEntitiesByTypeView(type))
     }
 
     fun getRandom(predicate: Predicate<Entity>): Optional<Entity> {
@@ -471,7 +771,7 @@ class GameWorld {
      * @return array of entities that have given component
      */
     fun getEntitiesByComponent(type: Class<out Component>): List<Entity> {
-        return entities.filter { it.hasComponent(type) }
+        return ArrayList(componentIndex[type] ?: emptyList())
     }
 
     /**
@@ -479,7 +779,19 @@ class GameWorld {
      * @return entities that have given component mapped to component instance
      */
     fun <T : Component> getEntitiesByComponentMapped(type: Class<T>): Map<Entity, T> {
-        return entities.filter { it.hasComponent(type) }.associateWith { it.getComponent(type) }
+        return (componentIndex[type] ?: emptyList()).associateWith { it.getComponent(type) }
+    }
+
+    /**
+     * The view is backed by this world, so it always contains current entities that have given component,
+     * in the same order as [getEntitiesByComponent], but no list is created per call.
+     * Do NOT add or remove such entities (or this component) while iterating the view.
+     *
+     * @param type component type
+     * @return live read-only view of entities that have given component
+     */
+    fun getEntitiesByComponentView(type: Class<out Component>): List<Entity> {
+        return componentIndex.view(type)
     }
 
     /**
@@ -503,11 +815,39 @@ class GameWorld {
         if (types.isEmpty())
             return entitiesCopy
 
-        return entities.filter { isOneOfTypes(it, *types) }
+        if (types.size == 1)
+            return ArrayList(typeIndex[types[0]] ?: emptyList())
+
+        val result = ArrayList<Entity>()
+        var numGroups = 0
+
+        for (type in types.toSet()) {
+            val group = typeIndex[type]
+
+            if (!group.isNullOrEmpty()) {
+                result.addAll(group)
+                numGroups++
+            }
+        }
+
+        // restore the world order when entities come from several types
+        if (numGroups > 1) {
+            result.sortBy { orderOf(it) }
+        }
+
+        return result
     }
 
-    private fun isOneOfTypes(entity: Entity, vararg types: Enum<*>): Boolean {
-        return types.any { entity.isType(it) }
+    /**
+     * The view is backed by this world, so it always contains current entities of given type,
+     * in the same order as [getEntitiesByType], but no list is created per call.
+     * Do NOT add or remove entities of this type (or change their type) while iterating the view.
+     *
+     * @param type entity type
+     * @return live read-only view of entities with given type
+     */
+    fun getEntitiesByTypeView(type: Any): List<Entity> {
+        return typeIndex.view(type)
     }
 
     /**
@@ -520,7 +860,21 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getEntitiesInRange(selection: Rectangle2D): List<Entity> {
-        return entities.filter { it.boundingBoxComponent.isWithin(selection) }
+        return spatialIndex.query(selection.minX, selection.minY, selection.maxX, selection.maxY) {
+            it.boundingBoxComponent.isWithin(selection)
+        }
+    }
+
+    /**
+     * Collects entities whose bounding box is partially or entirely
+     * within the circle with center ([x], [y]) and given [radius].
+     * The results are written into [result] (cleared first) in no particular order.
+     * No objects are allocated (unless [result] needs to grow), so the same array can be reused for each query.
+     *
+     * @return number of entities found
+     */
+    fun getEntitiesInRadius(x: Double, y: Double, radius: Double, result: Array<Entity>): Int {
+        return spatialIndex.queryRadius(x, y, radius, result)
     }
 
     /**
@@ -533,7 +887,7 @@ class GameWorld {
      * @return new list containing entities that satisfy query filters
      */
     fun getCollidingEntities(entity: Entity): List<Entity> {
-        return entities.filter { it.isColliding(entity) && it !== entity }
+        return spatialIndex.queryAround(entity) { it.isColliding(entity) && it !== entity }
     }
 
     /**
@@ -544,13 +898,17 @@ class GameWorld {
      * @return entities at given point
      */
     fun getEntitiesAt(position: Point2D): List<Entity> {
-        return entities.filter { it.position == position }
+        val x = position.x
+        val y = position.y
+
+        return spatialIndex.query(x, y, x, y) { it.x == x && it.y == y }
     }
 
     /**
      * Returns the closest entity to the given entity with given
      * filter. The given
      * entity itself is never returned.
+     * The distance is measured between entity positions, as in [Entity.distance].
      *
      * If there no entities satisfying the requirement, [Optional.empty]
      * is returned.
@@ -560,11 +918,19 @@ class GameWorld {
      * @return closest entity to selected entity with type
      */
     fun getClosestEntity(entity: Entity, filter: Predicate<Entity>): Optional<Entity> {
-        return Optional.ofNullable(
-                entities.filter { filter.test(it) && it !== entity }
-                        .sortedBy { entity.distance(it) }
-                        .firstOrNull()
-        )
+        return Optional.ofNullable(spatialIndex.closest(entity.x, entity.y, entity, filter))
+    }
+
+    /**
+     * Collects up to [k] entities closest to point ([x], [y]).
+     * The distance is measured to entity position (top-left point), as in [getClosestEntity].
+     * The results are written into [result] (cleared first) in ascending order of distance.
+     * No objects are allocated (unless [result] needs to grow), so the same array can be reused for each query.
+     *
+     * @return number of entities found
+     */
+    fun getClosestEntities(x: Double, y: Double, k: Int, result: Array<Entity>): Int {
+        return spatialIndex.nearest(x, y, k, result)
     }
 
     /**
@@ -579,17 +945,13 @@ class GameWorld {
      * @return entity that matches the query or [Optional.empty]
      */
     fun getEntityByID(name: String, id: Int): Optional<Entity> {
-        return Optional.ofNullable(
-                getEntitiesByComponent(IDComponent::class.java).find {
-                    val idComponent = it.getComponent(IDComponent::class.java)
-
-                    return@find idComponent.name == name && idComponent.id == id
-                }
-        )
+        return Optional.ofNullable(idIndex[name]?.get(id.toLong()))
     }
 
     /**
      * @return entity group of given types
      */
     fun getGroup(vararg entityTypes: Enum<*>) = EntityGroup(this, getEntitiesByType(*entityTypes), *entityTypes)
-}
\ No newline at end of file
+
+    private class PreloadRequest(val spawnName: String, var remaining: Int)
+}
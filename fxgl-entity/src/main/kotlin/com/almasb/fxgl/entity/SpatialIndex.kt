@@ -0,0 +1,742 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.collection.LongMap
+import com.almasb.fxgl.core.collection.UnorderedArray
+import com.almasb.fxgl.core.math.FXGLMath.cosDeg
+import com.almasb.fxgl.core.math.FXGLMath.sinDeg
+import com.almasb.fxgl.physics.Box3DShapeData
+import javafx.beans.InvalidationListener
+import javafx.beans.Observable
+import java.util.function.Predicate
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * A uniform hash grid that tracks entities of a [GameWorld] in world space.
+ * Each entity is registered in every cell covered by its conservative bounds, i.e.
+ * the union of its position (top-left point), bounding box and hit boxes with transform (scale, rotation) applied.
+ * Therefore, the grid can answer position, bounding box and collision queries without missing entities.
+ *
+ * The index is maintained incrementally: an entity is marked dirty when any of its
+ * transform or bounding box properties change, and dirty entities are re-inserted lazily before the next query.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class SpatialIndex(cellSize: Int) {
+
+    companion object {
+
+        /**
+         * Entities that cover more cells than this (e.g. huge backgrounds or entities at infinity)
+         * are not registered in cells. Instead, they are considered by every query.
+         */
+        private const val MAX_CELLS_PER_ENTITY = 4096
+    }
+
+    var cellSize: Int = cellSize
+        private set
+
+    private val cells = LongMap<Cell>(256)
+    private val activeCells = UnorderedArray<Cell>(256)
+    private val freeCells = UnorderedArray<Cell>(256)
+
+    private val entries = hashMapOf<Entity, Entry>()
+    private val allEntries = UnorderedArray<Entry>(256)
+    private val dirtyEntries = UnorderedArray<Entry>(256)
+    private val unboundedEntries = UnorderedArray<Entry>()
+
+    /**
+     * Bounds (in cell coordinates) of all cells occupied since the last clear.
+     */
+    private var minCellX = 0
+    private var minCellY = 0
+    private var maxCellX = -1
+    private var maxCellY = -1
+
+    private var nextSeq = 0L
+    private var stamp = 0
+
+    // scratch storage for k-nearest queries
+    private var nearEntries = arrayOfNulls<Entry>(8)
+    private var nearDist = DoubleArray(8)
+    private var nearCount = 0
+
+    // scratch storage for bounds computation
+    private var boundsMinX = 0.0
+    private var boundsMinY = 0.0
+    private var boundsMaxX = 0.0
+    private var boundsMaxY = 0.0
+
+    init {
+        require(cellSize > 0) { "Cell size must be > 0: $cellSize" }
+    }
+
+    val size: Int
+        get() = allEntries.size()
+
+    fun add(entity: Entity) {
+        if (entity in entries)
+            return
+
+        val entry = Entry(entity, nextSeq++)
+
+        entries[entity] = entry
+        allEntries.add(entry)
+
+        entry.attach()
+
+        update(entry)
+    }
+
+    fun remove(entity: Entity) {
+        val entry = entries.remove(entity) ?: return
+
+        allEntries.removeValueByIdentity(entry)
+
+        entry.detach()
+        entry.isRemoved = true
+
+        unlink(entry)
+    }
+
+    fun clear() {
+        allEntries.forEach {
+            it.detach()
+            it.isRemoved = true
+        }
+
+        entries.clear()
+        allEntries.clear()
+        dirtyEntries.clear()
+        unboundedEntries.clear()
+
+        activeCells.forEach {
+            it.entries.clear()
+            freeCells.add(it)
+        }
+
+        activeCells.clear()
+        cells.clear()
+
+        resetBounds()
+    }
+
+    /**
+     * Changes the cell size and rebuilds the grid.
+     */
+    fun setCellSize(size: Int) {
+        require(size > 0) { "Cell size must be > 0: $size" }
+
+        if (size == cellSize)
+            return
+
+        allEntries.forEach { unlink(it) }
+
+        resetBounds()
+
+        cellSize = size
+
+        allEntries.forEach { update(it) }
+    }
+
+    /**
+     * Re-inserts entities whose transform or bounding box changed since the last refresh.
+     */
+    fun refresh() {
+        var i = 0
+        while (i < dirtyEntries.size()) {
+            val entry = dirtyEntries[i]
+            entry.isDirty = false
+
+            if (!entry.isRemoved)
+                update(entry)
+
+            i++
+        }
+
+        dirtyEntries.clear()
+    }
+
+    /**
+     * @return entities whose indexed bounds overlap given rectangle and which satisfy [filter],
+     * in the order they were added to the index
+     */
+    fun query(minX: Double, minY: Double, maxX: Double, maxY: Double, filter: Predicate<Entity>): List<Entity> {
+        refresh()
+
+        val found = ArrayList<Entry>()
+
+        forEachCandidate(minX, minY, maxX, maxY) {
+            if (filter.test(it.entity)) {
+                found += it
+            }
+        }
+
+        found.sortBy { it.seq }
+
+        return found.map { it.entity }
+    }
+
+    /**
+     * Same as [query] but uses conservative bounds of [entity] as the query rectangle.
+     * The entity does not need to be in the index.
+     */
+    fun queryAround(entity: Entity, filter: Predicate<Entity>): List<Entity> {
+        refresh()
+
+        computeBounds(entity)
+
+        return query(boundsMinX, boundsMinY, boundsMaxX, boundsMaxY, filter)
+    }
+
+    /**
+     * Collects entities whose bounding box intersects the given circle.
+     * Does not allocate objects (unless [result] needs to grow).
+     *
+     * @return number of entities found
+     */
+    fun queryRadius(x: Double, y: Double, radius: Double, result: Array<Entity>): Int {
+        refresh()
+
+        result.clear()
+
+        val r2 = radius * radius
+
+        forEachCandidate(x - radius, y - radius, x + radius, y + radius) {
+            val bbox = it.entity.boundingBoxComponent
+
+            // closest point of bbox to the circle center
+            val dx = x - max(bbox.getMinXWorld(), min(x, bbox.getMaxXWorld()))
+            val dy = y - max(bbox.getMinYWorld(), min(y, bbox.getMaxYWorld()))
+
+            if (dx * dx + dy * dy <= r2) {
+                result.add(it.entity)
+            }
+        }
+
+        return result.size()
+    }
+
+    /**
+     * Collects up to [k] entities closest to ([x], [y]), where distance is
+     * measured to entity position (top-left point).
+     * Results are in ascending order of distance, ties are resolved by the order in which entities were added.
+     * Does not allocate objects (unless [result] or internal scratch buffers need to grow).
+     *
+     * @return number of entities found
+     */
+    fun nearest(x: Double, y: Double, k: Int, result: Array<Entity>): Int {
+        refresh()
+
+        result.clear()
+
+        if (k <= 0 || allEntries.isEmpty)
+            return 0
+
+        if (nearEntries.size < k) {
+            nearEntries = arrayOfNulls(k)
+            nearDist = DoubleArray(k)
+        }
+
+        nearCount = 0
+
+        searchRings(x, y, { if (nearCount == k) nearDist[k - 1] else Double.POSITIVE_INFINITY }) {
+            offer(it, distanceSq(it, x, y), k)
+        }
+
+        for (i in 0 until nearCount) {
+            result.add(nearEntries[i]!!.entity)
+            nearEntries[i] = null
+        }
+
+        return result.size()
+    }
+
+    /**
+     * @return entity closest to ([x], [y]) (measured to entity position, top-left point)
+     * that is not [exclude] and satisfies [filter], or null if no such entity exists
+     */
+    fun closest(x: Double, y: Double, exclude: Entity?, filter: Predicate<Entity>): Entity? {
+        refresh()
+
+        if (allEntries.isEmpty)
+            return null
+
+        // the state is kept in locals since the filter is user code and may call other queries
+        var best: Entry? = null
+        var bestDist = Double.POSITIVE_INFINITY
+
+        searchRings(x, y, { bestDist }) {
+            if (it.entity !== exclude) {
+                val d = distanceSq(it, x, y)
+
+                if (isCloser(d, it, bestDist, best) && filter.test(it.entity)) {
+                    best = it
+                    bestDist = d
+                }
+            }
+        }
+
+        return best?.entity
+    }
+
+    /**
+     * Visits entries in rings of cells around the cell of ([x], [y]), until
+     * no unvisited entry can be closer than the current k-th best distance (squared),
+     * as returned by [bestDistance] (or infinity if the search is not saturated yet).
+     * Falls back to visiting every entry if the search area is large compared to the number of entries.
+     */
+    private inline fun searchRings(x: Double, y: Double, bestDistance: () -> Double, action: (Entry) -> Unit) {
+        val s = nextStamp()
+
+        visitUnbounded(s, action)
+
+        if (activeCells.isEmpty)
+            return
+
+        val cx = toCell(x)
+        val cy = toCell(y)
+
+        val maxRing = max(
+                max(cx.toLong() - minCellX, maxCellX.toLong() - cx),
+                max(cy.toLong() - minCellY, maxCellY.toLong() - cy)
+        ).coerceAtLeast(0)
+
+        val side = 2 * maxRing + 1
+
+        if (maxRing > Int.MAX_VALUE / 4 || side * side > 4L * allEntries.size() + 64) {
+            var i = 0
+            while (i < allEntries.size()) {
+                val entry = allEntries[i]
+
+                if (entry.stamp != s) {
+                    entry.stamp = s
+                    action(entry)
+                }
+
+                i++
+            }
+
+            return
+        }
+
+        for (r in 0..maxRing.toInt()) {
+            if (r == 0) {
+                visitCell(cx, cy, s, action)
+            } else {
+                for (i in cx - r..cx + r) {
+                    visitCell(i, cy - r, s, action)
+                    visitCell(i, cy + r, s, action)
+                }
+
+                for (j in cy - r + 1 until cy + r) {
+                    visitCell(cx - r, j, s, action)
+                    visitCell(cx + r, j, s, action)
+                }
+            }
+
+            // any entry not yet visited is in a cell of ring r + 1 or further away
+            val minDist = r.toDouble() * cellSize
+
+            if (bestDistance() < minDist * minDist)
+                return
+        }
+    }
+
+    private inline fun visitUnbounded(s: Int, action: (Entry) -> Unit) {
+        var i = 0
+        while (i < unboundedEntries.size()) {
+            val entry = unboundedEntries[i]
+            entry.stamp = s
+            action(entry)
+            i++
+        }
+    }
+
+    private inline fun visitCell(cx: Int, cy: Int, s: Int, action: (Entry) -> Unit) {
+        val cell = cells.get(LongMap.key(cx, cy)) ?: return
+
+        var i = 0
+        while (i < cell.entries.size()) {
+            val entry = cell.entries[i]
+
+            if (entry.stamp != s) {
+                entry.stamp = s
+                action(entry)
+            }
+
+            i++
+        }
+    }
+
+    /**
+     * Visits each entry (once) whose indexed bounds may overlap given rectangle.
+     */
+    private inline fun forEachCandidate(minX: Double, minY: Double, maxX: Double, maxY: Double, action: (Entry) -> Unit) {
+        val s = nextStamp()
+
+        visitUnbounded(s, action)
+
+        if (activeCells.isEmpty)
+            return
+
+        val cx0 = max(toCell(minX), minCellX)
+        val cy0 = max(toCell(minY), minCellY)
+        val cx1 = min(toCell(maxX), maxCellX)
+        val cy1 = min(toCell(maxY), maxCellY)
+
+        if (cx0 > cx1 || cy0 > cy1)
+            return
+
+        val numCells = (cx1.toLong() - cx0 + 1) * (cy1.toLong() - cy0 + 1)
+
+        if (numCells > activeCells.size()) {
+            // cheaper to check each occupied cell
+            var i = 0
+            while (i < activeCells.size()) {
+                val cell = activeCells[i]
+
+                if (cell.x in cx0..cx1 && cell.y in cy0..cy1) {
+                    visitCell(cell.x, cell.y, s, action)
+                }
+
+                i++
+            }
+        } else {
+            for (cx in cx0..cx1) {
+                for (cy in cy0..cy1) {
+                    visitCell(cx, cy, s, action)
+                }
+            }
+        }
+    }
+
+    private fun offer(entry: Entry, dist: Double, k: Int) {
+        var i = nearCount
+
+        if (i == k) {
+            if (!isCloser(dist, entry, nearDist[k - 1], nearEntries[k - 1]))
+                return
+
+            i = k - 1
+        } else {
+            nearCount++
+        }
+
+        while (i > 0 && isCloser(dist, entry, nearDist[i - 1], nearEntries[i - 1])) {
+            nearDist[i] = nearDist[i - 1]
+            nearEntries[i] = nearEntries[i - 1]
+            i--
+        }
+
+        nearDist[i] = dist
+        nearEntries[i] = entry
+    }
+
+    private fun isCloser(dist: Double, entry: Entry, otherDist: Double, other: Entry?): Boolean {
+        if (other == null)
+            return true
+
+        return dist < otherDist || (dist == otherDist && entry.seq < other.seq)
+    }
+
+    private fun distanceSq(entry: Entry, x: Double, y: Double): Double {
+        val t = entry.entity.transformComponent
+        val dx = t.x - x
+        val dy = t.y - y
+
+        return dx * dx + dy * dy
+    }
+
+    private fun update(entry: Entry) {
+        computeBounds(entry.entity)
+
+        val cx0 = toCell(boundsMinX)
+        val cy0 = toCell(boundsMinY)
+        val cx1 = toCell(boundsMaxX)
+        val cy1 = toCell(boundsMaxY)
+
+        val numCells = (cx1.toLong() - cx0 + 1) * (cy1.toLong() - cy0 + 1)
+
+        if (numCells > MAX_CELLS_PER_ENTITY) {
+            if (!entry.isUnbounded) {
+                unlink(entry)
+
+                entry.isUnbounded = true
+                unboundedEntries.add(entry)
+            }
+
+            return
+        }
+
+        if (entry.isLinked) {
+            // most moves do not leave the covered cells
+            if (entry.cellMinX == cx0 && entry.cellMinY == cy0 && entry.cellMaxX == cx1 && entry.cellMaxY == cy1)
+                return
+
+            unlink(entry)
+        } else if (entry.isUnbounded) {
+            unlink(entry)
+        }
+
+        link(entry, cx0, cy0, cx1, cy1)
+    }
+
+    private fun link(entry: Entry, cx0: Int, cy0: Int, cx1: Int, cy1: Int) {
+        for (cx in cx0..cx1) {
+            for (cy in cy0..cy1) {
+                obtainCell(cx, cy).entries.add(entry)
+            }
+        }
+
+        entry.cellMinX = cx0
+        entry.cellMinY = cy0
+        entry.cellMaxX = cx1
+        entry.cellMaxY = cy1
+        entry.isLinked = true
+
+        if (minCellX > maxCellX) {
+            minCellX = cx0
+            minCellY = cy0
+            maxCellX = cx1
+            maxCellY = cy1
+        } else {
+            minCellX = min(minCellX, cx0)
+            minCellY = min(minCellY, cy0)
+            maxCellX = max(maxCellX, cx1)
+            maxCellY = max(maxCellY, cy1)
+        }
+    }
+
+    private fun unlink(entry: Entry) {
+        if (entry.isUnbounded) {
+            unboundedEntries.removeValueByIdentity(entry)
+            entry.isUnbounded = false
+            return
+        }
+
+        if (!entry.isLinked)
+            return
+
+        for (cx in entry.cellMinX..entry.cellMaxX) {
+            for (cy in entry.cellMinY..entry.cellMaxY) {
+                val cell = cells.get(LongMap.key(cx, cy)) ?: continue
+
+                cell.entries.removeValueByIdentity(entry)
+
+                if (cell.entries.isEmpty) {
+                    freeCell(cell)
+                }
+            }
+        }
+
+        entry.isLinked = false
+    }
+
+    private fun obtainCell(cx: Int, cy: Int): Cell {
+        val key = LongMap.key(cx, cy)
+
+        var cell = cells.get(key)
+
+        if (cell == null) {
+            cell = if (freeCells.isEmpty) Cell() else freeCells.pop()
+
+            cell.x = cx
+            cell.y = cy
+            cell.index = activeCells.size()
+
+            activeCells.add(cell)
+            cells.put(key, cell)
+        }
+
+        return cell
+    }
+
+    private fun freeCell(cell: Cell) {
+        cells.remove(LongMap.key(cell.x, cell.y))
+
+        // swap remove, keeping indices of active cells up to date
+        val last = activeCells.pop()
+        if (last !== cell) {
+            activeCells[cell.index] = last
+            last.index = cell.index
+        }
+
+        freeCells.add(cell)
+    }
+
+    /**
+     * Computes conservative bounds of [entity] into boundsMinX, boundsMinY, boundsMaxX, boundsMaxY.
+     * Note: this reads every property an [Entry] listens to, which is required
+     * for invalidation listeners to be notified of subsequent changes.
+     */
+    private fun computeBounds(entity: Entity) {
+        val t = entity.transformComponent
+        val bbox = entity.boundingBoxComponent
+
+        val x = t.x
+        val y = t.y
+
+        var minX = min(x, bbox.getMinXWorld())
+        var minY = min(y, bbox.getMinYWorld())
+        var maxX = max(x, bbox.getMaxXWorld())
+        var maxY = max(y, bbox.getMaxYWorld())
+
+        val hitBoxes = bbox.hitBoxesProperty()
+
+        if (hitBoxes.isNotEmpty()) {
+            bbox.applyTransformToHitBoxes()
+
+            val angle = t.angle
+            val cos = cosDeg(angle)
+            val sin = sinDeg(angle)
+
+            val origin = t.rotationOrigin
+            val originX = origin.x + x
+            val originY = origin.y + y
+
+            for (i in hitBoxes.indices) {
+                val box = hitBoxes[i]
+                val shape = box.shape
+
+                if (shape is Box3DShapeData) {
+                    // 3D collision checks use a box centered at entity position
+                    minX = min(minX, x - shape.width / 2.0)
+                    minY = min(minY, y - shape.height / 2.0)
+                    maxX = max(maxX, x + shape.width / 2.0)
+                    maxY = max(maxY, y + shape.height / 2.0)
+                }
+
+                val boxMinX = box.fastMinX.toDouble()
+                val boxMinY = box.fastMinY.toDouble()
+                val boxMaxX = box.fastMaxX.toDouble()
+                val boxMaxY = box.fastMaxY.toDouble()
+
+                if (angle == 0.0) {
+                    minX = min(minX, boxMinX)
+                    minY = min(minY, boxMinY)
+                    maxX = max(maxX, boxMaxX)
+                    maxY = max(maxY, boxMaxY)
+                } else {
+                    // bounds of box corners rotated around the rotation origin, as in HitBox.applyTransform()
+                    for (corner in 0..3) {
+                        val cornerX = (if (corner == 1 || corner == 2) boxMaxX else boxMinX) - originX
+                        val cornerY = (if (corner >= 2) boxMaxY else boxMinY) - originY
+
+                        val rx = cornerX * cos - cornerY * sin + originX
+                        val ry = cornerX * sin + cornerY * cos + originY
+
+                        minX = min(minX, rx)
+                        minY = min(minY, ry)
+                        maxX = max(maxX, rx)
+                        maxY = max(maxY, ry)
+                    }
+                }
+            }
+        } else {
+            // keep the remaining listened properties valid
+            t.angle
+            t.rotationOrigin
+            t.scaleOrigin
+            t.scaleX
+            t.scaleY
+        }
+
+        boundsMinX = minX
+        boundsMinY = minY
+        boundsMaxX = maxX
+        boundsMaxY = maxY
+    }
+
+    private fun toCell(value: Double): Int = floor(value / cellSize).toInt()
+
+    private fun nextStamp(): Int {
+        stamp++
+
+        // on overflow, reset stamps so that an old stamp is never mistaken for the current one
+        if (stamp == 0) {
+            allEntries.forEach { it.stamp = 0 }
+            stamp = 1
+        }
+
+        return stamp
+    }
+
+    private fun resetBounds() {
+        minCellX = 0
+        minCellY = 0
+        maxCellX = -1
+        maxCellY = -1
+    }
+
+    private class Cell {
+        var x = 0
+        var y = 0
+
+        /**
+         * Index of this cell in activeCells.
+         */
+        var index = 0
+
+        val entries = UnorderedArray<Entry>(8)
+    }
+
+    private inner class Entry(val entity: Entity, val seq: Long) : InvalidationListener {
+        var cellMinX = 0
+        var cellMinY = 0
+        var cellMaxX = 0
+        var cellMaxY = 0
+
+        var isLinked = false
+        var isUnbounded = false
+        var isDirty = false
+        var isRemoved = false
+
+        var stamp = 0
+
+        override fun invalidated(observable: Observable) {
+            if (!isDirty && !isRemoved) {
+                isDirty = true
+                dirtyEntries.add(this)
+            }
+        }
+
+        fun attach() {
+            observables().forEach { it.addListener(this) }
+        }
+
+        fun detach() {
+            observables().forEach { it.removeListener(this) }
+        }
+
+        private fun observables(): List<Observable> {
+            val t = entity.transformComponent
+            val bbox = entity.boundingBoxComponent
+
+            return listOf(
+                    t.xProperty(),
+                    t.yProperty(),
+                    t.angleProperty(),
+                    t.scaleXProperty(),
+                    t.scaleYProperty(),
+                    t.scaleOriginXProperty(),
+                    t.scaleOriginYProperty(),
+                    t.rotationOriginXProperty(),
+                    t.rotationOriginYProperty(),
+                    bbox.widthProperty(),
+                    bbox.heightProperty(),
+                    bbox.minXLocalProperty(),
+                    bbox.minYLocalProperty(),
+                    bbox.hitBoxesProperty()
+            )
+        }
+    }
+}
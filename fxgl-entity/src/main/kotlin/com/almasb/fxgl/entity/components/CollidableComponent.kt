@@ -20,16 +20,25 @@ class CollidableComponent
 
     private val ignoredTypes = ArrayList<Serializable>()
 
+    /**
+     * Ignored types as type ids of the collision filter [ignoredTypeIdsOwner].
+     * Null when not computed yet or when ignored types have changed.
+     */
+    internal var ignoredTypeIds: BitSet? = null
+    internal var ignoredTypeIdsOwner: Any? = null
+
     fun getIgnoredTypes(): List<Serializable> {
         return ignoredTypes
     }
 
     fun addIgnoredType(type: Serializable) {
         ignoredTypes.add(type)
+        ignoredTypeIds = null
     }
 
     fun removeIgnoredType(type: Serializable) {
         ignoredTypes.remove(type)
+        ignoredTypeIds = null
     }
 
     override fun copy(): CollidableComponent {
@@ -23,10 +23,28 @@ class IDComponent
  * @param name string representation of entity name
  * @param id numeric id that uniquely identifies the entity with given name
  */
-(var name: String, id: Int) : Component(), SerializableComponent {
+(name: String, id: Int) : Component(), SerializableComponent {
+
+    var name: String = name
+        set(value) {
+            val oldName = field
+            field = value
+            onIDChanged(oldName, id)
+        }
 
     var id: Int = id
-        private set
+        private set(value) {
+            val oldID = field
+            field = value
+            onIDChanged(name, oldID)
+        }
+
+    /**
+     * Keeps ID lookups of the world in sync.
+     */
+    private fun onIDChanged(oldName: String, oldID: Int) {
+        entity?.world?.onIDChanged(this, oldName, oldID)
+    }
 
     /**
      * @return full id, this must be unique
@@ -39,8 +57,7 @@ class IDComponent
     }
 
     override fun equals(other: Any?): Boolean {
-        // just assume it's IDComponent
-        return (other as IDComponent).fullID == fullID
+        return other is IDComponent && other.fullID == fullID
     }
 
     override fun toString(): String {
@@ -12,6 +12,8 @@ import com.almasb.fxgl.core.serialization.Bundle
 import com.almasb.fxgl.entity.component.Component
 import com.almasb.fxgl.entity.component.CoreComponent
 import com.almasb.fxgl.entity.component.SerializableComponent
+import com.almasb.fxgl.entity.system.Archetype
+import javafx.beans.InvalidationListener
 import javafx.beans.property.DoubleProperty
 import javafx.beans.property.SimpleDoubleProperty
 import javafx.geometry.Point2D
@@ -65,13 +67,38 @@ class TransformComponent(x: Double, y: Double, angle: Double, scaleX: Double, sc
         }
     }
 
+    /**
+     * Set while the entity is stored in an archetype (see [com.almasb.fxgl.entity.system.EntitySystem]).
+     * The archetype arrays then hold the up-to-date x and y,
+     * while the x and y properties are synced once per world update.
+     */
+    internal var archetype: Archetype? = null
+        private set
+
+    internal var archetypeIndex = -1
+
+    private val archetypeListenerX = InvalidationListener { archetype?.let { it.x[archetypeIndex] = propX.value } }
+    private val archetypeListenerY = InvalidationListener { archetype?.let { it.y[archetypeIndex] = propY.value } }
+
     var x: Double
-        get() = propX.value
-        set(value) { propX.value = value }
+        get() {
+            val a = archetype
+            return if (a != null) a.x[archetypeIndex] else propX.value
+        }
+        set(value) {
+            propX.value = value
+            archetype?.let { it.x[archetypeIndex] = value }
+        }
 
     var y: Double
-        get() = propY.value
-        set(value) { propY.value = value }
+        get() {
+            val a = archetype
+            return if (a != null) a.y[archetypeIndex] else propY.value
+        }
+        set(value) {
+            propY.value = value
+            archetype?.let { it.y[archetypeIndex] = value }
+        }
 
     var z: Double
         get() = propZ.value
@@ -471,6 +498,41 @@ class TransformComponent(x: Double, y: Double, angle: Double, scaleX: Double, sc
         zProperty().bind(other.zProperty())
     }
 
+    internal fun attach(archetype: Archetype, index: Int) {
+        archetype.x[index] = propX.value
+        archetype.y[index] = propY.value
+
+        this.archetype = archetype
+        archetypeIndex = index
+
+        // direct property changes, e.g. via bindings, are written to the archetype arrays
+        propX.addListener(archetypeListenerX)
+        propY.addListener(archetypeListenerY)
+    }
+
+    internal fun detach() {
+        syncFromArchetype()
+
+        propX.removeListener(archetypeListenerX)
+        propY.removeListener(archetypeListenerY)
+
+        archetype = null
+        archetypeIndex = -1
+    }
+
+    /**
+     * Copies x and y from the archetype arrays to the x and y properties.
+     */
+    internal fun syncFromArchetype() {
+        val a = archetype ?: return
+
+        if (!propX.isBound)
+            propX.value = a.x[archetypeIndex]
+
+        if (!propY.isBound)
+            propY.value = a.y[archetypeIndex]
+    }
+
     override fun toString(): String {
         return "Transform($x, $y, $angle, $scaleX, $scaleY)"
     }
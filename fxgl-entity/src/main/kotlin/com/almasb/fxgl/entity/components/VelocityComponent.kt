@@ -0,0 +1,100 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.components
+
+import com.almasb.fxgl.core.serialization.Bundle
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.CopyableComponent
+import com.almasb.fxgl.entity.component.SerializableComponent
+import com.almasb.fxgl.entity.system.Archetype
+import javafx.geometry.Point2D
+
+/**
+ * Linear velocity in pixels per second.
+ * This component is plain data: it does not move the entity by itself.
+ * Use [com.almasb.fxgl.entity.system.MovementSystem] (or your own system / component) to apply it.
+ *
+ * While the entity is stored in an archetype, vx and vy are read from and written to the archetype arrays.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class VelocityComponent
+@JvmOverloads constructor(vx: Double = 0.0, vy: Double = 0.0) :
+        Component(),
+        SerializableComponent,
+        CopyableComponent<VelocityComponent> {
+
+    private var velocityX = vx
+    private var velocityY = vy
+
+    internal var archetype: Archetype? = null
+        private set
+
+    internal var archetypeIndex = -1
+
+    var vx: Double
+        get() {
+            val a = archetype
+            return if (a != null) a.vx[archetypeIndex] else velocityX
+        }
+        set(value) {
+            val a = archetype
+            if (a != null) a.vx[archetypeIndex] = value else velocityX = value
+        }
+
+    var vy: Double
+        get() {
+            val a = archetype
+            return if (a != null) a.vy[archetypeIndex] else velocityY
+        }
+        set(value) {
+            val a = archetype
+            if (a != null) a.vy[archetypeIndex] = value else velocityY = value
+        }
+
+    var velocity: Point2D
+        get() = Point2D(vx, vy)
+        set(value) { setVelocity(value.x, value.y) }
+
+    fun setVelocity(vx: Double, vy: Double) {
+        this.vx = vx
+        this.vy = vy
+    }
+
+    internal fun attach(archetype: Archetype, index: Int) {
+        archetype.vx[index] = velocityX
+        archetype.vy[index] = velocityY
+
+        this.archetype = archetype
+        archetypeIndex = index
+    }
+
+    internal fun detach() {
+        val a = archetype ?: return
+
+        velocityX = a.vx[archetypeIndex]
+        velocityY = a.vy[archetypeIndex]
+
+        archetype = null
+        archetypeIndex = -1
+    }
+
+    override fun write(bundle: Bundle) {
+        bundle.put("vx", vx)
+        bundle.put("vy", vy)
+    }
+
+    override fun read(bundle: Bundle) {
+        setVelocity(bundle.get("vx"), bundle.get("vy"))
+    }
+
+    override fun copy(): VelocityComponent = VelocityComponent(vx, vy)
+
+    override fun isComponentInjectionRequired(): Boolean = false
+
+    override fun toString(): String = "Velocity($vx, $vy)"
+}
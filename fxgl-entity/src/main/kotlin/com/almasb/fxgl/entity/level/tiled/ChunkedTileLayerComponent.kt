@@ -0,0 +1,288 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.level.tiled
+
+import com.almasb.fxgl.core.collection.LongMap
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.logging.Logger
+import javafx.geometry.BoundingBox
+import javafx.geometry.Rectangle2D
+import javafx.scene.Group
+import javafx.scene.image.ImageView
+import javafx.scene.image.WritableImage
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.Executor
+import java.util.function.Supplier
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.max
+import kotlin.math.min
+
+/**
+ * View of an orthogonal tile layer that is too large to be drawn into a single image.
+ * The layer is split into chunks of [chunkSize] x [chunkSize] tiles and only chunks
+ * near the visible area are drawn, so memory scales with the screen size rather than the map size.
+ *
+ * Chunks are drawn on [executor] threads and shown once ready.
+ * Drawn chunks that scrolled out of range are kept, up to [maxCachedChunks],
+ * after which the least recently visible ones are discarded and drawn again when needed.
+ *
+ * Added to tile layer entities by [TMXLevelLoader] with large map mode enabled.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ChunkedTileLayerComponent internal constructor(
+        private val map: TiledMap,
+        val layer: Layer,
+        private val tilesetLoader: TilesetLoader,
+
+        /**
+         * Number of tiles along each side of a chunk.
+         */
+        val chunkSize: Int,
+
+        /**
+         * Max number of drawn chunks kept in memory, chunks in range are always kept.
+         */
+        val maxCachedChunks: Int,
+
+        /**
+         * Executor that draws chunks, if null, chunks are drawn on the calling thread during [onUpdate].
+         */
+        var executor: Executor?
+
+) : Component() {
+
+    private val log = Logger.get<ChunkedTileLayerComponent>()
+
+    init {
+        require(chunkSize > 0) { "Chunk size must be > 0: $chunkSize" }
+        require(maxCachedChunks > 0) { "Max cached chunks must be > 0: $maxCachedChunks" }
+    }
+
+    /**
+     * Area in layer coordinates (pixels) that is currently visible, typically the viewport visible area.
+     * If null, the area is computed from the bounds of the scene the layer is shown in.
+     */
+    var visibleArea: Supplier<Rectangle2D>? = null
+
+    /**
+     * Chunks within this distance (pixels) of the visible area are drawn ahead of scrolling.
+     */
+    var preloadDistance = 0.0
+
+    private val chunkWidth = chunkSize * map.tilewidth
+    private val chunkHeight = chunkSize * map.tileheight
+
+    private val numChunksX = (layer.width + chunkSize - 1) / chunkSize
+    private val numChunksY = (layer.height + chunkSize - 1) / chunkSize
+
+    private val root = Group()
+
+    // in access order, so that the first chunks are the least recently visible
+    private val chunks = LinkedHashMap<Long, Chunk>(64, 0.75f, true)
+
+    private val completedChunks = ConcurrentLinkedQueue<Chunk>()
+
+    private var minChunkX = 0
+    private var minChunkY = 0
+    private var maxChunkX = -1
+    private var maxChunkY = -1
+
+    /**
+     * Number of chunks in range of the visible area after the last update.
+     */
+    val numVisibleChunks: Int
+        get() = (maxChunkX - minChunkX + 1) * (maxChunkY - minChunkY + 1)
+
+    /**
+     * Number of chunks that are drawn or being drawn.
+     */
+    val numCachedChunks: Int
+        get() = chunks.size
+
+    override fun onAdded() {
+        entity.viewComponent.addChild(root)
+    }
+
+    override fun onRemoved() {
+        entity.viewComponent.removeChild(root)
+
+        chunks.values.forEach { it.isDiscarded = true }
+        chunks.clear()
+        completedChunks.clear()
+    }
+
+    override fun onUpdate(tpf: Double) {
+        showCompletedChunks()
+
+        val area = visibleArea?.get() ?: sceneArea() ?: return
+
+        updateRange(area)
+
+        for (cy in minChunkY..maxChunkY) {
+            for (cx in minChunkX..maxChunkX) {
+                val key = LongMap.key(cx, cy)
+
+                // get() marks the chunk as recently used
+                val chunk = chunks[key] ?: Chunk(cx, cy).also {
+                    chunks[key] = it
+                    draw(it)
+                }
+
+                chunk.view?.let {
+                    if (it.parent == null) {
+                        root.children += it
+                    }
+                }
+            }
+        }
+
+        hideChunksOutOfRange()
+        evictChunks()
+    }
+
+    private fun sceneArea(): Rectangle2D? {
+        val scene = root.scene ?: return null
+        val bounds = root.sceneToLocal(BoundingBox(0.0, 0.0, scene.width, scene.height)) ?: return null
+
+        return Rectangle2D(bounds.minX, bounds.minY, bounds.width, bounds.height)
+    }
+
+    private fun updateRange(area: Rectangle2D) {
+        minChunkX = max(0, floor((area.minX - preloadDistance) / chunkWidth).toInt())
+        minChunkY = max(0, floor((area.minY - preloadDistance) / chunkHeight).toInt())
+        maxChunkX = min(numChunksX - 1, ceil((area.maxX + preloadDistance) / chunkWidth).toInt() - 1)
+        maxChunkY = min(numChunksY - 1, ceil((area.maxY + preloadDistance) / chunkHeight).toInt() - 1)
+
+        // the area is outside of the layer
+        if (minChunkX > maxChunkX || minChunkY > maxChunkY) {
+            minChunkX = 0
+            minChunkY = 0
+            maxChunkX = -1
+            maxChunkY = -1
+        }
+    }
+
+    private fun isInRange(chunk: Chunk): Boolean {
+        return chunk.x in minChunkX..maxChunkX && chunk.y in minChunkY..maxChunkY
+    }
+
+    private fun draw(chunk: Chunk) {
+        val exec = executor
+
+        if (exec == null) {
+            chunk.draw()
+            chunk.show()
+        } else {
+            exec.execute {
+                // the chunk may have been evicted before we got to it
+                if (!chunk.isDiscarded) {
+                    chunk.draw()
+                    completedChunks += chunk
+                }
+            }
+        }
+    }
+
+    private fun showCompletedChunks() {
+        var chunk = completedChunks.poll()
+
+        while (chunk != null) {
+            if (!chunk.isDiscarded) {
+                chunk.show()
+            }
+
+            chunk = completedChunks.poll()
+        }
+    }
+
+    private fun hideChunksOutOfRange() {
+        val it = root.children.iterator()
+
+        while (it.hasNext()) {
+            val chunk = it.next().userData as Chunk
+
+            if (!isInRange(chunk)) {
+                it.remove()
+            }
+        }
+    }
+
+    private fun evictChunks() {
+        if (chunks.size <= maxCachedChunks)
+            return
+
+        val it = chunks.values.iterator()
+
+        while (chunks.size > maxCachedChunks && it.hasNext()) {
+            val chunk = it.next()
+
+            if (!isInRange(chunk)) {
+                chunk.isDiscarded = true
+                it.remove()
+            }
+        }
+    }
+
+    private inner class Chunk(val x: Int, val y: Int) {
+
+        @Volatile
+        var isDiscarded = false
+
+        private var image: WritableImage? = null
+
+        var view: ImageView? = null
+            private set
+
+        fun draw() {
+            val minTileX = x * chunkSize
+            val minTileY = y * chunkSize
+            val maxTileX = min(minTileX + chunkSize, layer.width)
+            val maxTileY = min(minTileY + chunkSize, layer.height)
+
+            if (isEmpty(minTileX, minTileY, maxTileX, maxTileY))
+                return
+
+            try {
+                val buffer = WritableImage((maxTileX - minTileX) * map.tilewidth, (maxTileY - minTileY) * map.tileheight)
+
+                tilesetLoader.drawTiles(layer, minTileX, minTileY, maxTileX, maxTileY, buffer)
+
+                image = buffer
+            } catch (e: Exception) {
+                log.warning("Failed to draw chunk ($x, $y) of layer ${layer.name}", e)
+            }
+        }
+
+        fun show() {
+            val img = image ?: return
+
+            view = ImageView(img).also {
+                it.translateX = (x * chunkWidth).toDouble()
+                it.translateY = (y * chunkHeight).toDouble()
+                it.userData = this
+
+                if (isInRange(this)) {
+                    root.children += it
+                }
+            }
+        }
+
+        private fun isEmpty(minTileX: Int, minTileY: Int, maxTileX: Int, maxTileY: Int): Boolean {
+            // large tiles of neighbouring chunks may reach into this chunk
+            for (tileY in max(0, minTileY - tilesetLoader.tileOverlapY) until maxTileY) {
+                for (tileX in max(0, minTileX - tilesetLoader.tileOverlapX) until maxTileX) {
+                    if (layer.data[tileY * layer.width + tileX] != 0L)
+                        return false
+                }
+            }
+
+            return true
+        }
+    }
+}
@@ -20,6 +20,9 @@ import javafx.scene.shape.Polyline
 import java.io.InputStream
 import java.net.URL
 import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.atomic.AtomicInteger
 import java.util.stream.Collectors
 import java.util.zip.GZIPInputStream
 import java.util.zip.InflaterInputStream
@@ -42,9 +45,41 @@ class TMXLevelLoader
          * If true, tile layers will be loaded in parallel, but each layer will use its own image cache.
          * Setting to true _may_ improve loading performance if there are many large tiles.
          */
-        private val isParallel: Boolean = false
+        private val isParallel: Boolean = false,
+
+        /**
+         * If true, orthogonal tile layers are not drawn into a single image the size of the map.
+         * Instead, each layer entity has [ChunkedTileLayerComponent], which draws chunks of the layer
+         * near the visible area on background threads.
+         * Setting to true is recommended for maps whose layers are larger than a few screens.
+         */
+        private val isLargeMap: Boolean = false,
+
+        /**
+         * Number of tiles along each side of a chunk in large map mode.
+         */
+        private val chunkSize: Int = 16,
+
+        /**
+         * Max number of drawn chunks per layer kept in memory in large map mode.
+         */
+        private val maxCachedChunks: Int = 64
 ) : LevelLoader {
 
+    companion object {
+
+        /**
+         * Draws chunks of all large map layers.
+         */
+        private val chunkExecutor: Executor by lazy {
+            val count = AtomicInteger(0)
+
+            Executors.newFixedThreadPool(2) { r ->
+                Thread(r, "FXGL Tiled Chunk Thread ${count.getAndIncrement()}").also { it.isDaemon = true }
+            }
+        }
+    }
+
     private val log = Logger.get<TMXLevelLoader>()
 
     override fun load(url: URL, world: GameWorld): Level {
@@ -96,14 +131,26 @@ class TMXLevelLoader
 
                         when (map.orientation) {
                             "orthogonal" -> {
-                                it.viewComponent.addChild(tilesetLoader.loadView(layer.name))
+                                if (isLargeMap) {
+                                    it.addComponent(ChunkedTileLayerComponent(map, layer, tilesetLoader, chunkSize, maxCachedChunks, chunkExecutor))
+                                } else {
+                                    it.viewComponent.addChild(tilesetLoader.loadView(layer.name))
+                                }
                             }
 
                             "hexagonal" -> {
+                                if (isLargeMap) {
+                                    log.warning("Large map mode is only supported for orthogonal maps, loading layer ${layer.name} as a single image")
+                                }
+
                                 it.viewComponent.addChild(tilesetLoader.loadViewHex(layer.name))
                             }
 
                             "isometric" -> {
+                                if (isLargeMap) {
+                                    log.warning("Large map mode is only supported for orthogonal maps, loading layer ${layer.name} as a single image")
+                                }
+
                                 it.viewComponent.addChild(tilesetLoader.loadViewIsometric(layer.name))
                             }
 
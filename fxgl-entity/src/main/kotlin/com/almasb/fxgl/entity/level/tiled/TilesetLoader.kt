@@ -20,6 +20,9 @@ import javafx.scene.image.WritableImage
 import javafx.scene.paint.Color
 import java.net.URI
 import java.net.URL
+import java.util.concurrent.ConcurrentHashMap
+import kotlin.math.max
+import kotlin.math.min
 
 /**
  *
@@ -29,7 +32,20 @@ class TilesetLoader(private val map: TiledMap, private val mapURL: URL) {
 
     private val log = Logger.get<TilesetLoader>()
 
-    private val imageCache = hashMapOf<String, Image>()
+    // concurrent since chunks of large maps are drawn on background threads
+    private val imageCache = ConcurrentHashMap<String, Image>()
+
+    /**
+     * Number of tiles to the right that a tile larger than the map tile width can cover.
+     */
+    internal val tileOverlapX: Int
+        get() = map.tilesets.maxOfOrNull { (it.tilewidth + map.tilewidth - 1) / map.tilewidth - 1 }?.coerceAtLeast(0) ?: 0
+
+    /**
+     * Number of tiles down that a tile larger than the map tile height can cover.
+     */
+    internal val tileOverlapY: Int
+        get() = map.tilesets.maxOfOrNull { (it.tileheight + map.tileheight - 1) / map.tileheight - 1 }?.coerceAtLeast(0) ?: 0
 
     fun loadView(gidArg: Int, isFlippedHorizontal: Boolean, isFlippedVertical: Boolean): Node {
         var gid = gidArg
@@ -91,93 +107,124 @@ class TilesetLoader(private val map: TiledMap, private val mapURL: URL) {
 
         log.debug("Created buffer with size ${buffer.width}x${buffer.height}")
 
-        for (i in 0 until layer.data.size) {
+        drawTiles(layer, 0, 0, layer.width, layer.height, buffer)
 
-            val tempGid = layer.data.get(i)
+        return ImageView(buffer)
+    }
 
-            // from https://doc.mapeditor.org/en/stable/reference/tmx-map-format/#tile-flipping
-            // Bit 32 (31th) is used for storing whether the tile is horizontally flipped,
-            // Bit 31 (30th) is used for vertically flipped,
-            // Bit 30 (29th) is used for diagonally flipped
-            val FLIPPED_HORIZONTALLY_FLAG = 1L shl 31
-            val FLIPPED_VERTICALLY_FLAG   = 1L shl 30
-            val FLIPPED_DIAGONALLY_FLAG   = 1L shl 29
+    /**
+     * Draws tiles of an orthogonal [layer] in the tile range [minX, maxX) x [minY, maxY) into [buffer],
+     * where tile (minX, minY) is drawn at buffer (0, 0).
+     * Tiles larger than the map tile size are drawn from the top-left corner of their cell,
+     * so tiles above and to the left of the range whose image reaches into the buffer are drawn too.
+     * Parts of tiles outside of the buffer are not drawn.
+     * Can be called from any thread, as long as [buffer] is not yet shown.
+     */
+    internal fun drawTiles(layer: Layer, minX: Int, minY: Int, maxX: Int, maxY: Int, buffer: WritableImage) {
+        val bufferWidth = buffer.width.toInt()
+        val bufferHeight = buffer.height.toInt()
 
-            val isFlippedHorizontal = tempGid and FLIPPED_HORIZONTALLY_FLAG != 0L
-            val isFlippedVertical = tempGid and FLIPPED_VERTICALLY_FLAG != 0L
-            val isFlippedDiagonal = tempGid and FLIPPED_DIAGONALLY_FLAG != 0L
+        for (tileY in max(0, minY - tileOverlapY) until maxY) {
+            for (tileX in max(0, minX - tileOverlapX) until maxX) {
 
-            // get rid of the metadata, leaving us with gid
-            var gid = (tempGid and (FLIPPED_HORIZONTALLY_FLAG or FLIPPED_VERTICALLY_FLAG or FLIPPED_DIAGONALLY_FLAG).inv()).toInt()
+                val i = tileY * layer.width + tileX
 
-            // empty tile
-            if (gid == 0)
-                continue
+                val tempGid = layer.data.get(i)
 
-            val tileset = findTileset(gid, map.tilesets)
+                // from https://doc.mapeditor.org/en/stable/reference/tmx-map-format/#tile-flipping
+                // Bit 32 (31th) is used for storing whether the tile is horizontally flipped,
+                // Bit 31 (30th) is used for vertically flipped,
+                // Bit 30 (29th) is used for diagonally flipped
+                val FLIPPED_HORIZONTALLY_FLAG = 1L shl 31
+                val FLIPPED_VERTICALLY_FLAG   = 1L shl 30
+                val FLIPPED_DIAGONALLY_FLAG   = 1L shl 29
 
-            // we offset because data is encoded as continuous
-            gid -= tileset.firstgid
+                val isFlippedHorizontal = tempGid and FLIPPED_HORIZONTALLY_FLAG != 0L
+                val isFlippedVertical = tempGid and FLIPPED_VERTICALLY_FLAG != 0L
+                val isFlippedDiagonal = tempGid and FLIPPED_DIAGONALLY_FLAG != 0L
 
-            // image destination
-            val x = i % layer.width
-            val y = i / layer.width
+                // get rid of the metadata, leaving us with gid
+                var gid = (tempGid and (FLIPPED_HORIZONTALLY_FLAG or FLIPPED_VERTICALLY_FLAG or FLIPPED_DIAGONALLY_FLAG).inv()).toInt()
 
-            val w = tileset.tilewidth
-            val h = tileset.tileheight
+                // empty tile
+                if (gid == 0)
+                    continue
 
-            var sourceImage: Image
-            var srcx: Int
-            var srcy: Int
+                val tileset = findTileset(gid, map.tilesets)
 
-            if (tileset.isSpriteSheet) {
-                sourceImage = loadImage(tileset.image, tileset.transparentcolor, tileset.imagewidth, tileset.imageheight)
+                // we offset because data is encoded as continuous
+                gid -= tileset.firstgid
 
-                // image source
-                val tilex = gid % tileset.columns
-                val tiley = gid / tileset.columns
+                // image destination
+                val x = tileX - minX
+                val y = tileY - minY
 
-                srcx = tilex * w + tileset.margin + tilex * tileset.spacing
-                srcy = tiley * h + tileset.margin + tiley * tileset.spacing
+                val w = tileset.tilewidth
+                val h = tileset.tileheight
+
+                var sourceImage: Image
+                var srcx: Int
+                var srcy: Int
+
+                if (tileset.isSpriteSheet) {
+                    sourceImage = loadImage(tileset.image, tileset.transparentcolor, tileset.imagewidth, tileset.imageheight)
+
+                    // image source
+                    val tilex = gid % tileset.columns
+                    val tiley = gid / tileset.columns
+
+                    srcx = tilex * w + tileset.margin + tilex * tileset.spacing
+                    srcy = tiley * h + tileset.margin + tiley * tileset.spacing
+
+                    // If a tile of the sprite sheet needs to be flipped, crop the sub-texture
+                    if (isFlippedHorizontal or isFlippedVertical or isFlippedDiagonal) {
+                        sourceImage = Texture(sourceImage).subTexture(Rectangle2D(srcx.toDouble(), srcy.toDouble(), w.toDouble(), h.toDouble())).image
+                        srcx = 0
+                        srcy = 0
+                    }
+
+                } else {
+
+                    // tileset is a collection of images
+                    val tile = tileset.tiles.find { it.id == gid }
+                            ?: throw IllegalArgumentException("Tile with id=$gid not found")
+
+                    sourceImage = loadImage(tile.image, tile.transparentcolor, tile.imagewidth, tile.imageheight)
 
-                // If a tile of the sprite sheet needs to be flipped, crop the sub-texture
-                if (isFlippedHorizontal or isFlippedVertical or isFlippedDiagonal) {
-                    sourceImage = Texture(sourceImage).subTexture(Rectangle2D(srcx.toDouble(), srcy.toDouble(), w.toDouble(), h.toDouble())).image
                     srcx = 0
                     srcy = 0
                 }
 
-            } else {
+                if (isFlippedHorizontal) {
+                    sourceImage = flipHorizontally(sourceImage)
+                }
 
-                // tileset is a collection of images
-                val tile = tileset.tiles.find { it.id == gid }
-                        ?: throw IllegalArgumentException("Tile with id=$gid not found")
+                if (isFlippedVertical) {
+                    sourceImage = flipVertically(sourceImage)
+                }
 
-                sourceImage = loadImage(tile.image, tile.transparentcolor, tile.imagewidth, tile.imageheight)
+                if (isFlippedDiagonal) {
+                    log.warning("Diagonally flipped tiles are not currently supported")
+                }
 
-                srcx = 0
-                srcy = 0
-            }
+                val dstx = x * map.tilewidth
+                val dsty = y * map.tileheight
 
-            if (isFlippedHorizontal) {
-                sourceImage = flipHorizontally(sourceImage)
-            }
+                // tiles from outside of the range are negative, so clip them on all sides
+                val clipX = max(0, -dstx)
+                val clipY = max(0, -dsty)
+                val clipWidth = min(w, bufferWidth - dstx) - clipX
+                val clipHeight = min(h, bufferHeight - dsty) - clipY
 
-            if (isFlippedVertical) {
-                sourceImage = flipVertically(sourceImage)
-            }
+                if (clipWidth <= 0 || clipHeight <= 0)
+                    continue
 
-            if (isFlippedDiagonal) {
-                log.warning("Diagonally flipped tiles are not currently supported")
+                buffer.pixelWriter.setPixels(dstx + clipX, dsty + clipY,
+                        clipWidth, clipHeight, sourceImage.pixelReader,
+                        srcx + clipX,
+                        srcy + clipY)
             }
-
-            buffer.pixelWriter.setPixels(x * map.tilewidth, y * map.tileheight,
-                    w, h, sourceImage.pixelReader,
-                    srcx,
-                    srcy)
         }
-
-        return ImageView(buffer)
     }
 
     fun loadViewHex(layerName: String): Node {
@@ -419,11 +466,11 @@ class TilesetLoader(private val map: TiledMap, private val mapURL: URL) {
     }
 
     private fun loadImage(tilesetImageName: String, transparentcolor: String, w: Int, h: Int): Image {
-        if (tilesetImageName in imageCache) {
-            return imageCache[tilesetImageName]!!
-        }
+        return imageCache.computeIfAbsent(tilesetImageName) { loadImageUncached(it, transparentcolor, w, h) }
+    }
 
-        val image = try {
+    private fun loadImageUncached(tilesetImageName: String, transparentcolor: String, w: Int, h: Int): Image {
+        return try {
             val ext = mapURL.toExternalForm().substringBeforeLast("/") + "/"
 
             val stream = URI.create(ext + tilesetImageName).toURL().openStream()
@@ -447,10 +494,6 @@ class TilesetLoader(private val map: TiledMap, private val mapURL: URL) {
 
             resize(getDummyImage(), w, h)
         }
-
-        imageCache[tilesetImageName] = image
-
-        return image
     }
 
     fun copy(): TilesetLoader = TilesetLoader(map, mapURL)
@@ -0,0 +1,162 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.system
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentTypes
+import com.almasb.fxgl.entity.components.TransformComponent
+import com.almasb.fxgl.entity.components.VelocityComponent
+import java.util.*
+
+/**
+ * A batch of entities that have exactly the same set of components.
+ * Positions (and velocities, if the archetype has [VelocityComponent]) of the entities
+ * are stored contiguously in primitive arrays, valid in range 0 until [size].
+ * Entity at index i has position (x[i], y[i]) and velocity (vx[i], vy[i]).
+ *
+ * The arrays are the source of truth: [TransformComponent] and [VelocityComponent] read through them.
+ * The position properties of [TransformComponent] are synced after all systems have been updated.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class Archetype internal constructor(
+
+        /**
+         * Component type ids of this archetype.
+         */
+        internal val key: BitSet) {
+
+    companion object {
+        private val VELOCITY_ID = ComponentTypes.idOf(VelocityComponent::class.java)
+
+        private val EMPTY = DoubleArray(0)
+    }
+
+    /**
+     * Whether entities in this archetype have [VelocityComponent].
+     * If false, [vx] and [vy] are empty.
+     */
+    val hasVelocity = key.get(VELOCITY_ID)
+
+    var size = 0
+        private set
+
+    private var entities = arrayOfNulls<Entity>(16)
+    private var transforms = arrayOfNulls<TransformComponent>(16)
+    private var velocities = arrayOfNulls<VelocityComponent>(if (hasVelocity) 16 else 0)
+
+    var x = DoubleArray(16)
+        private set
+
+    var y = DoubleArray(16)
+        private set
+
+    var vx = if (hasVelocity) DoubleArray(16) else EMPTY
+        private set
+
+    var vy = if (hasVelocity) DoubleArray(16) else EMPTY
+        private set
+
+    fun getEntity(index: Int): Entity = entities[index]!!
+
+    /**
+     * @param typeID component type id, as given by [ComponentTypes.idOf]
+     * @return true iff entities in this archetype have a component of given type
+     */
+    fun hasComponent(typeID: Int): Boolean = key.get(typeID)
+
+    /**
+     * @param typeID component type id, as given by [ComponentTypes.idOf]
+     * @return component of given type of entity at given index
+     */
+    fun <T : Component> getComponent(index: Int, typeID: Int): T = entities[index]!!.getComponent(typeID)
+
+    internal fun add(entity: Entity, velocity: VelocityComponent?) {
+        if (size == entities.size) {
+            grow()
+        }
+
+        val index = size++
+
+        entities[index] = entity
+        transforms[index] = entity.transformComponent
+        entity.transformComponent.attach(this, index)
+
+        if (hasVelocity) {
+            velocities[index] = velocity!!
+            velocity.attach(this, index)
+        }
+    }
+
+    internal fun remove(entity: Entity) {
+        val index = entity.transformComponent.archetypeIndex
+
+        transforms[index]!!.detach()
+
+        if (hasVelocity) {
+            velocities[index]!!.detach()
+        }
+
+        val last = --size
+
+        // move the last entity into the free index
+        if (index != last) {
+            entities[index] = entities[last]
+            transforms[index] = transforms[last]
+            x[index] = x[last]
+            y[index] = y[last]
+            transforms[index]!!.archetypeIndex = index
+
+            if (hasVelocity) {
+                velocities[index] = velocities[last]
+                vx[index] = vx[last]
+                vy[index] = vy[last]
+                velocities[index]!!.archetypeIndex = index
+            }
+        }
+
+        entities[last] = null
+        transforms[last] = null
+
+        if (hasVelocity) {
+            velocities[last] = null
+        }
+    }
+
+    /**
+     * Copies positions from the arrays to transform properties.
+     */
+    internal fun sync() {
+        for (i in 0 until size) {
+            transforms[i]!!.syncFromArchetype()
+        }
+    }
+
+    internal fun clear() {
+        for (i in size - 1 downTo 0) {
+            remove(entities[i]!!)
+        }
+    }
+
+    private fun grow() {
+        val newSize = entities.size * 2
+
+        entities = entities.copyOf(newSize)
+        transforms = transforms.copyOf(newSize)
+        x = x.copyOf(newSize)
+        y = y.copyOf(newSize)
+
+        if (hasVelocity) {
+            velocities = velocities.copyOf(newSize)
+            vx = vx.copyOf(newSize)
+            vy = vy.copyOf(newSize)
+        }
+    }
+
+    override fun toString(): String = "Archetype($key, size=$size)"
+}
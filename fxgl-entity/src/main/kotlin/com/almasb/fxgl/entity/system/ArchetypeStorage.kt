@@ -0,0 +1,370 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.system
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.collection.UnorderedArray
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentTypes
+import com.almasb.fxgl.entity.components.VelocityComponent
+import java.util.*
+import java.util.concurrent.ForkJoinPool
+import java.util.concurrent.ForkJoinTask
+import java.util.concurrent.RecursiveAction
+
+/**
+ * Groups entities of a world by archetype and updates systems.
+ * Only entities that match at least one system are stored, so while there are no systems
+ * this class does no work at all.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class ArchetypeStorage {
+
+    companion object {
+
+        /**
+         * Max number of entities in a chunk that is updated by a single parallel task.
+         */
+        const val CHUNK_SIZE = 2048
+
+        /**
+         * Deferred actions of the task currently running on this thread.
+         */
+        @JvmField
+        val deferredActions = ThreadLocal<MutableList<Runnable>>()
+    }
+
+    /**
+     * A contiguous range of an archetype updated by a system.
+     */
+    private class UpdateTask(
+            val system: EntitySystem,
+            val archetype: Archetype,
+            val fromIndex: Int,
+            val toIndex: Int,
+            val isWholeArchetype: Boolean,
+            val tpf: Double
+    ) : RecursiveAction() {
+
+        val deferred = arrayListOf<Runnable>()
+
+        public override fun compute() {
+            deferredActions.set(deferred)
+
+            try {
+                if (isWholeArchetype) {
+                    system.onUpdate(archetype, tpf)
+                } else {
+                    system.onUpdate(archetype, fromIndex, toIndex, tpf)
+                }
+            } finally {
+                deferredActions.remove()
+            }
+        }
+    }
+
+    /**
+     * If not null, systems that declare their component access are updated on this pool.
+     */
+    var pool: ForkJoinPool? = null
+
+    private val systems = Array<EntitySystem>()
+
+    /**
+     * Tasks of this frame in deterministic order: by system, archetype, chunk.
+     */
+    private val tasks = arrayListOf<UpdateTask>()
+    private var stageStart = 0
+    private val stageSystems = Array<EntitySystem>()
+
+    private val archetypes = hashMapOf<BitSet, Archetype>()
+    private val archetypeList = Array<Archetype>()
+
+    private var isUpdating = false
+
+    /**
+     * Entities whose components changed while systems were being updated.
+     */
+    private val pending = UnorderedArray<Entity>()
+
+    val numArchetypes: Int
+        get() = archetypeList.size()
+
+    fun getArchetype(index: Int): Archetype = archetypeList[index]
+
+    /**
+     * @param entities entities currently in the world
+     */
+    fun addSystem(system: EntitySystem, entities: List<Entity>) {
+        systems.add(system)
+
+        for (i in 0 until archetypeList.size()) {
+            val archetype = archetypeList[i]
+
+            if (system.matches(archetype.key)) {
+                system.archetypes.add(archetype)
+            }
+        }
+
+        entities.forEach { place(it, null, null) }
+    }
+
+    fun removeSystem(system: EntitySystem) {
+        if (!systems.removeValueByIdentity(system))
+            return
+
+        system.archetypes.clear()
+
+        for (i in archetypeList.size() - 1 downTo 0) {
+            val archetype = archetypeList[i]
+
+            if (!matchesAnySystem(archetype.key)) {
+                archetype.clear()
+                archetypes.remove(archetype.key)
+                archetypeList.removeIndex(i)
+            }
+        }
+    }
+
+    fun onEntityAdded(entity: Entity) {
+        if (systems.isEmpty)
+            return
+
+        onChanged(entity, null, null)
+    }
+
+    fun onEntityRemoved(entity: Entity) {
+        if (isUpdating) {
+            pending.add(entity)
+            return
+        }
+
+        entity.transformComponent.archetype?.remove(entity)
+    }
+
+    fun onComponentAdded(entity: Entity, component: Component) {
+        if (systems.isEmpty)
+            return
+
+        onChanged(entity, component, null)
+    }
+
+    fun onComponentRemoved(entity: Entity, component: Component) {
+        if (systems.isEmpty && entity.transformComponent.archetype == null)
+            return
+
+        onChanged(entity, null, component)
+    }
+
+    fun update(tpf: Double) {
+        if (systems.isEmpty)
+            return
+
+        isUpdating = true
+
+        try {
+            updateSystems(tpf)
+
+            // deferred actions run on this thread in task order, so the order does not depend on the pool
+            for (i in 0 until tasks.size) {
+                tasks[i].deferred.forEach { it.run() }
+            }
+        } finally {
+            tasks.clear()
+            stageSystems.clear()
+            stageStart = 0
+
+            isUpdating = false
+        }
+
+        for (i in 0 until pending.size()) {
+            val e = pending[i]
+
+            if (e.isActive) {
+                place(e, null, null)
+            } else {
+                e.transformComponent.archetype?.remove(e)
+            }
+        }
+
+        pending.clear()
+
+        for (i in 0 until archetypeList.size()) {
+            archetypeList[i].sync()
+        }
+    }
+
+    /**
+     * Groups consecutive non-conflicting systems into stages.
+     * Stages run one after another, tasks within a stage run in parallel.
+     */
+    private fun updateSystems(tpf: Double) {
+        for (i in 0 until systems.size()) {
+            val system = systems[i]
+
+            if (system.isPaused)
+                continue
+
+            val isParallel = pool != null && system.isAccessDeclared
+
+            if (!isParallel || conflictsWithStage(system)) {
+                runStage()
+            }
+
+            for (j in 0 until system.archetypes.size()) {
+                val archetype = system.archetypes[j]
+
+                if (archetype.size == 0)
+                    continue
+
+                if (isParallel) {
+                    var from = 0
+
+                    while (from < archetype.size) {
+                        val to = minOf(from + CHUNK_SIZE, archetype.size)
+
+                        tasks += UpdateTask(system, archetype, from, to, false, tpf)
+
+                        from = to
+                    }
+                } else {
+                    tasks += UpdateTask(system, archetype, 0, archetype.size, true, tpf)
+                }
+            }
+
+            if (isParallel) {
+                stageSystems.add(system)
+            } else {
+                runStage()
+            }
+        }
+
+        runStage()
+    }
+
+    private fun conflictsWithStage(system: EntitySystem): Boolean {
+        for (i in 0 until stageSystems.size()) {
+            if (stageSystems[i].conflictsWith(system))
+                return true
+        }
+
+        return false
+    }
+
+    /**
+     * Runs tasks added since the last stage, on [pool] if the stage has parallel systems.
+     */
+    private fun runStage() {
+        val pool = pool
+        val numTasks = tasks.size - stageStart
+
+        if (pool != null && !stageSystems.isEmpty && numTasks > 1) {
+            val stageTasks = tasks.subList(stageStart, tasks.size)
+
+            pool.invoke(object : RecursiveAction() {
+                override fun compute() {
+                    ForkJoinTask.invokeAll(stageTasks)
+                }
+            })
+        } else {
+            for (i in stageStart until tasks.size) {
+                tasks[i].compute()
+            }
+        }
+
+        stageStart = tasks.size
+        stageSystems.clear()
+    }
+
+    fun clear() {
+        for (i in 0 until archetypeList.size()) {
+            archetypeList[i].clear()
+        }
+
+        for (i in 0 until systems.size()) {
+            systems[i].archetypes.clear()
+        }
+
+        systems.clear()
+        archetypes.clear()
+        archetypeList.clear()
+        pending.clear()
+    }
+
+    private fun onChanged(entity: Entity, added: Component?, removed: Component?) {
+        if (isUpdating) {
+            pending.add(entity)
+        } else {
+            place(entity, added, removed)
+        }
+    }
+
+    /**
+     * Moves [entity] to the archetype of its components, if it matches any system.
+     * Component listeners are notified before the component is actually added / removed,
+     * hence the [added] and [removed] adjustments.
+     */
+    private fun place(entity: Entity, added: Component?, removed: Component?) {
+        val key = BitSet()
+        var velocity: VelocityComponent? = null
+
+        val components = entity.components
+        if (added != null)
+            components.add(added)
+
+        for (c in components) {
+            if (c === removed)
+                continue
+
+            key.set(ComponentTypes.idOf(c.javaClass))
+
+            if (c is VelocityComponent)
+                velocity = c
+        }
+
+        val current = entity.transformComponent.archetype
+
+        if (current != null && current.key == key)
+            return
+
+        current?.remove(entity)
+
+        if (matchesAnySystem(key)) {
+            archetypeOf(key).add(entity, velocity)
+        }
+    }
+
+    private fun archetypeOf(key: BitSet): Archetype {
+        var archetype = archetypes[key]
+
+        if (archetype == null) {
+            archetype = Archetype(key)
+
+            archetypes[key] = archetype
+            archetypeList.add(archetype)
+
+            for (i in 0 until systems.size()) {
+                if (systems[i].matches(key)) {
+                    systems[i].archetypes.add(archetype)
+                }
+            }
+        }
+
+        return archetype
+    }
+
+    private fun matchesAnySystem(key: BitSet): Boolean {
+        for (i in 0 until systems.size()) {
+            if (systems[i].matches(key))
+                return true
+        }
+
+        return false
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.system
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.component.ComponentTypes
+import java.util.*
+
+/**
+ * A system updates, in batches, all entities that have (at least) the components in its signature.
+ * Unlike [Component.onUpdate], which is called for each component of each entity,
+ * [onUpdate] is called once per matching [Archetype], so a system can process
+ * a whole batch of positions and velocities in a single loop over primitive arrays.
+ *
+ * Systems coexist with components: entities matched by a system are still updated per component as usual.
+ * Systems are updated after all entities, in the order they were added to the world.
+ * Adding or removing entities or components during [onUpdate] is allowed,
+ * the archetypes are updated after all systems have finished.
+ *
+ * Note: systems receive the world tpf, [com.almasb.fxgl.entity.components.TimeComponent] is not taken into account.
+ *
+ * A system may declare which component types it reads and writes via [reads] and [writes].
+ * If the world has a parallel update pool, systems that declared their access are updated in parallel:
+ * consecutive systems that do not conflict (neither writes what the other reads or writes) form a stage,
+ * and each archetype of a stage is split into chunks that are updated across the pool.
+ * Such systems must override the range overload of [onUpdate], must only access
+ * the entities in the given range and only through the archetype arrays or declared components.
+ * Anything that touches the scene graph or the world (e.g. adding or removing entities)
+ * must be passed to [defer], which runs the action on the update thread after all systems have finished.
+ * Deferred actions run in the same order regardless of the mode: by system, archetype, entity index and call order.
+ * Systems that did not declare their access always run alone, on the update thread.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+abstract class EntitySystem(vararg signature: Class<out Component>) {
+
+    /**
+     * Component types an entity must have to be updated by this system.
+     */
+    val signature: List<Class<out Component>> = signature.toList()
+
+    internal val signatureIDs = BitSet()
+
+    /**
+     * Archetypes that match the signature.
+     */
+    internal val archetypes = Array<Archetype>()
+
+    var isPaused = false
+
+    internal val readIDs = BitSet()
+    internal val writeIDs = BitSet()
+
+    internal var isAccessDeclared = false
+        private set
+
+    init {
+        signature.forEach { signatureIDs.set(ComponentTypes.idOf(it)) }
+    }
+
+    /**
+     * Declares that this system reads components of given types.
+     * Position arrays belong to TransformComponent, velocity arrays to VelocityComponent.
+     */
+    protected fun reads(vararg types: Class<out Component>) {
+        isAccessDeclared = true
+        types.forEach { readIDs.set(ComponentTypes.idOf(it)) }
+    }
+
+    /**
+     * Declares that this system writes (and possibly reads) components of given types.
+     */
+    protected fun writes(vararg types: Class<out Component>) {
+        isAccessDeclared = true
+        types.forEach { writeIDs.set(ComponentTypes.idOf(it)) }
+    }
+
+    internal fun conflictsWith(other: EntitySystem): Boolean {
+        if (!isAccessDeclared || !other.isAccessDeclared)
+            return true
+
+        return writeIDs.intersects(other.writeIDs)
+                || writeIDs.intersects(other.readIDs)
+                || readIDs.intersects(other.writeIDs)
+    }
+
+    /**
+     * Runs [action] on the update thread after all systems have been updated in this frame.
+     * If called outside of a system update, [action] runs immediately.
+     */
+    protected fun defer(action: Runnable) {
+        val buffer = ArchetypeStorage.deferredActions.get()
+
+        if (buffer != null) {
+            buffer.add(action)
+        } else {
+            action.run()
+        }
+    }
+
+    internal fun matches(key: BitSet): Boolean {
+        var i = signatureIDs.nextSetBit(0)
+
+        while (i >= 0) {
+            if (!key.get(i))
+                return false
+
+            i = signatureIDs.nextSetBit(i + 1)
+        }
+
+        return true
+    }
+
+    /**
+     * Called once per frame for each non-empty archetype that matches the signature,
+     * unless the archetype is split into chunks, see [onUpdate] with range.
+     * By default, updates the whole archetype via the range overload.
+     *
+     * @param archetype batch of matching entities
+     * @param tpf time per frame
+     */
+    open fun onUpdate(archetype: Archetype, tpf: Double) {
+        onUpdate(archetype, 0, archetype.size, tpf)
+    }
+
+    /**
+     * Updates entities at indices fromIndex (inclusive) until toIndex (exclusive) of given archetype.
+     * Must be overridden by systems that declare their component access.
+     *
+     * @param archetype batch of matching entities
+     * @param fromIndex first index to update
+     * @param toIndex index after the last index to update
+     * @param tpf time per frame
+     */
+    open fun onUpdate(archetype: Archetype, fromIndex: Int, toIndex: Int, tpf: Double) {
+        throw UnsupportedOperationException("${javaClass.simpleName} must override onUpdate(archetype, tpf) or onUpdate(archetype, fromIndex, toIndex, tpf)")
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.entity.system
+
+import com.almasb.fxgl.entity.components.TransformComponent
+import com.almasb.fxgl.entity.components.VelocityComponent
+
+/**
+ * Moves all entities with [VelocityComponent] by their velocity each frame.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class MovementSystem : EntitySystem(VelocityComponent::class.java) {
+
+    init {
+        reads(VelocityComponent::class.java)
+        writes(TransformComponent::class.java)
+    }
+
+    override fun onUpdate(archetype: Archetype, fromIndex: Int, toIndex: Int, tpf: Double) {
+        val x = archetype.x
+        val y = archetype.y
+        val vx = archetype.vx
+        val vy = archetype.vy
+
+        for (i in fromIndex until toIndex) {
+            x[i] += vx[i] * tpf
+            y[i] += vy[i] * tpf
+        }
+    }
+}
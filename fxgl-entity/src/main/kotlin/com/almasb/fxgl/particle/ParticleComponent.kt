@@ -11,13 +11,26 @@ import com.almasb.fxgl.core.pool.Pools
 import com.almasb.fxgl.core.util.EmptyRunnable
 import com.almasb.fxgl.entity.Entity
 import com.almasb.fxgl.entity.component.Component
+import javafx.scene.canvas.Canvas
+import kotlin.math.ceil
+import kotlin.math.floor
+import kotlin.math.min
 
 /**
  * Allows adding particle effects to an entity.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
-open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
+open class ParticleComponent
+@JvmOverloads constructor(
+        val emitter: ParticleEmitter,
+
+        /**
+         * Use [ParticleRenderMode.CANVAS] for emitters that produce thousands of particles.
+         */
+        val renderMode: ParticleRenderMode = ParticleRenderMode.NODES
+
+) : Component() {
 
     var onFinished: Runnable = EmptyRunnable
 
@@ -31,15 +44,36 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
 
     private val particles = UnorderedArray<Particle>(256)
 
+    private val buffer by lazy { ParticleBuffer() }
+
+    private val canvas by lazy { Canvas() }
+
+    /**
+     * In [ParticleRenderMode.CANVAS], max width and height of the canvas,
+     * particles outside of the canvas area are not drawn.
+     */
+    var maxCanvasSize = 4096.0
+
     val isEmitterPaused: Boolean
         get() = emitter.isPaused
 
+    /**
+     * Number of alive particles.
+     */
+    val numParticles: Int
+        get() = if (renderMode == ParticleRenderMode.CANVAS) buffer.size() else particles.size()
+
     override fun onUpdate(tpf: Double) {
         if (parent.world == null) {
             parent.zIndex = entity.zIndex
             entity.world.addEntity(parent)
         }
 
+        if (renderMode == ParticleRenderMode.CANVAS) {
+            updateBuffer(tpf)
+            return
+        }
+
         particles.addAll(emitter.emit(entity.x, entity.y))
 
         val iter = particles.iterator()
@@ -63,6 +97,53 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
         }
     }
 
+    private fun updateBuffer(tpf: Double) {
+        emitter.emit(entity.x, entity.y, buffer)
+
+        buffer.update(tpf)
+
+        if (canvas.parent == null) {
+            parent.viewComponent.addChild(canvas)
+        }
+
+        render()
+
+        if (buffer.size() == 0 && emitter.isFinished) {
+            onFinished.run()
+        }
+    }
+
+    private fun render() {
+        val g = canvas.graphicsContext2D
+
+        if (buffer.size() == 0) {
+            g.clearRect(0.0, 0.0, canvas.width, canvas.height)
+            return
+        }
+
+        val minX = floor(buffer.minX)
+        val minY = floor(buffer.minY)
+        val width = min(ceil(buffer.maxX - minX), maxCanvasSize)
+        val height = min(ceil(buffer.maxY - minY), maxCanvasSize)
+
+        // resizing reallocates the canvas texture, so the canvas only shrinks when much larger than needed
+        if (width > canvas.width || width < canvas.width / 2) {
+            canvas.width = width
+        }
+
+        if (height > canvas.height || height < canvas.height / 2) {
+            canvas.height = height
+        }
+
+        g.clearRect(0.0, 0.0, canvas.width, canvas.height)
+
+        canvas.translateX = minX
+        canvas.translateY = minY
+        canvas.blendMode = emitter.blendMode
+
+        buffer.render(g, emitter.blendMode, -minX, -minY)
+    }
+
     fun pauseEmitter() {
         emitter.pause()
     }
@@ -75,6 +156,11 @@ open class ParticleComponent(val emitter: ParticleEmitter) : Component() {
         particles.forEach { Pools.free(it) }
         particles.clear()
 
+        if (renderMode == ParticleRenderMode.CANVAS) {
+            buffer.clear()
+            parent.viewComponent.removeChild(canvas)
+        }
+
         parent.removeFromWorld()
     }
 
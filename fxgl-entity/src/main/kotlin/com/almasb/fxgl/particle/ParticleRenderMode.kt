@@ -0,0 +1,28 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.particle
+
+/**
+ * How [ParticleComponent] renders particles.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+enum class ParticleRenderMode {
+
+    /**
+     * Each particle is a [Particle] object with its own node in the scene graph.
+     * Supports all emitter functions, suitable for small numbers of particles.
+     */
+    NODES,
+
+    /**
+     * Particles are kept in a [ParticleBuffer] and all particles of the emitter are drawn
+     * onto a single canvas each frame, suitable for thousands of particles.
+     * The emitter control and on remove functions are not used.
+     */
+    CANVAS
+}
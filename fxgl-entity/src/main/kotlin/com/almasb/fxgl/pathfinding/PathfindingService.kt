@@ -0,0 +1,102 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.pathfinding
+
+import com.almasb.fxgl.core.EngineService
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.pathfinding.astar.AStarCell
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder
+import com.almasb.fxgl.pathfinding.astar.AsyncAStarPathfinder
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid
+import java.util.concurrent.ExecutorService
+import java.util.concurrent.Executors
+import java.util.concurrent.ThreadFactory
+import java.util.concurrent.atomic.AtomicInteger
+
+/**
+ * Computes paths on a pool of worker threads, so that many units can re-path
+ * on the same frame without a frame spike.
+ * Paths are delivered on the JavaFX thread during game update.
+ *
+ * The service is not added by default, use settings.addEngineService(PathfindingService::class.java).
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class PathfindingService : EngineService() {
+
+    /**
+     * Number of worker threads, must be set before the first async pathfinder is created.
+     */
+    var numThreads = maxOf(1, Runtime.getRuntime().availableProcessors() - 1)
+
+    /**
+     * Max number of searches per pathfinder submitted to the workers at the same time.
+     */
+    var maxSearchesInFlight = 64
+
+    private var executor: ExecutorService? = null
+
+    private val pathfinders = Array<AsyncAStarPathfinder<*>>()
+
+    fun <T : AStarCell> newAsyncPathfinder(grid: TraversableGrid<T>): AsyncAStarPathfinder<T> {
+        return newAsyncPathfinder(AStarPathfinder(grid))
+    }
+
+    /**
+     * The returned pathfinder is updated by this service until [removeAsyncPathfinder] is called
+     * or the game is reset.
+     */
+    fun <T : AStarCell> newAsyncPathfinder(pathfinder: AStarPathfinder<T>): AsyncAStarPathfinder<T> {
+        val asyncPathfinder = AsyncAStarPathfinder(pathfinder, getExecutor(), maxSearchesInFlight)
+
+        pathfinders.add(asyncPathfinder)
+
+        return asyncPathfinder
+    }
+
+    /**
+     * Cancels all pending requests of given pathfinder and stops updating it.
+     */
+    fun removeAsyncPathfinder(pathfinder: AsyncAStarPathfinder<*>) {
+        pathfinder.cancelAll()
+        pathfinders.removeValueByIdentity(pathfinder)
+    }
+
+    private fun getExecutor(): ExecutorService {
+        return executor ?: Executors.newFixedThreadPool(numThreads, WorkerThreadFactory()).also { executor = it }
+    }
+
+    override fun onGameUpdate(tpf: Double) {
+        for (i in 0 until pathfinders.size()) {
+            pathfinders[i].onUpdate(tpf)
+        }
+    }
+
+    override fun onGameReset() {
+        // grids of the previous game are no longer used
+        for (i in 0 until pathfinders.size()) {
+            pathfinders[i].cancelAll()
+        }
+
+        pathfinders.clear()
+    }
+
+    override fun onExit() {
+        executor?.shutdownNow()
+        executor = null
+    }
+
+    private class WorkerThreadFactory : ThreadFactory {
+        private val count = AtomicInteger(0)
+
+        override fun newThread(r: Runnable): Thread {
+            val t = Thread(r, "FXGL Pathfinding Thread ${count.getAndIncrement()}")
+            t.isDaemon = true
+            return t
+        }
+    }
+}
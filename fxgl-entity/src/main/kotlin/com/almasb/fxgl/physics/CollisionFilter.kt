@@ -0,0 +1,171 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.UnorderedPairMap
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.component.ComponentTypes
+import com.almasb.fxgl.entity.components.CollidableComponent
+import java.util.*
+
+/**
+ * Answers "which handler, if any, does this pair use?" and "does either entity ignore the other?"
+ * with array reads instead of map lookups and list scans.
+ *
+ * Only types that take part in collision handlers or ignore lists get a small integer id (starting at 1).
+ * All other types share id 0, which never has a handler and is never ignored.
+ * Candidate entities are assigned to slots once per frame, so that the per pair checks
+ * only read the type id and ignored type ids of each slot.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class CollisionFilter(private val handlers: UnorderedPairMap<Any, CollisionHandler>) {
+
+    companion object {
+        private val COLLIDABLE_ID = ComponentTypes.idOf(CollidableComponent::class.java)
+    }
+
+    private val typeIds = hashMapOf<Any, Int>()
+    private val types = arrayListOf<Any>()
+
+    /**
+     * Handler for each pair of type ids, row-major, size is [numIds] squared.
+     */
+    private var handlerMatrix = arrayOfNulls<CollisionHandler>(0)
+    private var numIds = 0
+    private var isDirty = true
+    private var isNewTypeRegistered = false
+
+    private var slotEntities = arrayOfNulls<Entity>(128)
+    private var slotTypeIds = IntArray(128)
+    private var slotIgnoredTypeIds = arrayOfNulls<BitSet>(128)
+
+    /**
+     * Must be called when collision handlers are added or removed.
+     */
+    fun invalidate() {
+        isDirty = true
+    }
+
+    /**
+     * Assigns given collidable entity to [slot] for the current frame.
+     */
+    fun setEntity(slot: Int, e: Entity) {
+        if (slot >= slotTypeIds.size) {
+            val newSize = maxOf(slot + 1, slotTypeIds.size * 2)
+
+            slotEntities = slotEntities.copyOf(newSize)
+            slotTypeIds = slotTypeIds.copyOf(newSize)
+            slotIgnoredTypeIds = slotIgnoredTypeIds.copyOf(newSize)
+        }
+
+        if (isDirty)
+            rebuild()
+
+        slotEntities[slot] = e
+        slotTypeIds[slot] = typeIds[e.type] ?: 0
+        slotIgnoredTypeIds[slot] = ignoredTypeIds(e.getComponent<CollidableComponent>(COLLIDABLE_ID))
+    }
+
+    /**
+     * Must be called after entities of this frame have been assigned to slots 0 until [numSlots].
+     * Ignore lists may have registered new types, which entities in earlier slots need to see.
+     */
+    fun endAssignment(numSlots: Int) {
+        if (!isNewTypeRegistered)
+            return
+
+        for (i in 0 until numSlots) {
+            slotTypeIds[i] = typeIds[slotEntities[i]!!.type] ?: 0
+        }
+
+        isNewTypeRegistered = false
+    }
+
+    /**
+     * @return collision handler for entities in given slots or null if no such handler exists
+     */
+    fun getHandler(slot1: Int, slot2: Int): CollisionHandler? {
+        if (isDirty)
+            rebuild()
+
+        val id1 = slotTypeIds[slot1]
+        val id2 = slotTypeIds[slot2]
+
+        // types that are not in the matrix have no handlers
+        if (id1 >= numIds || id2 >= numIds)
+            return null
+
+        return handlerMatrix[id1 * numIds + id2]
+    }
+
+    /**
+     * @return true if entity in [slot1] ignores type of entity in [slot2] or vice versa
+     */
+    fun isIgnored(slot1: Int, slot2: Int): Boolean {
+        val ignored1 = slotIgnoredTypeIds[slot1]
+        val ignored2 = slotIgnoredTypeIds[slot2]
+
+        return (ignored1 != null && ignored1.get(slotTypeIds[slot2]))
+                || (ignored2 != null && ignored2.get(slotTypeIds[slot1]))
+    }
+
+    private fun ignoredTypeIds(collidable: CollidableComponent): BitSet? {
+        if (collidable.getIgnoredTypes().isEmpty())
+            return null
+
+        val cachedIds = collidable.ignoredTypeIds
+
+        if (cachedIds != null && collidable.ignoredTypeIdsOwner === this)
+            return cachedIds
+
+        val ids = BitSet()
+
+        collidable.getIgnoredTypes().forEach {
+            ids.set(idOf(it))
+        }
+
+        collidable.ignoredTypeIds = ids
+        collidable.ignoredTypeIdsOwner = this
+
+        return ids
+    }
+
+    private fun idOf(type: Any): Int {
+        return typeIds.getOrPut(type) {
+            types += type
+
+            // a new type may have a handler with a type that is already known, e.g. via ignore lists
+            isDirty = true
+            isNewTypeRegistered = true
+
+            types.size
+        }
+    }
+
+    private fun rebuild() {
+        handlers.values.forEach {
+            idOf(it.a)
+            idOf(it.b)
+        }
+
+        numIds = types.size + 1
+        handlerMatrix = arrayOfNulls(numIds * numIds)
+
+        // only ids of types, i.e. from 1, can have handlers
+        for (i in 1 until numIds) {
+            for (j in i until numIds) {
+                val handler = handlers.get(types[i - 1], types[j - 1])
+
+                handlerMatrix[i * numIds + j] = handler
+                handlerMatrix[j * numIds + i] = handler
+            }
+        }
+
+        isDirty = false
+    }
+}
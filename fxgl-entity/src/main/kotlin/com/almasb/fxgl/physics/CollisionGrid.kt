@@ -7,66 +7,162 @@
 package com.almasb.fxgl.physics
 
 import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.collection.LongMap
 import com.almasb.fxgl.core.math.FXGLMath.max
 import com.almasb.fxgl.core.math.FXGLMath.min
 import com.almasb.fxgl.entity.Entity
-import javafx.geometry.Point2D
+import kotlin.math.floor
 
 /**
+ * A uniform grid that is filled with collidable entities every frame and cleared afterwards.
+ * Cells are keyed by packed (x, y) cell coordinates in a primitive map,
+ * and cells are pooled, so no objects are allocated once the grid has warmed up.
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 internal class CollisionGrid(val cellWidth: Int, val cellHeight: Int) {
 
-    val cells = hashMapOf<Point2D, CollisionCell>()
+    private val cells = LongMap<CollisionCell>(256)
 
-    fun insert(e: Entity) {
-        if (e.boundingBoxComponent.hitBoxesProperty().isEmpty())
+    /**
+     * Non-empty cells, in the order they were first touched since the last clear.
+     */
+    private val activeCells = Array<CollisionCell>(256)
+    private val freeCells = Array<CollisionCell>(256)
+
+    /**
+     * Top-left cell covered by each inserted entity, indexed by entity slot.
+     */
+    private var minCellX = IntArray(256)
+    private var minCellY = IntArray(256)
+
+    val numCells: Int
+        get() = activeCells.size()
+
+    fun getCell(index: Int): CollisionCell = activeCells[index]
+
+    /**
+     * @param slot a unique (within a frame) non-negative number that identifies [e], e.g. its index in a list
+     */
+    fun insert(e: Entity, slot: Int) {
+        val hitBoxes = e.boundingBoxComponent.hitBoxesProperty()
+
+        if (hitBoxes.isEmpty())
             return
 
-        var box = e.boundingBoxComponent.hitBoxesProperty()[0]
+        var box = hitBoxes[0]
 
-        var minX = box.fastMinX
-        var minY = box.fastMinY
-        var maxX = box.fastMaxX
-        var maxY = box.fastMaxY
+        var minX = box.rotatedMinX
+        var minY = box.rotatedMinY
+        var maxX = box.rotatedMaxX
+        var maxY = box.rotatedMaxY
 
-        for (i in 1 until e.boundingBoxComponent.hitBoxesProperty().size) {
-            box = e.boundingBoxComponent.hitBoxesProperty()[i]
+        for (i in 1 until hitBoxes.size) {
+            box = hitBoxes[i]
 
-            minX = min(minX, box.fastMinX)
-            minY = min(minY, box.fastMinY)
+            minX = min(minX, box.rotatedMinX)
+            minY = min(minY, box.rotatedMinY)
 
-            maxX = max(maxX, box.fastMaxX)
-            maxY = max(maxY, box.fastMaxY)
+            maxX = max(maxX, box.rotatedMaxX)
+            maxY = max(maxY, box.rotatedMaxY)
         }
 
-        val tl = Point2D(minX.toDouble(), minY.toDouble())
-        val br = Point2D(maxX.toDouble(), maxY.toDouble())
+        val tlX = floor(minX.toDouble() / cellWidth).toInt()
+        val tlY = floor(minY.toDouble() / cellHeight).toInt()
 
-        val tlX = Math.floor(tl.x / cellWidth).toInt()
-        val tlY = Math.floor(tl.y / cellHeight).toInt()
+        val brX = floor(maxX.toDouble() / cellWidth).toInt()
+        val brY = floor(maxY.toDouble() / cellHeight).toInt()
 
-        val brX = Math.ceil(br.x / cellWidth).toInt()
-        val brY = Math.ceil(br.y / cellHeight).toInt()
+        ensureCapacity(slot)
+        minCellX[slot] = tlX
+        minCellY[slot] = tlY
 
         for (x in tlX..brX) {
             for (y in tlY..brY) {
-                val point = Point2D(x.toDouble(), y.toDouble())
+                val key = LongMap.key(x, y)
 
-                var cell = cells[point]
+                var cell = cells.get(key)
 
                 if (cell == null) {
-                    cell = CollisionCell(x, y)
-                    cells[point] = cell
+                    cell = obtainCell(x, y)
+                    cells.put(key, cell)
+                    activeCells.add(cell)
                 }
 
-                cell.entities.add(e)
+                cell.add(e, slot)
             }
         }
     }
+
+    /**
+     * Two entities that overlap may share more than one cell.
+     * The pair only needs to be checked in one of them: the top-left cell of the overlap of their cell ranges.
+     *
+     * @return true if [cell] is the cell where entities at [i] and [j] in the cell should be checked
+     */
+    fun isPairOwner(cell: CollisionCell, i: Int, j: Int): Boolean {
+        val slotA = cell.slots[i]
+        val slotB = cell.slots[j]
+
+        return cell.x == Math.max(minCellX[slotA], minCellX[slotB])
+                && cell.y == Math.max(minCellY[slotA], minCellY[slotB])
+    }
+
+    /**
+     * Removes all entities. Cells are kept for reuse.
+     */
+    fun clear() {
+        for (i in 0 until activeCells.size()) {
+            val cell = activeCells[i]
+            cell.clear()
+            freeCells.add(cell)
+        }
+
+        activeCells.clear()
+        cells.clear()
+    }
+
+    private fun ensureCapacity(slot: Int) {
+        if (slot >= minCellX.size) {
+            val newSize = Math.max(slot + 1, minCellX.size * 2)
+
+            minCellX = minCellX.copyOf(newSize)
+            minCellY = minCellY.copyOf(newSize)
+        }
+    }
+
+    private fun obtainCell(x: Int, y: Int): CollisionCell {
+        val cell = if (freeCells.isEmpty) CollisionCell() else freeCells.pop()
+        cell.x = x
+        cell.y = y
+        return cell
+    }
 }
 
-internal class CollisionCell(val x: Int, val y: Int) {
+internal class CollisionCell {
+    var x = 0
+    var y = 0
+
     val entities = Array<Entity>()
-}
\ No newline at end of file
+
+    /**
+     * Slot of each entity in [entities], as given to [CollisionGrid.insert].
+     */
+    var slots = IntArray(8)
+        private set
+
+    fun add(e: Entity, slot: Int) {
+        val index = entities.size()
+
+        if (index == slots.size) {
+            slots = slots.copyOf(index * 2)
+        }
+
+        slots[index] = slot
+        entities.add(e)
+    }
+
+    fun clear() {
+        entities.clear()
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.Array
+import com.almasb.fxgl.core.collection.LongMap
+import com.almasb.fxgl.core.collection.UnorderedArray
+import com.almasb.fxgl.core.math.FXGLMath.max
+import com.almasb.fxgl.core.math.FXGLMath.min
+import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.physics.box2d.callbacks.TreeCallback
+import com.almasb.fxgl.physics.box2d.collision.AABB
+import com.almasb.fxgl.physics.box2d.collision.broadphase.DynamicTree
+
+/**
+ * A broad phase that keeps a [DynamicTree] proxy per collidable entity across frames.
+ * A proxy stores an enlarged (fat) AABB, so an entity that moves a little does not touch the tree at all.
+ * Only proxies that leave their fat AABB are reinserted and queried for new pairs.
+ * Pairs whose fat AABBs overlap are kept until the fat AABBs separate,
+ * so each frame only the kept pairs need a narrow phase check.
+ *
+ * The tree works in meters (scaled by [scale]), so that the box2d AABB extension settings are meaningful.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+internal class CollisionTree(private val scale: Float) : TreeCallback {
+
+    private class Proxy(val entity: Entity) {
+        var id = -1
+        var slot = 0
+        var frame = 0L
+        var isMoved = false
+
+        /**
+         * Lower bound of the last inserted (tight) AABB, used to predict displacement.
+         */
+        var minX = 0f
+        var minY = 0f
+    }
+
+    private class ProxyPair {
+        lateinit var a: Proxy
+        lateinit var b: Proxy
+        var key = 0L
+    }
+
+    private val tree = DynamicTree()
+
+    private val proxies = hashMapOf<Entity, Proxy>()
+    private val allProxies = UnorderedArray<Proxy>(128)
+    private val movedProxies = UnorderedArray<Proxy>(128)
+
+    private val pairs = UnorderedArray<ProxyPair>(128)
+    private val pairKeys = LongMap<ProxyPair>(256)
+    private val freePairs = Array<ProxyPair>()
+
+    private var frame = 0L
+    private var queryProxy: Proxy? = null
+
+    private val aabb = AABB()
+    private val displacement = Vec2()
+
+    val numPairs: Int
+        get() = pairs.size()
+
+    fun getEntityA(pairIndex: Int): Entity = pairs[pairIndex].a.entity
+
+    fun getEntityB(pairIndex: Int): Entity = pairs[pairIndex].b.entity
+
+    fun getSlotA(pairIndex: Int): Int = pairs[pairIndex].a.slot
+
+    fun getSlotB(pairIndex: Int): Int = pairs[pairIndex].b.slot
+
+    /**
+     * Creates or moves the proxy of given entity.
+     * Entities that are not inserted before the next [update] lose their proxies.
+     *
+     * @param slot a unique (within a frame) number that identifies [e], e.g. its index in a list
+     */
+    fun insert(e: Entity, slot: Int) {
+        val hitBoxes = e.boundingBoxComponent.hitBoxesProperty()
+
+        if (hitBoxes.isEmpty())
+            return
+
+        var box = hitBoxes[0]
+
+        var minX = box.rotatedMinX
+        var minY = box.rotatedMinY
+        var maxX = box.rotatedMaxX
+        var maxY = box.rotatedMaxY
+
+        for (i in 1 until hitBoxes.size) {
+            box = hitBoxes[i]
+
+            minX = min(minX, box.rotatedMinX)
+            minY = min(minY, box.rotatedMinY)
+
+            maxX = max(maxX, box.rotatedMaxX)
+            maxY = max(maxY, box.rotatedMaxY)
+        }
+
+        aabb.lowerBound.set(minX * scale, minY * scale)
+        aabb.upperBound.set(maxX * scale, maxY * scale)
+
+        var proxy = proxies[e]
+
+        if (proxy == null) {
+            proxy = Proxy(e)
+            proxy.id = tree.createProxy(aabb, proxy)
+
+            proxies[e] = proxy
+            allProxies.add(proxy)
+            markMoved(proxy)
+        } else {
+            displacement.set(aabb.lowerBound.x - proxy.minX, aabb.lowerBound.y - proxy.minY)
+
+            if (tree.moveProxy(proxy.id, aabb, displacement)) {
+                markMoved(proxy)
+            }
+        }
+
+        proxy.minX = aabb.lowerBound.x
+        proxy.minY = aabb.lowerBound.y
+        proxy.slot = slot
+        proxy.frame = frame
+    }
+
+    /**
+     * Destroys proxies of entities that were not inserted this frame
+     * and finds new pairs for proxies that were created or reinserted.
+     */
+    fun update() {
+        var i = 0
+        while (i < allProxies.size()) {
+            val proxy = allProxies[i]
+
+            if (proxy.frame != frame) {
+                destroyProxy(proxy)
+
+                // unordered, so the last proxy is now at i
+                allProxies.removeIndex(i)
+            } else {
+                i++
+            }
+        }
+
+        for (j in pairs.size() - 1 downTo 0) {
+            val pair = pairs[j]
+
+            if (pair.a.id == -1 || pair.b.id == -1) {
+                removePair(j)
+            }
+        }
+
+        for (j in 0 until movedProxies.size()) {
+            val proxy = movedProxies[j]
+            proxy.isMoved = false
+
+            if (proxy.id == -1)
+                continue
+
+            queryProxy = proxy
+            tree.query(this, tree.getFatAABB(proxy.id))
+        }
+
+        queryProxy = null
+        movedProxies.clear()
+
+        frame++
+    }
+
+    /**
+     * Removes pairs whose fat AABBs no longer overlap.
+     * Call after the pairs have been checked, so that separated pairs get a chance to end their collision.
+     */
+    fun removeSeparatedPairs() {
+        for (i in pairs.size() - 1 downTo 0) {
+            val pair = pairs[i]
+
+            if (!AABB.testOverlap(tree.getFatAABB(pair.a.id), tree.getFatAABB(pair.b.id))) {
+                removePair(i)
+            }
+        }
+    }
+
+    fun clear() {
+        for (i in 0 until allProxies.size()) {
+            destroyProxy(allProxies[i])
+        }
+
+        allProxies.clear()
+        movedProxies.clear()
+
+        for (i in pairs.size() - 1 downTo 0) {
+            removePair(i)
+        }
+    }
+
+    override fun treeCallback(proxyId: Int): Boolean {
+        val proxy = queryProxy!!
+
+        if (proxyId == proxy.id)
+            return true
+
+        val key = if (proxy.id < proxyId) LongMap.key(proxy.id, proxyId) else LongMap.key(proxyId, proxy.id)
+
+        // both proxies may have moved, in which case the pair is found twice
+        if (pairKeys.containsKey(key))
+            return true
+
+        val pair = if (freePairs.isEmpty) ProxyPair() else freePairs.pop()
+        pair.a = proxy
+        pair.b = tree.getUserData(proxyId) as Proxy
+        pair.key = key
+
+        pairs.add(pair)
+        pairKeys.put(key, pair)
+
+        return true
+    }
+
+    private fun markMoved(proxy: Proxy) {
+        if (!proxy.isMoved) {
+            proxy.isMoved = true
+            movedProxies.add(proxy)
+        }
+    }
+
+    private fun destroyProxy(proxy: Proxy) {
+        tree.destroyProxy(proxy.id)
+        proxies.remove(proxy.entity)
+        proxy.id = -1
+    }
+
+    private fun removePair(index: Int) {
+        val pair = pairs.removeIndex(index)
+        pairKeys.remove(pair.key)
+        freePairs.add(pair)
+    }
+}
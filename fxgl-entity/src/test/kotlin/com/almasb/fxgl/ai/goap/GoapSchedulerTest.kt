@@ -0,0 +1,248 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.ai.goap
+
+import com.almasb.fxgl.core.collection.PropertyMap
+import com.almasb.fxgl.entity.Entity
+import javafx.geometry.Point2D
+import javafx.util.Duration
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.*
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+import java.util.function.Supplier
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class GoapSchedulerTest {
+
+    private lateinit var pickUp: GoapAction
+    private lateinit var attack: GoapAction
+    private lateinit var actions: Set<GoapAction>
+    private lateinit var goal: PropertyMap
+
+    /**
+     * Executes tasks when [runAll] is called, so tests control when plans are computed.
+     */
+    private class ManualExecutor : Executor {
+        val tasks = arrayListOf<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks += command
+        }
+
+        fun runAll() {
+            tasks.forEach { it.run() }
+            tasks.clear()
+        }
+    }
+
+    @BeforeEach
+    fun setUp() {
+        pickUp = GoapAction("Pick up sword")
+        pickUp.addEffect("hasSword", true)
+
+        attack = GoapAction("Attack")
+        attack.addPrecondition("hasSword", true)
+        attack.addEffect("targetDead", true)
+
+        actions = setOf(pickUp, attack)
+
+        goal = PropertyMap()
+        goal.setValue("targetDead", true)
+    }
+
+    @Test
+    fun `Plan is delivered on update`() {
+        val scheduler = GoapScheduler()
+
+        var plan: Queue<GoapAction>? = null
+
+        val request = scheduler.requestPlan(Entity(), actions, PropertyMap(), goal) { plan = it }
+
+        assertThat(request.isPending, `is`(true))
+        assertThat(scheduler.queueDepth, `is`(1))
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(request.isDone, `is`(true))
+        assertThat(plan, contains(pickUp, attack))
+        assertThat(scheduler.queueDepth, `is`(0))
+        assertThat(scheduler.numPlansCompleted, `is`(1L))
+    }
+
+    @Test
+    fun `Agents closer to focus are planned first`() {
+        val scheduler = GoapScheduler()
+        scheduler.frameBudget = Duration.ZERO
+        scheduler.focus = Supplier { Point2D(100.0, 0.0) }
+
+        val far = Entity()
+        far.x = 1000.0
+
+        val near = Entity()
+        near.x = 90.0
+
+        val planned = arrayListOf<Entity>()
+
+        scheduler.requestPlan(far, actions, PropertyMap(), goal) { planned += far }
+        scheduler.requestPlan(near, actions, PropertyMap(), goal) { planned += near }
+
+        // one plan per frame with no budget
+        scheduler.onUpdate(0.016)
+
+        assertThat(planned, contains(near))
+        assertThat(scheduler.queueDepth, `is`(1))
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(planned, contains(near, far))
+    }
+
+    @Test
+    fun `New request of the same agent cancels the previous one`() {
+        val scheduler = GoapScheduler()
+
+        val agent = Entity()
+
+        var count = 0
+
+        val request1 = scheduler.requestPlan(agent, actions, PropertyMap(), goal) { count++ }
+        val request2 = scheduler.requestPlan(agent, actions, PropertyMap(), goal) { count++ }
+
+        assertThat(request1.isCancelled, `is`(true))
+        assertThat(scheduler.getRequest(agent), `is`(request2))
+        assertThat(scheduler.queueDepth, `is`(1))
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(count, `is`(1))
+        assertThat(scheduler.getRequest(agent), nullValue())
+    }
+
+    @Test
+    fun `Plans use snapshots taken when submitted`() {
+        val executor = ManualExecutor()
+        val scheduler = GoapScheduler(executor, 2)
+
+        // both requests must be submitted in one update, regardless of how long taking snapshots takes
+        scheduler.frameBudget = Duration.INDEFINITE
+
+        var plan: Queue<GoapAction>? = null
+        var cancelledCount = 0
+
+        val current = PropertyMap()
+
+        scheduler.requestPlan(Entity(), actions, current, goal) { plan = it }
+        val cancelled = scheduler.requestPlan(Entity(), actions, current, goal) { cancelledCount++ }
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(scheduler.queueDepth, `is`(0))
+        assertThat(scheduler.numPlansInFlight, `is`(2))
+
+        // changes after submission are not seen by the planner
+        current.setValue("hasSword", true)
+        attack.cost = 10f
+
+        cancelled.cancel()
+
+        executor.runAll()
+        scheduler.onUpdate(0.016)
+
+        assertThat(scheduler.numPlansInFlight, `is`(0))
+        assertThat(plan, contains(pickUp, attack))
+        assertThat(cancelledCount, `is`(0))
+    }
+
+    @Test
+    fun `Rejected plans are submitted again`() {
+        val executor = ManualExecutor()
+        var isRejecting = true
+
+        val scheduler = GoapScheduler(Executor {
+            if (isRejecting)
+                throw RejectedExecutionException()
+
+            executor.execute(it)
+        }, 1)
+
+        var plan: Queue<GoapAction>? = null
+
+        val request = scheduler.requestPlan(Entity(), actions, PropertyMap(), goal) { plan = it }
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(request.isPending, `is`(true))
+        assertThat(scheduler.queueDepth, `is`(1))
+        assertThat(scheduler.numPlansInFlight, `is`(0))
+
+        isRejecting = false
+
+        scheduler.onUpdate(0.016)
+
+        assertThat(scheduler.queueDepth, `is`(0))
+        assertThat(scheduler.numPlansInFlight, `is`(1))
+
+        executor.runAll()
+        scheduler.onUpdate(0.016)
+
+        assertThat(request.isDone, `is`(true))
+        assertThat(plan, contains(pickUp, attack))
+        assertThat(scheduler.numPlansInFlight, `is`(0))
+    }
+
+    @Test
+    fun `Plans are computed on executor threads`() {
+        val executor = Executors.newSingleThreadExecutor()
+
+        try {
+            val scheduler = GoapScheduler(executor, 4)
+            scheduler.plannerMode = GoapPlannerMode.A_STAR
+
+            val plans = arrayListOf<Queue<GoapAction>>()
+
+            repeat(20) {
+                scheduler.requestPlan(Entity(), actions, PropertyMap(), goal) { plans += it }
+            }
+
+            val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+
+            while (plans.size < 20 && System.nanoTime() < deadline) {
+                scheduler.onUpdate(0.016)
+                Thread.sleep(1)
+            }
+
+            assertThat(plans.size, `is`(20))
+            plans.forEach { assertThat(it, contains(pickUp, attack)) }
+
+            assertThat(scheduler.numPlansCompleted, `is`(20L))
+            assertThat(scheduler.maxLatency.toMillis(), greaterThanOrEqualTo(scheduler.averageLatency.toMillis()))
+
+            scheduler.resetMetrics()
+
+            assertThat(scheduler.numPlansCompleted, `is`(0L))
+            assertThat(scheduler.averageLatency, `is`(Duration.ZERO))
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `Max plans in flight must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            GoapScheduler(ManualExecutor(), 0)
+        }
+    }
+}
@@ -41,5 +41,105 @@ class GoapTest {
         )
 
         assertThat(actions, contains(action3, action1, action2))
+
+        val actionsAStar = GoapPlanner.plan(
+            setOf(action1, action2, action3),
+            current,
+            goal,
+            GoapPlannerMode.A_STAR
+        )
+
+        assertThat(actionsAStar, contains(action3, action1, action2))
+    }
+
+    @Test
+    fun `A star plan is the cheapest plan`() {
+        val pickUp = GoapAction("Pick up sword")
+        pickUp.addEffect("hasSword", true)
+
+        val attackWithSword = GoapAction("Attack with sword")
+        attackWithSword.addPrecondition("hasSword", true)
+        attackWithSword.addEffect("targetDead", true)
+
+        val castSpell = GoapAction("Cast spell")
+        castSpell.addEffect("targetDead", true)
+        castSpell.cost = 5f
+
+        val goal = PropertyMap()
+        goal.setValue("targetDead", true)
+
+        val actions = setOf(castSpell, attackWithSword, pickUp)
+
+        assertThat(GoapPlanner.plan(actions, PropertyMap(), goal, GoapPlannerMode.A_STAR), contains(pickUp, attackWithSword))
+
+        pickUp.cost = 5f
+
+        assertThat(GoapPlanner.plan(actions, PropertyMap(), goal, GoapPlannerMode.A_STAR), contains(castSpell))
+    }
+
+    @Test
+    fun `A star plan with false values`() {
+        val hide = GoapAction("Hide")
+        hide.addEffect("visible", false)
+
+        val sneak = GoapAction("Sneak")
+        sneak.addPrecondition("visible", false)
+        sneak.addEffect("behindTarget", true)
+
+        val goal = PropertyMap()
+        goal.setValue("behindTarget", true)
+
+        val current = PropertyMap()
+
+        // a key that is not set is not false
+        assertThat(GoapPlanner.plan(setOf(sneak), current, goal, GoapPlannerMode.A_STAR), empty())
+        assertThat(GoapPlanner.plan(setOf(hide, sneak), current, goal, GoapPlannerMode.A_STAR), contains(hide, sneak))
+
+        current.setValue("visible", false)
+
+        assertThat(GoapPlanner.plan(setOf(hide, sneak), current, goal, GoapPlannerMode.A_STAR), contains(sneak))
+    }
+
+    @Test
+    fun `A star plan with many actions`() {
+        val actions = LinkedHashSet<GoapAction>()
+
+        // a chain of steps and many unrelated actions
+        for (i in 0 until 10) {
+            val step = GoapAction("Step $i")
+            if (i > 0)
+                step.addPrecondition("step${i - 1}", true)
+            step.addEffect("step$i", true)
+
+            actions += step
+
+            val other = GoapAction("Other $i")
+            other.addEffect("other$i", true)
+            other.addEffect("step0", false)
+
+            actions += other
+        }
+
+        val goal = PropertyMap()
+        goal.setValue("step9", true)
+
+        val plan = GoapPlanner.plan(actions, PropertyMap(), goal, GoapPlannerMode.A_STAR)
+
+        assertThat(plan.map { it.name }, `is`((0 until 10).map { "Step $it" }))
+    }
+
+    @Test
+    fun `A star mode uses exhaustive search for values that are not boolean`() {
+        val buy = GoapAction("Buy sword")
+        buy.addPrecondition("gold", 10)
+        buy.addEffect("hasSword", true)
+
+        val current = PropertyMap()
+        current.setValue("gold", 10)
+
+        val goal = PropertyMap()
+        goal.setValue("hasSword", true)
+
+        assertThat(GoapPlanner.plan(setOf(buy), current, goal, GoapPlannerMode.A_STAR), contains(buy))
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.AStarGrid
+import javafx.geometry.Point2D
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HearingSystemTest {
+
+    private lateinit var system: HearingSystem
+
+    @BeforeEach
+    fun setUp() {
+        system = HearingSystem(100)
+    }
+
+    @Test
+    fun `Noises are delivered on update to listeners in range`() {
+        val near = newListener(0.0, 0.0, 50.0)
+        val far = newListener(500.0, 0.0, 50.0)
+
+        system.emitNoise(Point2D(10.0, 0.0), 1.0)
+
+        assertThat(system.numPendingNoises, `is`(1))
+        assertThat(near.lastHeardPoint, `is`(Point2D.ZERO))
+
+        system.onUpdate(0.016)
+
+        assertThat(system.numPendingNoises, `is`(0))
+        assertThat(near.lastHeardPoint, `is`(Point2D(10.0, 0.0)))
+        assertThat(far.lastHeardPoint, `is`(Point2D.ZERO))
+    }
+
+    @Test
+    fun `Noise only checks listeners registered near it`() {
+        val listeners = (0 until 100).map { newListener(it * 1000.0, 0.0, 50.0) }
+
+        system.emitNoise(5000.0, 0.0, 1.0)
+        system.onUpdate(0.016)
+
+        assertThat(system.numChecks, `is`(1))
+        assertThat(listeners.count { it.lastHeardPoint != Point2D.ZERO }, `is`(1))
+        assertThat(listeners[5].lastHeardPoint, `is`(Point2D(5000.0, 0.0)))
+    }
+
+    @Test
+    fun `Listeners that move or are removed`() {
+        val sense = newListener(0.0, 0.0, 50.0)
+
+        sense.entity.setPosition(1000.0, 0.0)
+
+        system.emitNoise(1000.0, 10.0, 1.0)
+        system.onUpdate(0.016)
+
+        assertThat(sense.lastHeardPoint, `is`(Point2D(1000.0, 10.0)))
+
+        sense.entity.removeComponent(HearingSenseComponent::class.java)
+
+        assertThat(system.numListeners, `is`(0))
+
+        system.emitNoise(1000.0, 20.0, 1.0)
+        system.onUpdate(0.016)
+
+        assertThat(sense.lastHeardPoint, `is`(Point2D(1000.0, 10.0)))
+    }
+
+    @Test
+    fun `Listeners with occlusion hear less through walls`() {
+        val grid = AStarGrid(10, 10)
+        grid[3, 0].state = CellState.NOT_WALKABLE
+        grid[5, 0].state = CellState.NOT_WALKABLE
+
+        system.setOcclusionGrid(grid, 10, 10)
+
+        val normal = newListener(95.0, 5.0, 200.0).calmFactor(1.0)
+        val occluded = newListener(95.0, 5.0, 200.0).calmFactor(1.0).occlusion(0.5)
+
+        // volume after distance is 0.55
+        system.emitNoise(5.0, 5.0, 1.0)
+        system.onUpdate(0.016)
+
+        normal.onUpdate(0.0)
+        occluded.onUpdate(0.0)
+
+        assertThat(normal.state, `is`(SenseAIState.ALERT))
+        assertThat(occluded.state, `is`(SenseAIState.CALM))
+    }
+
+    @Test
+    fun `Entities with hearing are registered by world`() {
+        val world = GameWorld()
+        world.addWorldListener(system)
+
+        val e = Entity()
+        e.addComponent(HearingSenseComponent(50.0))
+
+        world.addEntity(e)
+        world.addEntity(Entity())
+
+        assertThat(system.numListeners, `is`(1))
+
+        world.removeEntity(e)
+
+        assertThat(system.numListeners, `is`(0))
+    }
+
+    private fun newListener(x: Double, y: Double, radius: Double): HearingSenseComponent {
+        val sense = HearingSenseComponent(radius)
+
+        val e = Entity()
+        e.setPosition(x, y)
+        e.addComponent(sense)
+
+        system.addListener(sense)
+
+        return sense
+    }
+}
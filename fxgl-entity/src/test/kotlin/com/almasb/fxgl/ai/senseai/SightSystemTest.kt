@@ -0,0 +1,177 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.ai.senseai
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.AStarGrid
+import javafx.geometry.Point2D
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.function.Predicate
+import java.util.function.Supplier
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SightSystemTest {
+
+    private lateinit var system: SightSystem
+
+    @BeforeEach
+    fun setUp() {
+        system = SightSystem(100)
+    }
+
+    @Test
+    fun `Targets are seen within range and field of view`() {
+        val sense = newObserver(0.0, 0.0, SightSenseComponent(100.0, 90.0).updateInterval(0.0))
+
+        val ahead = newTarget(50.0, 0.0)
+        val behind = newTarget(-50.0, 0.0)
+        val far = newTarget(200.0, 0.0)
+
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, contains(ahead))
+        assertThat(sense.isVisible(ahead), `is`(true))
+        assertThat(sense.isVisible(behind), `is`(false))
+
+        sense.entity.rotation = 180.0
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, contains(behind))
+
+        sense.range = 300.0
+        sense.fieldOfView = 360.0
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, containsInAnyOrder(ahead, behind, far))
+    }
+
+    @Test
+    fun `Line of sight results are cached until observer or target moves`() {
+        val grid = AStarGrid(10, 10)
+        grid[5, 0].state = CellState.NOT_WALKABLE
+
+        system.lineOfSight = GridLineOfSight(grid, 10, 10)
+
+        val sense = newObserver(5.0, 5.0, SightSenseComponent(200.0).updateInterval(0.0))
+        val target = newTarget(95.0, 5.0)
+
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, empty())
+        assertThat(system.numLineOfSightChecks, `is`(1))
+
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, empty())
+        assertThat(system.numLineOfSightChecks, `is`(0))
+        assertThat(system.numCacheHits, `is`(1))
+
+        target.setPosition(95.0, 15.0)
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, contains(target))
+        assertThat(system.numLineOfSightChecks, `is`(1))
+
+        grid[5, 1].state = CellState.NOT_WALKABLE
+        system.invalidateCache()
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, empty())
+        assertThat(system.numLineOfSightChecks, `is`(1))
+    }
+
+    @Test
+    fun `Observer only checks targets registered near it`() {
+        val targets = (0 until 100).map { newTarget(it * 1000.0, 0.0) }
+
+        val sense = newObserver(5000.0, 0.0, SightSenseComponent(50.0).updateInterval(0.0))
+
+        system.onUpdate(0.016)
+
+        assertThat(system.numCandidates, `is`(1))
+        assertThat(sense.visibleTargets, contains(targets[5]))
+    }
+
+    @Test
+    fun `Observers far from focus are updated less often`() {
+        system.focus = Supplier { Point2D.ZERO }
+        system.lodDistance = 1000.0
+
+        newObserver(0.0, 0.0, SightSenseComponent(100.0).updateInterval(0.5))
+        newObserver(4000.0, 0.0, SightSenseComponent(100.0).updateInterval(0.5))
+
+        var count = 0
+
+        repeat(8) {
+            system.onUpdate(1.0)
+            count += system.numObserversUpdated
+        }
+
+        // near observer every frame, far observer every 2 seconds
+        assertThat(count, `is`(8 + 4))
+    }
+
+    @Test
+    fun `Observers and targets are registered by world`() {
+        system.targetFilter = Predicate { it.type == "player" }
+
+        val world = GameWorld()
+        world.addWorldListener(system)
+
+        val observer = Entity()
+        val sense = SightSenseComponent(100.0).updateInterval(0.0)
+        observer.addComponent(sense)
+
+        val player = Entity()
+        player.type = "player"
+        player.x = 50.0
+
+        world.addEntities(observer, player, Entity())
+
+        assertThat(system.numObservers, `is`(1))
+        assertThat(system.numTargets, `is`(1))
+
+        system.onUpdate(0.016)
+
+        assertThat(sense.visibleTargets, contains(player))
+
+        world.removeEntity(player)
+
+        assertThat(system.numTargets, `is`(0))
+        assertThat(sense.visibleTargets, empty())
+
+        world.removeEntity(observer)
+
+        assertThat(system.numObservers, `is`(0))
+    }
+
+    private fun newObserver(x: Double, y: Double, sense: SightSenseComponent): SightSenseComponent {
+        val e = Entity()
+        e.setPosition(x, y)
+        e.addComponent(sense)
+
+        system.addObserver(sense)
+
+        return sense
+    }
+
+    private fun newTarget(x: Double, y: Double): Entity {
+        val e = Entity()
+        e.setPosition(x, y)
+
+        system.addTarget(e)
+
+        return e
+    }
+}
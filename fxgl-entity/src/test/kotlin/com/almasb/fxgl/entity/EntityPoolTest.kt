@@ -11,6 +11,7 @@ import org.hamcrest.CoreMatchers.nullValue
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.assertThrows
 
 /**
  *
@@ -40,4 +41,87 @@ class EntityPoolTest {
         assertThat(pool.take("bullet"), `is`(e2))
         assertThat(pool.take("bullet"), nullValue())
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Full pool discards newest entities by default`() {
+        pool.setCapacity("bullet", 2)
+
+        val e1 = Entity()
+        val e2 = Entity()
+        val e3 = Entity()
+        e3.isReusable = true
+
+        assertThat(pool.put("bullet", e1), `is`(true))
+        assertThat(pool.put("bullet", e2), `is`(true))
+        assertThat(pool.put("bullet", e3), `is`(false))
+
+        assertThat(pool.size("bullet"), `is`(2))
+        assertThat(pool.getNumEvictions("bullet"), `is`(1L))
+
+        // discarded entities are no longer reused
+        assertThat(e3.isReusable, `is`(false))
+
+        assertThat(pool.take("bullet"), `is`(e1))
+        assertThat(pool.take("bullet"), `is`(e2))
+    }
+
+    @Test
+    fun `Full pool discards oldest entities`() {
+        pool.evictionPolicy = EntityPool.EvictionPolicy.DISCARD_OLDEST
+        pool.setCapacity("bullet", 2)
+
+        val e1 = Entity()
+        val e2 = Entity()
+        val e3 = Entity()
+
+        pool.put("bullet", e1)
+        pool.put("bullet", e2)
+
+        assertThat(pool.put("bullet", e3), `is`(true))
+
+        assertThat(pool.take("bullet"), `is`(e2))
+        assertThat(pool.take("bullet"), `is`(e3))
+        assertThat(pool.numEvictions, `is`(1L))
+    }
+
+    @Test
+    fun `Reducing capacity trims the pool`() {
+        repeat(5) { pool.put("bullet", Entity()) }
+
+        pool.setCapacity("bullet", 3)
+
+        assertThat(pool.size("bullet"), `is`(3))
+        assertThat(pool.getCapacity("bullet"), `is`(3))
+        assertThat(pool.getCapacity("enemy"), `is`(Int.MAX_VALUE))
+
+        pool.setCapacity("enemy", 0)
+        pool.put("enemy", Entity())
+
+        assertThat(pool.size("enemy"), `is`(0))
+        assertThat(pool.size, `is`(3))
+
+        assertThrows<IllegalArgumentException> {
+            pool.setCapacity("bullet", -1)
+        }
+    }
+
+    @Test
+    fun `Hits and misses are counted`() {
+        pool.put("bullet", Entity())
+
+        pool.take("bullet")
+        pool.take("bullet")
+        pool.take("enemy")
+
+        assertThat(pool.getNumHits("bullet"), `is`(1L))
+        assertThat(pool.getNumMisses("bullet"), `is`(1L))
+        assertThat(pool.getNumMisses("enemy"), `is`(1L))
+        assertThat(pool.numHits, `is`(1L))
+        assertThat(pool.numMisses, `is`(2L))
+
+        pool.resetStats()
+
+        assertThat(pool.getNumHits("bullet"), `is`(0L))
+        assertThat(pool.numMisses, `is`(0L))
+    }
+}
@@ -10,6 +10,7 @@ import com.almasb.fxgl.core.math.Vec2
 import com.almasb.fxgl.core.serialization.Bundle
 import com.almasb.fxgl.entity.component.Component
 import com.almasb.fxgl.entity.component.ComponentListener
+import com.almasb.fxgl.entity.component.ComponentTypes
 import com.almasb.fxgl.entity.component.Required
 import com.almasb.fxgl.entity.component.SerializableComponent
 import com.almasb.fxgl.entity.components.*
@@ -108,6 +109,30 @@ class EntityTest {
         assertTrue(entity.hasComponent(TestComponent::class.java))
     }
 
+    @Test
+    fun `Get and has component by type id`() {
+        val id = ComponentTypes.idOf(TestComponent::class.java)
+
+        assertThat(ComponentTypes.idOf(TestComponent::class.java), `is`(id))
+        assertThat(ComponentTypes.idOf(TestControl::class.java), `is`(not(id)))
+        assertFalse(entity.hasComponent(id))
+        assertNull(entity.getComponentOrNull<TestComponent>(id))
+        assertThrows(IllegalArgumentException::class.java) {
+            entity.getComponent<TestComponent>(id)
+        }
+
+        val comp = TestComponent()
+        entity.addComponent(comp)
+
+        assertTrue(entity.hasComponent(id))
+        assertThat(entity.getComponent<TestComponent>(id), `is`(comp))
+
+        entity.removeComponent(TestComponent::class.java)
+
+        assertFalse(entity.hasComponent(id))
+        assertThat(entity.components, not(hasItem<Component>(comp)))
+    }
+
     @Test
     fun `Remove component returns true if removed`() {
         val comp = TestComponent()
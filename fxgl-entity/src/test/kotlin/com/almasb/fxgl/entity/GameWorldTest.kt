@@ -6,6 +6,7 @@
 @file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
 package com.almasb.fxgl.entity
 
+import com.almasb.fxgl.core.collection.Array
 import com.almasb.fxgl.entity.component.Component
 import com.almasb.fxgl.entity.components.*
 import com.almasb.fxgl.entity.level.Level
@@ -14,6 +15,7 @@ import com.almasb.fxgl.physics.HitBox
 import javafx.geometry.Point2D
 import javafx.geometry.Point3D
 import javafx.geometry.Rectangle2D
+import javafx.util.Duration
 import org.hamcrest.BaseMatcher
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.CoreMatchers.not
@@ -517,6 +519,95 @@ class GameWorldTest {
         })
     }
 
+    @Test
+    fun `Preload entities into pool`() {
+        val factory = PreloadEntityFactory()
+        gameWorld.addEntityFactory(factory)
+
+        assertThat(gameWorld.numPendingPreloads, `is`(3))
+        assertThat(gameWorld.entityPool.getCapacity("bullet"), `is`(5))
+
+        while (!gameWorld.preloadEntities(Duration.ZERO)) { }
+
+        assertThat(factory.count, `is`(3))
+        assertThat(gameWorld.numPendingPreloads, `is`(0))
+        assertThat(gameWorld.entityPool.size("bullet"), `is`(3))
+
+        val bullets = (0 until 4).map { gameWorld.spawn("bullet", 10.0, 15.0) }
+
+        assertThat(factory.count, `is`(4))
+        assertThat(bullets[0].position, `is`(Point2D(10.0, 15.0)))
+        assertThat(gameWorld.entityPool.getNumHits("bullet"), `is`(3L))
+        assertThat(gameWorld.entityPool.getNumMisses("bullet"), `is`(1L))
+
+        gameWorld.removeEntities(bullets)
+
+        assertThat(gameWorld.entityPool.size("bullet"), `is`(4))
+
+        gameWorld.spawn("bullet")
+
+        assertThat(factory.count, `is`(4))
+    }
+
+    @Test
+    fun `Preload is time sliced during updates`() {
+        val factory = PreloadEntityFactory()
+
+        gameWorld.preloadFrameBudget = Duration.ZERO
+        gameWorld.addEntityFactory(factory)
+
+        gameWorld.onUpdate(0.016)
+
+        assertThat(factory.count, `is`(1))
+
+        gameWorld.onUpdate(0.016)
+        gameWorld.onUpdate(0.016)
+        gameWorld.onUpdate(0.016)
+
+        assertThat(factory.count, `is`(3))
+    }
+
+    @Test
+    fun `Preload skips factories that throw`() {
+        val factory = ThrowingPreloadEntityFactory()
+        gameWorld.addEntityFactory(factory)
+
+        assertThat(gameWorld.numPendingPreloads, `is`(4))
+
+        while (!gameWorld.preloadEntities(Duration.ZERO)) { }
+
+        assertThat(gameWorld.numPendingPreloads, `is`(0))
+        assertThat(gameWorld.entityPool.size("enemy"), `is`(0))
+        assertThat(gameWorld.entityPool.size("bullet"), `is`(2))
+
+        // the factory is still called when spawning with proper data
+        val enemy = gameWorld.spawn("enemy", SpawnData().put("level", 3))
+
+        assertThat(enemy.getInt("level"), `is`(3))
+
+        // pooled entities are not used for spawn data they were not created with
+        val bullet = gameWorld.spawn("bullet", SpawnData().put("speed", 5))
+
+        assertThat(bullet.getInt("speed"), `is`(5))
+        assertThat(gameWorld.entityPool.size("bullet"), `is`(2))
+
+        gameWorld.spawn("bullet")
+
+        assertThat(gameWorld.entityPool.size("bullet"), `is`(1))
+    }
+
+    @Test
+    fun `Preload can be disabled`() {
+        val factory = PreloadEntityFactory()
+
+        gameWorld.isEntityPreloadEnabled = false
+        gameWorld.addEntityFactory(factory)
+
+        assertThat(gameWorld.numPendingPreloads, `is`(0))
+        assertThat(gameWorld.preloadEntities(Duration.ZERO), `is`(true))
+        assertThat(factory.count, `is`(0))
+    }
+
     @Test
     fun `Spawn without initial position`() {
         val factory = TestEntityFactory()
@@ -808,6 +899,246 @@ class GameWorldTest {
         )
     }
 
+    @Test
+    fun `Entities in radius`() {
+        val e1 = Entity()
+        e1.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(20.0, 20.0)))
+
+        val e2 = Entity()
+        e2.x = 100.0
+        e2.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(20.0, 20.0)))
+
+        val e3 = Entity()
+        e3.x = 1000.0
+        e3.y = 1000.0
+
+        gameWorld.addEntities(e1, e2, e3)
+
+        val result = Array<Entity>()
+
+        assertThat(gameWorld.getEntitiesInRadius(50.0, 10.0, 30.0, result), `is`(1))
+        assertThat(result.toList(), contains(e1))
+
+        assertThat(gameWorld.getEntitiesInRadius(50.0, 10.0, 50.0, result), `is`(2))
+        assertThat(result.toList(), containsInAnyOrder(e1, e2))
+
+        assertThat(gameWorld.getEntitiesInRadius(1000.0, 1000.0, 1.0, result), `is`(1))
+        assertThat(result.toList(), contains(e3))
+    }
+
+    @Test
+    fun `Closest entities`() {
+        val e1 = Entity()
+        e1.x = 10.0
+
+        val e2 = Entity()
+        e2.x = 20.0
+
+        val e3 = Entity()
+        e3.x = 5000.0
+
+        val e4 = Entity()
+        e4.x = -30.0
+
+        gameWorld.addEntities(e1, e2, e3, e4)
+
+        val result = Array<Entity>()
+
+        assertThat(gameWorld.getClosestEntities(0.0, 0.0, 2, result), `is`(2))
+        assertThat(result.toList(), contains(e1, e2))
+
+        assertThat(gameWorld.getClosestEntities(0.0, 0.0, 10, result), `is`(4))
+        assertThat(result.toList(), contains(e1, e2, e4, e3))
+
+        assertThat(gameWorld.getClosestEntities(6000.0, 0.0, 1, result), `is`(1))
+        assertThat(result.toList(), contains(e3))
+
+        assertThat(gameWorld.getClosestEntities(0.0, 0.0, 0, result), `is`(0))
+    }
+
+    @Test
+    fun `Position queries are updated when entities move or are removed`() {
+        val e1 = Entity()
+        e1.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(20.0, 20.0)))
+
+        val e2 = Entity()
+        e2.x = 500.0
+
+        gameWorld.addEntities(e1, e2)
+
+        assertThat(gameWorld.getClosestEntity(e2, Predicate { true }).get(), `is`(e1))
+
+        e1.setPosition(2000.0, 2000.0)
+
+        assertTrue(gameWorld.getEntitiesInRange(Rectangle2D(0.0, 0.0, 100.0, 100.0)).isEmpty())
+        assertThat(gameWorld.getEntitiesInRange(Rectangle2D(1990.0, 1990.0, 20.0, 20.0)), contains(e1))
+        assertThat(gameWorld.getEntitiesAt(Point2D(2000.0, 2000.0)), contains(e1))
+
+        e1.boundingBoxComponent.clearHitBoxes()
+        e1.boundingBoxComponent.addHitBox(HitBox("big", BoundingShape.box(1000.0, 1000.0)))
+
+        assertThat(gameWorld.getEntitiesInRange(Rectangle2D(2900.0, 2900.0, 10.0, 10.0)), contains(e1))
+
+        gameWorld.removeEntity(e1)
+
+        assertTrue(gameWorld.getEntitiesInRange(Rectangle2D(1990.0, 1990.0, 20.0, 20.0)).isEmpty())
+        assertThat(gameWorld.getClosestEntity(e2, Predicate { true }), `is`(Optional.empty()))
+    }
+
+    @Test
+    fun `Colliding entities takes rotation into account`() {
+        val e1 = Entity()
+        e1.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(200.0, 10.0)))
+        e1.transformComponent.rotationOrigin = Point2D(0.0, 0.0)
+        e1.rotation = 90.0
+
+        // only collides with e1 when e1 is rotated
+        val e2 = Entity()
+        e2.setPosition(-5.0, 150.0)
+        e2.boundingBoxComponent.addHitBox(HitBox("main", BoundingShape.box(10.0, 10.0)))
+
+        gameWorld.addEntities(e1, e2)
+
+        assertThat(gameWorld.getCollidingEntities(e2), contains(e1))
+        assertThat(gameWorld.getCollidingEntities(e1), contains(e2))
+
+        e1.rotation = 0.0
+
+        assertTrue(gameWorld.getCollidingEntities(e2).isEmpty())
+    }
+
+    @Test
+    fun `Spatial index cell size can be changed`() {
+        val entities = (0 until 50).map {
+            val e = Entity()
+            e.setPosition(it * 37.0, it * 11.0)
+            e
+        }
+
+        gameWorld.addEntities(*entities.toTypedArray())
+
+        val before = gameWorld.getEntitiesInRange(Rectangle2D(100.0, 0.0, 500.0, 200.0))
+
+        gameWorld.spatialIndexCellSize = 16
+
+        assertThat(gameWorld.spatialIndexCellSize, `is`(16))
+        assertThat(gameWorld.getEntitiesInRange(Rectangle2D(100.0, 0.0, 500.0, 200.0)), `is`(before))
+        assertThat(before, `is`(entities.filter { it.x in 100.0..600.0 && it.y in 0.0..200.0 }))
+    }
+
+    @Test
+    fun `Type and component queries are updated when type or components change`() {
+        val e1 = Entity()
+        e1.type = TestType.T1
+
+        val e2 = Entity()
+        e2.type = TestType.T2
+
+        val e3 = Entity()
+        e3.type = TestType.T1
+
+        gameWorld.addEntities(e1, e2, e3)
+
+        e2.type = TestType.T1
+        e1.type = TestType.T3
+
+        assertThat(gameWorld.getEntitiesByType(TestType.T1), contains(e2, e3))
+        assertThat(gameWorld.getEntitiesByType(TestType.T3, TestType.T1), contains(e1, e2, e3))
+        assertThat(gameWorld.getSingleton(TestType.T1), `is`(e2))
+        assertFalse(gameWorld.getSingletonOptional(TestType.T2).isPresent)
+
+        // world order is kept regardless of when the component was added
+        e3.addComponent(TestValueComponent())
+        e1.addComponent(TestValueComponent())
+
+        assertThat(gameWorld.getEntitiesByComponent(TestValueComponent::class.java), contains(e1, e3))
+
+        e1.removeComponent(TestValueComponent::class.java)
+        gameWorld.removeEntity(e2)
+
+        assertThat(gameWorld.getEntitiesByComponent(TestValueComponent::class.java), contains(e3))
+        assertThat(gameWorld.getEntitiesByType(TestType.T1), contains(e3))
+
+        // removed entities are no longer tracked
+        e2.type = TestType.T4
+
+        assertTrue(gameWorld.getEntitiesByType(TestType.T4).isEmpty())
+    }
+
+    @Test
+    fun `Live views reflect world changes`() {
+        val byType = gameWorld.getEntitiesByTypeView(TestType.T1)
+        val byComponent = gameWorld.getEntitiesByComponentView(TestValueComponent::class.java)
+
+        assertTrue(byType.isEmpty())
+        assertTrue(byComponent.isEmpty())
+
+        val e1 = Entity()
+        e1.type = TestType.T1
+
+        val e2 = Entity()
+        e2.addComponent(TestValueComponent())
+
+        gameWorld.addEntities(e1, e2)
+
+        assertThat(byType, contains(e1))
+        assertThat(byComponent, contains(e2))
+
+        e1.addComponent(TestValueComponent())
+        gameWorld.removeEntity(e2)
+
+        assertThat(byComponent, contains(e1))
+
+        assertThrows<UnsupportedOperationException> {
+            (byType as MutableList<Entity>).add(e2)
+        }
+
+        gameWorld.reset()
+
+        assertTrue(byType.isEmpty())
+
+        val e3 = Entity()
+        e3.type = TestType.T1
+
+        gameWorld.addEntity(e3)
+
+        assertThat(byType, contains(e3))
+        assertThat(gameWorld.getEntitiesByTypeView(TestType.T1), `is`(byType))
+    }
+
+    @Test
+    fun `By ID is updated when ID changes or entity is removed`() {
+        val e1 = Entity()
+        e1.addComponent(IDComponent("e", 1))
+
+        val e2 = Entity()
+        e2.addComponent(IDComponent("e", 1))
+
+        gameWorld.addEntities(e1, e2)
+
+        // not unique, so the first one is returned, as before
+        assertThat(gameWorld.getEntityByID("e", 1).get(), `is`(e1))
+
+        gameWorld.removeEntity(e1)
+
+        assertThat(gameWorld.getEntityByID("e", 1).get(), `is`(e2))
+
+        e2.getComponent(IDComponent::class.java).name = "f"
+
+        assertFalse(gameWorld.getEntityByID("e", 1).isPresent)
+        assertThat(gameWorld.getEntityByID("f", 1).get(), `is`(e2))
+
+        val e3 = Entity()
+        gameWorld.addEntity(e3)
+        e3.addComponent(IDComponent("g", 5))
+
+        assertThat(gameWorld.getEntityByID("g", 5).get(), `is`(e3))
+
+        e3.removeComponent(IDComponent::class.java)
+
+        assertFalse(gameWorld.getEntityByID("g", 5).isPresent)
+    }
+
     /* SPECIAL CASES */
 
     @Test
@@ -875,6 +1206,45 @@ class GameWorldTest {
         }
     }
 
+    class PreloadEntityFactory : EntityFactory {
+
+        var count = 0
+
+        @Preload(3, capacity = 5)
+        @Spawns("bullet")
+        fun makeBullet(data: SpawnData): Entity {
+            count++
+
+            val e = Entity()
+            e.setPosition(data.x, data.y)
+            e.isReusable = true
+            return e
+        }
+    }
+
+    class ThrowingPreloadEntityFactory : EntityFactory {
+
+        @Preload(2)
+        @Spawns("enemy")
+        fun makeEnemy(data: SpawnData): Entity {
+            val level: Int = data.get("level")
+
+            val e = Entity()
+            e.setProperty("level", level)
+            e.isReusable = true
+            return e
+        }
+
+        @Preload(2)
+        @Spawns("bullet")
+        fun makeBullet(data: SpawnData): Entity {
+            val e = Entity()
+            e.setProperty("speed", if (data.hasKey("speed")) data.get<Int>("speed") else 1)
+            e.isReusable = true
+            return e
+        }
+    }
+
     class TestEntityFactory2 : EntityFactory {
 
         @Spawns("enemy")
@@ -11,6 +11,8 @@ import com.almasb.fxgl.entity.components.IDComponent
 import com.almasb.fxgl.entity.level.LevelLoadingException
 import com.almasb.fxgl.test.RunWithFX
 import javafx.geometry.Point2D
+import javafx.geometry.Rectangle2D
+import javafx.scene.Group
 import javafx.scene.image.Image
 import javafx.scene.image.ImageView
 import javafx.scene.paint.Color
@@ -26,6 +28,7 @@ import org.junit.jupiter.params.ParameterizedTest
 import org.junit.jupiter.params.provider.CsvSource
 import java.nio.file.Files
 import java.nio.file.Paths
+import java.util.function.Supplier
 
 /**
  *
@@ -384,6 +387,86 @@ class TMXLevelLoaderTest {
         assertNotEquals(levelImageChecksum, levelDummyImageChecksum)
     }
 
+    @Test
+    fun `Load tmx level in large map mode`() {
+        val level = TMXLevelLoader(false, true, 8, 4).load(javaClass.getResource("sewers_v1_2_3.tmx"), GameWorld())
+        val fullLevel = TMXLevelLoader().load(javaClass.getResource("sewers_v1_2_3.tmx"), GameWorld())
+
+        val layerEntity = level.entities[0]
+        val fullImage = (fullLevel.entities[0].viewComponent.children[0] as ImageView).image
+
+        val chunks = layerEntity.getComponent(ChunkedTileLayerComponent::class.java)
+        chunks.executor = null
+
+        var area = Rectangle2D(0.0, 0.0, 300.0, 150.0)
+        chunks.visibleArea = Supplier { area }
+
+        assertThat(chunks.numCachedChunks, `is`(0))
+
+        // chunks are 8 x 24 = 192 pixels
+        chunks.onUpdate(0.016)
+
+        assertThat(chunks.numVisibleChunks, `is`(2))
+        assertThat(chunks.numCachedChunks, `is`(2))
+
+        area = Rectangle2D(1000.0, 1000.0, 300.0, 300.0)
+        chunks.onUpdate(0.016)
+
+        // chunks out of range are evicted beyond 4 cached chunks
+        assertThat(chunks.numVisibleChunks, `is`(4))
+        assertThat(chunks.numCachedChunks, `is`(4))
+
+        val views = (layerEntity.viewComponent.children[0] as Group).children.map { it as ImageView }
+
+        assertTrue(views.isNotEmpty())
+
+        // chunks have the same pixels as the layer drawn as a single image
+        views.forEach { view ->
+            for (y in 0 until view.image.height.toInt() step 5) {
+                for (x in 0 until view.image.width.toInt() step 5) {
+                    assertEquals(
+                            fullImage.pixelReader.getArgb(view.translateX.toInt() + x, view.translateY.toInt() + y),
+                            view.image.pixelReader.getArgb(x, y)
+                    )
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Tiles larger than map tiles are not cut at chunk edges`() {
+        // 41 x 41 tiles on a 20 x 20 map grid, chunks are 4 x 20 = 80 pixels
+        val level = TMXLevelLoader(false, true, 4, 9).load(javaClass.getResource("map_with_large_tiles.tmx"), GameWorld())
+        val fullLevel = TMXLevelLoader().load(javaClass.getResource("map_with_large_tiles.tmx"), GameWorld())
+
+        val layerEntity = level.entities[0]
+        val fullImage = (fullLevel.entities[0].viewComponent.children[0] as ImageView).image
+
+        // cell (4, 0) at the start of the second chunk is empty, so it shows the right part of tile (3, 0)
+        assertThat(fullImage.pixelReader.getColor(90, 10).opacity, `is`(1.0))
+
+        val chunks = layerEntity.getComponent(ChunkedTileLayerComponent::class.java)
+        chunks.executor = null
+        chunks.visibleArea = Supplier { Rectangle2D(0.0, 0.0, 240.0, 240.0) }
+
+        chunks.onUpdate(0.016)
+
+        val views = (layerEntity.viewComponent.children[0] as Group).children.map { it as ImageView }
+
+        assertThat(views.size, `is`(9))
+
+        views.forEach { view ->
+            for (y in 0 until view.image.height.toInt()) {
+                for (x in 0 until view.image.width.toInt()) {
+                    assertEquals(
+                            fullImage.pixelReader.getArgb(view.translateX.toInt() + x, view.translateY.toInt() + y),
+                            view.image.pixelReader.getArgb(x, y)
+                    )
+                }
+            }
+        }
+    }
+
     fun imageChecksum(image: Image): Int {
         var sum = 0
         for (x in 0 until image.getWidth().toInt()) {
@@ -0,0 +1,244 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.entity.system
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.GameWorld
+import com.almasb.fxgl.entity.component.Component
+import com.almasb.fxgl.entity.components.TransformComponent
+import com.almasb.fxgl.entity.components.VelocityComponent
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.*
+import java.util.concurrent.ForkJoinPool
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class EntitySystemTest {
+
+    private lateinit var world: GameWorld
+
+    @BeforeEach
+    fun setUp() {
+        world = GameWorld()
+    }
+
+    @Test
+    fun `Movement system moves entities and transform reads through archetype`() {
+        val e = Entity()
+        e.setPosition(10.0, 20.0)
+        e.addComponent(VelocityComponent(100.0, -50.0))
+
+        world.addEntity(e)
+        world.addSystem(MovementSystem())
+
+        world.onUpdate(0.5)
+
+        assertThat(e.x, `is`(60.0))
+        assertThat(e.y, `is`(-5.0))
+
+        // properties are synced at the end of the update
+        assertThat(e.xProperty().value, `is`(60.0))
+        assertThat(e.yProperty().value, `is`(-5.0))
+
+        // writes go to the archetype arrays
+        e.x = 0.0
+        e.getComponent(VelocityComponent::class.java).vx = 10.0
+
+        world.onUpdate(1.0)
+
+        assertThat(e.x, `is`(10.0))
+        assertThat(e.y, `is`(-55.0))
+    }
+
+    @Test
+    fun `Entities are grouped by archetype`() {
+        val visited = arrayListOf<Entity>()
+        var numBatches = 0
+
+        world.addSystem(object : EntitySystem(VelocityComponent::class.java) {
+            override fun onUpdate(archetype: Archetype, tpf: Double) {
+                numBatches++
+
+                for (i in 0 until archetype.size) {
+                    visited += archetype.getEntity(i)
+                }
+            }
+        })
+
+        val e1 = Entity().also { it.addComponent(VelocityComponent()) }
+        val e2 = Entity().also { it.addComponent(VelocityComponent()) }
+        val e3 = Entity().also { it.addComponent(VelocityComponent()); it.addComponent(TagComponent()) }
+        val e4 = Entity()
+
+        world.addEntities(e1, e2, e3, e4)
+        world.onUpdate(0.016)
+
+        assertThat(numBatches, `is`(2))
+        assertThat(visited, containsInAnyOrder(e1, e2, e3))
+
+        numBatches = 0
+        visited.clear()
+
+        // e3 moves to the archetype of e1 and e2, e4 starts to match
+        e3.removeComponent(TagComponent::class.java)
+        e4.addComponent(VelocityComponent())
+        world.removeEntity(e1)
+
+        world.onUpdate(0.016)
+
+        assertThat(numBatches, `is`(1))
+        assertThat(visited, containsInAnyOrder(e2, e3, e4))
+    }
+
+    @Test
+    fun `Entity keeps its position and velocity when it leaves archetype`() {
+        val e = Entity()
+        e.addComponent(VelocityComponent(10.0, 0.0))
+
+        val system = MovementSystem()
+
+        world.addEntity(e)
+        world.addSystem(system)
+        world.onUpdate(1.0)
+
+        world.removeSystem(system)
+        world.onUpdate(1.0)
+
+        assertThat(e.x, `is`(10.0))
+        assertThat(e.xProperty().value, `is`(10.0))
+        assertThat(e.getComponent(VelocityComponent::class.java).vx, `is`(10.0))
+
+        e.x = 5.0
+
+        assertThat(e.xProperty().value, `is`(5.0))
+    }
+
+    @Test
+    fun `Entities can be removed during system update`() {
+        val e1 = Entity().also { it.addComponent(VelocityComponent(1.0, 0.0)) }
+        val e2 = Entity().also { it.addComponent(VelocityComponent(1.0, 0.0)) }
+
+        world.addEntities(e1, e2)
+
+        world.addSystem(object : EntitySystem(VelocityComponent::class.java) {
+            override fun onUpdate(archetype: Archetype, tpf: Double) {
+                for (i in 0 until archetype.size) {
+                    val e = archetype.getEntity(i)
+
+                    if (e.isActive)
+                        world.removeEntity(e)
+                }
+            }
+        })
+
+        world.onUpdate(0.016)
+
+        assertThat(world.entities.size, `is`(0))
+        assertThat(e1.transformComponent.archetype == null, `is`(true))
+        assertThat(e2.transformComponent.archetype == null, `is`(true))
+    }
+
+    @Test
+    fun `Parallel update gives the same results as serial update`() {
+        val serial = runStress(null)
+
+        val pool = ForkJoinPool(4)
+        val parallel = try {
+            runStress(pool)
+        } finally {
+            pool.shutdown()
+        }
+
+        assertThat(parallel.positions.size, `is`(serial.positions.size))
+
+        for (i in serial.positions.indices) {
+            assertThat(parallel.positions[i], `is`(serial.positions[i]))
+        }
+
+        assertThat(serial.removed.isNotEmpty(), `is`(true))
+        assertThat(parallel.removed, `is`(serial.removed))
+    }
+
+    private class StressResult(val positions: DoubleArray, val removed: List<Int>)
+
+    private fun runStress(pool: ForkJoinPool?): StressResult {
+        val random = Random(225L)
+
+        val entities = List(50_000) { i ->
+            Entity().also {
+                it.setPosition(random.nextDouble() * 1000, random.nextDouble() * 1000)
+                it.addComponent(VelocityComponent(random.nextDouble() * 200 - 100, random.nextDouble() * 200 - 100))
+                it.setProperty("index", i)
+            }
+        }
+
+        val removed = arrayListOf<Int>()
+
+        world.parallelUpdatePool = pool
+        world.addEntities(*entities.toTypedArray())
+
+        // conflicts with movement, since it writes velocity, so it runs in its own stage
+        world.addSystem(DragSystem())
+        world.addSystem(MovementSystem())
+        world.addSystem(BoundsSystem(world, removed))
+
+        repeat(20) {
+            world.onUpdate(0.016)
+        }
+
+        val positions = DoubleArray(entities.size * 2)
+
+        entities.forEachIndexed { i, e ->
+            positions[i * 2] = e.x
+            positions[i * 2 + 1] = e.y
+        }
+
+        world.reset()
+
+        return StressResult(positions, removed)
+    }
+
+    private class DragSystem : EntitySystem(VelocityComponent::class.java) {
+        init {
+            writes(VelocityComponent::class.java)
+        }
+
+        override fun onUpdate(archetype: Archetype, fromIndex: Int, toIndex: Int, tpf: Double) {
+            for (i in fromIndex until toIndex) {
+                archetype.vx[i] *= 0.99
+                archetype.vy[i] *= 0.99
+            }
+        }
+    }
+
+    private class BoundsSystem(private val world: GameWorld, private val removed: MutableList<Int>) : EntitySystem() {
+        init {
+            reads(TransformComponent::class.java)
+        }
+
+        override fun onUpdate(archetype: Archetype, fromIndex: Int, toIndex: Int, tpf: Double) {
+            for (i in fromIndex until toIndex) {
+                if (archetype.x[i] < 0.0) {
+                    val e = archetype.getEntity(i)
+
+                    defer {
+                        removed += e.getInt("index")
+                        world.removeEntity(e)
+                    }
+                }
+            }
+        }
+    }
+
+    private class TagComponent : Component()
+}
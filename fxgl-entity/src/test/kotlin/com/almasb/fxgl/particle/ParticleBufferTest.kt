@@ -0,0 +1,74 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.particle
+
+import javafx.geometry.Point2D
+import javafx.scene.paint.Color
+import javafx.util.Duration
+import org.hamcrest.CoreMatchers.`is`
+import org.hamcrest.MatcherAssert.assertThat
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ParticleBufferTest {
+
+    @Test
+    fun `Emit and update particles`() {
+        val emitter = ParticleEmitter()
+        emitter.maxEmissions = 1
+        emitter.numParticles = 300
+        emitter.setVelocityFunction { Point2D(100.0, 0.0) }
+        emitter.setExpireFunction { i -> Duration.seconds(if (i < 100) 0.4 else 1.0) }
+
+        val buffer = ParticleBuffer(16)
+
+        emitter.emit(10.0, 20.0, buffer)
+        emitter.emit(10.0, 20.0, buffer)
+
+        assertThat(buffer.size(), `is`(300))
+        assertThat(buffer.capacity() >= 300, `is`(true))
+
+        buffer.update(0.25)
+
+        assertThat(buffer.size(), `is`(300))
+        assertThat(buffer.getX(0), `is`(10.0))
+
+        buffer.update(0.25)
+
+        // particles with 0.4 sec life have died
+        assertThat(buffer.size(), `is`(200))
+
+        for (i in 0 until buffer.size()) {
+            assertThat(buffer.getX(i), `is`(35.0))
+            assertThat(buffer.getY(i), `is`(20.0))
+            assertThat(buffer.getOpacity(i), `is`(0.5))
+        }
+
+        buffer.clear()
+
+        assertThat(buffer.size(), `is`(0))
+    }
+
+    @Test
+    fun `Colors are interpolated as packed ints`() {
+        assertThat(ParticleBuffer.toARGB(Color.RED), `is`(0xFFFF0000.toInt()))
+        assertThat(ParticleBuffer.toARGB(Color.TRANSPARENT), `is`(0))
+
+        val black = 0xFF000000.toInt()
+        val white = 0xFFFFFFFF.toInt()
+
+        assertThat(ParticleBuffer.interpolate(black, white, 0.0, 1.0), `is`(black))
+        assertThat(ParticleBuffer.interpolate(black, white, 1.0, 1.0), `is`(white))
+        assertThat(ParticleBuffer.interpolate(black, white, 0.5, 0.5), `is`(0x80808080.toInt()))
+
+        // values outside 0..1 are clamped
+        assertThat(ParticleBuffer.interpolate(black, white, 1.5, 1.0), `is`(white))
+    }
+}
@@ -9,6 +9,8 @@ package com.almasb.fxgl.particle
 import com.almasb.fxgl.entity.Entity
 import com.almasb.fxgl.entity.GameWorld
 import com.almasb.fxgl.entity.component.ComponentHelper
+import javafx.scene.canvas.Canvas
+import javafx.scene.paint.Color
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
 import org.junit.jupiter.api.Assertions.assertNotNull
@@ -53,4 +55,33 @@ class ParticleComponentTest {
         assertThat(particle.parent.zIndex, `is`(100))
     }
 
-}
\ No newline at end of file
+    @Test
+    fun `Render particles onto canvas`() {
+        val emitter = ParticleEmitter()
+        emitter.maxEmissions = 1
+        emitter.numParticles = 50
+        emitter.setColor(Color.BLUE)
+
+        particle = ParticleComponent(emitter, ParticleRenderMode.CANVAS)
+
+        var isFinished = false
+        particle.onFinished = Runnable { isFinished = true }
+
+        val e = Entity()
+
+        ComponentHelper.setEntity(particle, e)
+        world.addEntity(e)
+        particle.onAdded()
+        particle.onUpdate(0.5)
+
+        assertThat(particle.numParticles, `is`(50))
+        assertThat(particle.parent.viewComponent.children.size, `is`(1))
+        assertThat(particle.parent.viewComponent.children[0] is Canvas, `is`(true))
+        assertThat(isFinished, `is`(false))
+
+        particle.onUpdate(0.6)
+
+        assertThat(particle.numParticles, `is`(0))
+        assertThat(isFinished, `is`(true))
+    }
+}
@@ -7,6 +7,7 @@ package com.almasb.fxgl.pathfinding.astar
 
 import com.almasb.fxgl.core.collection.grid.NeighborDirection
 import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.maze.MazeGrid
 import com.almasb.fxgl.pathfinding.heuristic.ManhattanDistance
 import com.almasb.fxgl.pathfinding.heuristic.OctileDistance
 import org.hamcrest.MatcherAssert.assertThat
@@ -210,6 +211,151 @@ class AStarPathfinderTest {
         assertThat(last.y, `is`(5))
     }
 
+    @Test
+    fun `Searches do not depend on previous searches`() {
+        val path = pathfinder.findPath(0, 0, 19, 19)
+
+        for (i in 0..18) grid[10, i].state = CellState.NOT_WALKABLE
+        assertThat(pathfinder.findPath(0, 0, 19, 19).size, `is`(38))
+        assertThat(pathfinder.findPath(0, 0, 19, 0).size, `is`(19 + 19 * 2))
+
+        for (i in 0..18) grid[10, i].state = CellState.WALKABLE
+        assertThat(pathfinder.findPath(0, 0, 19, 19).size, `is`(path.size))
+
+        // unreachable target
+        grid[19, 19].state = CellState.NOT_WALKABLE
+        assertTrue(pathfinder.findPath(0, 0, 19, 19).isEmpty())
+        assertTrue(pathfinder.findPath(0, 0, 19, 18, listOf(grid[19, 18])).isEmpty())
+    }
+
+    @Test
+    fun `Find path in maze`() {
+        val maze = MazeGrid(30, 30)
+        val mazePathfinder = AStarPathfinder(maze)
+
+        repeat(5) {
+            val path = mazePathfinder.findPath(0, 0, 29, 29)
+
+            assertThat(path.last(), `is`(maze[29, 29]))
+
+            var prev = maze[0, 0]
+
+            path.forEach {
+                assertThat(Math.abs(it.x - prev.x) + Math.abs(it.y - prev.y), `is`(1))
+                assertTrue(maze.isTraversableInSingleMove(prev, it))
+                prev = it
+            }
+        }
+    }
+
+    @Test
+    fun `Cached paths`() {
+        pathfinder.isCachingPaths = true
+
+        val path = pathfinder.findPath(0, 0, 5, 0)
+
+        assertThat(pathfinder.numCacheMisses, `is`(1L))
+        assertThat(pathfinder.numCachedPaths, `is`(1))
+        assertThat(pathfinder.numCachedCells, `is`(5))
+
+        assertThat(pathfinder.findPath(0, 0, 5, 0), `is`(path))
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+
+        // direction is part of the key
+        assertThat(pathfinder.findPath(0, 0, 5, 5, NeighborDirection.EIGHT_DIRECTIONS).size, `is`(5))
+        assertThat(pathfinder.findPath(0, 0, 5, 5).size, `is`(10))
+        assertThat(pathfinder.numCacheMisses, `is`(3L))
+
+        // queries with busy cells are not cached
+        pathfinder.findPath(0, 0, 5, 0, listOf(grid[3, 0]))
+        assertThat(pathfinder.numCachedPaths, `is`(3))
+        assertThat(pathfinder.numCacheMisses, `is`(3L))
+    }
+
+    @Test
+    fun `Target on a cached path is answered by a sub-path`() {
+        pathfinder.isCachingPaths = true
+
+        val path = pathfinder.findPath(0, 0, 10, 0)
+        val subPath = pathfinder.findPath(0, 0, 4, 0)
+
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+        assertThat(subPath, `is`(path.subList(0, 4)))
+        assertPathEquals(subPath, 1, 0, 2, 0, 3, 0, 4, 0)
+    }
+
+    @Test
+    fun `Cached paths through changed cells are not used`() {
+        pathfinder.isCachingPaths = true
+
+        pathfinder.findPath(0, 0, 5, 0)
+
+        grid[3, 0].state = CellState.NOT_WALKABLE
+
+        val path = pathfinder.findPath(0, 0, 5, 0)
+
+        assertThat(path.size, `is`(7))
+        assertTrue(path.none { it === grid[3, 0] })
+        assertThat(pathfinder.numCacheHits, `is`(0L))
+
+        // setting the same state is not a change
+        grid[3, 0].state = CellState.NOT_WALKABLE
+        pathfinder.findPath(0, 0, 5, 0)
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+
+        path[1].movementCost = 60
+        pathfinder.findPath(0, 0, 5, 0)
+        assertThat(pathfinder.numCacheHits, `is`(1L))
+    }
+
+    @Test
+    fun `Cached paths are invalidated by region`() {
+        pathfinder.isCachingPaths = true
+
+        for (i in 0..18) grid[10, i].state = CellState.NOT_WALKABLE
+
+        assertThat(pathfinder.findPath(9, 0, 11, 0).size, `is`(2 + 19 * 2))
+        pathfinder.findPath(0, 15, 0, 19)
+
+        // opening the wall is not on the cached path
+        grid[10, 0].state = CellState.WALKABLE
+        assertThat(pathfinder.findPath(9, 0, 11, 0).size, `is`(2 + 19 * 2))
+
+        pathfinder.invalidateCachedPaths(10, 0)
+
+        assertThat(pathfinder.numCachedPaths, `is`(1))
+        assertThat(pathfinder.findPath(9, 0, 11, 0).size, `is`(2))
+    }
+
+    @Test
+    fun `Least recently used paths are evicted`() {
+        pathfinder.isCachingPaths = true
+        pathfinder.maxCachedCells = 10
+
+        pathfinder.findPath(0, 0, 4, 0)
+        pathfinder.findPath(0, 1, 4, 1)
+        pathfinder.findPath(0, 0, 4, 0)
+        pathfinder.findPath(0, 2, 4, 2)
+
+        assertThat(pathfinder.numCachedPaths, `is`(2))
+        assertThat(pathfinder.numCachedCells, `is`(8))
+
+        pathfinder.findPath(0, 0, 4, 0)
+        pathfinder.findPath(0, 2, 4, 2)
+        pathfinder.findPath(0, 1, 4, 1)
+
+        assertThat(pathfinder.numCacheHits, `is`(3L))
+        assertThat(pathfinder.numCacheMisses, `is`(4L))
+
+        // longer than the limit
+        pathfinder.findPath(0, 0, 19, 19)
+        assertThat(pathfinder.numCachedCells, `is`(8))
+
+        pathfinder.clearCachedPaths()
+        assertThat(pathfinder.numCachedPaths, `is`(0))
+        assertThat(pathfinder.numCachedCells, `is`(0))
+    }
+
     private fun assertPathEquals(path: List<AStarCell>, vararg points: Int) {
         val pointsList = points.toList().chunked(2) { it[0] to it[1] }
         val errorMsg = reportNotMatchingPaths(path, pointsList)
@@ -0,0 +1,347 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.pathfinding.CellMoveComponent
+import com.almasb.fxgl.pathfinding.CellState
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import java.util.concurrent.Executor
+import java.util.concurrent.Executors
+import java.util.concurrent.RejectedExecutionException
+import java.util.concurrent.TimeUnit
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class AsyncAStarPathfinderTest {
+
+    private lateinit var grid: AStarGrid
+    private lateinit var pathfinder: AStarPathfinder<AStarCell>
+
+    /**
+     * Executes tasks when [runAll] is called, so tests control when searches run.
+     */
+    private class ManualExecutor : Executor {
+        val tasks = arrayListOf<Runnable>()
+
+        override fun execute(command: Runnable) {
+            tasks += command
+        }
+
+        fun runAll() {
+            tasks.forEach { it.run() }
+            tasks.clear()
+        }
+    }
+
+    @BeforeEach
+    fun setUp() {
+        grid = AStarGrid(20, 20)
+        pathfinder = AStarPathfinder(grid)
+    }
+
+    @Test
+    fun `Path is delivered on update`() {
+        val async = AsyncAStarPathfinder(pathfinder)
+
+        var path: List<AStarCell>? = null
+
+        val request = async.requestPath(0, 0, 5, 0) { path = it }
+
+        assertThat(request.isPending, `is`(true))
+        assertThat(path, nullValue())
+
+        async.onUpdate(0.016)
+
+        assertThat(request.isDone, `is`(true))
+        assertThat(path, `is`(pathfinder.findPath(0, 0, 5, 0)))
+    }
+
+    @Test
+    fun `Identical requests share a single search`() {
+        val executor = ManualExecutor()
+        val async = AsyncAStarPathfinder(pathfinder, executor, 4)
+
+        var path1: MutableList<AStarCell>? = null
+        var path2: MutableList<AStarCell>? = null
+
+        async.requestPath(0, 0, 7, 3) { path1 = it }
+        async.requestPath(0, 0, 7, 3) { path2 = it }
+        async.requestPath(0, 0, 3, 7) { }
+
+        assertThat(async.numSearches, `is`(2))
+
+        async.onUpdate(0.016)
+
+        assertThat(executor.tasks.size, `is`(2))
+
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(async.numSearches, `is`(0))
+        assertThat(path1!!.size, `is`(10))
+        assertThat(path1, `is`(path2))
+
+        // each request owns its path
+        path1!!.clear()
+
+        assertThat(path2!!.size, `is`(10))
+    }
+
+    @Test
+    fun `Cancelled requests are not delivered`() {
+        val executor = ManualExecutor()
+        val async = AsyncAStarPathfinder(pathfinder, executor, 1)
+
+        var count = 0
+
+        val queued = async.requestPath(0, 0, 5, 5) { count++ }
+        val running = async.requestPath(0, 0, 6, 6) { count++ }
+        val shared1 = async.requestPath(0, 0, 7, 7) { count++ }
+        val shared2 = async.requestPath(0, 0, 7, 7) { count++ }
+
+        queued.cancel()
+
+        // only [running] is submitted, since max in flight is 1
+        async.onUpdate(0.016)
+        assertThat(executor.tasks.size, `is`(1))
+
+        running.cancel()
+        shared1.cancel()
+
+        executor.runAll()
+
+        repeat(3) {
+            async.onUpdate(0.016)
+            executor.runAll()
+        }
+
+        assertThat(queued.isCancelled, `is`(true))
+        assertThat(running.isCancelled, `is`(true))
+        assertThat(shared2.isDone, `is`(true))
+        assertThat(count, `is`(1))
+        assertThat(async.numSearches, `is`(0))
+    }
+
+    @Test
+    fun `Callback can cancel another request of the same search`() {
+        val async = AsyncAStarPathfinder(pathfinder)
+
+        var count = 0
+
+        lateinit var second: PathRequest<AStarCell>
+
+        val first = async.requestPath(0, 0, 5, 5) {
+            count++
+            second.cancel()
+        }
+
+        second = async.requestPath(0, 0, 5, 5) { count++ }
+        val third = async.requestPath(0, 0, 5, 5) { count++ }
+
+        async.onUpdate(0.016)
+
+        assertThat(first.isDone, `is`(true))
+        assertThat(second.isCancelled, `is`(true))
+        assertThat(third.isDone, `is`(true))
+        assertThat(count, `is`(2))
+        assertThat(async.numSearches, `is`(0))
+    }
+
+    @Test
+    fun `Rejected searches are submitted again`() {
+        val executor = ManualExecutor()
+        var isRejecting = true
+
+        val async = AsyncAStarPathfinder(pathfinder, Executor {
+            if (isRejecting)
+                throw RejectedExecutionException()
+
+            executor.execute(it)
+        }, 1)
+
+        var path: List<AStarCell>? = null
+
+        val request = async.requestPath(0, 0, 5, 0) { path = it }
+
+        async.onUpdate(0.016)
+
+        assertThat(request.isPending, `is`(true))
+        assertThat(async.numSearches, `is`(1))
+
+        isRejecting = false
+
+        async.onUpdate(0.016)
+
+        assertThat(executor.tasks.size, `is`(1))
+
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(request.isDone, `is`(true))
+        assertThat(path, `is`(pathfinder.findPath(0, 0, 5, 0)))
+        assertThat(async.numSearches, `is`(0))
+    }
+
+    @Test
+    fun `Searches use snapshot until refreshed`() {
+        val executor = ManualExecutor()
+        val async = AsyncAStarPathfinder(pathfinder, executor, 4)
+
+        var path = listOf<AStarCell>()
+
+        async.requestPath(0, 0, 2, 0) { path = it }
+        async.onUpdate(0.016)
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(path.size, `is`(2))
+
+        // wall across the grid, except at the bottom
+        for (y in 0 until 19) {
+            grid[1, y].state = CellState.NOT_WALKABLE
+        }
+
+        async.requestPath(0, 0, 2, 0) { path = it }
+        async.onUpdate(0.016)
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        // still the old walkability
+        assertThat(path.size, `is`(2))
+
+        async.refresh()
+
+        async.requestPath(0, 0, 2, 0) { path = it }
+        async.onUpdate(0.016)
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(path.size, `is`(2 + 19 * 2))
+
+        grid[1, 19].state = CellState.NOT_WALKABLE
+        async.refresh(1, 19)
+
+        async.requestPath(0, 0, 2, 0) { path = it }
+        async.onUpdate(0.016)
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(path, empty())
+    }
+
+    @Test
+    fun `Requests after refresh do not join running searches`() {
+        val executor = ManualExecutor()
+        val async = AsyncAStarPathfinder(pathfinder, executor, 4)
+
+        var oldPath = listOf<AStarCell>()
+        var newPath = listOf<AStarCell>()
+        var cellPath = listOf<AStarCell>()
+
+        async.requestPath(0, 0, 2, 0) { oldPath = it }
+        async.onUpdate(0.016)
+
+        grid[1, 0].state = CellState.NOT_WALKABLE
+        async.refresh()
+
+        async.requestPath(0, 0, 2, 0) { newPath = it }
+        async.onUpdate(0.016)
+
+        grid[1, 1].state = CellState.NOT_WALKABLE
+        async.refresh(1, 1)
+
+        async.requestPath(0, 0, 2, 0) { cellPath = it }
+        async.onUpdate(0.016)
+
+        assertThat(executor.tasks.size, `is`(3))
+
+        executor.runAll()
+        async.onUpdate(0.016)
+
+        assertThat(oldPath.size, `is`(2))
+        assertThat(newPath.size, `is`(4))
+        assertThat(cellPath.size, `is`(6))
+        assertThat(async.numSearches, `is`(0))
+    }
+
+    @Test
+    fun `Searches run on executor threads`() {
+        val executor = Executors.newFixedThreadPool(4)
+
+        try {
+            val async = AsyncAStarPathfinder(pathfinder, executor, 8)
+
+            val paths = arrayListOf<List<AStarCell>>()
+
+            for (i in 1 until 20) {
+                async.requestPath(0, 0, i, 19 - i) { paths += it }
+            }
+
+            val deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10)
+
+            while (paths.size < 19 && System.nanoTime() < deadline) {
+                async.onUpdate(0.016)
+                Thread.sleep(1)
+            }
+
+            assertThat(paths.size, `is`(19))
+
+            paths.forEach {
+                assertThat(it.size, `is`(19))
+            }
+        } finally {
+            executor.shutdownNow()
+        }
+    }
+
+    @Test
+    fun `Max searches in flight must be positive`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            AsyncAStarPathfinder(pathfinder, ManualExecutor(), 0)
+        }
+    }
+
+    @Test
+    fun `Move component with async pathfinder`() {
+        val async = AsyncAStarPathfinder(pathfinder)
+        val cellMoveComponent = CellMoveComponent(40, 40, 40.0)
+        val moveComponent = AStarMoveComponent(async)
+
+        val e = Entity()
+        e.addComponent(cellMoveComponent)
+        e.addComponent(moveComponent)
+
+        moveComponent.moveToCell(3, 2)
+
+        assertThat(moveComponent.isPathRequestPending, `is`(true))
+
+        // not at destination while waiting for the path
+        moveComponent.onUpdate(0.016)
+        assertThat(moveComponent.isAtDestination, `is`(false))
+
+        do {
+            async.onUpdate(0.016)
+            cellMoveComponent.onUpdate(0.016)
+            moveComponent.onUpdate(0.016)
+        } while (!moveComponent.isAtDestination)
+
+        assertThat(cellMoveComponent.cellX, `is`(3))
+        assertThat(cellMoveComponent.cellY, `is`(2))
+
+        moveComponent.moveToCell(5, 5)
+        moveComponent.stopMovement()
+
+        assertThat(moveComponent.isPathRequestPending, `is`(false))
+        assertThat(async.numSearches, `is`(0))
+    }
+}
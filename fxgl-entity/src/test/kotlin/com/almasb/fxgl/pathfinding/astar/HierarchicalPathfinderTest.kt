@@ -0,0 +1,134 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.JumpPointSearchPathfinderTest.Companion.assertValidPath
+import com.almasb.fxgl.pathfinding.astar.JumpPointSearchPathfinderTest.Companion.cost
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import kotlin.random.Random
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class HierarchicalPathfinderTest {
+
+    @Test
+    fun `Find path across clusters`() {
+        val grid = AStarGrid(40, 40)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        // wall with a single gap
+        for (y in 0 until 39) {
+            grid[20, y].state = CellState.NOT_WALKABLE
+        }
+
+        pathfinder.refresh()
+
+        for (direction in NeighborDirection.values()) {
+            val path = pathfinder.findPath(2, 3, 37, 5, direction)
+
+            assertValidPath(path, 2, 3, 37, 5, direction)
+            assertThat(path.any { it.x == 20 && it.y == 39 }, `is`(true))
+        }
+    }
+
+    @Test
+    fun `Path within a cluster`() {
+        val grid = AStarGrid(40, 40)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        assertThat(pathfinder.findPath(1, 1, 4, 1).size, `is`(3))
+        assertThat(pathfinder.findPath(1, 1, 1, 1), empty())
+    }
+
+    @Test
+    fun `Changed cells only require refresh of that cell`() {
+        val grid = AStarGrid(40, 40)
+        val pathfinder = HierarchicalPathfinder(grid, 8)
+
+        for (y in 0 until 40) {
+            if (y != 17) {
+                grid[20, y].state = CellState.NOT_WALKABLE
+            }
+        }
+
+        pathfinder.refresh()
+
+        assertThat(pathfinder.findPath(0, 0, 39, 39), not(empty()))
+
+        grid[20, 17].state = CellState.NOT_WALKABLE
+        pathfinder.refresh(20, 17)
+
+        assertThat(pathfinder.findPath(0, 0, 39, 39), empty())
+
+        grid[20, 17].state = CellState.WALKABLE
+        grid[20, 3].state = CellState.WALKABLE
+        pathfinder.refresh(20, 17)
+        pathfinder.refresh(20, 3)
+
+        assertThat(pathfinder.findPath(0, 0, 39, 39), not(empty()))
+        assertThat(pathfinder.numAbstractNodes, `is`(HierarchicalPathfinder(grid, 8).numAbstractNodes))
+    }
+
+    @Test
+    fun `Path is found if and only if it exists`() {
+        val random = Random(225)
+
+        repeat(20) {
+            val grid = AStarGrid(40, 30)
+
+            grid.forEach {
+                it.movementCost = 1
+
+                if (random.nextDouble() < 0.35)
+                    it.state = CellState.NOT_WALKABLE
+            }
+
+            val hpa = HierarchicalPathfinder(grid, 2 + random.nextInt(10))
+            val astar = AStarPathfinder(grid)
+
+            repeat(20) {
+                // repaired graph must be the same as a new one
+                if (random.nextBoolean()) {
+                    val cell = grid[random.nextInt(40), random.nextInt(30)]
+                    cell.state = if (cell.isWalkable) CellState.NOT_WALKABLE else CellState.WALKABLE
+
+                    hpa.refresh(cell.x, cell.y)
+                }
+
+                val sx = random.nextInt(40)
+                val sy = random.nextInt(30)
+                val tx = random.nextInt(40)
+                val ty = random.nextInt(30)
+
+                for (direction in NeighborDirection.values()) {
+                    val expected = astar.findPath(sx, sy, tx, ty, direction)
+                    val path = hpa.findPath(sx, sy, tx, ty, direction)
+
+                    assertThat(path.isEmpty(), `is`(expected.isEmpty()))
+
+                    if (path.isNotEmpty()) {
+                        assertValidPath(path, sx, sy, tx, ty, direction)
+                        assertThat(cost(path, sx, sy), greaterThanOrEqualTo(cost(expected, sx, sy)))
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    fun `Cluster size must be at least 2`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            HierarchicalPathfinder(AStarGrid(10, 10), 1)
+        }
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.pathfinding.astar
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.pathfinding.CellState
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Test
+import kotlin.math.abs
+import kotlin.random.Random
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class JumpPointSearchPathfinderTest {
+
+    @Test
+    fun `Find path on open grid`() {
+        val grid = AStarGrid(20, 20)
+        val pathfinder = JumpPointSearchPathfinder(grid)
+
+        val path = pathfinder.findPath(0, 0, 5, 7)
+
+        assertThat(path.size, `is`(12))
+        assertValidPath(path, 0, 0, 5, 7, NeighborDirection.FOUR_DIRECTIONS)
+
+        val diagonalPath = pathfinder.findPath(0, 0, 5, 7, NeighborDirection.EIGHT_DIRECTIONS)
+
+        assertThat(diagonalPath.size, `is`(7))
+        assertValidPath(diagonalPath, 0, 0, 5, 7, NeighborDirection.EIGHT_DIRECTIONS)
+
+        // jumps cross open space without expanding every cell
+        assertThat(pathfinder.numExpandedCells, lessThan(10))
+    }
+
+    @Test
+    fun `No path`() {
+        val grid = AStarGrid(10, 10)
+        val pathfinder = JumpPointSearchPathfinder(grid)
+
+        for (y in 0 until 10) {
+            grid[5, y].state = CellState.NOT_WALKABLE
+        }
+
+        assertThat(pathfinder.findPath(0, 0, 9, 9), empty())
+        assertThat(pathfinder.findPath(0, 0, 9, 9, NeighborDirection.EIGHT_DIRECTIONS), empty())
+        assertThat(pathfinder.findPath(0, 0, 5, 5), empty())
+        assertThat(pathfinder.findPath(0, 0, 0, 0), empty())
+    }
+
+    @Test
+    fun `Busy cells are avoided`() {
+        val grid = AStarGrid(10, 3)
+        val pathfinder = JumpPointSearchPathfinder(grid)
+
+        for (x in 0 until 10) {
+            grid[x, 0].state = CellState.NOT_WALKABLE
+            grid[x, 2].state = CellState.NOT_WALKABLE
+        }
+
+        assertThat(pathfinder.findPath(0, 1, 9, 1).size, `is`(9))
+        assertThat(pathfinder.findPath(0, 1, 9, 1, listOf(grid[4, 1])), empty())
+    }
+
+    @Test
+    fun `Paths have the same cost as A* paths`() {
+        val random = Random(225)
+
+        repeat(30) {
+            val grid = AStarGrid(40, 40)
+
+            grid.forEach {
+                // uniform costs that match the heuristic, so that A* is optimal
+                it.movementCost = 1
+
+                if (random.nextDouble() < 0.3)
+                    it.state = CellState.NOT_WALKABLE
+            }
+
+            val jps = JumpPointSearchPathfinder(grid)
+            val astar = AStarPathfinder(grid)
+
+            repeat(10) {
+                val sx = random.nextInt(40)
+                val sy = random.nextInt(40)
+                val tx = random.nextInt(40)
+                val ty = random.nextInt(40)
+
+                for (direction in NeighborDirection.values()) {
+                    val expected = astar.findPath(sx, sy, tx, ty, direction)
+                    val path = jps.findPath(sx, sy, tx, ty, direction)
+
+                    assertThat(path.isEmpty(), `is`(expected.isEmpty()))
+
+                    if (path.isNotEmpty()) {
+                        assertValidPath(path, sx, sy, tx, ty, direction)
+                        assertThat(cost(path, sx, sy), `is`(cost(expected, sx, sy)))
+                    }
+                }
+            }
+        }
+    }
+
+    companion object {
+
+        fun assertValidPath(path: List<AStarCell>, sx: Int, sy: Int, tx: Int, ty: Int, direction: NeighborDirection) {
+            var x = sx
+            var y = sy
+
+            path.forEach {
+                val dx = abs(it.x - x)
+                val dy = abs(it.y - y)
+
+                assertThat(it.isWalkable, `is`(true))
+                assertThat(maxOf(dx, dy), `is`(1))
+
+                if (direction == NeighborDirection.FOUR_DIRECTIONS)
+                    assertThat(dx + dy, `is`(1))
+
+                x = it.x
+                y = it.y
+            }
+
+            assertThat(x, `is`(tx))
+            assertThat(y, `is`(ty))
+        }
+
+        fun cost(path: List<AStarCell>, sx: Int, sy: Int): Int {
+            var x = sx
+            var y = sy
+            var cost = 0
+
+            path.forEach {
+                cost += if (it.x != x && it.y != y) 14 else 10
+                x = it.x
+                y = it.y
+            }
+
+            return cost
+        }
+    }
+}
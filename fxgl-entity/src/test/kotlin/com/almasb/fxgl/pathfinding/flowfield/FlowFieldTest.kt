@@ -0,0 +1,150 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.pathfinding.flowfield
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.pathfinding.CellMoveComponent
+import com.almasb.fxgl.pathfinding.CellState
+import com.almasb.fxgl.pathfinding.astar.AStarCell
+import com.almasb.fxgl.pathfinding.astar.AStarGrid
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class FlowFieldTest {
+
+    private lateinit var grid: AStarGrid
+
+    @BeforeEach
+    fun setUp() {
+        grid = AStarGrid(30, 30)
+
+        // wall with a gap at the bottom
+        for (y in 0 until 25) {
+            grid[15, y].state = CellState.NOT_WALKABLE
+        }
+    }
+
+    @Test
+    fun `Paths sampled from field are as short as A* paths`() {
+        val field = FlowField(grid)
+        field.setTarget(25, 3)
+
+        val pathfinder = AStarPathfinder(grid)
+
+        for (y in 0 until 30 step 3) {
+            for (x in 0 until 15 step 3) {
+                assertThat(follow(field, x, y).size, `is`(pathfinder.findPath(x, y, 25, 3).size))
+            }
+        }
+
+        assertThat(field.getCost(25, 3), `is`(0))
+        assertThat(field.getCost(24, 3), `is`(10 * grid[24, 3].movementCost))
+        assertThat(field.getNextCell(25, 3).isPresent, `is`(false))
+    }
+
+    @Test
+    fun `Unreachable cells`() {
+        grid[15, 25].state = CellState.NOT_WALKABLE
+        grid[15, 26].state = CellState.NOT_WALKABLE
+        grid[15, 27].state = CellState.NOT_WALKABLE
+        grid[15, 28].state = CellState.NOT_WALKABLE
+        grid[15, 29].state = CellState.NOT_WALKABLE
+
+        val field = FlowField(grid, NeighborDirection.EIGHT_DIRECTIONS)
+        field.setTarget(25, 3)
+
+        assertThat(field.isReachable(0, 0), `is`(false))
+        assertThat(field.getCost(0, 0), `is`(-1))
+        assertThat(field.getNextCell(0, 0).isPresent, `is`(false))
+
+        assertThat(field.isReachable(20, 20), `is`(true))
+
+        grid[15, 29].state = CellState.WALKABLE
+        field.refresh()
+
+        assertThat(field.isReachable(0, 0), `is`(true))
+    }
+
+    @Test
+    fun `Small target moves only update a window`() {
+        val field = FlowField(grid, NeighborDirection.FOUR_DIRECTIONS, 8)
+        field.setTarget(25, 3)
+
+        val numCells = field.numUpdatedCells
+
+        field.moveTarget(26, 4)
+
+        assertThat(field.numUpdatedCells, lessThan(numCells / 2))
+        assertThat(field.targetX, `is`(26))
+        assertThat(field.targetY, `is`(4))
+
+        // every unit still arrives at the new target
+        for (y in 0 until 30 step 3) {
+            for (x in 0 until 30 step 3) {
+                if (grid[x, y].isWalkable) {
+                    assertThat(follow(field, x, y).last(), `is`(grid[26, 4]))
+                }
+            }
+        }
+
+        // too far from the last full computation
+        field.moveTarget(25, 20)
+
+        assertThat(field.numUpdatedCells, `is`(numCells))
+    }
+
+    @Test
+    fun `Many entities follow one field`() {
+        val field = FlowField(grid)
+        field.setTarget(29, 0)
+
+        val entities = (0 until 100).map {
+            val e = Entity()
+            e.addComponent(CellMoveComponent(10, 10, 200.0))
+            e.addComponent(FlowFieldMoveComponent(field))
+            e.getComponent(CellMoveComponent::class.java).setPositionToCell(it % 10, it / 10)
+            e
+        }
+
+        var frames = 0
+
+        while (!entities.all { it.getComponent(FlowFieldMoveComponent::class.java).isAtTarget } && frames < 10000) {
+            entities.forEach {
+                it.getComponent(FlowFieldMoveComponent::class.java).onUpdate(0.016)
+                it.getComponent(CellMoveComponent::class.java).onUpdate(0.016)
+            }
+
+            frames++
+        }
+
+        assertThat(frames, lessThan(10000))
+        assertThat(field.numUpdatedCells, `is`(30 * 30 - 25))
+    }
+
+    private fun follow(field: FlowField<AStarCell>, startX: Int, startY: Int): List<AStarCell> {
+        val path = arrayListOf<AStarCell>()
+
+        var next = field.getNextCell(startX, startY)
+
+        while (next.isPresent) {
+            path += next.get()
+
+            assertThat(path.size, lessThan(30 * 30))
+
+            next = field.getNextCell(next.get().x, next.get().y)
+        }
+
+        return path
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.core.collection.UnorderedPairMap
+import com.almasb.fxgl.entity.Entity
+import com.almasb.fxgl.entity.components.CollidableComponent
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.nullValue
+import org.junit.jupiter.api.Assertions.assertFalse
+import org.junit.jupiter.api.Assertions.assertTrue
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class CollisionFilterTest {
+
+    private enum class T {
+        T1, T2, T3
+    }
+
+    private lateinit var handlers: UnorderedPairMap<Any, CollisionHandler>
+    private lateinit var filter: CollisionFilter
+
+    @BeforeEach
+    fun setUp() {
+        handlers = UnorderedPairMap()
+        filter = CollisionFilter(handlers)
+    }
+
+    @Test
+    fun `Handler is found regardless of pair order`() {
+        val handler = object : CollisionHandler(T.T1, T.T2) { }
+        handlers.put(T.T1, T.T2, handler)
+
+        filter.setEntity(0, entity(T.T1))
+        filter.setEntity(1, entity(T.T2))
+        filter.setEntity(2, entity(T.T3))
+        filter.setEntity(3, entity("untyped"))
+        filter.endAssignment(4)
+
+        assertThat(filter.getHandler(0, 1), `is`(handler))
+        assertThat(filter.getHandler(1, 0), `is`(handler))
+        assertThat(filter.getHandler(0, 2), nullValue())
+        assertThat(filter.getHandler(0, 3), nullValue())
+        assertThat(filter.getHandler(3, 3), nullValue())
+
+        val handler2 = object : CollisionHandler(T.T3, T.T3) { }
+        handlers.put(T.T3, T.T3, handler2)
+        filter.invalidate()
+
+        // type ids are resolved when entities are assigned, i.e. in the next frame
+        filter.setEntity(2, entity(T.T3))
+        filter.endAssignment(4)
+
+        assertThat(filter.getHandler(2, 2), `is`(handler2))
+
+        handlers.remove(T.T1, T.T2)
+        filter.invalidate()
+
+        assertThat(filter.getHandler(0, 1), nullValue())
+    }
+
+    @Test
+    fun `Ignored types are checked both ways`() {
+        val e1 = entity(T.T1)
+        val e2 = entity(T.T2)
+        val e3 = entity(T.T3)
+
+        // T3 has no handlers, so it only gets an id when e2 is assigned
+        e2.getComponent(CollidableComponent::class.java).addIgnoredType(T.T3)
+
+        filter.setEntity(0, e3)
+        filter.setEntity(1, e1)
+        filter.setEntity(2, e2)
+        filter.endAssignment(3)
+
+        assertTrue(filter.isIgnored(2, 0))
+        assertTrue(filter.isIgnored(0, 2))
+        assertFalse(filter.isIgnored(1, 2))
+
+        e2.getComponent(CollidableComponent::class.java).removeIgnoredType(T.T3)
+
+        filter.setEntity(0, e3)
+        filter.setEntity(1, e1)
+        filter.setEntity(2, e2)
+        filter.endAssignment(3)
+
+        assertFalse(filter.isIgnored(2, 0))
+    }
+
+    private fun entity(type: java.io.Serializable): Entity {
+        val e = Entity()
+        e.type = type
+        e.addComponent(CollidableComponent(true))
+        return e
+    }
+}
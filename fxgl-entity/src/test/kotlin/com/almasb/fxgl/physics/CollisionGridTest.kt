@@ -0,0 +1,96 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.entity.Entity
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.hamcrest.Matchers.containsInAnyOrder
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class CollisionGridTest {
+
+    private lateinit var grid: CollisionGrid
+
+    @BeforeEach
+    fun setUp() {
+        grid = CollisionGrid(64, 64)
+    }
+
+    @Test
+    fun `Entity is inserted into every cell it covers`() {
+        // covers cells (0, 0) to (1, 1)
+        grid.insert(entity(32.0, 32.0, 64.0, 64.0), 0)
+
+        assertThat(grid.numCells, `is`(4))
+
+        // entities without hit boxes are ignored
+        grid.insert(Entity(), 1)
+
+        assertThat(grid.numCells, `is`(4))
+    }
+
+    @Test
+    fun `Pair that shares several cells is checked in one cell only`() {
+        val e1 = entity(10.0, 10.0, 100.0, 100.0)
+        val e2 = entity(50.0, 50.0, 100.0, 100.0)
+        val e3 = entity(-100.0, 70.0, 20.0, 20.0)
+
+        grid.insert(e1, 0)
+        grid.insert(e2, 1)
+        grid.insert(e3, 2)
+
+        val pairs = arrayListOf<kotlin.Pair<Entity, Entity>>()
+
+        for (c in 0 until grid.numCells) {
+            val cell = grid.getCell(c)
+
+            for (i in 0 until cell.entities.size()) {
+                for (j in i + 1 until cell.entities.size()) {
+                    if (grid.isPairOwner(cell, i, j)) {
+                        pairs += cell.entities[i] to cell.entities[j]
+                    }
+                }
+            }
+        }
+
+        assertThat(pairs, containsInAnyOrder(e1 to e2))
+    }
+
+    @Test
+    fun `Cells are reused after clear`() {
+        grid.insert(entity(0.0, 0.0, 10.0, 10.0), 0)
+
+        val cell = grid.getCell(0)
+
+        grid.clear()
+
+        assertThat(grid.numCells, `is`(0))
+        assertThat(cell.entities.size(), `is`(0))
+
+        val e = entity(500.0, 500.0, 10.0, 10.0)
+        grid.insert(e, 0)
+
+        assertThat(grid.getCell(0) === cell, `is`(true))
+        assertThat(cell.x, `is`(7))
+        assertThat(cell.y, `is`(7))
+        assertThat(cell.entities[0], `is`(e))
+    }
+
+    private fun entity(x: Double, y: Double, width: Double, height: Double): Entity {
+        val e = Entity()
+        e.setPosition(x, y)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(width, height)))
+        e.boundingBoxComponent.applyTransformToHitBoxes()
+        return e
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.physics
+
+import com.almasb.fxgl.entity.Entity
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.`is`
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class CollisionTreeTest {
+
+    private lateinit var tree: CollisionTree
+
+    @BeforeEach
+    fun setUp() {
+        tree = CollisionTree(1 / 50f)
+    }
+
+    @Test
+    fun `Pairs are kept while enlarged bounds overlap`() {
+        val e1 = entity(0.0, 0.0)
+        val e2 = entity(30.0, 0.0)
+        val e3 = entity(500.0, 500.0)
+
+        step(e1, e2, e3)
+
+        assertThat(tree.numPairs, `is`(1))
+        assertThat(setOf(tree.getEntityA(0), tree.getEntityB(0)), `is`(setOf(e1, e2)))
+
+        // static entities keep their pair without any tree queries
+        step(e1, e2, e3)
+
+        assertThat(tree.numPairs, `is`(1))
+
+        e2.x = 1000.0
+
+        step(e1, e2, e3)
+
+        assertThat(tree.numPairs, `is`(0))
+    }
+
+    @Test
+    fun `Pairs are removed when entity is no longer inserted`() {
+        val e1 = entity(0.0, 0.0)
+        val e2 = entity(30.0, 0.0)
+
+        step(e1, e2)
+
+        assertThat(tree.numPairs, `is`(1))
+
+        step(e1)
+
+        assertThat(tree.numPairs, `is`(0))
+
+        // re-inserted entity gets a new proxy
+        step(e1, e2)
+
+        assertThat(tree.numPairs, `is`(1))
+
+        tree.clear()
+
+        assertThat(tree.numPairs, `is`(0))
+    }
+
+    private fun step(vararg entities: Entity) {
+        entities.forEachIndexed { i, e ->
+            e.boundingBoxComponent.applyTransformToHitBoxes()
+            tree.insert(e, i)
+        }
+
+        tree.update()
+        tree.removeSeparatedPairs()
+    }
+
+    private fun entity(x: Double, y: Double): Entity {
+        val e = Entity()
+        e.setPosition(x, y)
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(40.0, 40.0)))
+        return e
+    }
+}
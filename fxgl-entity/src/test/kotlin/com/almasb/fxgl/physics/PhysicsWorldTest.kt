@@ -15,6 +15,8 @@ import javafx.geometry.Point2D
 import org.hamcrest.CoreMatchers.`is`
 import org.hamcrest.MatcherAssert.assertThat
 import org.hamcrest.Matchers.closeTo
+import org.hamcrest.Matchers.greaterThan
+import org.hamcrest.Matchers.lessThan
 import org.junit.jupiter.api.Assertions.assertFalse
 import org.junit.jupiter.api.Assertions.assertTrue
 import org.junit.jupiter.api.BeforeEach
@@ -67,6 +69,90 @@ class PhysicsWorldTest {
         assertThat(physicsWorld.jBox2DWorld.gravity, `is`(Vec2(1.0, -0.2)))
     }
 
+    @Test
+    fun `Fixed time step runs sub steps to catch up with frame time`() {
+        physicsWorld.fixedTimeStep = 0.1
+        physicsWorld.maxSubSteps = 5
+
+        physicsWorld.onUpdate(0.25)
+
+        assertThat(physicsWorld.numSubSteps, `is`(2))
+        assertThat(physicsWorld.interpolationAlpha, closeTo(0.5, 0.001))
+
+        physicsWorld.onUpdate(0.04)
+
+        assertThat(physicsWorld.numSubSteps, `is`(0))
+
+        // capped, the rest of frame time is dropped
+        physicsWorld.onUpdate(2.0)
+
+        assertThat(physicsWorld.numSubSteps, `is`(5))
+        assertThat(physicsWorld.interpolationAlpha, lessThan(1.0))
+
+        physicsWorld.fixedTimeStep = 0.0
+        physicsWorld.onUpdate(0.25)
+
+        assertThat(physicsWorld.numSubSteps, `is`(1))
+        assertThat(physicsWorld.interpolationAlpha, `is`(1.0))
+
+        assertThrows<IllegalArgumentException> {
+            physicsWorld.maxSubSteps = 0
+        }
+    }
+
+    @Test
+    fun `Fixed time step simulation does not depend on frame rate`() {
+        val world1 = PhysicsWorld(600, 50.0)
+        val world2 = PhysicsWorld(600, 50.0)
+
+        world1.fixedTimeStep = 0.05
+        world2.fixedTimeStep = 0.05
+
+        val e1 = newDynamicEntity()
+        val e2 = newDynamicEntity()
+
+        world1.onEntityAdded(e1)
+        world2.onEntityAdded(e2)
+
+        repeat(20) { world1.onUpdate(0.05) }
+        repeat(10) { world2.onUpdate(0.1) }
+
+        val body1 = e1.getComponent(PhysicsComponent::class.java).body
+        val body2 = e2.getComponent(PhysicsComponent::class.java).body
+
+        assertThat(body1.position, `is`(body2.position))
+        assertThat(body1.linearVelocity, `is`(body2.linearVelocity))
+    }
+
+    @Test
+    fun `Fixed time step interpolates entity position`() {
+        physicsWorld.fixedTimeStep = 0.1
+
+        val e = newDynamicEntity()
+        physicsWorld.onEntityAdded(e)
+
+        val physics = e.getComponent(PhysicsComponent::class.java)
+
+        // falls 5 pixels during the step, but only half of the next step has passed
+        physicsWorld.onUpdate(0.15)
+        physics.onUpdate(0.15)
+
+        assertThat(e.y, greaterThan(0.0))
+        assertThat(e.y, lessThan(5.0))
+
+        physicsWorld.isInterpolationEnabled = false
+        physics.onUpdate(0.0)
+
+        assertThat(e.y, `is`(5.0))
+    }
+
+    private fun newDynamicEntity(): Entity {
+        val e = Entity()
+        e.boundingBoxComponent.addHitBox(HitBox(BoundingShape.box(10.0, 10.0)))
+        e.addComponent(PhysicsComponent().also { it.setBodyType(BodyType.DYNAMIC) })
+        return e
+    }
+
     @Test
     fun `Entity addition and removal updates jbox2d world`() {
         val e1 = Entity().also {
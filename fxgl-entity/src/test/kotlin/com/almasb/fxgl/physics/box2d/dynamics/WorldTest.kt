@@ -7,13 +7,20 @@
 package com.almasb.fxgl.physics.box2d.dynamics
 
 import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.physics.box2d.callbacks.ContactImpulse
+import com.almasb.fxgl.physics.box2d.callbacks.ContactListener
+import com.almasb.fxgl.physics.box2d.collision.Manifold
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape
+import com.almasb.fxgl.physics.box2d.dynamics.contacts.Contact
 import com.almasb.fxgl.physics.box2d.dynamics.joints.RevoluteJointDef
 import org.hamcrest.CoreMatchers
 import org.hamcrest.CoreMatchers.*
 import org.hamcrest.MatcherAssert
 import org.hamcrest.MatcherAssert.*
+import org.hamcrest.Matchers.greaterThan
 import org.junit.jupiter.api.Assertions.*
 import org.junit.jupiter.api.Test
+import java.util.concurrent.ForkJoinPool
 
 /**
  *
@@ -43,4 +50,103 @@ class WorldTest {
 
         assertThat(world.jointCount, `is`(0))
     }
-}
\ No newline at end of file
+
+    @Test
+    fun `Parallel island solve gives same result as serial solve`() {
+        val pool1 = ForkJoinPool(1)
+        val pool4 = ForkJoinPool(4)
+
+        try {
+            val serial = newPilesWorld(null)
+            val parallel1 = newPilesWorld(pool1)
+            val parallel4 = newPilesWorld(pool4)
+
+            val worlds = listOf(serial, parallel1, parallel4)
+
+            // long enough for piles to fall asleep
+            repeat(400) {
+                worlds.forEach { it.step(1 / 60f, 8, 3) }
+
+                assertThat(parallel4.parallelIslandCount, greaterThan(1))
+            }
+
+            assertTrue(serial.bodies.any { !it.isAwake })
+
+            worlds.drop(1).forEach { world ->
+                assertThat(world.bodyCount, `is`(serial.bodyCount))
+
+                for (i in 0 until serial.bodyCount) {
+                    val expected = serial.bodies[i]
+                    val actual = world.bodies[i]
+
+                    assertThat(actual.position, `is`(expected.position))
+                    assertThat(actual.angle, `is`(expected.angle))
+                    assertThat(actual.linearVelocity, `is`(expected.linearVelocity))
+                    assertThat(actual.isAwake, `is`(expected.isAwake))
+                }
+
+                // reported in the same order
+                assertThat(world.impulses, `is`(serial.impulses))
+            }
+        } finally {
+            pool1.shutdown()
+            pool4.shutdown()
+        }
+    }
+
+    private fun newPilesWorld(pool: ForkJoinPool?): World {
+        val world = World(Vec2(0f, -10f))
+        world.setIslandParallelPool(pool)
+        world.setContactListener(ImpulseRecorder())
+
+        val ground = world.createBody(BodyDef())
+        ground.createFixture(PolygonShape().also { it.setAsBox(100f, 0.5f) }, 0f)
+
+        val box = PolygonShape()
+        box.setAsBox(0.5f, 0.5f)
+
+        // separate aligned piles, which share the ground and settle, and pendulums jointed to the ground, which keep swinging
+        for (i in 0 until 24) {
+            val x = -90f + i * 7.5f
+
+            for (j in 0 until 6) {
+                val body = world.createBody(BodyDef().also {
+                    it.type = BodyType.DYNAMIC
+                    it.position = Vec2(x, 1f + j * 1.05f)
+                })
+                body.createFixture(box, 1f)
+            }
+
+            val pendulum = world.createBody(BodyDef().also {
+                it.type = BodyType.DYNAMIC
+                it.position = Vec2(x + 5f, 6f)
+            })
+            pendulum.createFixture(box, 1f)
+
+            val jointDef = RevoluteJointDef()
+            jointDef.initialize(ground, pendulum, Vec2(x + 3.5f, 6f))
+            world.createJoint(jointDef)
+        }
+
+        return world
+    }
+
+    private val World.impulses: List<Float>
+        get() = (contactManager.contactListener as ImpulseRecorder).impulses
+
+    private class ImpulseRecorder : ContactListener {
+        val impulses = arrayListOf<Float>()
+
+        override fun beginContact(contact: Contact) { }
+
+        override fun endContact(contact: Contact) { }
+
+        override fun preSolve(contact: Contact, oldManifold: Manifold) { }
+
+        override fun postSolve(contact: Contact, impulse: ContactImpulse) {
+            for (i in 0 until impulse.count) {
+                impulses += impulse.normalImpulses[i]
+            }
+        }
+    }
+}
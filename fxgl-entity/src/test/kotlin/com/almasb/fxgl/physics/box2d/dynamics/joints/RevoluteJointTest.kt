@@ -52,6 +52,7 @@ class RevoluteJointTest {
         world.step(0.016f, 8, 3)
 
         val data = SolverData()
+        data.pool = world.pool
         data.step = TimeStep().also {
             it.dt = 0.5f
             it.inv_dt = 1.0f / it.dt
@@ -0,0 +1,125 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.physics.box2d.particle
+
+import com.almasb.fxgl.core.math.Vec2
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape
+import com.almasb.fxgl.physics.box2d.dynamics.World
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertArrayEquals
+import org.junit.jupiter.api.Test
+import java.util.concurrent.ForkJoinPool
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class ParticleSystemTest {
+
+    @Test
+    fun `Writes through vector and color buffers change particles`() {
+        val world = World(Vec2())
+
+        val def = ParticleDef()
+        def.position.set(1f, 2f)
+        def.velocity.set(3f, 4f)
+        def.color = ParticleColor(10, 20, 200.toByte(), 255.toByte())
+
+        val index = world.createParticle(def)
+
+        assertThat(world.particlePositionX[index], `is`(1f))
+        assertThat(world.particlePositionY[index], `is`(2f))
+        assertThat(world.particleVelocityX[index], `is`(3f))
+        assertThat(world.particleVelocityY[index], `is`(4f))
+
+        val positions = world.particlePositionBuffer
+        val velocities = world.particleVelocityBuffer
+        val colors = world.particleColorBuffer
+
+        assertThat(positions[index], `is`(Vec2(1f, 2f)))
+        assertThat(velocities[index], `is`(Vec2(3f, 4f)))
+        assertThat(colors[index].r, `is`(10.toByte()))
+        assertThat(colors[index].g, `is`(20.toByte()))
+        assertThat(colors[index].b, `is`(200.toByte()))
+        assertThat(colors[index].a, `is`(255.toByte()))
+
+        // repeated calls do not rebuild the buffers
+        assertThat(world.particlePositionBuffer, sameInstance(positions))
+        assertThat(world.particleVelocityBuffer, sameInstance(velocities))
+        assertThat(world.particleColorBuffer, sameInstance(colors))
+
+        positions[index].set(5f, 6f)
+
+        assertThat(world.particlePositionX[index], `is`(5f))
+        assertThat(world.particlePositionY[index], `is`(6f))
+
+        world.particleVelocityBuffer[index].setZero()
+        world.particleColorBuffer[index].set(30, 40, 50, 60)
+
+        world.step(1 / 60f, 8, 3)
+
+        assertThat(world.particlePositionBuffer[index], `is`(Vec2(5f, 6f)))
+        assertThat(world.particleVelocityBuffer[index], `is`(Vec2()))
+
+        val color = world.particleColorBuffer[index]
+
+        assertThat(color.r, `is`(30.toByte()))
+        assertThat(color.g, `is`(40.toByte()))
+        assertThat(color.b, `is`(50.toByte()))
+        assertThat(color.a, `is`(60.toByte()))
+
+        world.particleSystem.setParticlePosition(index, 7f, 8f)
+
+        assertThat(world.particlePositionBuffer[index], `is`(Vec2(7f, 8f)))
+    }
+
+    @Test
+    fun `Parallel solve does not depend on number of threads`() {
+        val pool1 = ForkJoinPool(1)
+        val pool4 = ForkJoinPool(4)
+
+        try {
+            val world1 = newLiquidWorld(pool1)
+            val world4 = newLiquidWorld(pool4)
+
+            assertThat(world1.particleCount, greaterThan(4096))
+
+            repeat(30) {
+                world1.step(1 / 60f, 8, 3)
+                world4.step(1 / 60f, 8, 3)
+            }
+
+            val count = world1.particleCount
+
+            assertThat(world4.particleCount, `is`(count))
+            assertArrayEquals(world1.particlePositionX.copyOf(count), world4.particlePositionX.copyOf(count))
+            assertArrayEquals(world1.particlePositionY.copyOf(count), world4.particlePositionY.copyOf(count))
+            assertArrayEquals(world1.particleVelocityX.copyOf(count), world4.particleVelocityX.copyOf(count))
+            assertArrayEquals(world1.particleVelocityY.copyOf(count), world4.particleVelocityY.copyOf(count))
+        } finally {
+            pool1.shutdown()
+            pool4.shutdown()
+        }
+    }
+
+    private fun newLiquidWorld(pool: ForkJoinPool): World {
+        val world = World(Vec2(0f, -10f))
+        world.particleRadius = 0.1f
+        world.particleParallelPool = pool
+        world.particleParallelThreshold = 0
+
+        val shape = PolygonShape()
+        shape.setAsBox(6f, 6f)
+
+        val def = ParticleGroupDef()
+        def.shape = shape
+
+        world.createParticleGroup(def)
+
+        return world
+    }
+}
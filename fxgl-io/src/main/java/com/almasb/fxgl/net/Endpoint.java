@@ -58,7 +58,11 @@ public abstract class Endpoint<T> {
     }
 
     protected final void openTCPConnection(Socket socket, int connectionNum, Class<T> messageType) throws Exception {
-        log.debug(getClass().getSimpleName() + " opening new connection (" + connectionNum + ") from " + socket.getInetAddress() + ":" + socket.getPort() + " type: " + messageType);
+        openTCPConnection(socket, connectionNum, messageType, MessageFormat.DEFAULT);
+    }
+
+    protected final void openTCPConnection(Socket socket, int connectionNum, Class<T> messageType, MessageFormat format) throws Exception {
+        log.debug(getClass().getSimpleName() + " opening new connection (" + connectionNum + ") from " + socket.getInetAddress() + ":" + socket.getPort() + " type: " + messageType + " format: " + format);
 
         socket.setTcpNoDelay(true);
 
@@ -72,7 +76,7 @@ public abstract class Endpoint<T> {
         new ConnectionThread(sendThreadName, () -> {
 
             try {
-                var writer = Writers.INSTANCE.getTCPWriter(messageType, socket.getOutputStream());
+                var writer = Writers.INSTANCE.getTCPWriter(messageType, format, socket.getOutputStream());
 
                 while (connection.isConnected()) {
                     var message = connection.messageQueue.take();
@@ -86,7 +90,7 @@ public abstract class Endpoint<T> {
 
         new ConnectionThread(recvThreadName, () -> {
             try {
-                var reader = Readers.INSTANCE.getTCPReader(messageType, socket.getInputStream());
+                var reader = Readers.INSTANCE.getTCPReader(messageType, format, socket.getInputStream());
 
                 while (connection.isConnected()) {
                     try {
@@ -121,7 +125,11 @@ public abstract class Endpoint<T> {
     }
 
     protected final void openUDPConnection(UDPConnection<T> connection, Class<T> messageType) {
-        log.debug("Opening UDP connection (" + connection.getConnectionNum() + ")");
+        openUDPConnection(connection, messageType, MessageFormat.DEFAULT);
+    }
+
+    protected final void openUDPConnection(UDPConnection<T> connection, Class<T> messageType, MessageFormat format) {
+        log.debug("Opening UDP connection (" + connection.getConnectionNum() + ") format: " + format);
 
         onConnectionOpened(connection);
 
@@ -131,10 +139,12 @@ public abstract class Endpoint<T> {
         new ConnectionThread(sendThreadName, () -> {
 
             try {
+                var writer = Writers.INSTANCE.getUDPWriter(messageType, format);
+
                 while (connection.isConnected()) {
                     var message = connection.messageQueue.take();
 
-                    var bytes = Writers.INSTANCE.getUDPWriter(messageType).write(message);
+                    var bytes = writer.write(message);
 
                     connection.sendUDP(bytes);
                 }
@@ -146,7 +156,7 @@ public abstract class Endpoint<T> {
         new ConnectionThread(recvThreadName, () -> {
 
             try {
-                var reader = Readers.INSTANCE.getUDPReader(messageType);
+                var reader = Readers.INSTANCE.getUDPReader(messageType, format);
 
                 while (connection.isConnected()) {
                     var bytes = connection.getRecvQueue().take();
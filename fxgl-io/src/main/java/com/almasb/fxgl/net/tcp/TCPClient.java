@@ -9,6 +9,7 @@ package com.almasb.fxgl.net.tcp;
 import com.almasb.fxgl.logging.Logger;
 import com.almasb.fxgl.net.Client;
 import com.almasb.fxgl.net.Connection;
+import com.almasb.fxgl.net.MessageFormat;
 
 import java.net.Socket;
 
@@ -24,11 +25,17 @@ public class TCPClient<T> extends Client<T> {
     private String ip;
     private int port;
     private Class<T> messageType;
+    private MessageFormat format;
 
     public TCPClient(String ip, int port, Class<T> messageType) {
+        this(ip, port, messageType, MessageFormat.DEFAULT);
+    }
+
+    public TCPClient(String ip, int port, Class<T> messageType, MessageFormat format) {
         this.ip = ip;
         this.port = port;
         this.messageType = messageType;
+        this.format = format;
     }
 
     @Override
@@ -47,7 +54,7 @@ public class TCPClient<T> extends Client<T> {
         }
 
         try {
-            openTCPConnection(socket, 1, messageType);
+            openTCPConnection(socket, 1, messageType, format);
         } catch (Exception e) {
             // in case we managed to partially open the connection
             disconnect();
@@ -7,6 +7,7 @@
 package com.almasb.fxgl.net.tcp;
 
 import com.almasb.fxgl.logging.Logger;
+import com.almasb.fxgl.net.MessageFormat;
 import com.almasb.fxgl.net.Server;
 
 import java.io.IOException;
@@ -26,11 +27,17 @@ public final class TCPServer<T> extends Server<T> {
 
     private int port;
     private Class<T> messageType;
+    private MessageFormat format;
     private ServerSocket serverSocket;
 
     public TCPServer(int port, Class<T> messageType) {
+        this(port, messageType, MessageFormat.DEFAULT);
+    }
+
+    public TCPServer(int port, Class<T> messageType, MessageFormat format) {
         this.port = port;
         this.messageType = messageType;
+        this.format = format;
     }
 
     @Override
@@ -47,7 +54,7 @@ public final class TCPServer<T> extends Server<T> {
             while (!isStopped) {
                 Socket socket = serverSocket.accept();
 
-                openTCPConnection(socket, connectionNum++, messageType);
+                openTCPConnection(socket, connectionNum++, messageType, format);
             }
 
         } catch (Exception e) {
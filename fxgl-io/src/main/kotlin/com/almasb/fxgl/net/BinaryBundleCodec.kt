@@ -0,0 +1,388 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.net
+
+import com.almasb.fxgl.core.serialization.Bundle
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.ObjectInputStream
+import java.io.ObjectOutputStream
+import java.io.Serializable
+import java.nio.ByteBuffer
+
+/**
+ * Compact binary encoding of [Bundle].
+ *
+ * Values of common types are written with a one byte tag followed by the value:
+ * ints and longs as zigzag varints, floating point numbers as raw bits,
+ * strings as UTF-8, nested bundles recursively.
+ * Values of other types fall back to Java serialization of that value only.
+ *
+ * Bundle names and keys are interned: the first occurrence of a string is written in full
+ * and added to a table, later occurrences only write the table index.
+ * Encoder and decoder must see the same sequence of messages, so an instance must be used
+ * for a single stream, or [reset] before each message if messages may be lost or reordered (e.g. UDP).
+ *
+ * Not thread-safe.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BinaryBundleCodec
+@JvmOverloads constructor(
+
+        /**
+         * Max number of interned strings, after which new strings are always written in full.
+         */
+        private val maxInternedStrings: Int = 4096) {
+
+    companion object {
+
+        /**
+         * Default max size in bytes of a single encoded message sent over TCP.
+         */
+        const val DEFAULT_MAX_MESSAGE_SIZE = 16 * 1024 * 1024
+
+        private const val TAG_INT: Byte = 1
+        private const val TAG_LONG: Byte = 2
+        private const val TAG_DOUBLE: Byte = 3
+        private const val TAG_FLOAT: Byte = 4
+        private const val TAG_TRUE: Byte = 5
+        private const val TAG_FALSE: Byte = 6
+        private const val TAG_BYTE: Byte = 7
+        private const val TAG_SHORT: Byte = 8
+        private const val TAG_CHAR: Byte = 9
+        private const val TAG_STRING: Byte = 10
+        private const val TAG_BUNDLE: Byte = 11
+        private const val TAG_BYTE_ARRAY: Byte = 12
+        private const val TAG_INT_ARRAY: Byte = 13
+        private const val TAG_DOUBLE_ARRAY: Byte = 14
+        private const val TAG_SERIALIZABLE: Byte = 15
+
+        // string references: 0 - literal, added to table; 1 - literal, not added; n - table index n - 2
+        private const val REF_NEW = 0
+        private const val REF_LITERAL = 1
+        private const val REF_OFFSET = 2
+    }
+
+    private val encodeTable = hashMapOf<String, Int>()
+    private val decodeTable = arrayListOf<String>()
+
+    private var out: ByteBuffer = ByteBuffer.allocate(512)
+
+    /**
+     * Clears interned strings.
+     */
+    fun reset() {
+        encodeTable.clear()
+        decodeTable.clear()
+    }
+
+    /**
+     * Encodes [bundle] into an internal buffer, which is reused by the next call.
+     *
+     * @return buffer with the encoded bundle between position 0 and limit
+     */
+    fun encode(bundle: Bundle): ByteBuffer {
+        out.clear()
+
+        writeBundle(bundle)
+
+        out.flip()
+        return out
+    }
+
+    fun decode(buffer: ByteBuffer): Bundle {
+        return readBundle(buffer)
+    }
+
+    private fun writeBundle(bundle: Bundle) {
+        writeInternedString(bundle.name)
+        writeVarInt(bundle.data.size)
+
+        bundle.data.forEach { (key, value) ->
+            writeInternedString(key)
+            writeValue(value)
+        }
+    }
+
+    private fun writeValue(value: Serializable) {
+        when (value) {
+            is Int -> {
+                writeTag(TAG_INT)
+                writeVarInt(zigzag(value))
+            }
+
+            is Long -> {
+                writeTag(TAG_LONG)
+                writeVarLong(zigzag(value))
+            }
+
+            is Double -> {
+                ensureCapacity(9)
+                out.put(TAG_DOUBLE)
+                out.putDouble(value)
+            }
+
+            is Float -> {
+                ensureCapacity(5)
+                out.put(TAG_FLOAT)
+                out.putFloat(value)
+            }
+
+            is Boolean -> writeTag(if (value) TAG_TRUE else TAG_FALSE)
+
+            is Byte -> {
+                ensureCapacity(2)
+                out.put(TAG_BYTE)
+                out.put(value)
+            }
+
+            is Short -> {
+                writeTag(TAG_SHORT)
+                writeVarInt(zigzag(value.toInt()))
+            }
+
+            is Char -> {
+                writeTag(TAG_CHAR)
+                writeVarInt(value.code)
+            }
+
+            is String -> {
+                writeTag(TAG_STRING)
+                writeString(value)
+            }
+
+            is Bundle -> {
+                writeTag(TAG_BUNDLE)
+                writeBundle(value)
+            }
+
+            is ByteArray -> {
+                writeTag(TAG_BYTE_ARRAY)
+                writeBytes(value)
+            }
+
+            is IntArray -> {
+                writeTag(TAG_INT_ARRAY)
+                writeVarInt(value.size)
+                value.forEach { writeVarInt(zigzag(it)) }
+            }
+
+            is DoubleArray -> {
+                writeTag(TAG_DOUBLE_ARRAY)
+                writeVarInt(value.size)
+                ensureCapacity(value.size * 8)
+                value.forEach { out.putDouble(it) }
+            }
+
+            else -> {
+                writeTag(TAG_SERIALIZABLE)
+
+                val baos = ByteArrayOutputStream()
+                ObjectOutputStream(baos).use { it.writeObject(value) }
+                writeBytes(baos.toByteArray())
+            }
+        }
+    }
+
+    private fun readBundle(buffer: ByteBuffer): Bundle {
+        val bundle = Bundle(readInternedString(buffer))
+
+        // each entry has at least a key reference and a tag
+        val size = readSize(buffer, 2)
+
+        for (i in 0 until size) {
+            val key = readInternedString(buffer)
+
+            bundle.put(key, readValue(buffer))
+        }
+
+        return bundle
+    }
+
+    private fun readValue(buffer: ByteBuffer): Serializable {
+        return when (val tag = buffer.get()) {
+            TAG_INT -> unzigzag(readVarInt(buffer))
+            TAG_LONG -> unzigzag(readVarLong(buffer))
+            TAG_DOUBLE -> buffer.getDouble()
+            TAG_FLOAT -> buffer.getFloat()
+            TAG_TRUE -> true
+            TAG_FALSE -> false
+            TAG_BYTE -> buffer.get()
+            TAG_SHORT -> unzigzag(readVarInt(buffer)).toShort()
+            TAG_CHAR -> readVarInt(buffer).toChar()
+            TAG_STRING -> readString(buffer)
+            TAG_BUNDLE -> readBundle(buffer)
+            TAG_BYTE_ARRAY -> readBytes(buffer)
+
+            TAG_INT_ARRAY -> IntArray(readSize(buffer, 1)) { unzigzag(readVarInt(buffer)) }
+
+            TAG_DOUBLE_ARRAY -> DoubleArray(readSize(buffer, 8)) { buffer.getDouble() }
+
+            TAG_SERIALIZABLE -> {
+                ObjectInputStream(ByteArrayInputStream(readBytes(buffer))).use {
+                    it.readObject() as Serializable
+                }
+            }
+
+            else -> throw IllegalArgumentException("Unknown value tag: $tag")
+        }
+    }
+
+    private fun writeInternedString(s: String) {
+        val index = encodeTable[s]
+
+        if (index != null) {
+            writeVarInt(index + REF_OFFSET)
+            return
+        }
+
+        if (encodeTable.size < maxInternedStrings) {
+            encodeTable[s] = encodeTable.size
+            writeVarInt(REF_NEW)
+        } else {
+            writeVarInt(REF_LITERAL)
+        }
+
+        writeString(s)
+    }
+
+    private fun readInternedString(buffer: ByteBuffer): String {
+        return when (val ref = readVarInt(buffer)) {
+            REF_NEW -> readString(buffer).also { decodeTable += it }
+            REF_LITERAL -> readString(buffer)
+            else -> decodeTable.getOrNull(ref - REF_OFFSET) ?: throw IllegalArgumentException("Unknown string reference: $ref")
+        }
+    }
+
+    private fun writeString(s: String) {
+        writeBytes(s.toByteArray(Charsets.UTF_8))
+    }
+
+    private fun readString(buffer: ByteBuffer): String {
+        val length = readSize(buffer, 1)
+
+        if (buffer.hasArray()) {
+            val s = String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, Charsets.UTF_8)
+            buffer.position(buffer.position() + length)
+            return s
+        }
+
+        val bytes = ByteArray(length)
+        buffer.get(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    private fun writeBytes(bytes: ByteArray) {
+        writeVarInt(bytes.size)
+        ensureCapacity(bytes.size)
+        out.put(bytes)
+    }
+
+    private fun readBytes(buffer: ByteBuffer): ByteArray {
+        val bytes = ByteArray(readSize(buffer, 1))
+        buffer.get(bytes)
+        return bytes
+    }
+
+    private fun writeTag(tag: Byte) {
+        ensureCapacity(1)
+        out.put(tag)
+    }
+
+    private fun writeVarInt(value: Int) {
+        ensureCapacity(5)
+
+        var v = value
+        while ((v and 0x7F.inv()) != 0) {
+            out.put(((v and 0x7F) or 0x80).toByte())
+            v = v ushr 7
+        }
+
+        out.put(v.toByte())
+    }
+
+    private fun writeVarLong(value: Long) {
+        ensureCapacity(10)
+
+        var v = value
+        while ((v and 0x7FL.inv()) != 0L) {
+            out.put(((v and 0x7FL) or 0x80L).toByte())
+            v = v ushr 7
+        }
+
+        out.put(v.toByte())
+    }
+
+    /**
+     * Reads a size that was written with [writeVarInt].
+     * Sizes come from the network, so they are checked before anything is allocated.
+     *
+     * @param minBytesPerElement min number of bytes each of the elements takes in [buffer]
+     */
+    private fun readSize(buffer: ByteBuffer, minBytesPerElement: Int): Int {
+        val size = readVarInt(buffer)
+
+        if (size < 0 || size > buffer.remaining() / minBytesPerElement)
+            throw IllegalArgumentException("Invalid size: $size, remaining bytes: ${buffer.remaining()}")
+
+        return size
+    }
+
+    private fun readVarInt(buffer: ByteBuffer): Int {
+        var result = 0
+        var shift = 0
+
+        while (true) {
+            val b = buffer.get().toInt()
+            result = result or ((b and 0x7F) shl shift)
+
+            if ((b and 0x80) == 0)
+                return result
+
+            shift += 7
+
+            if (shift > 28)
+                throw IllegalArgumentException("Malformed varint")
+        }
+    }
+
+    private fun readVarLong(buffer: ByteBuffer): Long {
+        var result = 0L
+        var shift = 0
+
+        while (true) {
+            val b = buffer.get().toLong()
+            result = result or ((b and 0x7FL) shl shift)
+
+            if ((b and 0x80L) == 0L)
+                return result
+
+            shift += 7
+
+            if (shift > 63)
+                throw IllegalArgumentException("Malformed varlong")
+        }
+    }
+
+    private fun zigzag(v: Int) = (v shl 1) xor (v shr 31)
+    private fun zigzag(v: Long) = (v shl 1) xor (v shr 63)
+
+    private fun unzigzag(v: Int) = (v ushr 1) xor -(v and 1)
+    private fun unzigzag(v: Long) = (v ushr 1) xor -(v and 1L)
+
+    private fun ensureCapacity(numBytes: Int) {
+        if (out.remaining() < numBytes) {
+            val newBuffer = ByteBuffer.allocate(maxOf(out.capacity() * 2, out.position() + numBytes))
+
+            out.flip()
+            newBuffer.put(out)
+
+            out = newBuffer
+        }
+    }
+}
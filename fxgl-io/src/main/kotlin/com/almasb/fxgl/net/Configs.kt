@@ -11,22 +11,47 @@ package com.almasb.fxgl.net
  * @author Almas Baimagambetov (almaslvl@gmail.com)
  */
 
-data class ServerConfig<T>(
-        val messageType: Class<T>
+/**
+ * Wire format of messages.
+ * Message readers and writers are registered per message type and format,
+ * types without a reader / writer for the requested format use [DEFAULT].
+ */
+enum class MessageFormat {
+
+    /**
+     * Java serialization for [com.almasb.fxgl.core.serialization.Bundle].
+     */
+    DEFAULT,
+
+    /**
+     * [BinaryBundleCodec] for [com.almasb.fxgl.core.serialization.Bundle].
+     * Both endpoints must use this format.
+     */
+    BINARY
+}
+
+data class ServerConfig<T>
+@JvmOverloads constructor(
+        val messageType: Class<T>,
+        val format: MessageFormat = MessageFormat.DEFAULT
 )
 
-data class ClientConfig<T>(
-        val messageType: Class<T>
+data class ClientConfig<T>
+@JvmOverloads constructor(
+        val messageType: Class<T>,
+        val format: MessageFormat = MessageFormat.DEFAULT
 )
 
 data class UDPServerConfig<T>
 @JvmOverloads constructor(
         val messageType: Class<T>,
-        val bufferSize: Int = 2048
+        val bufferSize: Int = 2048,
+        val format: MessageFormat = MessageFormat.DEFAULT
 )
 
 data class UDPClientConfig<T>
 @JvmOverloads constructor(
         val messageType: Class<T>,
-        val bufferSize: Int = 2048
+        val bufferSize: Int = 2048,
+        val format: MessageFormat = MessageFormat.DEFAULT
 )
\ No newline at end of file
@@ -44,10 +44,10 @@ class NetService : EngineService() {
     }
 
     fun newTCPServer(port: Int): Server<Bundle> = TCPServer(port, Bundle::class.java)
-    fun <T> newTCPServer(port: Int, config: ServerConfig<T>): Server<T> = TCPServer(port, config.messageType)
+    fun <T> newTCPServer(port: Int, config: ServerConfig<T>): Server<T> = TCPServer(port, config.messageType, config.format)
 
     fun newTCPClient(ip: String, port: Int): Client<Bundle> = TCPClient(ip, port, Bundle::class.java)
-    fun <T> newTCPClient(ip: String, port: Int,  config: ClientConfig<T>): Client<T> = TCPClient(ip, port, config.messageType)
+    fun <T> newTCPClient(ip: String, port: Int,  config: ClientConfig<T>): Client<T> = TCPClient(ip, port, config.messageType, config.format)
 
     fun newUDPServer(port: Int): Server<Bundle> = UDPServer(port, UDPServerConfig(Bundle::class.java))
     fun <T> newUDPServer(port: Int, config: UDPServerConfig<T>): Server<T> = UDPServer(port, config)
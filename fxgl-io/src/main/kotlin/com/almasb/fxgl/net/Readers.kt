@@ -9,6 +9,7 @@ package com.almasb.fxgl.net
 import com.almasb.fxgl.core.serialization.Bundle
 import com.almasb.fxgl.logging.Logger
 import java.io.*
+import java.nio.ByteBuffer
 
 
 /**
@@ -35,8 +36,8 @@ interface UDPMessageReader<T> {
 object Readers {
     private val log = Logger.get(javaClass)
 
-    private val tcpReaders = hashMapOf<Class<*>, TCPReaderFactory<*>>()
-    private val udpReaders = hashMapOf<Class<*>, UDPMessageReader<*>>()
+    private val tcpReaders = hashMapOf<Pair<Class<*>, MessageFormat>, TCPReaderFactory<*>>()
+    private val udpReaders = hashMapOf<Pair<Class<*>, MessageFormat>, UDPMessageReader<*>>()
 
     init {
         addTCPReader(Bundle::class.java, object : TCPReaderFactory<Bundle> {
@@ -52,21 +53,44 @@ object Readers {
         })
 
         addUDPReader(Bundle::class.java, BundleUDPMessageReader())
+
+        addTCPReader(Bundle::class.java, MessageFormat.BINARY, object : TCPReaderFactory<Bundle> {
+            override fun create(input: InputStream): TCPMessageReader<Bundle> = BinaryBundleTCPMessageReader(input)
+        })
+
+        addUDPReader(Bundle::class.java, MessageFormat.BINARY, BinaryBundleUDPMessageReader())
     }
 
     fun <T> addTCPReader(type: Class<T>, factory: TCPReaderFactory<T>) {
-        tcpReaders[type] = factory
+        addTCPReader(type, MessageFormat.DEFAULT, factory)
+    }
+
+    fun <T> addTCPReader(type: Class<T>, format: MessageFormat, factory: TCPReaderFactory<T>) {
+        tcpReaders[type to format] = factory
     }
 
     fun <T> addUDPReader(type: Class<T>, reader: UDPMessageReader<T>) {
-        udpReaders[type] = reader
+        addUDPReader(type, MessageFormat.DEFAULT, reader)
+    }
+
+    /**
+     * UDP readers are shared by all connections, so [reader] must be thread-safe.
+     */
+    fun <T> addUDPReader(type: Class<T>, format: MessageFormat, reader: UDPMessageReader<T>) {
+        udpReaders[type to format] = reader
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun <T> getTCPReader(type: Class<T>, inputStream: InputStream): TCPMessageReader<T> {
-        log.debug("Getting TCPMessageReader for $type")
+        return getTCPReader(type, MessageFormat.DEFAULT, inputStream)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    fun <T> getTCPReader(type: Class<T>, format: MessageFormat, inputStream: InputStream): TCPMessageReader<T> {
+        log.debug("Getting TCPMessageReader for $type, format: $format")
 
-        val readerFactory = tcpReaders[type] ?: throw RuntimeException("No reader factory for type: $type")
+        val readerFactory = tcpReaders[type to format]
+                ?: tcpReaders[type to MessageFormat.DEFAULT]
+                ?: throw RuntimeException("No reader factory for type: $type")
 
         val reader = readerFactory.create(inputStream) as TCPMessageReader<T>
 
@@ -75,11 +99,15 @@ object Readers {
         return reader
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun <T> getUDPReader(type: Class<T>): UDPMessageReader<T> {
-        log.debug("Getting UDPMessageReader for $type")
+        return getUDPReader(type, MessageFormat.DEFAULT)
+    }
 
-        val reader = udpReaders[type] as? UDPMessageReader<T>
+    @Suppress("UNCHECKED_CAST")
+    fun <T> getUDPReader(type: Class<T>, format: MessageFormat): UDPMessageReader<T> {
+        log.debug("Getting UDPMessageReader for $type, format: $format")
+
+        val reader = (udpReaders[type to format] ?: udpReaders[type to MessageFormat.DEFAULT]) as? UDPMessageReader<T>
                 ?: throw RuntimeException("No UDP message reader for type: $type")
 
         log.debug("Constructed UDPMessageReader for $type: " + reader.javaClass.simpleName)
@@ -133,4 +161,55 @@ class BundleUDPMessageReader : UDPMessageReader<Bundle> {
             return it.readObject() as Bundle
         }
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Reads length-prefixed messages encoded with [BinaryBundleCodec].
+ * The codec lives as long as the connection, so keys are interned across messages.
+ */
+class BinaryBundleTCPMessageReader
+@JvmOverloads constructor(
+        stream: InputStream,
+
+        /**
+         * Max message size in bytes, larger messages are rejected before anything is allocated.
+         */
+        private val maxMessageSize: Int = BinaryBundleCodec.DEFAULT_MAX_MESSAGE_SIZE) : TCPMessageReader<Bundle> {
+
+    private val stream = DataInputStream(stream)
+    private val codec = BinaryBundleCodec()
+
+    private var buffer = ByteArray(512)
+
+    override fun read(): Bundle {
+        val len = stream.readInt()
+
+        if (len < 0 || len > maxMessageSize)
+            throw IOException("Invalid message length: $len, max: $maxMessageSize")
+
+        if (len > buffer.size) {
+            buffer = ByteArray(maxOf(len, buffer.size * 2))
+        }
+
+        stream.readFully(buffer, 0, len)
+
+        return codec.decode(ByteBuffer.wrap(buffer, 0, len))
+    }
+}
+
+/**
+ * Reads datagrams encoded with [BinaryBundleCodec].
+ * Datagrams may be lost or reordered, so each datagram is decoded on its own.
+ */
+class BinaryBundleUDPMessageReader : UDPMessageReader<Bundle> {
+
+    // shared by all UDP connections, so each receiving thread has its own codec
+    private val codec = ThreadLocal.withInitial { BinaryBundleCodec() }
+
+    override fun read(data: ByteArray): Bundle {
+        val codec = codec.get()
+        codec.reset()
+
+        return codec.decode(ByteBuffer.wrap(data))
+    }
+}
@@ -35,8 +35,8 @@ interface UDPMessageWriter<T> {
 object Writers {
     private val log = Logger.get(javaClass)
 
-    private val tcpWriters = hashMapOf<Class<*>, TCPWriterFactory<*>>()
-    private val udpWriters = hashMapOf<Class<*>, UDPMessageWriter<*>>()
+    private val tcpWriters = hashMapOf<Pair<Class<*>, MessageFormat>, TCPWriterFactory<*>>()
+    private val udpWriters = hashMapOf<Pair<Class<*>, MessageFormat>, UDPMessageWriter<*>>()
 
     init {
         // these are built-in writers
@@ -53,21 +53,43 @@ object Writers {
         })
 
         addUDPWriter(Bundle::class.java, BundleUDPMessageWriter())
+
+        addTCPWriter(Bundle::class.java, MessageFormat.BINARY, object : TCPWriterFactory<Bundle> {
+            override fun create(out: OutputStream): TCPMessageWriter<Bundle> = BinaryBundleTCPMessageWriter(out)
+        })
+
+        addUDPWriter(Bundle::class.java, MessageFormat.BINARY, BinaryBundleUDPMessageWriter())
     }
 
     fun <T> addTCPWriter(type: Class<T>, factory: TCPWriterFactory<T>) {
-        tcpWriters[type] = factory
+        addTCPWriter(type, MessageFormat.DEFAULT, factory)
+    }
+
+    fun <T> addTCPWriter(type: Class<T>, format: MessageFormat, factory: TCPWriterFactory<T>) {
+        tcpWriters[type to format] = factory
     }
 
     fun <T> addUDPWriter(type: Class<T>, writer: UDPMessageWriter<T>) {
-        udpWriters[type] = writer
+        addUDPWriter(type, MessageFormat.DEFAULT, writer)
+    }
+
+    /**
+     * UDP writers are shared by all connections, so [writer] must be thread-safe.
+     */
+    fun <T> addUDPWriter(type: Class<T>, format: MessageFormat, writer: UDPMessageWriter<T>) {
+        udpWriters[type to format] = writer
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun <T> getTCPWriter(type: Class<T>, out: OutputStream): TCPMessageWriter<T> {
-        log.debug("Getting TCPMessageWriter for $type")
+        return getTCPWriter(type, MessageFormat.DEFAULT, out)
+    }
+
+    @Suppress("UNCHECKED_CAST")
+    fun <T> getTCPWriter(type: Class<T>, format: MessageFormat, out: OutputStream): TCPMessageWriter<T> {
+        log.debug("Getting TCPMessageWriter for $type, format: $format")
 
-        val writerFactory = tcpWriters[type]
+        val writerFactory = tcpWriters[type to format]
+                ?: tcpWriters[type to MessageFormat.DEFAULT]
                 ?: throw RuntimeException("No TCP message writer factory for type: $type")
 
         val writer = writerFactory.create(out) as TCPMessageWriter<T>
@@ -77,11 +99,15 @@ object Writers {
         return writer
     }
 
-    @Suppress("UNCHECKED_CAST")
     fun <T> getUDPWriter(type: Class<T>): UDPMessageWriter<T> {
-        log.debug("Getting UDPMessageWriter for $type")
+        return getUDPWriter(type, MessageFormat.DEFAULT)
+    }
 
-        val writer = udpWriters[type] as? UDPMessageWriter<T>
+    @Suppress("UNCHECKED_CAST")
+    fun <T> getUDPWriter(type: Class<T>, format: MessageFormat): UDPMessageWriter<T> {
+        log.debug("Getting UDPMessageWriter for $type, format: $format")
+
+        val writer = (udpWriters[type to format] ?: udpWriters[type to MessageFormat.DEFAULT]) as? UDPMessageWriter<T>
                 ?: throw RuntimeException("No UDP message writer for type: $type")
 
         log.debug("Constructed UDPMessageWriter for $type: " + writer.javaClass.simpleName)
@@ -128,4 +154,66 @@ class BundleUDPMessageWriter : UDPMessageWriter<Bundle> {
         ObjectOutputStream(baos).use { it.writeObject(data) }
         return baos.toByteArray()
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Writes length-prefixed messages encoded with [BinaryBundleCodec].
+ * The codec lives as long as the connection, so keys are interned across messages.
+ */
+class BinaryBundleTCPMessageWriter
+@JvmOverloads constructor(
+        private val out: OutputStream,
+
+        /**
+         * Max message size in bytes, must not exceed that of the reader.
+         */
+        private val maxMessageSize: Int = BinaryBundleCodec.DEFAULT_MAX_MESSAGE_SIZE) : TCPMessageWriter<Bundle> {
+
+    private val codec = BinaryBundleCodec()
+
+    private var frame = ByteArray(512)
+
+    override fun write(message: Bundle) {
+        val buffer = codec.encode(message)
+        val len = buffer.remaining()
+
+        // the reader would reject it, strings of the message are already interned, so the connection cannot be used after this
+        if (len > maxMessageSize)
+            throw IOException("Message of ${message.name} is too large: $len bytes, max: $maxMessageSize")
+
+        if (len + 4 > frame.size) {
+            frame = ByteArray(maxOf(len + 4, frame.size * 2))
+        }
+
+        // same length prefix as DataOutputStream.writeInt(), written together with the message in a single call
+        frame[0] = (len ushr 24).toByte()
+        frame[1] = (len ushr 16).toByte()
+        frame[2] = (len ushr 8).toByte()
+        frame[3] = len.toByte()
+
+        buffer.get(frame, 4, len)
+
+        out.write(frame, 0, len + 4)
+    }
+}
+
+/**
+ * Writes datagrams encoded with [BinaryBundleCodec].
+ * Datagrams may be lost or reordered, so each datagram is encoded on its own.
+ */
+class BinaryBundleUDPMessageWriter : UDPMessageWriter<Bundle> {
+
+    // shared by all UDP connections, so each sending thread has its own codec
+    private val codec = ThreadLocal.withInitial { BinaryBundleCodec() }
+
+    override fun write(data: Bundle): ByteArray {
+        val codec = codec.get()
+        codec.reset()
+
+        val buffer = codec.encode(data)
+
+        val bytes = ByteArray(buffer.remaining())
+        buffer.get(bytes)
+        return bytes
+    }
+}
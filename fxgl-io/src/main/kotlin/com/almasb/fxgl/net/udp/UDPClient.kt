@@ -42,7 +42,7 @@ class UDPClient<T>(val ip: String, val port: Int, private val config: UDPClientC
             if (connection == null) {
                 connection = UDPConnection<T>(it, ip, port, config.bufferSize, 1)
 
-                openUDPConnection(connection, config.messageType)
+                openUDPConnection(connection, config.messageType, config.format)
 
                 // send opening message to server, so server has our ip and port
                 val packet = DatagramPacket(MESSAGE_OPEN, MESSAGE_OPEN.size)
@@ -60,7 +60,7 @@ class UDPServer<T>(val port: Int, private val config: UDPServerConfig<T>) : Serv
                     if (connection == null || isOpeningPacket) {
                         connection = UDPConnection<T>(it, remoteIP, remotePort, config.bufferSize, connectionNum++)
 
-                        openUDPConnection(connection, config.messageType)
+                        openUDPConnection(connection, config.messageType, config.format)
                     }
 
                     val isClosingPacket = equals(copyOfRange(packet.data, 0, MESSAGE_CLOSE.size), MESSAGE_CLOSE)
@@ -0,0 +1,198 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.net
+
+import com.almasb.fxgl.core.serialization.Bundle
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataOutputStream
+import java.io.IOException
+import java.nio.ByteBuffer
+
+/**
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class BinaryBundleCodecTest {
+
+    private enum class Direction {
+        LEFT, RIGHT
+    }
+
+    @Test
+    fun `Encode and decode all value types`() {
+        val inner = Bundle("inner")
+        inner.put("x", 15.5)
+
+        val bundle = Bundle("test")
+        bundle.put("int", -300)
+        bundle.put("intMax", Int.MAX_VALUE)
+        bundle.put("long", Long.MIN_VALUE)
+        bundle.put("double", 0.1)
+        bundle.put("float", 2.5f)
+        bundle.put("true", true)
+        bundle.put("false", false)
+        bundle.put("byte", (-5).toByte())
+        bundle.put("short", (-1000).toShort())
+        bundle.put("char", 'Ж')
+        bundle.put("string", "Hello Wörld")
+        bundle.put("bundle", inner)
+        bundle.put("bytes", byteArrayOf(1, 2, 3))
+        bundle.put("ints", intArrayOf(-1, 0, 1_000_000))
+        bundle.put("doubles", doubleArrayOf(1.0, -2.0))
+        bundle.put("enum", Direction.RIGHT)
+        bundle.put("list", arrayListOf("a", "b"))
+
+        val codec = BinaryBundleCodec()
+        val result = codec.decode(codec.encode(bundle))
+
+        assertThat(result.name, `is`("test"))
+        assertThat(result.data.keys, `is`(bundle.data.keys))
+
+        assertThat(result.get<Int>("int"), `is`(-300))
+        assertThat(result.get<Int>("intMax"), `is`(Int.MAX_VALUE))
+        assertThat(result.get<Long>("long"), `is`(Long.MIN_VALUE))
+        assertThat(result.get<Double>("double"), `is`(0.1))
+        assertThat(result.get<Float>("float"), `is`(2.5f))
+        assertThat(result.get<Boolean>("true"), `is`(true))
+        assertThat(result.get<Boolean>("false"), `is`(false))
+        assertThat(result.get<Byte>("byte"), `is`((-5).toByte()))
+        assertThat(result.get<Short>("short"), `is`((-1000).toShort()))
+        assertThat(result.get<Char>("char"), `is`('Ж'))
+        assertThat(result.get<String>("string"), `is`("Hello Wörld"))
+        assertThat(result.get<Bundle>("bundle").name, `is`("inner"))
+        assertThat(result.get<Bundle>("bundle").get<Double>("x"), `is`(15.5))
+        assertThat(result.get<ByteArray>("bytes").toList(), contains<Byte>(1, 2, 3))
+        assertThat(result.get<IntArray>("ints").toList(), contains(-1, 0, 1_000_000))
+        assertThat(result.get<DoubleArray>("doubles").toList(), contains(1.0, -2.0))
+        assertThat(result.get<Direction>("enum"), `is`(Direction.RIGHT))
+        assertThat(result.get<List<String>>("list"), contains("a", "b"))
+    }
+
+    @Test
+    fun `Keys are interned across messages`() {
+        val encoder = BinaryBundleCodec()
+        val decoder = BinaryBundleCodec()
+
+        val size1 = roundTrip(encoder, decoder, position(1.0, 2.0))
+        val size2 = roundTrip(encoder, decoder, position(3.0, 4.0))
+
+        assertThat(size2, lessThan(size1))
+
+        // smaller than java serialization by an order of magnitude
+        val baos = ByteArrayOutputStream()
+        BundleTCPMessageWriter(baos).write(position(3.0, 4.0))
+
+        assertThat(size2 * 10, lessThan(baos.size()))
+    }
+
+    @Test
+    fun `Strings are written in full after max interned strings`() {
+        val encoder = BinaryBundleCodec(1)
+        val decoder = BinaryBundleCodec(1)
+
+        roundTrip(encoder, decoder, position(1.0, 2.0))
+        roundTrip(encoder, decoder, position(3.0, 4.0))
+    }
+
+    @Test
+    fun `TCP writer and reader`() {
+        val out = ByteArrayOutputStream()
+        val writer = Writers.getTCPWriter(Bundle::class.java, MessageFormat.BINARY, out)
+
+        repeat(3) {
+            writer.write(position(it.toDouble(), 0.0))
+        }
+
+        val reader = Readers.getTCPReader(Bundle::class.java, MessageFormat.BINARY, ByteArrayInputStream(out.toByteArray()))
+
+        repeat(3) {
+            assertThat(reader.read().get<Double>("x"), `is`(it.toDouble()))
+        }
+    }
+
+    @Test
+    fun `UDP writer and reader do not depend on previous messages`() {
+        val writer = Writers.getUDPWriter(Bundle::class.java, MessageFormat.BINARY)
+        val reader = Readers.getUDPReader(Bundle::class.java, MessageFormat.BINARY)
+
+        val data1 = writer.write(position(1.0, 2.0))
+        val data2 = writer.write(position(3.0, 4.0))
+
+        // received out of order
+        assertThat(reader.read(data2).get<Double>("x"), `is`(3.0))
+        assertThat(reader.read(data1).get<Double>("x"), `is`(1.0))
+    }
+
+    @Test
+    fun `Formats without a registered reader use the default one`() {
+        val out = ByteArrayOutputStream()
+
+        Writers.getTCPWriter(String::class.java, MessageFormat.BINARY, out).write("Hi")
+
+        val reader = Readers.getTCPReader(String::class.java, MessageFormat.BINARY, ByteArrayInputStream(out.toByteArray()))
+
+        assertThat(reader.read(), `is`("Hi"))
+    }
+
+    @Test
+    fun `Invalid lengths are rejected before allocating`() {
+        for (len in intArrayOf(-1, Int.MAX_VALUE)) {
+            val out = ByteArrayOutputStream()
+            DataOutputStream(out).writeInt(len)
+
+            val reader = BinaryBundleTCPMessageReader(ByteArrayInputStream(out.toByteArray()))
+
+            assertThrows(IOException::class.java) { reader.read() }
+        }
+
+        val out = ByteArrayOutputStream()
+        val writer = BinaryBundleTCPMessageWriter(out, 16)
+
+        assertThrows(IOException::class.java) { writer.write(position(1.0, 2.0)) }
+        assertThat(out.size(), `is`(0))
+
+        // bundle "b" with key "k" and an int array that claims Int.MAX_VALUE elements
+        val data = byteArrayOf(0, 1, 'b'.code.toByte(), 1, 0, 1, 'k'.code.toByte(), 13, -1, -1, -1, -1, 7)
+
+        assertThrows(IllegalArgumentException::class.java) { BinaryBundleCodec().decode(ByteBuffer.wrap(data)) }
+
+        // negative string length
+        val negative = byteArrayOf(0, -1, -1, -1, -1, 15)
+
+        assertThrows(IllegalArgumentException::class.java) { BinaryBundleCodec().decode(ByteBuffer.wrap(negative)) }
+    }
+
+    private fun roundTrip(encoder: BinaryBundleCodec, decoder: BinaryBundleCodec, bundle: Bundle): Int {
+        val buffer = encoder.encode(bundle)
+        val size = buffer.remaining()
+
+        // copy, since the encoder reuses its buffer
+        val copy = ByteBuffer.allocate(size)
+        copy.put(buffer)
+        copy.flip()
+
+        val result = decoder.decode(copy)
+
+        assertThat(result.name, `is`(bundle.name))
+        assertThat(result.get<Double>("x"), `is`(bundle.get<Double>("x")))
+        assertThat(result.get<Double>("y"), `is`(bundle.get<Double>("y")))
+
+        return size
+    }
+
+    private fun position(x: Double, y: Double): Bundle {
+        val bundle = Bundle("position")
+        bundle.put("x", x)
+        bundle.put("y", y)
+        bundle.put("id", 42L)
+        return bundle
+    }
+}
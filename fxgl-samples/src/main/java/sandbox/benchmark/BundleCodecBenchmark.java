@@ -0,0 +1,106 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.serialization.Bundle;
+import com.almasb.fxgl.net.MessageFormat;
+import com.almasb.fxgl.net.Readers;
+import com.almasb.fxgl.net.UDPMessageReader;
+import com.almasb.fxgl.net.UDPMessageWriter;
+import com.almasb.fxgl.net.Writers;
+
+/**
+ * A headless benchmark that compares the default (Java serialization) and the binary
+ * bundle formats on a position update message, as sent by the multiplayer service every frame.
+ * Reports bytes per message and the time to encode and decode a message.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class BundleCodecBenchmark {
+
+    private static final int WARMUP_MESSAGES = 50_000;
+    private static final int MESSAGES = 200_000;
+
+    // consumes results, so that the work is not optimized away
+    private static long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %15s %15s %15s%n", "format", "bytes / msg", "encode ns", "decode ns");
+
+        // run twice, so that the second pass is measured with a warm JIT in both formats
+        for (int pass = 0; pass < 2; pass++) {
+            for (MessageFormat format : MessageFormat.values()) {
+                run(format);
+            }
+        }
+    }
+
+    private static void run(MessageFormat format) {
+        UDPMessageWriter<Bundle> writer = Writers.INSTANCE.getUDPWriter(Bundle.class, format);
+        UDPMessageReader<Bundle> reader = Readers.INSTANCE.getUDPReader(Bundle.class, format);
+
+        var messages = new Bundle[1024];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = newMessage(i);
+        }
+
+        var data = new byte[messages.length][];
+
+        long checksum = 0;
+
+        for (int i = 0; i < WARMUP_MESSAGES; i++) {
+            int index = i % messages.length;
+
+            data[index] = writer.write(messages[index]);
+            checksum += reader.read(data[index]).<Integer>get("frame");
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            int index = i % messages.length;
+
+            data[index] = writer.write(messages[index]);
+        }
+
+        long encodeTime = System.nanoTime() - start;
+
+        start = System.nanoTime();
+
+        for (int i = 0; i < MESSAGES; i++) {
+            checksum += reader.read(data[i % messages.length]).<Integer>get("frame");
+        }
+
+        long decodeTime = System.nanoTime() - start;
+
+        long numBytes = 0;
+        for (byte[] bytes : data) {
+            numBytes += bytes.length;
+        }
+
+        sink += checksum;
+
+        System.out.printf("%-10s %15d %15d %15d%n",
+                format.toString().toLowerCase(),
+                numBytes / data.length,
+                encodeTime / MESSAGES,
+                decodeTime / MESSAGES
+        );
+    }
+
+    private static Bundle newMessage(int frame) {
+        var bundle = new Bundle("ENTITY_UPDATES");
+        bundle.put("frame", frame);
+        bundle.put("networkID", 1000L + frame % 32);
+        bundle.put("x", 125.5 + frame);
+        bundle.put("y", 330.25 - frame);
+        bundle.put("rotation", (frame % 360) * 1.0);
+        bundle.put("isVisible", true);
+        return bundle;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.entity.components.CollidableComponent;
+import com.almasb.fxgl.physics.BoundingShape;
+import com.almasb.fxgl.physics.CollisionDetectionStrategy;
+import com.almasb.fxgl.physics.CollisionHandler;
+import com.almasb.fxgl.physics.HitBox;
+import com.almasb.fxgl.physics.PhysicsWorld;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A headless benchmark that compares collision detection strategies
+ * with a mixed population: most entities are static, the rest move every frame.
+ * The world grows with the number of entities, so the density stays the same.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class CollisionDetectionBenchmark {
+
+    private static final int[] NUM_ENTITIES = { 1_000, 10_000, 50_000 };
+
+    private static final double DYNAMIC_RATIO = 0.3;
+    private static final double ENTITY_SIZE = 32.0;
+
+    private static final int WARMUP_FRAMES = 10;
+
+    // measurement stops after this many frames or this much time, whichever comes first
+    private static final int MAX_FRAMES = 100;
+    private static final long MAX_NANOS = 10_000_000_000L;
+
+    private enum Type {
+        UNIT, WALL
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-15s %10s %15s %15s%n", "strategy", "entities", "ms / frame", "collisions");
+
+        for (int numEntities : NUM_ENTITIES) {
+            for (CollisionDetectionStrategy strategy : CollisionDetectionStrategy.values()) {
+                run(strategy, numEntities);
+            }
+        }
+    }
+
+    private static void run(CollisionDetectionStrategy strategy, int numEntities) {
+        var random = new Random(225L);
+
+        // keep roughly the same density regardless of the number of entities
+        double worldSize = Math.sqrt(numEntities) * ENTITY_SIZE * 3;
+
+        var gameWorld = new GameWorld();
+        var physicsWorld = new PhysicsWorld((int) worldSize, 50.0, strategy);
+        gameWorld.addWorldListener(physicsWorld);
+
+        int[] numCollisions = { 0 };
+
+        physicsWorld.addCollisionHandler(new CollisionHandler(Type.UNIT, Type.UNIT) {
+            @Override
+            protected void onCollision(Entity a, Entity b) {
+                numCollisions[0]++;
+            }
+        });
+
+        physicsWorld.addCollisionHandler(new CollisionHandler(Type.UNIT, Type.WALL) {
+            @Override
+            protected void onCollision(Entity a, Entity b) {
+                numCollisions[0]++;
+            }
+        });
+
+        List<Entity> movers = new ArrayList<>();
+        List<double[]> velocities = new ArrayList<>();
+
+        for (int i = 0; i < numEntities; i++) {
+            boolean isDynamic = random.nextDouble() < DYNAMIC_RATIO;
+
+            var e = new Entity();
+            e.setType(isDynamic ? Type.UNIT : Type.WALL);
+            e.setPosition(random.nextDouble() * (worldSize - ENTITY_SIZE), random.nextDouble() * (worldSize - ENTITY_SIZE));
+            e.getBoundingBoxComponent().addHitBox(new HitBox(BoundingShape.box(ENTITY_SIZE, ENTITY_SIZE)));
+            e.addComponent(new CollidableComponent(true));
+
+            gameWorld.addEntity(e);
+
+            if (isDynamic) {
+                movers.add(e);
+                velocities.add(new double[] { random.nextDouble() * 4 - 2, random.nextDouble() * 4 - 2 });
+            }
+        }
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            step(gameWorld, physicsWorld, movers, velocities, worldSize);
+        }
+
+        numCollisions[0] = 0;
+
+        int frames = 0;
+        long start = System.nanoTime();
+
+        while (frames < MAX_FRAMES && System.nanoTime() - start < MAX_NANOS) {
+            step(gameWorld, physicsWorld, movers, velocities, worldSize);
+            frames++;
+        }
+
+        double msPerFrame = (System.nanoTime() - start) / 1_000_000.0 / frames;
+
+        System.out.printf("%-15s %10d %15.3f %15d%n", strategy, numEntities, msPerFrame, numCollisions[0] / frames);
+    }
+
+    private static void step(GameWorld gameWorld, PhysicsWorld physicsWorld, List<Entity> movers, List<double[]> velocities, double worldSize) {
+        for (int i = 0; i < movers.size(); i++) {
+            var e = movers.get(i);
+            var v = velocities.get(i);
+
+            if (e.getX() + v[0] < 0 || e.getX() + v[0] > worldSize - ENTITY_SIZE)
+                v[0] = -v[0];
+
+            if (e.getY() + v[1] < 0 || e.getY() + v[1] > worldSize - ENTITY_SIZE)
+                v[1] = -v[1];
+
+            e.translate(v[0], v[1]);
+        }
+
+        gameWorld.onUpdate(0.016);
+        physicsWorld.onUpdate(0.016);
+    }
+}
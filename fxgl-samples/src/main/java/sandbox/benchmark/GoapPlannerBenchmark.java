@@ -0,0 +1,103 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.ai.goap.GoapAction;
+import com.almasb.fxgl.ai.goap.GoapPlanner;
+import com.almasb.fxgl.ai.goap.GoapPlannerMode;
+import com.almasb.fxgl.core.collection.PropertyMap;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * A headless benchmark of the exhaustive and A* GOAP planners with a growing number of actions.
+ * The goal needs a chain of a few actions, all other actions are usable at any time but do not help,
+ * which is the worst case for the exhaustive planner.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class GoapPlannerBenchmark {
+
+    private static final int CHAIN_LENGTH = 3;
+
+    private static final int[] ACTION_COUNTS = { 4, 6, 8, 9, 10, 11, 12, 16, 24, 32, 64 };
+
+    /**
+     * The exhaustive planner is not run for larger action counts once a single plan takes longer than this.
+     */
+    private static final long EXHAUSTIVE_LIMIT_MS = 2000;
+
+    private static final int WARMUP_PLANS = 20;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %15s %15s%n", "actions", "exhaustive ms", "A* ms");
+
+        // warm up both planners on small inputs
+        for (int i = 0; i < WARMUP_PLANS; i++) {
+            run(6, GoapPlannerMode.EXHAUSTIVE);
+            run(6, GoapPlannerMode.A_STAR);
+        }
+
+        boolean isExhaustiveEnabled = true;
+
+        for (int numActions : ACTION_COUNTS) {
+            double exhaustiveMs = -1;
+
+            if (isExhaustiveEnabled) {
+                exhaustiveMs = run(numActions, GoapPlannerMode.EXHAUSTIVE);
+
+                isExhaustiveEnabled = exhaustiveMs < EXHAUSTIVE_LIMIT_MS;
+            }
+
+            double aStarMs = run(numActions, GoapPlannerMode.A_STAR);
+
+            System.out.printf("%-10d %15s %15.3f%n",
+                    numActions,
+                    exhaustiveMs < 0 ? "-" : String.format("%.3f", exhaustiveMs),
+                    aStarMs
+            );
+        }
+    }
+
+    private static double run(int numActions, GoapPlannerMode mode) {
+        Set<GoapAction> actions = new LinkedHashSet<>();
+
+        for (int i = 0; i < CHAIN_LENGTH; i++) {
+            var step = new GoapAction("step" + i);
+
+            if (i > 0)
+                step.addPrecondition("step" + (i - 1), true);
+
+            step.addEffect("step" + i, true);
+
+            actions.add(step);
+        }
+
+        for (int i = CHAIN_LENGTH; i < numActions; i++) {
+            var other = new GoapAction("other" + i);
+            other.addEffect("other" + i, true);
+
+            actions.add(other);
+        }
+
+        var goal = new PropertyMap();
+        goal.setValue("step" + (CHAIN_LENGTH - 1), true);
+
+        long start = System.nanoTime();
+
+        var plan = GoapPlanner.INSTANCE.plan(actions, new PropertyMap(), goal, mode);
+
+        long time = System.nanoTime() - start;
+
+        if (plan.size() != CHAIN_LENGTH)
+            throw new IllegalStateException("Unexpected plan: " + plan);
+
+        return time / 1_000_000.0;
+    }
+}
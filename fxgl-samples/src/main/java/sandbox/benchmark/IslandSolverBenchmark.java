@@ -0,0 +1,101 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyDef;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyType;
+import com.almasb.fxgl.physics.box2d.dynamics.World;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A headless benchmark that steps a Box2D world with many separate piles of boxes
+ * on a shared static ground, with islands solved serially and in parallel on the common pool.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class IslandSolverBenchmark {
+
+    private static final int[] PILE_COUNTS = { 50, 200, 800 };
+    private static final int BOXES_PER_PILE = 8;
+
+    private static final int WARMUP_STEPS = 60;
+    private static final int STEPS = 240;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %10s %10s %15s%n", "mode", "bodies", "contacts", "islands", "ms / step");
+
+        // run twice, so that the second pass is measured with a warm JIT in all modes
+        for (int pass = 0; pass < 2; pass++) {
+            for (int piles : PILE_COUNTS) {
+                run(piles, false);
+                run(piles, true);
+            }
+        }
+    }
+
+    private static void run(int piles, boolean isParallel) {
+        var world = new World(new Vec2(0, -10f));
+
+        // keep all islands awake, so that each step solves the same amount of work
+        world.setSleepingAllowed(false);
+
+        if (isParallel)
+            world.setIslandParallelPool(ForkJoinPool.commonPool());
+
+        createPiles(world, piles);
+
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        double msPerStep = (System.nanoTime() - start) / 1_000_000.0 / STEPS;
+
+        System.out.printf("%-10s %10d %10d %10s %15.3f%n",
+                isParallel ? "parallel" : "serial",
+                world.getBodyCount(),
+                world.getContactCount(),
+                isParallel ? String.valueOf(world.getParallelIslandCount()) : "-",
+                msPerStep
+        );
+    }
+
+    private static void createPiles(World world, int piles) {
+        float spacing = 2.5f;
+        float halfWidth = piles * spacing / 2 + 5;
+
+        var ground = world.createBody(new BodyDef());
+
+        var groundShape = new PolygonShape();
+        groundShape.setAsBox(halfWidth, 0.5f, new Vec2(0, -0.5f), 0);
+        ground.createFixture(groundShape, 0);
+
+        var box = new PolygonShape();
+        box.setAsBox(0.5f, 0.5f);
+
+        for (int i = 0; i < piles; i++) {
+            float x = -halfWidth + 5 + i * spacing;
+
+            for (int j = 0; j < BOXES_PER_PILE; j++) {
+                var def = new BodyDef();
+                def.setType(BodyType.DYNAMIC);
+                def.setPosition(new Vec2(x, 0.5f + j * 1.05f));
+
+                world.createBody(def).createFixture(box, 1);
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.CellState;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.AStarGrid;
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder;
+import com.almasb.fxgl.pathfinding.astar.HierarchicalPathfinder;
+import com.almasb.fxgl.pathfinding.astar.JumpPointSearchPathfinder;
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid;
+import com.almasb.fxgl.pathfinding.dungeon.DungeonConfig;
+import com.almasb.fxgl.pathfinding.dungeon.DungeonGrid;
+
+import java.util.List;
+import java.util.Random;
+import java.util.function.IntSupplier;
+
+/**
+ * A headless benchmark of A*, Jump Point Search and HPA* queries between random walkable cells
+ * on large grids with uniform movement costs.
+ * Reports latency and the number of expanded cells per query.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class LargeGridPathfindingBenchmark {
+
+    private static final int GRID_SIZE = 1024;
+
+    private static final int WARMUP_QUERIES = 20;
+    private static final int QUERIES = 100;
+
+    public static void main(String[] args) {
+        var open = new AStarGrid(GRID_SIZE, GRID_SIZE);
+
+        var obstacles = new AStarGrid(GRID_SIZE, GRID_SIZE);
+        var random = new Random(225L);
+        obstacles.forEach(c -> {
+            if (random.nextDouble() < 0.2)
+                c.setState(CellState.NOT_WALKABLE);
+        });
+
+        var dungeon = new DungeonGrid(GRID_SIZE, GRID_SIZE, new DungeonConfig(new Random(225L), 150, 10, 60, 10, 60));
+
+        System.out.printf("%-10s %12s %10s %15s %15s %12s%n", "grid", "pathfinder", "directions", "ms / query", "expanded", "avg path");
+
+        for (var direction : NeighborDirection.values()) {
+            run("open", open, direction);
+            run("obstacles", obstacles, direction);
+            run("dungeon", dungeon, direction);
+        }
+    }
+
+    private static <T extends AStarCell> void run(String name, TraversableGrid<T> grid, NeighborDirection direction) {
+        List<T> cells = grid.getWalkableCells();
+
+        var random = new Random(225L);
+
+        int[] queries = new int[(WARMUP_QUERIES + QUERIES) * 2];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(cells.size());
+        }
+
+        var astar = new AStarPathfinder<>(grid);
+        var jps = new JumpPointSearchPathfinder<>(grid);
+
+        long start = System.nanoTime();
+        var hpa = new HierarchicalPathfinder<>(grid);
+        double hpaBuildMs = (System.nanoTime() - start) / 1_000_000.0;
+
+        measure(name, "A*", direction, cells, queries, (s, t) -> astar.findPath(s.getX(), s.getY(), t.getX(), t.getY(), direction), astar::getNumExpandedCells);
+        measure(name, "JPS", direction, cells, queries, (s, t) -> jps.findPath(s.getX(), s.getY(), t.getX(), t.getY(), direction), jps::getNumExpandedCells);
+        measure(name, "HPA*", direction, cells, queries, (s, t) -> hpa.findPath(s.getX(), s.getY(), t.getX(), t.getY(), direction), hpa::getNumExpandedCells);
+
+        System.out.printf("%-10s %12s %10s %15.3f (entrances, %d abstract nodes)%n", name, "HPA* build", "", hpaBuildMs, hpa.getNumAbstractNodes());
+    }
+
+    private interface Query<T> {
+        List<T> findPath(T source, T target);
+    }
+
+    private static <T extends AStarCell> void measure(String name, String pathfinderName, NeighborDirection direction,
+                                                      List<T> cells, int[] queries,
+                                                      Query<T> query, IntSupplier numExpanded) {
+        // warmup also computes cached cluster edges of HPA* along the way
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query.findPath(cells.get(queries[i * 2]), cells.get(queries[i * 2 + 1]));
+        }
+
+        long totalLength = 0;
+        long totalExpanded = 0;
+        long totalNanos = 0;
+
+        for (int i = WARMUP_QUERIES; i < WARMUP_QUERIES + QUERIES; i++) {
+            var source = cells.get(queries[i * 2]);
+            var target = cells.get(queries[i * 2 + 1]);
+
+            long start = System.nanoTime();
+
+            totalLength += query.findPath(source, target).size();
+
+            totalNanos += System.nanoTime() - start;
+            totalExpanded += numExpanded.getAsInt();
+        }
+
+        System.out.printf("%-10s %12s %10s %15.3f %15d %12d%n",
+                name,
+                pathfinderName,
+                direction == NeighborDirection.FOUR_DIRECTIONS ? 4 : 8,
+                totalNanos / 1_000_000.0 / QUERIES,
+                totalExpanded / QUERIES,
+                totalLength / QUERIES
+        );
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.math.Vec2;
+import com.almasb.fxgl.physics.box2d.collision.shapes.PolygonShape;
+import com.almasb.fxgl.physics.box2d.dynamics.BodyDef;
+import com.almasb.fxgl.physics.box2d.dynamics.World;
+import com.almasb.fxgl.physics.box2d.particle.ParticleGroupDef;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A headless benchmark that steps a Box2D world with a block of liquid particles
+ * falling into a static container, with particle contacts solved serially
+ * and in parallel on the common pool.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class LiquidParticleBenchmark {
+
+    private static final float PARTICLE_RADIUS = 0.1f;
+
+    /**
+     * Half sizes of the liquid block, particles are spaced by 0.75 * diameter,
+     * so these give roughly 10k, 25k and 50k particles.
+     */
+    private static final float[] BLOCK_HALF_SIZES = { 7.5f, 12f, 17f };
+
+    private static final int WARMUP_STEPS = 30;
+    private static final int STEPS = 120;
+
+    public static void main(String[] args) {
+        System.out.printf("%-10s %10s %12s %15s%n", "mode", "particles", "contacts", "ms / step");
+
+        // run twice, so that the second pass is measured with a warm JIT in all modes
+        for (int pass = 0; pass < 2; pass++) {
+            for (float halfSize : BLOCK_HALF_SIZES) {
+                run(halfSize, false);
+                run(halfSize, true);
+            }
+        }
+    }
+
+    private static void run(float halfSize, boolean isParallel) {
+        var world = new World(new Vec2(0, -10f));
+        world.setParticleRadius(PARTICLE_RADIUS);
+
+        if (isParallel)
+            world.setParticleParallelPool(ForkJoinPool.commonPool());
+
+        createContainer(world, halfSize * 1.5f);
+
+        var shape = new PolygonShape();
+        shape.setAsBox(halfSize, halfSize);
+
+        var def = new ParticleGroupDef();
+        def.setShape(shape);
+        def.setPosition(0, halfSize);
+
+        world.createParticleGroup(def);
+
+        for (int i = 0; i < WARMUP_STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < STEPS; i++) {
+            world.step(1 / 60f, 8, 3);
+        }
+
+        double msPerStep = (System.nanoTime() - start) / 1_000_000.0 / STEPS;
+
+        System.out.printf("%-10s %10d %12d %15.3f%n",
+                isParallel ? "parallel" : "serial",
+                world.getParticleCount(),
+                world.getParticleContactCount(),
+                msPerStep
+        );
+    }
+
+    private static void createContainer(World world, float halfWidth) {
+        var body = world.createBody(new BodyDef());
+
+        var ground = new PolygonShape();
+        ground.setAsBox(halfWidth, 0.5f, new Vec2(0, -0.5f), 0);
+        body.createFixture(ground, 0);
+
+        var left = new PolygonShape();
+        left.setAsBox(0.5f, halfWidth * 2, new Vec2(-halfWidth - 0.5f, halfWidth * 2), 0);
+        body.createFixture(left, 0);
+
+        var right = new PolygonShape();
+        right.setAsBox(0.5f, halfWidth * 2, new Vec2(halfWidth + 0.5f, halfWidth * 2), 0);
+        body.createFixture(right, 0);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.app.GameApplication;
+import com.almasb.fxgl.app.GameSettings;
+import com.almasb.fxgl.core.math.FXGLMath;
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.particle.ParticleComponent;
+import com.almasb.fxgl.particle.ParticleEmitter;
+import com.almasb.fxgl.particle.ParticleRenderMode;
+import javafx.geometry.Point2D;
+import javafx.scene.effect.BlendMode;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Text;
+import javafx.util.Duration;
+
+import static com.almasb.fxgl.dsl.FXGL.*;
+
+/**
+ * Shows 1k, 10k and 50k particles rendered as a node per particle and onto a single canvas.
+ * Each run is measured for a few seconds after warm up and the results are printed when all runs are done.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class ParticleRenderBenchmark extends GameApplication {
+
+    private static final int[] NUM_PARTICLES = { 1_000, 10_000, 50_000 };
+
+    private static final double WARMUP_SECONDS = 2.0;
+    private static final double RUN_SECONDS = 5.0;
+
+    private final StringBuilder results = new StringBuilder(String.format("%-8s %10s %10s %10s %15s%n", "mode", "target", "alive", "fps", "update ms"));
+
+    private Text text;
+
+    private int run = 0;
+
+    private Entity emitterEntity;
+    private ParticleComponent particles;
+
+    private double time;
+    private int frames;
+    private long cpuNanos;
+    private long aliveParticles;
+
+    @Override
+    protected void initSettings(GameSettings settings) {
+        settings.setWidth(1280);
+        settings.setHeight(720);
+        settings.setTitle("ParticleRenderBenchmark");
+    }
+
+    @Override
+    protected void initGame() {
+        getGameScene().setBackgroundColor(Color.BLACK);
+    }
+
+    @Override
+    protected void initUI() {
+        text = getUIFactoryService().newText("", Color.WHITE, 16);
+
+        addUINode(text, 20, 30);
+
+        startRun();
+    }
+
+    @Override
+    protected void onUpdate(double tpf) {
+        if (particles == null)
+            return;
+
+        time += tpf;
+
+        if (time < WARMUP_SECONDS)
+            return;
+
+        frames++;
+        cpuNanos += cpuNanoTime();
+        aliveParticles += particles.getNumParticles();
+
+        if (time - WARMUP_SECONDS < RUN_SECONDS)
+            return;
+
+        results.append(String.format("%-8s %10d %10d %10.1f %15.3f%n",
+                particles.getRenderMode(),
+                target(),
+                aliveParticles / frames,
+                frames / (time - WARMUP_SECONDS),
+                cpuNanos / 1_000_000.0 / frames
+        ));
+
+        emitterEntity.removeFromWorld();
+
+        run++;
+
+        if (run < NUM_PARTICLES.length * 2) {
+            startRun();
+        } else {
+            particles = null;
+
+            System.out.print(results);
+            text.setText(results.toString());
+        }
+    }
+
+    private void startRun() {
+        var mode = run % 2 == 0 ? ParticleRenderMode.NODES : ParticleRenderMode.CANVAS;
+
+        // with 1 sec life and 60 emissions per sec, the number of alive particles is close to target
+        var emitter = new ParticleEmitter();
+        emitter.setNumParticles(target() / 60);
+        emitter.setSize(2, 4);
+        emitter.setStartColor(Color.YELLOW);
+        emitter.setEndColor(Color.RED);
+        emitter.setBlendMode(BlendMode.ADD);
+        emitter.setExpireFunction(i -> Duration.seconds(1));
+        emitter.setVelocityFunction(i -> FXGLMath.randomPoint2D().multiply(FXGLMath.random(50, 300)));
+        emitter.setAccelerationFunction(() -> new Point2D(0, 50));
+
+        particles = new ParticleComponent(emitter, mode);
+
+        emitterEntity = entityBuilder()
+                .at(getAppWidth() / 2.0, getAppHeight() / 2.0)
+                .with(particles)
+                .buildAndAttach();
+
+        time = 0;
+        frames = 0;
+        cpuNanos = 0;
+        aliveParticles = 0;
+
+        text.setText(results + "\nRunning " + mode + " with " + target() + " particles");
+    }
+
+    private int target() {
+        return NUM_PARTICLES[run / 2];
+    }
+
+    public static void main(String[] args) {
+        launch(args);
+    }
+}
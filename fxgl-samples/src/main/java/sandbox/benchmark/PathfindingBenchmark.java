@@ -0,0 +1,93 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.core.collection.grid.NeighborDirection;
+import com.almasb.fxgl.pathfinding.astar.AStarCell;
+import com.almasb.fxgl.pathfinding.astar.AStarGrid;
+import com.almasb.fxgl.pathfinding.astar.AStarPathfinder;
+import com.almasb.fxgl.pathfinding.astar.TraversableGrid;
+import com.almasb.fxgl.pathfinding.dungeon.DungeonConfig;
+import com.almasb.fxgl.pathfinding.dungeon.DungeonGrid;
+import com.almasb.fxgl.pathfinding.maze.MazeGrid;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A headless benchmark of A* queries between random walkable cells
+ * on an open grid, a maze and a dungeon.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class PathfindingBenchmark {
+
+    private static final int GRID_SIZE = 512;
+
+    // maze generation is recursive, so the maze is kept small enough for the default stack
+    private static final int MAZE_SIZE = 100;
+
+    private static final int WARMUP_QUERIES = 200;
+    private static final int QUERIES = 500;
+
+    public static void main(String[] args) {
+        var open = new AStarGrid(GRID_SIZE, GRID_SIZE);
+        var maze = new MazeGrid(MAZE_SIZE, MAZE_SIZE);
+        var dungeon = new DungeonGrid(GRID_SIZE, GRID_SIZE, new DungeonConfig(new Random(225L), 40, 10, 40, 10, 40));
+
+        System.out.printf("%-10s %10s %12s %15s %15s%n", "grid", "size", "directions", "ms / query", "avg path");
+
+        for (var direction : NeighborDirection.values()) {
+            run("open", open, direction);
+            run("maze", maze, direction);
+            run("dungeon", dungeon, direction);
+        }
+    }
+
+    private static <T extends AStarCell> void run(String name, TraversableGrid<T> grid, NeighborDirection direction) {
+        var pathfinder = new AStarPathfinder<>(grid);
+
+        List<T> cells = grid.getWalkableCells();
+
+        var random = new Random(225L);
+
+        int[] queries = new int[(WARMUP_QUERIES + QUERIES) * 2];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = random.nextInt(cells.size());
+        }
+
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            query(pathfinder, cells, queries, i, direction);
+        }
+
+        long totalLength = 0;
+
+        long start = System.nanoTime();
+
+        for (int i = WARMUP_QUERIES; i < WARMUP_QUERIES + QUERIES; i++) {
+            totalLength += query(pathfinder, cells, queries, i, direction);
+        }
+
+        double msPerQuery = (System.nanoTime() - start) / 1_000_000.0 / QUERIES;
+
+        System.out.printf("%-10s %10s %12s %15.3f %15d%n",
+                name,
+                grid.getWidth() + "x" + grid.getHeight(),
+                direction == NeighborDirection.FOUR_DIRECTIONS ? 4 : 8,
+                msPerQuery,
+                totalLength / QUERIES
+        );
+    }
+
+    private static <T extends AStarCell> int query(AStarPathfinder<T> pathfinder, List<T> cells, int[] queries, int i, NeighborDirection direction) {
+        var source = cells.get(queries[i * 2]);
+        var target = cells.get(queries[i * 2 + 1]);
+
+        return pathfinder.findPath(source.getX(), source.getY(), target.getX(), target.getY(), direction).size();
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package sandbox.benchmark;
+
+import com.almasb.fxgl.entity.Entity;
+import com.almasb.fxgl.entity.GameWorld;
+import com.almasb.fxgl.entity.component.Component;
+import com.almasb.fxgl.entity.components.VelocityComponent;
+import com.almasb.fxgl.entity.system.MovementSystem;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A headless benchmark that moves 100k entities by their velocity,
+ * with a per-entity component, with a batched system over archetype arrays
+ * and with the same system updated in parallel on the common pool.
+ * All modes include the regular per-entity update of core components and
+ * the sync of transform properties, i.e. they measure the whole world update.
+ * Run with the main method, no window is created.
+ *
+ * @author Almas Baimagambetov (AlmasB) (almaslvl@gmail.com)
+ */
+public class SystemUpdateBenchmark {
+
+    private static final int NUM_ENTITIES = 100_000;
+
+    private static final int WARMUP_FRAMES = 50;
+    private static final int FRAMES = 200;
+
+    private enum Mode {
+        PER_ENTITY, BATCHED, PARALLEL
+    }
+
+    public static void main(String[] args) {
+        System.out.printf("%-12s %10s %15s%n", "mode", "entities", "ms / frame");
+
+        // run twice, so that the second pass is measured with a warm JIT in all modes
+        for (int pass = 0; pass < 2; pass++) {
+            for (Mode mode : Mode.values()) {
+                run(mode);
+            }
+        }
+    }
+
+    private static void run(Mode mode) {
+        var random = new Random(225L);
+
+        var world = new GameWorld();
+
+        boolean isBatched = mode != Mode.PER_ENTITY;
+
+        if (isBatched)
+            world.addSystem(new MovementSystem());
+
+        if (mode == Mode.PARALLEL)
+            world.setParallelUpdatePool(ForkJoinPool.commonPool());
+
+        for (int i = 0; i < NUM_ENTITIES; i++) {
+            var e = new Entity();
+            e.setPosition(random.nextDouble() * 1000, random.nextDouble() * 1000);
+
+            double vx = random.nextDouble() * 200 - 100;
+            double vy = random.nextDouble() * 200 - 100;
+
+            if (isBatched) {
+                e.addComponent(new VelocityComponent(vx, vy));
+            } else {
+                e.addComponent(new MoveComponent(vx, vy));
+            }
+
+            world.addEntity(e);
+        }
+
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            world.onUpdate(0.016);
+        }
+
+        long start = System.nanoTime();
+
+        for (int i = 0; i < FRAMES; i++) {
+            world.onUpdate(0.016);
+        }
+
+        double msPerFrame = (System.nanoTime() - start) / 1_000_000.0 / FRAMES;
+
+        System.out.printf("%-12s %10d %15.3f%n", mode.toString().toLowerCase(), NUM_ENTITIES, msPerFrame);
+    }
+
+    private static class MoveComponent extends Component {
+        private final double vx;
+        private final double vy;
+
+        MoveComponent(double vx, double vy) {
+            this.vx = vx;
+            this.vy = vy;
+        }
+
+        @Override
+        public void onUpdate(double tpf) {
+            entity.translate(vx * tpf, vy * tpf);
+        }
+    }
+}
@@ -325,6 +325,8 @@ class FXGLApplication : Application() {
                 app.initPhysics();
                 app.initUI();
 
+                preloadEntities()
+
                 engine.onGameReady(FXGL.getWorldProperties());
             }
 
@@ -346,6 +348,23 @@ class FXGLApplication : Application() {
             app.initGame();
         }
 
+        private fun preloadEntities() {
+            val gameWorld = FXGL.getGameWorld()
+
+            val total = gameWorld.numPendingPreloads.toLong()
+
+            if (total == 0L)
+                return
+
+            log.debug("Preloading $total entities")
+            updateMessage("Preloading entities")
+
+            // preloading in slices keeps the loading progress up to date
+            while (!isCancelled && !gameWorld.preloadEntities(Duration.millis(16.0))) {
+                updateProgress(total - gameWorld.numPendingPreloads, total)
+            }
+        }
+
         override fun failed() {
             throw RuntimeException("Initialization failed", exception)
         }
@@ -464,6 +483,18 @@ class FXGLApplication : Application() {
             )
 
             gameSceneRef.isSingleStep = settings.isSingleStep
+            gameSceneRef.gameWorld.isEntityPreloadEnabled = settings.isEntityPreloadEnabled
+
+            gameSceneRef.physicsWorld.let {
+                if (settings.isPhysicsFixedTimeStep) {
+                    it.fixedTimeStep = settings.physicsTimeStep
+                    it.maxSubSteps = settings.physicsMaxSubSteps
+                }
+
+                it.velocityIterations = settings.physicsVelocityIterations
+                it.positionIterations = settings.physicsPositionIterations
+                it.isInterpolationEnabled = settings.isPhysicsInterpolationEnabled
+            }
 
             if (settings.isClickFeedbackEnabled) {
                 addClickFeedbackHandler()
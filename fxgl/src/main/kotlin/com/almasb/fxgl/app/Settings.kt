@@ -179,8 +179,8 @@ class GameSettings(
         var isClickFeedbackEnabled: Boolean = false,
 
         /**
-         * If true, entity builder will preload entities on a background thread to speed up
-         * entity building.
+         * If true, entities of entity factory methods annotated with Preload are created
+         * while the game is loading and are reused when spawned, to speed up entity building.
          * Default: true.
          */
         var isEntityPreloadEnabled: Boolean = true,
@@ -251,6 +251,32 @@ class GameSettings(
 
         var collisionDetectionStrategy: CollisionDetectionStrategy = CollisionDetectionStrategy.BRUTE_FORCE,
 
+        /**
+         * If true, physics is stepped with fixed [physicsTimeStep] instead of frame time,
+         * which makes the simulation independent of the frame rate. Default = false.
+         */
+        var isPhysicsFixedTimeStep: Boolean = false,
+
+        /**
+         * Duration of a physics step in seconds when [isPhysicsFixedTimeStep] is true, default = 1/60.
+         */
+        var physicsTimeStep: Double = 1.0 / 60,
+
+        /**
+         * Max number of physics steps per frame when [isPhysicsFixedTimeStep] is true, default = 5.
+         */
+        var physicsMaxSubSteps: Int = 5,
+
+        var physicsVelocityIterations: Int = 8,
+
+        var physicsPositionIterations: Int = 3,
+
+        /**
+         * If true and [isPhysicsFixedTimeStep] is true, entity transforms are interpolated between
+         * the last two physics steps. Default = true.
+         */
+        var isPhysicsInterpolationEnabled: Boolean = true,
+
         /**
          * Set how many real seconds are in 24 game hours, default = 60.
          */
@@ -294,6 +320,10 @@ class GameSettings(
 
         /* EXPERIMENTAL */
 
+        /**
+         * If true, orthogonal tile layers of maps loaded via setLevelFromMap() are drawn in chunks
+         * near the viewport, instead of as whole images, see ChunkedTileLayerComponent.
+         */
         var isExperimentalTiledLargeMap: Boolean = false,
 
         /* CONFIGS */
@@ -406,6 +436,12 @@ class GameSettings(
                 fontSizeScaleUI,
                 pixelsPerMeter,
                 collisionDetectionStrategy,
+                isPhysicsFixedTimeStep,
+                physicsTimeStep,
+                physicsMaxSubSteps,
+                physicsVelocityIterations,
+                physicsPositionIterations,
+                isPhysicsInterpolationEnabled,
                 secondsIn24h,
                 randomSeed,
                 ticksPerSecond,
@@ -582,6 +618,18 @@ class ReadOnlyGameSettings internal constructor(
 
         val collisionDetectionStrategy: CollisionDetectionStrategy,
 
+        val isPhysicsFixedTimeStep: Boolean,
+
+        val physicsTimeStep: Double,
+
+        val physicsMaxSubSteps: Int,
+
+        val physicsVelocityIterations: Int,
+
+        val physicsPositionIterations: Int,
+
+        val isPhysicsInterpolationEnabled: Boolean,
+
         /**
          * Set how many real seconds are in 24 game hours, default = 60.
          */
@@ -642,7 +642,7 @@ class FXGL private constructor() { companion object {
      */
     @JvmStatic fun setLevelFromMap(mapFileName: String): Level {
         if (mapFileName.endsWith(".tmx")) {
-            val level = getAssetLoader().loadLevel(mapFileName, TMXLevelLoader())
+            val level = getAssetLoader().loadLevel(mapFileName, TMXLevelLoader(isLargeMap = getSettings().isExperimentalTiledLargeMap))
             getGameWorld().setLevel(level)
             return level
         } else {
@@ -0,0 +1,105 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+/**
+ * A ring buffer of timestamped 3D positions, received from the network.
+ * Rendering slightly behind the latest sample allows to interpolate between two samples,
+ * which hides the send interval and jitter of the network.
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class InterpolationBuffer
+@JvmOverloads constructor(private val capacity: Int = 32) {
+
+    private val times = DoubleArray(capacity)
+    private val xs = DoubleArray(capacity)
+    private val ys = DoubleArray(capacity)
+    private val zs = DoubleArray(capacity)
+
+    private var start = 0
+
+    var size = 0
+        private set
+
+    /**
+     * Interpolated x, valid after [interpolate] returned true.
+     */
+    var x = 0.0
+        private set
+
+    var y = 0.0
+        private set
+
+    var z = 0.0
+        private set
+
+    /**
+     * Adds a sample. Samples must be added in the order of time,
+     * samples that are not newer than the last one are ignored.
+     * If the buffer is full, the oldest sample is dropped.
+     */
+    fun add(time: Double, x: Double, y: Double, z: Double) {
+        if (size > 0 && time <= times[index(size - 1)])
+            return
+
+        if (size == capacity) {
+            start = (start + 1) % capacity
+            size--
+        }
+
+        val i = index(size)
+        times[i] = time
+        xs[i] = x
+        ys[i] = y
+        zs[i] = z
+
+        size++
+    }
+
+    /**
+     * Computes position at given [time] between the two samples around it.
+     * Before the first sample, the first sample is used.
+     * After the last sample, the last sample is used, i.e. there is no extrapolation.
+     * Samples older than the one before [time] are dropped, since time only moves forward.
+     *
+     * @return false if there are no samples
+     */
+    fun interpolate(time: Double): Boolean {
+        if (size == 0)
+            return false
+
+        while (size > 1 && times[index(1)] <= time) {
+            start = (start + 1) % capacity
+            size--
+        }
+
+        val a = index(0)
+
+        if (size == 1 || time <= times[a]) {
+            x = xs[a]
+            y = ys[a]
+            z = zs[a]
+            return true
+        }
+
+        val b = index(1)
+        val t = (time - times[a]) / (times[b] - times[a])
+
+        x = xs[a] + (xs[b] - xs[a]) * t
+        y = ys[a] + (ys[b] - ys[a]) * t
+        z = zs[a] + (zs[b] - zs[a]) * t
+        return true
+    }
+
+    fun clear() {
+        start = 0
+        size = 0
+    }
+
+    private fun index(i: Int) = (start + i) % capacity
+}
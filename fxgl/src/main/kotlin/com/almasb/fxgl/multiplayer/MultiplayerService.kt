@@ -7,6 +7,7 @@
 package com.almasb.fxgl.multiplayer
 
 import com.almasb.fxgl.core.EngineService
+import com.almasb.fxgl.core.collection.LongMap
 import com.almasb.fxgl.core.collection.MovingAverageQueue
 import com.almasb.fxgl.core.collection.PropertyMap
 import com.almasb.fxgl.core.collection.PropertyMapChangeListener
@@ -22,6 +23,16 @@ import javafx.beans.property.ReadOnlyDoubleProperty
 import javafx.beans.property.ReadOnlyDoubleWrapper
 
 /**
+ * Replication works over any Bundle connection.
+ * For smaller messages, create servers and clients with [com.almasb.fxgl.net.MessageFormat.BINARY],
+ * e.g. newTCPServer(port, ServerConfig(Bundle::class.java, MessageFormat.BINARY)), on both sides.
+ *
+ * By default, positions of spawned entities are sent every frame.
+ * For many entities, use snapshot replication instead: register the connection with a [SnapshotConfig]
+ * on the sending side and add the entity replication receiver with the same config on the receiving side.
+ * Snapshots are sent at a fixed rate, contain only entities that moved since the last snapshot
+ * acknowledged by the receiver, and are interpolated by the receiver.
+ *
  * TODO: symmetric remove API, e.g. removeReplicationSender()
  *
  * @author Almas Baimagambetov (almaslvl@gmail.com)
@@ -32,6 +43,13 @@ class MultiplayerService : EngineService() {
 
     private val replicatedEntitiesMap = hashMapOf<Connection<Bundle>, ConnectionData>()
 
+    private val snapshotReceivers = arrayListOf<SnapshotReceiver>()
+
+    /**
+     * Time since this service started, used to timestamp snapshots.
+     */
+    private var time = 0.0
+
     fun registerConnection(connection: Connection<Bundle>) {
         val data = ConnectionData(connection)
         setUpNewConnection(data)
@@ -39,6 +57,24 @@ class MultiplayerService : EngineService() {
         replicatedEntitiesMap[connection] = data
     }
 
+    /**
+     * Registers [connection] for snapshot replication of spawned entities.
+     * The receiving side needs to call [addEntityReplicationReceiver] with the same [config].
+     */
+    fun registerConnection(connection: Connection<Bundle>, config: SnapshotConfig) {
+        val data = ConnectionData(connection)
+        data.snapshotSender = SnapshotSender(config)
+        setUpNewConnection(data)
+
+        connection.addMessageHandlerFX { _, message ->
+            if (message.name == SNAPSHOT_ACK_BUNDLE_NAME) {
+                data.snapshotSender?.onAck(message.get("seq"))
+            }
+        }
+
+        replicatedEntitiesMap[connection] = data
+    }
+
     private fun setUpNewConnection(data: ConnectionData) {
         // register event handler for the given connection
         // TODO: how to clean up when the connection dies
@@ -59,6 +95,13 @@ class MultiplayerService : EngineService() {
     }
 
     override fun onGameUpdate(tpf: Double) {
+        time += tpf
+
+        if (snapshotReceivers.isNotEmpty()) {
+            snapshotReceivers.removeIf { !it.connection.isConnected }
+            snapshotReceivers.forEach { it.onUpdate(tpf) }
+        }
+
         if (replicatedEntitiesMap.isEmpty())
             return
 
@@ -66,10 +109,18 @@ class MultiplayerService : EngineService() {
 
         // TODO: can (should) we move this to NetworkComponent to act on a per entity basis ...
         replicatedEntitiesMap.forEach { conn, data ->
-            fire(conn, PingReplicationEvent(now))
+            val sender = data.snapshotSender
+
+            if (sender == null) {
+                fire(conn, PingReplicationEvent(now))
+
+                if (data.entities.isNotEmpty()) {
+                    updateReplicatedEntities(conn, data.entities)
+                }
+            } else if (sender.tick(tpf)) {
+                fire(conn, PingReplicationEvent(now))
 
-            if (data.entities.isNotEmpty()) {
-                updateReplicatedEntities(conn, data.entities)
+                sendSnapshot(conn, data, sender)
             }
         }
     }
@@ -103,6 +154,40 @@ class MultiplayerService : EngineService() {
         entities.removeIf { !it.isActive }
     }
 
+    private fun sendSnapshot(connection: Connection<Bundle>, data: ConnectionData, sender: SnapshotSender) {
+        val entities = data.entities
+
+        val removed = entities.filter { !it.isActive }
+
+        if (removed.isNotEmpty()) {
+            fire(connection, *removed.map { EntityRemoveEvent(networkID(it)) }.toTypedArray())
+
+            entities.removeIf { !it.isActive }
+        }
+
+        if (data.ids.size < entities.size) {
+            data.ids = LongArray(entities.size * 2)
+            data.positions = DoubleArray(entities.size * 6)
+        }
+
+        // entities are kept sorted by network id
+        entities.forEachIndexed { i, e ->
+            data.ids[i] = networkID(e)
+            data.positions[i * 3] = e.x
+            data.positions[i * 3 + 1] = e.y
+            data.positions[i * 3 + 2] = e.z
+        }
+
+        if (!connection.isConnected)
+            return
+
+        sender.createPackets(time, data.ids, data.positions, entities.size).forEach {
+            connection.send(it.toBundle())
+        }
+    }
+
+    private fun networkID(entity: Entity): Long = entity.getComponent(NetworkComponent::class.java).id
+
     fun spawn(connection: Connection<Bundle>, entity: Entity, entityName: String) {
         spawn(connection, entity, entityName, SpawnData(entity.x, entity.y, entity.z))
     }
@@ -119,14 +204,42 @@ class MultiplayerService : EngineService() {
 
         // TODO: if not available
         val data = replicatedEntitiesMap[connection]!!
-        data.entities += entity
+
+        // keep sorted by network id, which snapshots rely on
+        val index = data.entities.indexOfFirst { networkID(it) > networkComponent.id }
+
+        if (index < 0) {
+            data.entities += entity
+        } else {
+            data.entities.add(index, entity)
+        }
 
         fire(connection, event)
     }
 
     fun addEntityReplicationReceiver(connection: Connection<Bundle>, gameWorld: GameWorld) {
+        addEntityReplicationReceiver(connection, gameWorld, null)
+    }
+
+    /**
+     * Receives entities replicated by a connection registered with the same snapshot [config] on the other side.
+     * Received positions are interpolated [SnapshotConfig.interpolationDelay] seconds behind the latest snapshot.
+     */
+    fun addEntityReplicationReceiver(connection: Connection<Bundle>, gameWorld: GameWorld, config: SnapshotConfig?) {
+        // network id -> replicated entity, so that each update is O(1) rather than a scan of the world
+        val replicatedEntities = LongMap<Entity>()
+
+        val snapshotReceiver = config?.let { SnapshotReceiver(connection, gameWorld, replicatedEntities, it) }
+
+        snapshotReceiver?.let { snapshotReceivers += it }
+
         connection.addMessageHandlerFX { _, message ->
 
+            if (snapshotReceiver != null && message.name == SNAPSHOT_BUNDLE_NAME) {
+                snapshotReceiver.onPacket(SnapshotPacket.fromBundle(message))
+                return@addMessageHandlerFX
+            }
+
             handleIfReplicationBundle(message) { event ->
                 when (event) {
                     is EntitySpawnEvent -> {
@@ -142,29 +255,64 @@ class MultiplayerService : EngineService() {
 
                         // TODO: show warning if not present
                         e.getComponentOptional(NetworkComponent::class.java)
-                                .ifPresent { it.id = id }
+                                .ifPresent {
+                                    it.id = id
+                                    replicatedEntities.put(id, e)
+                                }
                     }
 
                     is EntityUpdateEvent -> {
                         val id = event.networkID
 
-                        gameWorld.getEntitiesByComponentMapped(NetworkComponent::class.java)
-                                .filterValues { it.id == id }
-                                .forEach { (e, _) -> e.setPosition3D(event.x, event.y, event.z) }
+                        findReplicatedEntity(gameWorld, replicatedEntities, id)
+                                ?.setPosition3D(event.x, event.y, event.z)
                     }
 
                     is EntityRemoveEvent -> {
                         val id = event.networkID
 
-                        gameWorld.getEntitiesByComponentMapped(NetworkComponent::class.java)
-                                .filterValues { it.id == id }
-                                .forEach { (e, _) -> e.removeFromWorld() }
+                        findReplicatedEntity(gameWorld, replicatedEntities, id)
+                                ?.removeFromWorld()
+
+                        replicatedEntities.remove(id)
+                        snapshotReceiver?.remove(id)
                     }
                 }
             }
         }
     }
 
+    /**
+     * @return entity in [gameWorld] with given network id or null if there is no such entity
+     */
+    private fun findReplicatedEntity(gameWorld: GameWorld, replicatedEntities: LongMap<Entity>, networkID: Long): Entity? {
+        val entity = replicatedEntities.get(networkID)
+
+        if (entity != null && entity.isActive && entity.world === gameWorld && hasNetworkID(entity, networkID))
+            return entity
+
+        // the entity was not spawned by this receiver (or was since removed),
+        // so check entities with NetworkComponent only, using the live view to avoid a copy
+        val candidates = gameWorld.getEntitiesByComponentView(NetworkComponent::class.java)
+
+        for (i in candidates.indices) {
+            val candidate = candidates[i]
+
+            if (hasNetworkID(candidate, networkID)) {
+                replicatedEntities.put(networkID, candidate)
+                return candidate
+            }
+        }
+
+        replicatedEntities.remove(networkID)
+        return null
+    }
+
+    private fun hasNetworkID(entity: Entity, networkID: Long): Boolean {
+        return entity.hasComponent(NetworkComponent::class.java)
+                && entity.getComponent(NetworkComponent::class.java).id == networkID
+    }
+
     fun addInputReplicationSender(connection: Connection<Bundle>, input: Input) {
         input.addTriggerListener(object : TriggerListener() {
             override fun onActionBegin(trigger: Trigger) {
@@ -292,5 +440,106 @@ class MultiplayerService : EngineService() {
 
         val pingBuffer = MovingAverageQueue(1000)
         val ping = ReadOnlyDoubleWrapper()
+
+        /**
+         * Not null if entities of this connection are replicated with snapshots.
+         */
+        var snapshotSender: SnapshotSender? = null
+
+        // reused between snapshots
+        var ids = LongArray(0)
+        var positions = DoubleArray(0)
+    }
+
+    private inner class SnapshotReceiver(
+            val connection: Connection<Bundle>,
+            private val gameWorld: GameWorld,
+            private val replicatedEntities: LongMap<Entity>,
+            private val config: SnapshotConfig
+    ) {
+        private val assembler = SnapshotAssembler()
+
+        private val buffers = hashMapOf<Long, InterpolationBuffer>()
+
+        // entity of each buffer, resolved when a snapshot arrives
+        private val entities = hashMapOf<Long, Entity>()
+
+        private var renderTime = 0.0
+        private var hasTime = false
+
+        fun onPacket(packet: SnapshotPacket) {
+            val snapshot = assembler.onPacket(packet) ?: return
+
+            val ack = Bundle(SNAPSHOT_ACK_BUNDLE_NAME)
+            ack.put("seq", snapshot.seq)
+            connection.send(ack)
+
+            syncClock(snapshot.time)
+
+            val precision = config.positionPrecision
+
+            for (i in 0 until snapshot.size) {
+                val id = snapshot.ids[i]
+
+                val buffer = buffers.getOrPut(id) { InterpolationBuffer() }
+                buffer.add(
+                        snapshot.time,
+                        snapshot.values[i * 3] * precision,
+                        snapshot.values[i * 3 + 1] * precision,
+                        snapshot.values[i * 3 + 2] * precision
+                )
+
+                val entity = entities[id]
+
+                if (entity == null || !entity.isActive) {
+                    val e = findReplicatedEntity(gameWorld, replicatedEntities, id)
+
+                    if (e != null) {
+                        entities[id] = e
+                    } else {
+                        entities.remove(id)
+                    }
+                }
+            }
+
+            // entities that are no longer replicated
+            buffers.keys.removeIf { snapshot.indexOf(it) < 0 }
+            entities.keys.removeIf { snapshot.indexOf(it) < 0 }
+        }
+
+        /**
+         * Keeps render time [SnapshotConfig.interpolationDelay] behind the sender,
+         * adjusting it gradually to smooth out jitter of arrival times.
+         */
+        private fun syncClock(snapshotTime: Double) {
+            val targetTime = snapshotTime - config.interpolationDelay
+
+            if (!hasTime || Math.abs(renderTime - targetTime) > config.interpolationDelay) {
+                renderTime = targetTime
+                hasTime = true
+            } else {
+                renderTime += (targetTime - renderTime) * 0.1
+            }
+        }
+
+        fun onUpdate(tpf: Double) {
+            if (!hasTime)
+                return
+
+            renderTime += tpf
+
+            entities.forEach { (id, entity) ->
+                val buffer = buffers[id]
+
+                if (buffer != null && entity.isActive && buffer.interpolate(renderTime)) {
+                    entity.setPosition3D(buffer.x, buffer.y, buffer.z)
+                }
+            }
+        }
+
+        fun remove(networkID: Long) {
+            buffers.remove(networkID)
+            entities.remove(networkID)
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+/**
+ * Settings of snapshot replication, see [MultiplayerService.registerConnection].
+ * Both endpoints of a connection must use the same [positionPrecision].
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SnapshotConfig
+@JvmOverloads constructor(
+
+        /**
+         * Number of snapshots sent per second, independent of the frame rate.
+         */
+        val sendRate: Int = 20,
+
+        /**
+         * Positions are sent as multiples of this value.
+         */
+        val positionPrecision: Double = 0.1,
+
+        /**
+         * Max number of bytes of entity data in a single message.
+         * The default leaves room for message headers within a typical MTU of 1500 bytes.
+         */
+        val maxPacketSize: Int = 1200,
+
+        /**
+         * Time in seconds by which the receiver renders behind the latest snapshot,
+         * so that it can interpolate between two received snapshots.
+         * Should be at least twice the send interval.
+         */
+        val interpolationDelay: Double = 0.1) {
+
+    init {
+        require(sendRate > 0) { "Send rate must be positive: $sendRate" }
+        require(positionPrecision > 0.0) { "Position precision must be positive: $positionPrecision" }
+        require(maxPacketSize >= MAX_ENTRY_SIZE) { "Max packet size must be at least $MAX_ENTRY_SIZE bytes: $maxPacketSize" }
+        require(interpolationDelay >= 0.0) { "Interpolation delay must not be negative: $interpolationDelay" }
+    }
+}
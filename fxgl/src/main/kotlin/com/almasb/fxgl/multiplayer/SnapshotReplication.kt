@@ -0,0 +1,484 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+
+package com.almasb.fxgl.multiplayer
+
+import com.almasb.fxgl.core.serialization.Bundle
+import java.util.*
+
+/*
+ * Snapshot replication.
+ *
+ * Each snapshot contains quantized positions of all replicated entities of a connection.
+ * It is encoded as a delta against the latest snapshot acknowledged by the receiver (the baseline),
+ * so only entities that changed since the baseline are sent.
+ * A snapshot is split into packets of at most [SnapshotConfig.maxPacketSize] bytes.
+ * Once the receiver has all packets of a snapshot, it acknowledges it and the snapshot
+ * can become the baseline of a later one.
+ *
+ * Entry format (per entity): varint id delta, flags byte, zigzag varint per changed coordinate.
+ */
+
+/**
+ * Max number of bytes of a single entity entry: id (10) + flags (1) + 3 coordinates (3 * 10).
+ */
+internal const val MAX_ENTRY_SIZE = 41
+
+/**
+ * Number of snapshots kept by sender and receiver.
+ * If the receiver has not acknowledged any of them, a full snapshot is sent.
+ */
+internal const val SNAPSHOT_HISTORY_SIZE = 32
+
+internal const val SNAPSHOT_BUNDLE_NAME = "REPLICATION_SNAPSHOT"
+internal const val SNAPSHOT_ACK_BUNDLE_NAME = "REPLICATION_SNAPSHOT_ACK"
+
+private const val FLAG_X = 1
+private const val FLAG_Y = 2
+private const val FLAG_Z = 4
+private const val FLAG_FULL = 8
+private const val FLAG_REMOVED = 16
+
+/**
+ * Quantized positions (3 per entity) of entities sorted by network id.
+ */
+internal class Snapshot(
+        val seq: Int,
+        val time: Double,
+        val ids: LongArray,
+        val values: LongArray
+) {
+
+    val size: Int
+        get() = ids.size
+
+    /**
+     * @return index of entity with given id or negative value if not present
+     */
+    fun indexOf(id: Long): Int = Arrays.binarySearch(ids, id)
+}
+
+/**
+ * A part of a snapshot, as sent over the network.
+ */
+internal class SnapshotPacket(
+        val seq: Int,
+
+        /**
+         * Sequence number of the baseline or -1 if the snapshot is not a delta.
+         */
+        val baselineSeq: Int,
+        val time: Double,
+        val part: Int,
+        val numParts: Int,
+        val data: ByteArray
+) {
+
+    fun toBundle(): Bundle {
+        val bundle = Bundle(SNAPSHOT_BUNDLE_NAME)
+        bundle.put("seq", seq)
+        bundle.put("baseline", baselineSeq)
+        bundle.put("time", time)
+        bundle.put("part", part)
+        bundle.put("parts", numParts)
+        bundle.put("data", data)
+        return bundle
+    }
+
+    companion object {
+        fun fromBundle(bundle: Bundle): SnapshotPacket {
+            return SnapshotPacket(
+                    bundle.get("seq"),
+                    bundle.get("baseline"),
+                    bundle.get("time"),
+                    bundle.get("part"),
+                    bundle.get("parts"),
+                    bundle.get("data")
+            )
+        }
+    }
+}
+
+/**
+ * Sending side of snapshot replication for a single connection.
+ */
+internal class SnapshotSender(private val config: SnapshotConfig) {
+
+    private val history = arrayOfNulls<Snapshot>(SNAPSHOT_HISTORY_SIZE)
+
+    private var nextSeq = 0
+    private var ackedSeq = -1
+
+    private val sendInterval = 1.0 / config.sendRate
+    private var timeSinceSend = sendInterval
+
+    private val writer = PacketWriter(config.maxPacketSize)
+
+    /**
+     * @return true if a snapshot should be sent this frame
+     */
+    fun tick(tpf: Double): Boolean {
+        timeSinceSend += tpf
+
+        if (timeSinceSend < sendInterval)
+            return false
+
+        // do not try to catch up after a long frame, just send at the configured rate from now on
+        timeSinceSend = if (timeSinceSend >= sendInterval * 2) 0.0 else timeSinceSend - sendInterval
+        return true
+    }
+
+    fun onAck(seq: Int) {
+        if (seq > ackedSeq && seq < nextSeq) {
+            ackedSeq = seq
+        }
+    }
+
+    /**
+     * @param ids network ids in ascending order
+     * @param positions x, y, z of each entity
+     * @param size number of entities
+     */
+    fun createPackets(time: Double, ids: LongArray, positions: DoubleArray, size: Int): List<SnapshotPacket> {
+        val values = LongArray(size * 3)
+        for (i in values.indices) {
+            values[i] = Math.round(positions[i] / config.positionPrecision)
+        }
+
+        val snapshot = Snapshot(nextSeq++, time, ids.copyOf(size), values)
+        val baseline = baseline()
+
+        history[snapshot.seq % SNAPSHOT_HISTORY_SIZE] = snapshot
+
+        val data = encode(snapshot, baseline)
+
+        return data.mapIndexed { part, bytes ->
+            SnapshotPacket(snapshot.seq, baseline?.seq ?: -1, time, part, data.size, bytes)
+        }
+    }
+
+    /**
+     * @return latest acknowledged snapshot that the receiver still has or null
+     */
+    private fun baseline(): Snapshot? {
+        if (ackedSeq < 0 || nextSeq - ackedSeq >= SNAPSHOT_HISTORY_SIZE)
+            return null
+
+        return history[ackedSeq % SNAPSHOT_HISTORY_SIZE]?.takeIf { it.seq == ackedSeq }
+    }
+
+    private fun encode(snapshot: Snapshot, baseline: Snapshot?): List<ByteArray> {
+        val packets = arrayListOf<ByteArray>()
+
+        writer.reset()
+
+        var i = 0
+        var j = 0
+        val numBaseline = baseline?.size ?: 0
+
+        // both id arrays are sorted, so walk them together
+        while (i < snapshot.size || j < numBaseline) {
+            val id = if (i < snapshot.size) snapshot.ids[i] else Long.MAX_VALUE
+            val baseID = if (j < numBaseline) baseline!!.ids[j] else Long.MAX_VALUE
+
+            if (writer.remaining < MAX_ENTRY_SIZE) {
+                packets += writer.toByteArray()
+                writer.reset()
+            }
+
+            if (id == baseID) {
+                writer.writeDelta(id, snapshot.values, i * 3, baseline!!.values, j * 3)
+                i++
+                j++
+            } else if (id < baseID) {
+                writer.writeFull(id, snapshot.values, i * 3)
+                i++
+            } else {
+                writer.writeRemoved(baseID)
+                j++
+            }
+        }
+
+        // always send at least one packet, so that the receiver can advance its time
+        if (packets.isEmpty() || writer.size > 0) {
+            packets += writer.toByteArray()
+        }
+
+        return packets
+    }
+}
+
+/**
+ * Receiving side of snapshot replication for a single connection.
+ * Collects packets into snapshots.
+ */
+internal class SnapshotAssembler {
+
+    private class Assembly(val numParts: Int, val baseline: Snapshot?) {
+        val receivedParts = BitSet(numParts)
+
+        /**
+         * Network id -> values or [REMOVED].
+         */
+        val changes = hashMapOf<Long, LongArray>()
+    }
+
+    private val history = arrayOfNulls<Snapshot>(SNAPSHOT_HISTORY_SIZE)
+    private val assemblies = hashMapOf<Int, Assembly>()
+
+    private var latestSeq = -1
+
+    /**
+     * Newest sequence number seen in any packet.
+     */
+    private var newestSeq = -1
+
+    /**
+     * Number of snapshots of which some, but not all, parts have been received.
+     */
+    val numAssemblies: Int
+        get() = assemblies.size
+
+    /**
+     * @return the snapshot if [packet] was its last missing part, else null
+     */
+    fun onPacket(packet: SnapshotPacket): Snapshot? {
+        // old, or a duplicate of a complete snapshot
+        if (packet.seq <= latestSeq || packet.seq <= newestSeq - SNAPSHOT_HISTORY_SIZE)
+            return null
+
+        if (packet.seq > newestSeq) {
+            newestSeq = packet.seq
+
+            // snapshots with lost parts never complete, so only keep as many as the sender keeps
+            assemblies.keys.removeIf { it <= newestSeq - SNAPSHOT_HISTORY_SIZE }
+        }
+
+        var assembly = assemblies[packet.seq]
+
+        if (assembly == null) {
+            val baseline = if (packet.baselineSeq < 0) null else history[packet.baselineSeq % SNAPSHOT_HISTORY_SIZE]
+
+            // cannot decode without the baseline, the sender will use a newer one once our acks arrive
+            if (packet.baselineSeq >= 0 && baseline?.seq != packet.baselineSeq)
+                return null
+
+            assembly = Assembly(packet.numParts, baseline)
+            assemblies[packet.seq] = assembly
+        }
+
+        if (assembly.receivedParts.get(packet.part))
+            return null
+
+        assembly.receivedParts.set(packet.part)
+
+        decode(packet.data, assembly)
+
+        if (assembly.receivedParts.cardinality() < assembly.numParts)
+            return null
+
+        val snapshot = merge(packet.seq, packet.time, assembly)
+
+        history[snapshot.seq % SNAPSHOT_HISTORY_SIZE] = snapshot
+        latestSeq = snapshot.seq
+
+        assemblies.keys.removeIf { it <= latestSeq }
+
+        return snapshot
+    }
+
+    private fun decode(data: ByteArray, assembly: Assembly) {
+        val reader = PacketReader(data)
+        val baseline = assembly.baseline
+        var id = 0L
+
+        while (reader.hasRemaining()) {
+            id += reader.readVarLong()
+
+            val flags = reader.readByte()
+
+            if ((flags and FLAG_REMOVED) != 0) {
+                assembly.changes[id] = REMOVED
+                continue
+            }
+
+            val values = LongArray(3)
+
+            if ((flags and FLAG_FULL) == 0 && baseline != null) {
+                val index = baseline.indexOf(id)
+
+                if (index >= 0) {
+                    System.arraycopy(baseline.values, index * 3, values, 0, 3)
+                }
+            }
+
+            if ((flags and FLAG_X) != 0) values[0] += reader.readZigZag()
+            if ((flags and FLAG_Y) != 0) values[1] += reader.readZigZag()
+            if ((flags and FLAG_Z) != 0) values[2] += reader.readZigZag()
+
+            assembly.changes[id] = values
+        }
+    }
+
+    private fun merge(seq: Int, time: Double, assembly: Assembly): Snapshot {
+        val baseline = assembly.baseline
+        val changes = assembly.changes
+        val numBaseline = baseline?.size ?: 0
+
+        val ids = LongArray(numBaseline + changes.size)
+        var size = 0
+
+        for (i in 0 until numBaseline) {
+            val id = baseline!!.ids[i]
+
+            if (changes[id] !== REMOVED) {
+                ids[size++] = id
+            }
+        }
+
+        changes.forEach { (id, values) ->
+            if (values !== REMOVED && (baseline == null || baseline.indexOf(id) < 0)) {
+                ids[size++] = id
+            }
+        }
+
+        Arrays.sort(ids, 0, size)
+
+        val snapshotIDs = ids.copyOf(size)
+        val values = LongArray(size * 3)
+
+        for (i in 0 until size) {
+            val id = snapshotIDs[i]
+            val changed = changes[id]
+
+            if (changed != null) {
+                System.arraycopy(changed, 0, values, i * 3, 3)
+            } else {
+                System.arraycopy(baseline!!.values, baseline.indexOf(id) * 3, values, i * 3, 3)
+            }
+        }
+
+        return Snapshot(seq, time, snapshotIDs, values)
+    }
+
+    private companion object {
+        val REMOVED = LongArray(0)
+    }
+}
+
+private class PacketWriter(capacity: Int) {
+
+    private val buffer = ByteArray(capacity)
+
+    var size = 0
+        private set
+
+    private var lastID = 0L
+
+    val remaining: Int
+        get() = buffer.size - size
+
+    fun reset() {
+        size = 0
+        lastID = 0L
+    }
+
+    fun toByteArray(): ByteArray = buffer.copyOf(size)
+
+    fun writeDelta(id: Long, values: LongArray, offset: Int, baseValues: LongArray, baseOffset: Int) {
+        var flags = 0
+
+        for (k in 0..2) {
+            if (values[offset + k] != baseValues[baseOffset + k]) {
+                flags = flags or (1 shl k)
+            }
+        }
+
+        // unchanged entities are not sent at all
+        if (flags == 0)
+            return
+
+        writeHeader(id, flags)
+
+        for (k in 0..2) {
+            if ((flags and (1 shl k)) != 0) {
+                writeZigZag(values[offset + k] - baseValues[baseOffset + k])
+            }
+        }
+    }
+
+    fun writeFull(id: Long, values: LongArray, offset: Int) {
+        var flags = FLAG_FULL
+
+        for (k in 0..2) {
+            if (values[offset + k] != 0L) {
+                flags = flags or (1 shl k)
+            }
+        }
+
+        writeHeader(id, flags)
+
+        for (k in 0..2) {
+            if ((flags and (1 shl k)) != 0) {
+                writeZigZag(values[offset + k])
+            }
+        }
+    }
+
+    fun writeRemoved(id: Long) {
+        writeHeader(id, FLAG_REMOVED)
+    }
+
+    private fun writeHeader(id: Long, flags: Int) {
+        writeVarLong(id - lastID)
+        lastID = id
+
+        buffer[size++] = flags.toByte()
+    }
+
+    private fun writeZigZag(value: Long) {
+        writeVarLong((value shl 1) xor (value shr 63))
+    }
+
+    private fun writeVarLong(value: Long) {
+        var v = value
+        while ((v and 0x7FL.inv()) != 0L) {
+            buffer[size++] = ((v and 0x7FL) or 0x80L).toByte()
+            v = v ushr 7
+        }
+
+        buffer[size++] = v.toByte()
+    }
+}
+
+private class PacketReader(private val data: ByteArray) {
+
+    private var position = 0
+
+    fun hasRemaining() = position < data.size
+
+    fun readByte(): Int = data[position++].toInt() and 0xFF
+
+    fun readZigZag(): Long {
+        val v = readVarLong()
+        return (v ushr 1) xor -(v and 1L)
+    }
+
+    fun readVarLong(): Long {
+        var result = 0L
+        var shift = 0
+
+        while (true) {
+            val b = data[position++].toLong()
+            result = result or ((b and 0x7FL) shl shift)
+
+            if ((b and 0x80L) == 0L)
+                return result
+
+            shift += 7
+        }
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * FXGL - JavaFX Game Library. The MIT License (MIT).
+ * Copyright (c) AlmasB (almaslvl@gmail.com).
+ * See LICENSE for details.
+ */
+@file:Suppress("JAVA_MODULE_DOES_NOT_DEPEND_ON_MODULE")
+package com.almasb.fxgl.multiplayer
+
+import org.hamcrest.MatcherAssert.assertThat
+import org.hamcrest.Matchers.*
+import org.junit.jupiter.api.Assertions.assertThrows
+import org.junit.jupiter.api.Test
+
+/**
+ *
+ * @author Almas Baimagambetov (almaslvl@gmail.com)
+ */
+class SnapshotReplicationTest {
+
+    private val config = SnapshotConfig(positionPrecision = 0.1, maxPacketSize = 200)
+
+    @Test
+    fun `Snapshot is sent in full until acknowledged, then as delta`() {
+        val sender = SnapshotSender(config)
+        val assembler = SnapshotAssembler()
+
+        val ids = LongArray(500) { it.toLong() * 3 }
+        val positions = DoubleArray(500 * 3) { it * 1.5 }
+
+        val full = sender.createPackets(0.0, ids, positions, 500)
+
+        assertThat(full.size, greaterThan(1))
+        assertThat(full.all { it.baselineSeq == -1 && it.data.size <= 200 }, `is`(true))
+
+        // parts may arrive in any order
+        var snapshot = full.reversed().mapNotNull { assembler.onPacket(it) }.single()
+
+        assertSnapshot(snapshot, ids, positions, 500)
+
+        sender.onAck(snapshot.seq)
+
+        positions[0] += 10.0
+        positions[3 * 250 + 1] -= 0.4
+
+        val delta = sender.createPackets(0.05, ids, positions, 500)
+
+        assertThat(delta.size, `is`(1))
+        assertThat(delta[0].baselineSeq, `is`(snapshot.seq))
+        assertThat(delta[0].data.size, lessThan(10))
+
+        snapshot = assembler.onPacket(delta[0])!!
+
+        assertSnapshot(snapshot, ids, positions, 500)
+    }
+
+    @Test
+    fun `Unchanged snapshot is sent as an empty packet`() {
+        val sender = SnapshotSender(config)
+        val assembler = SnapshotAssembler()
+
+        val ids = longArrayOf(1, 2)
+        val positions = doubleArrayOf(1.0, 2.0, 3.0, 4.0, 5.0, 6.0)
+
+        sender.createPackets(0.0, ids, positions, 2).forEach { assembler.onPacket(it)?.let { sender.onAck(it.seq) } }
+
+        val packets = sender.createPackets(0.05, ids, positions, 2)
+
+        assertThat(packets.size, `is`(1))
+        assertThat(packets[0].data.size, `is`(0))
+
+        assertSnapshot(assembler.onPacket(packets[0])!!, ids, positions, 2)
+    }
+
+    @Test
+    fun `Added and removed entities`() {
+        val sender = SnapshotSender(config)
+        val assembler = SnapshotAssembler()
+
+        sender.createPackets(0.0, longArrayOf(1, 2, 3), DoubleArray(9) { 1.0 }, 3)
+                .forEach { assembler.onPacket(it)?.let { sender.onAck(it.seq) } }
+
+        val ids = longArrayOf(1, 3, 4)
+        val positions = doubleArrayOf(1.0, 1.0, 1.0, 1.0, 1.0, 1.0, 0.0, -7.5, 0.0)
+
+        val snapshot = sender.createPackets(0.05, ids, positions, 3).mapNotNull { assembler.onPacket(it) }.single()
+
+        assertSnapshot(snapshot, ids, positions, 3)
+        assertThat(snapshot.indexOf(2), lessThan(0))
+    }
+
+    @Test
+    fun `Lost packets are not acknowledged, so the next snapshot uses an older baseline`() {
+        val sender = SnapshotSender(config)
+        val assembler = SnapshotAssembler()
+
+        val ids = longArrayOf(5)
+        val positions = doubleArrayOf(1.0, 2.0, 3.0)
+
+        sender.createPackets(0.0, ids, positions, 1).forEach { assembler.onPacket(it)?.let { sender.onAck(it.seq) } }
+
+        positions[0] = 20.0
+
+        // lost
+        sender.createPackets(0.05, ids, positions, 1)
+
+        positions[1] = 30.0
+
+        val packets = sender.createPackets(0.1, ids, positions, 1)
+
+        assertThat(packets[0].baselineSeq, `is`(0))
+
+        assertSnapshot(assembler.onPacket(packets[0])!!, ids, positions, 1)
+
+        // late duplicate of an older snapshot is ignored
+        assertThat(assembler.onPacket(packets[0]), nullValue())
+    }
+
+    @Test
+    fun `Snapshots with lost parts are dropped`() {
+        val sender = SnapshotSender(config)
+        val assembler = SnapshotAssembler()
+
+        val ids = LongArray(100) { it.toLong() }
+        val positions = DoubleArray(100 * 3) { it * 1.5 }
+
+        // the last part of each snapshot is lost
+        repeat(SNAPSHOT_HISTORY_SIZE * 3) {
+            val packets = sender.createPackets(0.0, ids, positions, 100)
+
+            assertThat(packets.size, greaterThan(1))
+
+            packets.dropLast(1).forEach { assertThat(assembler.onPacket(it), nullValue()) }
+
+            assertThat(assembler.numAssemblies, lessThanOrEqualTo(SNAPSHOT_HISTORY_SIZE))
+        }
+
+        val snapshot = sender.createPackets(0.0, ids, positions, 100).mapNotNull { assembler.onPacket(it) }.single()
+
+        assertSnapshot(snapshot, ids, positions, 100)
+        assertThat(assembler.numAssemblies, `is`(0))
+    }
+
+    @Test
+    fun `Snapshot is sent in full if the baseline is too old`() {
+        val sender = SnapshotSender(config)
+
+        val ids = longArrayOf(5)
+        val positions = doubleArrayOf(1.0, 2.0, 3.0)
+
+        sender.createPackets(0.0, ids, positions, 1)
+        sender.onAck(0)
+
+        repeat(SNAPSHOT_HISTORY_SIZE - 1) {
+            sender.createPackets(0.0, ids, positions, 1)
+        }
+
+        assertThat(sender.createPackets(0.0, ids, positions, 1)[0].baselineSeq, `is`(-1))
+    }
+
+    @Test
+    fun `Send rate is independent of frame rate`() {
+        val sender = SnapshotSender(SnapshotConfig(sendRate = 16))
+
+        // 2 seconds at 64 fps, the first snapshot is sent immediately
+        val numSent = (1..128).count { sender.tick(1 / 64.0) }
+
+        assertThat(numSent, `is`(33))
+    }
+
+    @Test
+    fun `Packet converts to bundle`() {
+        val packet = SnapshotPacket(3, 1, 0.5, 0, 2, byteArrayOf(1, 2))
+
+        val result = SnapshotPacket.fromBundle(packet.toBundle())
+
+        assertThat(result.seq, `is`(3))
+        assertThat(result.baselineSeq, `is`(1))
+        assertThat(result.time, `is`(0.5))
+        assertThat(result.part, `is`(0))
+        assertThat(result.numParts, `is`(2))
+        assertThat(result.data.toList(), contains<Byte>(1, 2))
+    }
+
+    @Test
+    fun `Interpolation buffer`() {
+        val buffer = InterpolationBuffer(3)
+
+        assertThat(buffer.interpolate(0.0), `is`(false))
+
+        buffer.add(1.0, 10.0, 0.0, 0.0)
+        buffer.add(2.0, 20.0, -10.0, 5.0)
+
+        // ignored, not newer
+        buffer.add(1.5, 100.0, 0.0, 0.0)
+
+        buffer.interpolate(0.5)
+        assertThat(buffer.x, `is`(10.0))
+
+        buffer.interpolate(1.5)
+        assertThat(buffer.x, `is`(15.0))
+        assertThat(buffer.y, `is`(-5.0))
+        assertThat(buffer.z, `is`(2.5))
+
+        // no extrapolation
+        buffer.interpolate(3.0)
+        assertThat(buffer.x, `is`(20.0))
+        assertThat(buffer.size, `is`(1))
+
+        buffer.add(3.0, 30.0, 0.0, 0.0)
+        buffer.add(4.0, 40.0, 0.0, 0.0)
+        buffer.add(5.0, 50.0, 0.0, 0.0)
+
+        // oldest dropped
+        assertThat(buffer.size, `is`(3))
+
+        buffer.interpolate(3.0)
+        assertThat(buffer.x, `is`(30.0))
+    }
+
+    @Test
+    fun `Config is validated`() {
+        assertThrows(IllegalArgumentException::class.java) {
+            SnapshotConfig(sendRate = 0)
+        }
+
+        assertThrows(IllegalArgumentException::class.java) {
+            SnapshotConfig(maxPacketSize = 10)
+        }
+    }
+
+    private fun assertSnapshot(snapshot: Snapshot, ids: LongArray, positions: DoubleArray, size: Int) {
+        assertThat(snapshot.size, `is`(size))
+
+        for (i in 0 until size) {
+            assertThat(snapshot.ids[i], `is`(ids[i]))
+
+            for (k in 0..2) {
+                assertThat(snapshot.values[i * 3 + k] * config.positionPrecision, closeTo(positions[i * 3 + k], config.positionPrecision / 2 + 1e-9))
+            }
+        }
+    }
+}